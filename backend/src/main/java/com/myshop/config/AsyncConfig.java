@@ -1,5 +1,6 @@
 package com.myshop.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -107,4 +108,97 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Bulk import thread pool.
+     * Used for: the COPY/merge stage of admin product imports. The request
+     * thread parses and validates the upload while one of these threads streams
+     * the accepted rows into PostgreSQL, so both stages run concurrently.
+     *
+     * Deliberately tiny with AbortPolicy: every running import pins a database
+     * connection for its whole duration. A third concurrent import is rejected
+     * instead of queuing behind (or running on) the caller.
+     */
+    @Bean("importTaskExecutor")
+    public ThreadPoolTaskExecutor importTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("async-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Cache warming thread pool.
+     * Used for: loading + pipelining batches of popular products into Redis
+     * after startup. Two threads cap how many product queries warming can have
+     * in flight, so a fresh deploy cannot monopolize the Hikari pool while real
+     * traffic is arriving.
+     */
+    @Bean("cacheWarmingExecutor")
+    public ThreadPoolTaskExecutor cacheWarmingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("cache-warming-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Dead letter replay thread pool.
+     * Used for: DeadLetterService replay jobs. Each job is one thread that
+     * streams a Mongo cursor and paces its own sends, so two threads means at
+     * most two replays per node; a third is rejected rather than queued behind
+     * a job that may run for hours.
+     */
+    @Bean("deadLetterReplayExecutor")
+    public ThreadPoolTaskExecutor deadLetterReplayExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("dlt-replay-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Password hashing thread pool.
+     * Used for: every BCrypt encode/matches (login, registration, rehash), via
+     * BoundedPasswordEncoder.
+     *
+     * BCrypt is pure CPU (~50-100ms per call at cost 10). On virtual threads
+     * nothing limits how many run at once, so a login storm would take every
+     * core away from catalog traffic. A fixed pool — half the cores by default —
+     * caps that, and AbortPolicy refuses work once the queue is full: with N
+     * threads and queue Q a caller waits at most about (Q / N) hashes, and
+     * anything beyond that gets a fast 503 instead of a slow timeout.
+     */
+    @Bean("passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${myshop.auth.password-hashing.threads:0}") int threads,
+            @Value("${myshop.auth.password-hashing.queue-capacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
 }
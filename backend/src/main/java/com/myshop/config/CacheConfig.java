@@ -2,6 +2,7 @@ package com.myshop.config;
 
 import org.springframework.context.annotation.Configuration;
 
+import com.myshop.config.cache.InstrumentedCacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
@@ -18,13 +19,25 @@ public class CacheConfig {
 
         public static final String CACHE_PRODUCTS = "products";
         public static final String CACHE_PRODUCTS_PAGED = "products_paged";
-        public static final String CACHE_CATEGORIES = "categories";
 
+        /**
+         * Pre-rendered JSON of the "data" part of the same responses, as raw
+         * UTF-8 bytes (see RenderedResponseCache). Same keys and TTLs as the
+         * object caches above and always evicted together with them.
+         */
+        public static final String CACHE_PRODUCTS_JSON = "products_json";
+        public static final String CACHE_PRODUCTS_PAGED_JSON = "products_paged_json";
+
+        public static final Duration PRODUCTS_TTL = Duration.ofMinutes(10);
+        public static final Duration PRODUCTS_PAGED_TTL = Duration.ofMinutes(5);
+
+        /**
+         * Value serializer shared by every Redis cache. Exposed as a bean so code
+         * that writes cache entries with raw multi-key/pipelined commands (cache
+         * warming, batch reads) produces bytes the CacheManager can read back.
+         */
         @Bean
-        @org.springframework.context.annotation.Primary
-        public org.springframework.cache.CacheManager cacheManager(
-                        org.springframework.data.redis.connection.RedisConnectionFactory redisConnectionFactory) {
-                
+        public org.springframework.data.redis.serializer.RedisSerializer<Object> cacheValueSerializer() {
                 com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
                 objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
                 objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -35,33 +48,58 @@ public class CacheConfig {
                         .build();
                 objectMapper.activateDefaultTyping(ptv, com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping.NON_FINAL, com.fasterxml.jackson.annotation.JsonTypeInfo.As.PROPERTY);
 
-                org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer serializer = 
-                        new org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer(objectMapper);
+                return new org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer(objectMapper);
+        }
+
+        /**
+         * Redis-backed caches, each wrapped in an InstrumentedCache so hits,
+         * misses and load times are metered per cache name (and reported on
+         * GET /api/v1/admin/cache/stats).
+         */
+        @Bean
+        @org.springframework.context.annotation.Primary
+        public InstrumentedCacheManager cacheManager(
+                        org.springframework.data.redis.connection.RedisConnectionFactory redisConnectionFactory,
+                        org.springframework.data.redis.serializer.RedisSerializer<Object> cacheValueSerializer,
+                        io.micrometer.core.instrument.MeterRegistry meterRegistry) {
 
                 org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair<Object> jsonSerializer =
-                        org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer(serializer);
+                        org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer);
+                // Rendered JSON is stored as-is: no type info, no second Jackson pass
+                org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair<byte[]> rawBytes =
+                        org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.byteArray();
 
-                return org.springframework.data.redis.cache.RedisCacheManager.builder(redisConnectionFactory)
+                org.springframework.data.redis.cache.RedisCacheManager redisCacheManager =
+                        org.springframework.data.redis.cache.RedisCacheManager.builder(redisConnectionFactory)
                                 .initialCacheNames(java.util.Set.of(CACHE_PRODUCTS, CACHE_PRODUCTS_PAGED,
-                                                CACHE_CATEGORIES))
+                                                CACHE_PRODUCTS_JSON, CACHE_PRODUCTS_PAGED_JSON))
                                 .withCacheConfiguration(CACHE_PRODUCTS,
                                                 org.springframework.data.redis.cache.RedisCacheConfiguration
                                                                 .defaultCacheConfig()
-                                                                .entryTtl(Duration.ofMinutes(10))
+                                                                .entryTtl(PRODUCTS_TTL)
                                                                 .serializeValuesWith(jsonSerializer)
                                                                 .disableCachingNullValues())
                                 .withCacheConfiguration(CACHE_PRODUCTS_PAGED,
                                                 org.springframework.data.redis.cache.RedisCacheConfiguration
                                                                 .defaultCacheConfig()
-                                                                .entryTtl(Duration.ofMinutes(5))
+                                                                .entryTtl(PRODUCTS_PAGED_TTL)
                                                                 .serializeValuesWith(jsonSerializer)
                                                                 .disableCachingNullValues())
-                                .withCacheConfiguration(CACHE_CATEGORIES,
+                                .withCacheConfiguration(CACHE_PRODUCTS_JSON,
                                                 org.springframework.data.redis.cache.RedisCacheConfiguration
                                                                 .defaultCacheConfig()
-                                                                .entryTtl(Duration.ofHours(1))
-                                                                .serializeValuesWith(jsonSerializer)
+                                                                .entryTtl(PRODUCTS_TTL)
+                                                                .serializeValuesWith(rawBytes)
+                                                                .disableCachingNullValues())
+                                .withCacheConfiguration(CACHE_PRODUCTS_PAGED_JSON,
+                                                org.springframework.data.redis.cache.RedisCacheConfiguration
+                                                                .defaultCacheConfig()
+                                                                .entryTtl(PRODUCTS_PAGED_TTL)
+                                                                .serializeValuesWith(rawBytes)
                                                                 .disableCachingNullValues())
                                 .build();
+                // Not a bean of its own, so the container won't initialize it
+                redisCacheManager.afterPropertiesSet();
+                return new InstrumentedCacheManager(redisCacheManager, meterRegistry);
         }
 }
@@ -0,0 +1,86 @@
+package com.myshop.config;
+
+import com.myshop.config.datasource.ReadYourWritesTracker;
+import com.myshop.config.datasource.ReplicaLagMonitor;
+import com.myshop.config.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * DataSourceRoutingConfig — Sends @Transactional(readOnly = true) work to a
+ * read replica.
+ *
+ * Only active with myshop.datasource.replica.enabled=true. Otherwise this
+ * class does nothing and Spring Boot builds the usual single myshop-hikari
+ * pool from spring.datasource.
+ *
+ * When enabled there are two pools:
+ * - primaryDataSource: spring.datasource.* / spring.datasource.hikari.*,
+ *   exactly what auto-configuration would have built
+ * - replicaDataSource: myshop.datasource.replica.hikari.* (read-only pool)
+ * and the @Primary DataSource that JPA, JdbcTemplate and Flyway use is
+ * LazyConnectionDataSourceProxy → ReplicaRoutingDataSource → one of the two.
+ * Flyway and every read-write transaction therefore still hit the primary.
+ *
+ * Routing is per connection, so it relies on spring.jpa.open-in-view=false:
+ * each transaction then gets its own EntityManager and connection instead of
+ * reusing the one the request's first transaction opened.
+ */
+@Configuration
+@ConditionalOnProperty(name = "myshop.datasource.replica.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("myshop.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${myshop.datasource.replica.max-lag-ms:1000}") long maxLagMs,
+            MeterRegistry meterRegistry) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicaDataSource, maxLagMs, meterRegistry);
+        monitor.check(); // don't route reads before the first check says the replica is usable
+        return monitor;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${myshop.datasource.replica.sticky-window-ms:5000}") long stickyWindowMs) {
+        return new ReadYourWritesTracker(stickyWindowMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaLagMonitor replicaLagMonitor,
+            ReadYourWritesTracker readYourWritesTracker,
+            MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primaryDataSource, replicaDataSource, replicaLagMonitor, readYourWritesTracker, meterRegistry));
+        // Hikari defaults; set explicitly so the proxy doesn't open a connection to find out
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
@@ -1,8 +1,15 @@
 package com.myshop.config;
 
+import com.myshop.constants.KafkaTopics;
+import com.myshop.kafka.idempotency.IdempotencyGuard;
+import com.myshop.kafka.parallel.KeyOrderedDispatcher;
+import com.myshop.kafka.retry.RetryTierMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,14 +19,21 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 import org.springframework.kafka.support.serializer.JsonSerializer;
-import org.springframework.util.backoff.FixedBackOff;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.ExponentialBackOff;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -79,9 +93,28 @@ public class KafkaConfig {
                 .build();
     }
 
+    // One DLT per source topic (KafkaTopics.*_DLT). @RetryableTopic listeners
+    // create their retry tier topics themselves (see KafkaRetryConfig).
+
+    @Bean
+    public NewTopic orderPlacedDltTopic() {
+        return TopicBuilder.name(KafkaTopics.ORDER_PLACED_DLT)
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic inventoryUpdatedDltTopic() {
+        return TopicBuilder.name(KafkaTopics.INVENTORY_UPDATED_DLT)
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
     @Bean
-    public NewTopic dltTopic() {
-        return TopicBuilder.name("myshop.dlt")
+    public NewTopic notificationDispatchDltTopic() {
+        return TopicBuilder.name(KafkaTopics.NOTIFICATION_DISPATCH_DLT)
                 .partitions(1)
                 .replicas(1)
                 .build();
@@ -114,6 +147,10 @@ public class KafkaConfig {
 
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerProps());
+    }
+
+    private Map<String, Object> consumerProps() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "myshop-group"); // Default group
@@ -126,13 +163,13 @@ public class KafkaConfig {
 
         // Tells JsonDeserializer to trust all packages for deserialization
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        return configProps;
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
-            KafkaTemplate<String, Object> kafkaTemplate) {
+            KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry,
+            IdempotencyGuard idempotencyGuard) {
 
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
@@ -141,19 +178,172 @@ public class KafkaConfig {
         // receipt
         // after successful processing. If it crashes before ack, Kafka redelivers.
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // Listeners without @RetryableTopic; retry topic containers get their own handler
+        factory.setCommonErrorHandler(deadLetterErrorHandler(kafkaTemplate));
+        // Also applied to the retry tier containers this factory creates
+        factory.setRecordInterceptor(new RetryTierMetricsInterceptor(meterRegistry));
+        // Seeds/forgets the guard's Bloom filter as partitions move (TrendingConsumer, InventorySyncConsumer)
+        factory.getContainerProperties().setConsumerRebalanceListener(idempotencyGuard);
 
-        // 3 Retries then DLT
-        // If a message fails 3 times (with 1s interval), it is sent to the Dead Letter
-        // Topic (DLT).
-        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
-                (r, e) -> new org.apache.kafka.common.TopicPartition("myshop.dlt", -1));
+        return factory;
+    }
+
+    /**
+     * Batch listeners receive everything one poll returned as a List and
+     * acknowledge it once. The consumer waits up to fetch-max-wait-ms for
+     * fetch-min-bytes to accumulate, so batches actually fill under load
+     * instead of arriving one record at a time.
+     *
+     * Partial failure: a listener that can tell which records failed retries
+     * and dead-letters just those itself (batchDeadLetterRecoverer,
+     * batchRetryBackOff) and acknowledges the batch. The error handler is the
+     * fallback for a listener that throws: BatchListenerFailedException
+     * commits the offsets before its index and re-delivers the rest, retrying
+     * (then dead-lettering) that record like the record-mode factory does.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${myshop.kafka.batch.max-poll-records:500}") int maxPollRecords,
+            @Value("${myshop.kafka.batch.fetch-min-bytes:16384}") int fetchMinBytes,
+            @Value("${myshop.kafka.batch.fetch-max-wait-ms:200}") int fetchMaxWaitMs) {
 
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(
-                recoverer,
-                new FixedBackOff(1000L, 3L) // 1 second backoff, 3 retries max
-        );
-        factory.setCommonErrorHandler(errorHandler);
+        Map<String, Object> configProps = consumerProps();
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
+        factory.setBatchListener(true);
+        // acknowledge() in a batch listener commits the whole batch
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(deadLetterErrorHandler(kafkaTemplate));
 
         return factory;
     }
+
+    /** Dead-letters records a batch listener gave up on, to "{topic}.DLT" like the error handlers do. */
+    @Bean
+    public ConsumerRecordRecoverer batchDeadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return deadLetterRecoverer(kafkaTemplate);
+    }
+
+    /** The blocking backoff, for batch listeners that retry their failed records themselves. */
+    @Bean
+    public BackOff batchRetryBackOff() {
+        return blockingBackOff();
+    }
+
+    /**
+     * Parallel listeners hand each poll to the KeyOrderedDispatcher, which runs
+     * the records on virtual threads in per-key order and commits offsets
+     * itself. They are batch listeners taking (List<ConsumerRecord>, Consumer)
+     * and never acknowledge: the dispatcher commits the lowest unfinished
+     * offset per partition, and the idle events it commits on are published
+     * every commit-interval-ms while no records arrive.
+     *
+     * Failed records retry with the same blocking backoff as the other
+     * factories, but only within their key's lane, then go to "{topic}.DLT";
+     * a DLT publish that fails is repeated like a DLT consumer's failed save.
+     */
+    @Bean
+    public KeyOrderedDispatcher keyOrderedDispatcher(KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${myshop.kafka.parallel.max-in-flight:1000}") int maxInFlight,
+            @Value("${myshop.kafka.parallel.drain-timeout-ms:10000}") long drainTimeoutMs) {
+        return new KeyOrderedDispatcher(deadLetterRecoverer(kafkaTemplate), blockingBackOff(), untilItWorksBackOff(),
+                maxInFlight, Duration.ofMillis(drainTimeoutMs));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> parallelKafkaListenerContainerFactory(
+            KeyOrderedDispatcher keyOrderedDispatcher, IdempotencyGuard idempotencyGuard,
+            @Value("${myshop.kafka.parallel.max-poll-records:500}") int maxPollRecords,
+            @Value("${myshop.kafka.parallel.commit-interval-ms:1000}") long commitIntervalMs) {
+
+        Map<String, Object> configProps = consumerProps();
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
+        factory.setBatchListener(true);
+        // MANUAL without acknowledge(): the container never commits, the dispatcher does
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // Drain and commit revoked partitions first, then let the guard forget them
+        factory.getContainerProperties().setConsumerRebalanceListener(
+                rebalanceListeners(keyOrderedDispatcher, idempotencyGuard));
+        factory.getContainerProperties().setIdleEventInterval(commitIntervalMs);
+
+        return factory;
+    }
+
+    /**
+     * For DLTHandler, the end of the line: there is no DLT of the DLT, so a
+     * record that cannot be stored is retried in place (1s doubling to a
+     * minute between attempts) until it can, instead of being dropped.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> dltKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        factory.setCommonErrorHandler(new DefaultErrorHandler(untilItWorksBackOff()));
+
+        return factory;
+    }
+
+    /** Runs each listener's callbacks in the given order. */
+    private static ConsumerAwareRebalanceListener rebalanceListeners(ConsumerAwareRebalanceListener... listeners) {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                Arrays.stream(listeners).forEach(l -> l.onPartitionsRevokedBeforeCommit(consumer, partitions));
+            }
+
+            @Override
+            public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                Arrays.stream(listeners).forEach(l -> l.onPartitionsRevokedAfterCommit(consumer, partitions));
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                Arrays.stream(listeners).forEach(l -> l.onPartitionsLost(consumer, partitions));
+            }
+
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                Arrays.stream(listeners).forEach(l -> l.onPartitionsAssigned(consumer, partitions));
+            }
+        };
+    }
+
+    /**
+     * Blocking retries, for listeners that cannot use retry topics (batch
+     * listeners, ConsumerSeekAware ones): 3 retries 1s, 2s, 4s apart on the
+     * partition itself, then the record goes to its topic's DLT
+     * ("{topic}.DLT", KafkaTopics.*_DLT).
+     */
+    private DefaultErrorHandler deadLetterErrorHandler(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DefaultErrorHandler(deadLetterRecoverer(kafkaTemplate), blockingBackOff());
+    }
+
+    private DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (r, e) -> new org.apache.kafka.common.TopicPartition(r.topic() + ".DLT", -1));
+    }
+
+    /** 1s doubling to a minute between attempts, with no limit on how many. */
+    private ExponentialBackOff untilItWorksBackOff() {
+        ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+        backOff.setMaxInterval(60_000L);
+        return backOff;
+    }
+
+    private ExponentialBackOffWithMaxRetries blockingBackOff() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(3);
+        backOff.setInitialInterval(1000L);
+        backOff.setMultiplier(2.0);
+        return backOff;
+    }
 }
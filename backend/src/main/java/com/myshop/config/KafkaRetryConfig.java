@@ -0,0 +1,66 @@
+package com.myshop.config;
+
+import com.myshop.kafka.retry.RetryTiers;
+import com.myshop.kafka.retry.TieredRetryTopicNamesProviderFactory;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.RetryTopicComponentFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.retrytopic.RetryTopicNamesProviderFactory;
+
+import java.math.BigInteger;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking retries for @RetryableTopic listeners.
+ *
+ * A record that fails is republished to the next retry topic and the main
+ * partition moves on; the retry topic's consumer pauses only its own
+ * partition until the record is due. A poison or slow record therefore
+ * never holds up the records behind it, which FixedBackOff retries on the
+ * main partition did for several seconds per failure.
+ *
+ * Customised here:
+ * - retry topics are named by delay (TieredRetryTopicNamesProviderFactory)
+ * - every forwarded record gets a jittered due time (RetryTiers), overriding
+ *   the fixed one Spring computes — the last backoff header wins
+ */
+@Configuration
+public class KafkaRetryConfig extends RetryTopicConfigurationSupport {
+
+    private final RetryTiers retryTiers;
+
+    public KafkaRetryConfig(
+            @Value(RetryTiers.INITIAL_DELAY_MS) long initialDelayMs,
+            @Value(RetryTiers.MULTIPLIER) double multiplier,
+            @Value(RetryTiers.MAX_DELAY_MS) long maxDelayMs,
+            @Value(RetryTiers.ATTEMPTS) int attempts,
+            @Value("${myshop.kafka.retry.jitter:0.2}") double jitter) {
+        this.retryTiers = new RetryTiers(initialDelayMs, multiplier, maxDelayMs, attempts, jitter);
+    }
+
+    @Override
+    protected RetryTopicComponentFactory createComponentFactory() {
+        return new RetryTopicComponentFactory() {
+
+            @Override
+            public RetryTopicNamesProviderFactory retryTopicNamesProviderFactory() {
+                return new TieredRetryTopicNamesProviderFactory();
+            }
+        };
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+        return factory -> factory.setHeadersFunction((record, exception) -> {
+            long due = retryTiers.jitteredDueTimestamp(record.topic(), System.currentTimeMillis(),
+                    ThreadLocalRandom.current());
+            return new RecordHeaders().add(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP,
+                    BigInteger.valueOf(due).toByteArray());
+        });
+    }
+}
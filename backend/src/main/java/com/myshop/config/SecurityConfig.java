@@ -18,7 +18,12 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.myshop.security.BoundedPasswordEncoder;
 import com.myshop.security.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -78,7 +83,8 @@ public class SecurityConfig {
     private final UserDetailsServiceImpl userDetailsService;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+            DaoAuthenticationProvider authenticationProvider) throws Exception {
         http
                 // Enable CORS
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -103,6 +109,9 @@ public class SecurityConfig {
                         // Public: Auth endpoints — anyone can register/login
                         .requestMatchers("/api/v1/auth/**").permitAll()
 
+                        // Public: anonymous carts, identified by their signed X-Cart-Token
+                        .requestMatchers("/api/v1/guest-cart/**").permitAll()
+
                         // Authenticated users can manage reviews (Must precede broader
                         // /api/v1/products/** rules)
                         .requestMatchers(HttpMethod.POST, "/api/v1/products/*/reviews").authenticated()
@@ -110,6 +119,8 @@ public class SecurityConfig {
 
                         // Public: Product & Category reads
                         .requestMatchers(HttpMethod.GET, "/api/v1/products/**").permitAll()
+                        // Batch lookup is a read, POSTed only because id lists outgrow URLs
+                        .requestMatchers(HttpMethod.POST, "/api/v1/products/batch").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/categories/**").permitAll()
 
                         // ADMIN only: Product writes
@@ -138,7 +149,7 @@ public class SecurityConfig {
                         .anyRequest().authenticated())
 
                 // Set the authentication provider (knows how to verify username+password)
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
 
                 // Add our JWT filter BEFORE Spring's default
                 // UsernamePasswordAuthenticationFilter
@@ -158,10 +169,12 @@ public class SecurityConfig {
      * 4. If not → throws BadCredentialsException → 401
      */
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
+        // After a successful login, re-encode hashes made at an outdated cost
+        provider.setUserDetailsPasswordService(userDetailsService);
         return provider;
     }
 
@@ -173,12 +186,21 @@ public class SecurityConfig {
      * BCrypt is intentionally SLOW (cost factor = 2^10 = 1024 rounds).
      * Each BCrypt check takes ~100ms → attacker can only try ~10/sec.
      *
-     * The password_hash in our DB (from V2__seed_data.sql) was created with
-     * cost=10. BCryptPasswordEncoder defaults to cost=10. They match.
+     * The cost comes from myshop.auth.password-hashing.bcrypt-cost (default 10,
+     * what V2__seed_data.sql used). Raising it is safe: hashes stored at a lower
+     * cost still verify, and are re-encoded at the new cost on the user's next
+     * login.
+     *
+     * Wrapped in BoundedPasswordEncoder so all that CPU work happens on the
+     * small passwordHashingExecutor, never on request threads.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${myshop.auth.password-hashing.bcrypt-cost:10}") int bcryptCost,
+            @Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor passwordHashingExecutor,
+            MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptCost), passwordHashingExecutor,
+                meterRegistry);
     }
 
     /**
@@ -200,8 +222,9 @@ public class SecurityConfig {
         // "https://myshop-frontend.azurewebsites.net"
         ));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Request-ID"));
-        configuration.setExposedHeaders(List.of("X-Cache", "Retry-After"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Request-ID", "X-Cart-Token"));
+        configuration.setExposedHeaders(List.of("X-Cache", "Retry-After", "X-Cart-Token",
+                "RateLimit-Limit", "RateLimit-Remaining", "RateLimit-Reset", "RateLimit-Policy"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
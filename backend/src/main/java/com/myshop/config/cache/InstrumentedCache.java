@@ -0,0 +1,226 @@
+package com.myshop.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.cache.Cache;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * InstrumentedCache — Decorator that measures every lookup of one cache.
+ *
+ * Meters, all tagged with the cache name:
+ *   myshop.cache.gets{result=hit|miss}  lookup latency (its count is the hit/miss count)
+ *   myshop.cache.load                   time spent producing a value after a miss
+ *   myshop.cache.puts / .evictions      writes and removals
+ *
+ * Load time is measured for both ways Spring fills a cache: get(key, loader)
+ * times the loader itself; the plain "get, miss, compute, put" sequence
+ * (@Cacheable without sync, RenderedResponseCache) is timed from the miss to
+ * the put of the same key. Those pending misses are kept per key in a small
+ * map whose entries expire after PENDING_LOAD_TTL: a miss that is never
+ * followed by a put (the method threw, or "unless" rejected the result)
+ * is forgotten instead of staying behind on a pooled thread, and a put
+ * long after an unrelated miss is not mistaken for a slow load.
+ *
+ * When called inside an HTTP request, the outcome of the lookup is also
+ * stored as a request attribute (see outcome()), so a controller can report
+ * HIT/MISS without asking Redis a second time.
+ */
+public class InstrumentedCache implements Cache {
+
+    private static final String OUTCOME_ATTRIBUTE_PREFIX = InstrumentedCache.class.getName() + ".";
+
+    static final Duration PENDING_LOAD_TTL = Duration.ofMinutes(1);
+    private static final int MAX_PENDING_LOADS = 10_000;
+
+    private final Cache delegate;
+    private final Timer hits;
+    private final Timer misses;
+    private final Timer loads;
+    private final Counter puts;
+    private final Counter evictions;
+
+    /** Misses whose value has not been put yet: key → System.nanoTime() of the miss. */
+    private final ConcurrentMap<Object, Long> pendingLoads;
+
+    public InstrumentedCache(Cache delegate, MeterRegistry meterRegistry) {
+        this(delegate, meterRegistry, Ticker.systemTicker());
+    }
+
+    InstrumentedCache(Cache delegate, MeterRegistry meterRegistry, Ticker ticker) {
+        this.delegate = delegate;
+        this.pendingLoads = Caffeine.newBuilder()
+                .maximumSize(MAX_PENDING_LOADS)
+                .expireAfterWrite(PENDING_LOAD_TTL)
+                .ticker(ticker)
+                .<Object, Long>build()
+                .asMap();
+        String name = delegate.getName();
+        this.hits = Timer.builder("myshop.cache.gets").tag("cache", name).tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Timer.builder("myshop.cache.gets").tag("cache", name).tag("result", "miss")
+                .register(meterRegistry);
+        this.loads = Timer.builder("myshop.cache.load").tag("cache", name).register(meterRegistry);
+        this.puts = Counter.builder("myshop.cache.puts").tag("cache", name).register(meterRegistry);
+        this.evictions = Counter.builder("myshop.cache.evictions").tag("cache", name).register(meterRegistry);
+    }
+
+    /**
+     * "HIT" or "MISS" for the latest lookup of this cache during the request,
+     * or null if the request did not look it up (or the lookup failed).
+     */
+    public static String outcome(HttpServletRequest request, String cacheName) {
+        Object outcome = request.getAttribute(OUTCOME_ATTRIBUTE_PREFIX + cacheName);
+        return outcome instanceof String value ? value : null;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        long start = System.nanoTime();
+        ValueWrapper value = delegate.get(key);
+        recordLookup(key, value != null, start, System.nanoTime());
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        long start = System.nanoTime();
+        T value = delegate.get(key, type);
+        recordLookup(key, value != null, start, System.nanoTime());
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long[] loadNanos = { -1 };
+        long start = System.nanoTime();
+        T value = delegate.get(key, () -> {
+            long loadStart = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                loadNanos[0] = System.nanoTime() - loadStart;
+                loads.record(loadNanos[0], TimeUnit.NANOSECONDS);
+            }
+        });
+        boolean hit = loadNanos[0] < 0;
+        // Lookup latency only: the loader's time is already in myshop.cache.load
+        recordOutcome(hit, System.nanoTime() - start - (hit ? 0 : loadNanos[0]));
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return delegate.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        recordPut(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        recordPut(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        evictions.increment();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        evictions.increment();
+        return invalidated;
+    }
+
+    public long hitCount() {
+        return hits.count();
+    }
+
+    public long missCount() {
+        return misses.count();
+    }
+
+    public long loadCount() {
+        return loads.count();
+    }
+
+    public double meanLoadMillis() {
+        return loads.mean(TimeUnit.MILLISECONDS);
+    }
+
+    private void recordLookup(Object key, boolean hit, long start, long end) {
+        recordOutcome(hit, end - start);
+        if (hit) {
+            pendingLoads.remove(key);
+        } else {
+            pendingLoads.put(key, end);
+        }
+    }
+
+    private void recordOutcome(boolean hit, long lookupNanos) {
+        (hit ? hits : misses).record(lookupNanos, TimeUnit.NANOSECONDS);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(OUTCOME_ATTRIBUTE_PREFIX + getName(), hit ? "HIT" : "MISS",
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private void recordPut(Object key) {
+        puts.increment();
+        Long missedAt = pendingLoads.remove(key);
+        if (missedAt != null) {
+            loads.record(System.nanoTime() - missedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
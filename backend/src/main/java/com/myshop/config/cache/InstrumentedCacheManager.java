@@ -0,0 +1,53 @@
+package com.myshop.config.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * InstrumentedCacheManager — Hands out InstrumentedCache wrappers around the
+ * caches of another CacheManager, one wrapper (and one set of meters) per
+ * cache name.
+ */
+public class InstrumentedCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, InstrumentedCache> caches = new ConcurrentHashMap<>();
+
+    public InstrumentedCacheManager(CacheManager delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        InstrumentedCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, ignored -> new InstrumentedCache(target, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /** Every cache that exists so far, instrumented. */
+    public List<InstrumentedCache> getCaches() {
+        return getCacheNames().stream()
+                .map(this::getCache)
+                .filter(InstrumentedCache.class::isInstance)
+                .map(InstrumentedCache.class::cast)
+                .toList();
+    }
+}
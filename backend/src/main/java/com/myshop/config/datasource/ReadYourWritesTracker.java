@@ -0,0 +1,51 @@
+package com.myshop.config.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReadYourWritesTracker — Remembers who wrote recently so their reads stay on
+ * the primary.
+ *
+ * A replica applies WAL asynchronously, so "update my profile, then reload
+ * it" could read the old row from the replica. After a user's write
+ * transaction commits, that user is pinned to the primary for the sticky
+ * window (set it above the max tolerated replica lag).
+ *
+ * Node-local: a user whose next request lands on another node is not pinned
+ * there. Acceptable here because the lag monitor already keeps replica reads
+ * within max-lag-ms; the window only covers that last gap.
+ */
+public class ReadYourWritesTracker {
+
+    private final long stickyWindowMs;
+    private final ConcurrentHashMap<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long stickyWindowMs) {
+        this.stickyWindowMs = stickyWindowMs;
+    }
+
+    public void recordWrite(String user) {
+        pinnedUntil.put(user, System.currentTimeMillis() + stickyWindowMs);
+    }
+
+    public boolean isPinned(String user) {
+        Long until = pinnedUntil.get(user);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            pinnedUntil.remove(user, until);
+            return false;
+        }
+        return true;
+    }
+
+    /** Drops expired entries of users who never read again. */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        pinnedUntil.values().removeIf(until -> until < now);
+    }
+}
@@ -0,0 +1,81 @@
+package com.myshop.config.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * ReplicaLagMonitor — Decides whether the replica is fresh enough to read from.
+ *
+ * Polled on a schedule (not per query) against the replica pool directly.
+ * Lag is 0 while the replica has replayed everything it received; otherwise
+ * it is the age of the last replayed transaction. Comparing LSNs first
+ * matters: on an idle primary the last replay timestamp keeps aging even
+ * though the replica is fully caught up.
+ *
+ * Unusable when the check fails (replica down/unreachable) or lag exceeds
+ * max-lag-ms; the routing data source then sends reads to the primary until
+ * a later check succeeds.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN 0
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+
+    private volatile boolean reachable;
+    private volatile double lagMs = -1;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMs, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(2);
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("myshop.datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .baseUnit("milliseconds")
+                .description("Replica replay lag; -1 when the replica is unreachable")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${myshop.datasource.replica.lag-check-interval-ms:2000}")
+    public void check() {
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lagMs = lag == null ? 0 : lag;
+            if (!reachable) {
+                log.info("Replica reachable again (lag {} ms)", (long) lagMs);
+            }
+            reachable = true;
+        } catch (RuntimeException e) {
+            markUnavailable(e);
+        }
+    }
+
+    /** Called by the routing data source when a replica connection attempt fails. */
+    public void markUnavailable(Exception cause) {
+        if (reachable) {
+            log.warn("Replica unavailable; routing reads to primary", cause);
+        }
+        reachable = false;
+        lagMs = -1;
+    }
+
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    public boolean isWithinLag() {
+        return lagMs >= 0 && lagMs <= maxLagMs;
+    }
+}
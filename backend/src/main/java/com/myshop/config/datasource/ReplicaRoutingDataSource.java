@@ -0,0 +1,136 @@
+package com.myshop.config.datasource;
+
+import com.myshop.util.SecurityUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReplicaRoutingDataSource — Picks primary or replica per transaction.
+ *
+ * Decision order, made when the transaction's first connection is requested:
+ * 1. no Spring-managed transaction      → primary ("no_transaction")
+ * 2. read-write transaction             → primary ("write")
+ * 3. replica check failing              → primary ("replica_unavailable")
+ * 4. replica lag above max-lag-ms       → primary ("replica_lagging")
+ * 5. current user wrote recently        → primary ("recent_write")
+ * 6. otherwise                          → replica ("read_only")
+ * If opening the replica connection itself fails, the same request falls
+ * back to the primary ("replica_error") and the replica is marked
+ * unavailable until the next successful lag check.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager
+ * opens its connection before the read-only flag is exposed through
+ * TransactionSynchronizationManager; the proxy defers the real getConnection()
+ * to the first statement, when the flag is set.
+ *
+ * getConnection(username, password) takes the same route and passes the
+ * credentials to whichever pool was chosen.
+ *
+ * Every decision increments myshop.datasource.routing{target, reason}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+            ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(target -> target.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        String reason = replicaReason();
+        if (reason == null) {
+            try {
+                Connection connection = opener.open(replica);
+                count("replica", "read_only");
+                return connection;
+            } catch (SQLException e) {
+                lagMonitor.markUnavailable(e);
+                reason = "replica_error";
+            }
+        }
+        count("primary", reason);
+        return opener.open(primary);
+    }
+
+    /** Null when the replica may serve this connection, otherwise why the primary must. */
+    private String replicaReason() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return "no_transaction";
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinUserAfterCommit();
+            return "write";
+        }
+        if (!lagMonitor.isReachable()) {
+            return "replica_unavailable";
+        }
+        if (!lagMonitor.isWithinLag()) {
+            return "replica_lagging";
+        }
+        if (currentUser().map(readYourWritesTracker::isPinned).orElse(false)) {
+            return "recent_write";
+        }
+        return null;
+    }
+
+    /** Pins the user only once the write is durable on the primary. */
+    private void pinUserAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        currentUser().ifPresent(user -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWritesTracker.recordWrite(user);
+                    }
+                }));
+    }
+
+    private void count(String target, String reason) {
+        counters.computeIfAbsent(target + ':' + reason, key -> Counter.builder("myshop.datasource.routing")
+                .tag("target", target)
+                .tag("reason", reason)
+                .description("Connections routed to the primary or the read replica")
+                .register(meterRegistry))
+                .increment();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource target) throws SQLException;
+    }
+
+    private static Optional<String> currentUser() {
+        return SecurityUtils.isAuthenticated() ? SecurityUtils.getCurrentUserEmail() : Optional.empty();
+    }
+}
@@ -20,10 +20,16 @@ public final class AppConstants {
     public static final String DEFAULT_PAGE_SIZE_STR = "20";
     public static final String DEFAULT_SORT_FIELD = "createdAt";
 
+    /** Max product ids per batch lookup (GET ?ids= or POST /products/batch). */
+    public static final int MAX_BATCH_IDS = 500;
+
     // JWT header constants
     public static final String AUTH_HEADER = "Authorization";
     public static final String AUTH_BEARER_PREFIX = "Bearer ";
 
+    /** Signed id of an anonymous cart; sent on guest cart calls and on login/register to merge it. */
+    public static final String CART_TOKEN_HEADER = "X-Cart-Token";
+
     // API versioning prefix
     public static final String API_V1 = "/api/v1";
 
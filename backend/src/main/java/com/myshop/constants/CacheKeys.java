@@ -30,23 +30,80 @@ public final class CacheKeys {
     /** Paginated product list with filter hash. TTL: 5 minutes. */
     public static final String PRODUCTS_LIST = "products:list:%s";
 
+    /**
+     * Entry key written by Spring's RedisCacheManager: "{cacheName}::{key}",
+     * e.g. "products::3f2a...". Needed when bypassing the Cache abstraction
+     * for multi-key Redis commands.
+     */
+    public static final String SPRING_CACHE_ENTRY = "%s::%s";
+
+    /**
+     * HyperLogLog of distinct viewers of a product on one UTC day (yyyyMMdd).
+     * TTL: 35 days. PFCOUNT over several day keys gives the multi-day union.
+     */
+    public static final String PRODUCT_UNIQUE_VIEWERS = "hll:product:viewers:%s:%s";
+
+    /**
+     * Trending state shared between nodes, per scope ("all" or a category id).
+     * Hash fields are node ids: each node owns its own field and every node
+     * merges all fields. TTL: 8 half-lives; fields of nodes that stopped
+     * publishing are deleted by the merge.
+     */
+    public static final String TRENDING_SKETCH = "trending:sketch:%s";
+    public static final String TRENDING_CANDIDATES = "trending:candidates:%s";
+
+    /** Set of scopes any node has published. */
+    public static final String TRENDING_SCOPES = "trending:scopes";
+
+    /** Hash nodeId → last publish time (epoch ms); stale nodes are ignored and pruned. */
+    public static final String TRENDING_NODES = "trending:nodes";
+
     // ── Category Keys ─────────────────────────────────────────────────────────
 
     /** Full category tree. TTL: 1 hour (rarely changes). */
     public static final String CATEGORIES_ALL = "categories:all";
 
+    // ── Cart Keys ─────────────────────────────────────────────────────────────
+
+    /**
+     * Redis-resident cart (myshop.cart.storage=redis): hash of productId →
+     * quantity plus "_"-prefixed meta fields. TTL: myshop.cart.redis.ttl-days,
+     * renewed on every write.
+     */
+    public static final String CART_USER = "cart:user:%s";
+
+    /** Set of user emails whose Redis cart has changes not yet written to Postgres. */
+    public static final String CART_DIRTY = "cart:dirty";
+
+    /** Anonymous cart: hash of productId → quantity. TTL: myshop.guest-cart.ttl-days, renewed on every write. */
+    public static final String CART_GUEST = "cart:guest:%s";
+
     // ── Auth Keys ─────────────────────────────────────────────────────────────
 
     /** JWT refresh token. TTL: 7 days. */
     public static final String JWT_REFRESH = "jwt:refresh:%s";
 
+    /**
+     * Sorted set of user ids scored by revocation time (epoch ms): access
+     * tokens issued at or before it are refused. Entries older than the access
+     * token lifetime are pruned by AccessDenylist's sync.
+     */
+    public static final String AUTH_REVOKED = "auth:revoked";
+
     // ── Rate Limiting Keys ────────────────────────────────────────────────────
 
-    /** Rate limit counter per IP per minute window. TTL: 1 minute. */
-    public static final String RATE_LIMIT_API = "rate_limit:%s:%d";
+    /**
+     * Requests all nodes let through for one limiter key ("{policy}:ip:{ip}",
+     * "{policy}:user:{id}") in one minute window, reported by
+     * LocalRateLimiter's sync. TTL: 2 minutes.
+     */
+    public static final String RATE_LIMIT_WINDOW = "rate_limit:%s:%d";
 
-    /** Login attempt counter per IP (stricter). TTL: 1 minute. */
-    public static final String RATE_LIMIT_AUTH = "rate_limit:auth:%s:%d";
+    /**
+     * GCRA theoretical arrival time (epoch µs) for one limiter key
+     * (myshop.rate-limit.mode=exact). TTL: until that time has passed.
+     */
+    public static final String RATE_LIMIT_GCRA = "rate_limit:gcra:%s";
 
     // ── Distributed Lock Keys ─────────────────────────────────────────────────
 
@@ -58,6 +115,15 @@ public final class CacheKeys {
     /** Autocomplete suggestions for a prefix. TTL: 30 minutes. */
     public static final String SEARCH_SUGGEST = "search:suggest:%s";
 
+    // ── Kafka Keys ────────────────────────────────────────────────────────────
+
+    /**
+     * Set of eventIds one consumer group finished on one partition during one
+     * UTC hour (yyyyMMddHH): group, topic, partition, hour. Read by
+     * IdempotencyGuard. TTL: myshop.kafka.idempotency.retention-hours + 1 hour.
+     */
+    public static final String KAFKA_PROCESSED_EVENTS = "kafka:processed:%s:%s:%d:%s";
+
     // ── Utility method for formatted keys ────────────────────────────────────
 
     /** Format a key pattern with arguments. */
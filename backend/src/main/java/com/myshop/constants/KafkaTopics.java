@@ -13,6 +13,8 @@ package com.myshop.constants;
  * NAMING CONVENTION:
  * Resource.action (dot-separated, lowercase)
  * Dead Letter Topics = original topic + ".DLT" (Spring Kafka convention)
+ * Retry tiers = original topic + "." + listener + ".retry-" + delay
+ * (e.g. order.placed.trending.retry-30s), see RetryTiers
  *
  * Added in Phase 5. Defined here in Phase 0 so all skeleton references compile.
  */
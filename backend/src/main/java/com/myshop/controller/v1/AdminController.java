@@ -7,9 +7,19 @@ import org.springframework.cache.CacheManager;
 import org.springframework.cache.Cache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PathVariable;
 import lombok.RequiredArgsConstructor;
 import com.myshop.dto.response.ApiResponse;
+import com.myshop.dto.response.CacheStatsResponse;
+import com.myshop.dto.response.CacheWarmingStatusResponse;
+import com.myshop.dto.response.ProductViewStatsResponse;
+import com.myshop.service.AuthService;
+import com.myshop.service.CacheStatsService;
+import com.myshop.service.CacheWarmingService;
+import com.myshop.service.ProductViewCounter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,6 +32,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class AdminController {
 
     private final CacheManager cacheManager;
+    private final CacheWarmingService cacheWarmingService;
+    private final CacheStatsService cacheStatsService;
+    private final ProductViewCounter productViewCounter;
+    private final AuthService authService;
 
     @Operation(summary = "Clear a specific cache by name", security = @SecurityRequirement(name = "bearerAuth"))
     @DeleteMapping("/cache/{cacheName}")
@@ -35,4 +49,38 @@ public class AdminController {
                 .body(ApiResponse.error(com.myshop.exception.ErrorCode.RESOURCE_NOT_FOUND.name(),
                         "Cache not found: " + cacheName));
     }
+
+    @Operation(summary = "Hit ratio, load time, key count and memory per cache", security = @SecurityRequirement(name = "bearerAuth"))
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<java.util.List<CacheStatsResponse>>> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(cacheStatsService.getStats()));
+    }
+
+    @Operation(summary = "Progress of the product cache warming run on this node", security = @SecurityRequirement(name = "bearerAuth"))
+    @GetMapping("/cache/warming")
+    public ResponseEntity<ApiResponse<CacheWarmingStatusResponse>> getCacheWarmingStatus() {
+        return ResponseEntity.ok(ApiResponse.success(cacheWarmingService.getStatus()));
+    }
+
+    @Operation(summary = "Start a popularity-based product cache warming run", security = @SecurityRequirement(name = "bearerAuth"))
+    @PostMapping("/cache/warming")
+    public ResponseEntity<ApiResponse<CacheWarmingStatusResponse>> startCacheWarming() {
+        return ResponseEntity.accepted().body(ApiResponse.success(cacheWarmingService.startWarming()));
+    }
+
+    @Operation(summary = "Total views and unique viewers of a product over the last N days (max 30)", security = @SecurityRequirement(name = "bearerAuth"))
+    @GetMapping("/analytics/products/{productId}/views")
+    public ResponseEntity<ApiResponse<ProductViewStatsResponse>> getProductViewStats(
+            @PathVariable java.util.UUID productId,
+            @RequestParam(defaultValue = "7") int days) {
+        int boundedDays = Math.max(1, Math.min(days, 30));
+        return ResponseEntity.ok(ApiResponse.success(productViewCounter.getStats(productId, boundedDays)));
+    }
+
+    @Operation(summary = "Sign a user out everywhere: drop their refresh token and refuse their live access tokens", security = @SecurityRequirement(name = "bearerAuth"))
+    @PostMapping("/users/{userId}/revoke-sessions")
+    public ResponseEntity<ApiResponse<Void>> revokeSessions(@PathVariable java.util.UUID userId) {
+        authService.revokeSessions(userId);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
 }
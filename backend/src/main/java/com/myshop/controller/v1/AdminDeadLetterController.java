@@ -0,0 +1,79 @@
+package com.myshop.controller.v1;
+
+import com.myshop.dto.request.DeadLetterFilter;
+import com.myshop.dto.request.DeadLetterReplayRequest;
+import com.myshop.dto.response.ApiResponse;
+import com.myshop.dto.response.DeadLetterReplayStatusResponse;
+import com.myshop.dto.response.DeadLetterResponse;
+import com.myshop.dto.response.PagedResponse;
+import com.myshop.service.DeadLetterService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Inspection and replay of records that exhausted every retry (see
+ * DeadLetterService). Replays run in the background on the node that
+ * accepted them; poll /replays/{jobId} on the same node for progress.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/dead-letters")
+@RequiredArgsConstructor
+@Tag(name = "Admin Dead Letters", description = "Dead-lettered Kafka records: search and replay")
+@SecurityRequirement(name = "Bearer Authentication")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminDeadLetterController {
+
+    private final DeadLetterService deadLetterService;
+
+    @GetMapping
+    @Operation(summary = "Search dead letters by original topic, consumer group, exception, key and time, newest first")
+    public ResponseEntity<ApiResponse<PagedResponse<DeadLetterResponse>>> search(
+            @ModelAttribute DeadLetterFilter filter,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(ApiResponse.success(deadLetterService.search(filter, page, size)));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "One dead letter with payload, headers and stack trace")
+    public ResponseEntity<ApiResponse<DeadLetterResponse>> get(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.success(deadLetterService.get(id)));
+    }
+
+    @PostMapping("/replays")
+    @Operation(summary = "Republish the dead letters matching a filter, at a bounded rate and concurrency")
+    public ResponseEntity<ApiResponse<DeadLetterReplayStatusResponse>> startReplay(
+            @Valid @RequestBody DeadLetterReplayRequest request) {
+
+        DeadLetterReplayStatusResponse job = deadLetterService.startReplay(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(job, "Replay started"));
+    }
+
+    @GetMapping("/replays")
+    @Operation(summary = "Recent replay jobs on this node")
+    public ResponseEntity<ApiResponse<List<DeadLetterReplayStatusResponse>>> getReplays() {
+        return ResponseEntity.ok(ApiResponse.success(deadLetterService.getReplays()));
+    }
+
+    @GetMapping("/replays/{jobId}")
+    @Operation(summary = "Progress of a replay job")
+    public ResponseEntity<ApiResponse<DeadLetterReplayStatusResponse>> getReplay(@PathVariable String jobId) {
+        return ResponseEntity.ok(ApiResponse.success(deadLetterService.getReplay(jobId)));
+    }
+
+    @DeleteMapping("/replays/{jobId}")
+    @Operation(summary = "Cancel a running replay job")
+    public ResponseEntity<ApiResponse<DeadLetterReplayStatusResponse>> cancelReplay(@PathVariable String jobId) {
+        return ResponseEntity.ok(ApiResponse.success(deadLetterService.cancelReplay(jobId), "Replay cancelling"));
+    }
+}
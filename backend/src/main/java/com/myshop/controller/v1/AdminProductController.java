@@ -0,0 +1,59 @@
+package com.myshop.controller.v1;
+
+import com.myshop.dto.request.BulkProductUpdateRequest;
+import com.myshop.dto.response.ApiResponse;
+import com.myshop.dto.response.BulkProductUpdateResponse;
+import com.myshop.dto.response.ProductImportResponse;
+import com.myshop.service.ProductBulkUpdateService;
+import com.myshop.service.ProductImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/v1/admin/products")
+@RequiredArgsConstructor
+@Tag(name = "Admin Products", description = "Bulk catalog management APIs for Administrators")
+@SecurityRequirement(name = "Bearer Authentication")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminProductController {
+
+    private final ProductImportService productImportService;
+    private final ProductBulkUpdateService productBulkUpdateService;
+
+    /**
+     * The body is read as a raw stream (no @RequestBody) so Spring never
+     * buffers or deserializes the whole upload up front.
+     */
+    @PostMapping("/import")
+    @Operation(summary = "Bulk import products from an NDJSON (application/x-ndjson) or CSV (text/csv) stream",
+            description = "Products are matched by SKU: existing ones are overwritten, new ones inserted. "
+                    + "Invalid records are skipped and reported; valid ones are committed atomically.")
+    public ResponseEntity<ApiResponse<ProductImportResponse>> importProducts(HttpServletRequest request)
+            throws IOException {
+        ProductImportResponse result = productImportService.importProducts(
+                request.getInputStream(), request.getContentType());
+        return ResponseEntity.ok(ApiResponse.success(result, "Product import completed"));
+    }
+
+    @PostMapping("/bulk-update")
+    @Operation(summary = "Apply new prices and/or stock deltas to many products in one call",
+            description = "Items for the same product are merged. Products that are unknown, inactive, "
+                    + "or would go below zero stock or past the integer limit are skipped and listed in the response.")
+    public ResponseEntity<ApiResponse<BulkProductUpdateResponse>> bulkUpdate(
+            @Valid @RequestBody BulkProductUpdateRequest request) {
+        BulkProductUpdateResponse result = productBulkUpdateService.applyUpdates(request);
+        return ResponseEntity.ok(ApiResponse.success(result, "Bulk update applied"));
+    }
+}
@@ -1,5 +1,6 @@
 package com.myshop.controller.v1;
 
+import com.myshop.constants.AppConstants;
 import com.myshop.dto.request.LoginRequest;
 import com.myshop.dto.request.RegisterRequest;
 import com.myshop.dto.response.ApiResponse;
@@ -11,6 +12,7 @@ import com.myshop.mapper.UserMapper;
 import com.myshop.model.entity.User;
 import com.myshop.repository.jpa.UserRepository;
 import com.myshop.service.AuthService;
+import com.myshop.service.GuestCartService;
 import com.myshop.util.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -52,6 +54,7 @@ import org.springframework.http.ResponseCookie;
 public class AuthController {
 
     private final AuthService authService;
+    private final GuestCartService guestCartService;
     private final UserRepository userRepository;
     private final UserMapper userMapper;
 
@@ -68,9 +71,11 @@ public class AuthController {
     @Operation(summary = "Register a new user account")
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<AuthResponse>> register(
-            @Valid @RequestBody RegisterRequest request) {
+            @Valid @RequestBody RegisterRequest request,
+            @RequestHeader(name = AppConstants.CART_TOKEN_HEADER, required = false) String cartToken) {
 
         AuthResponse authResponse = authService.register(request);
+        guestCartService.mergeInto(authResponse.getUser().getEmail(), cartToken);
         ResponseCookie cookie = createRefreshTokenCookie(authResponse.getRefreshToken());
 
         // 201 Created — a new resource (user) was created
@@ -82,9 +87,12 @@ public class AuthController {
     @Operation(summary = "Login with email and password")
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(
-            @Valid @RequestBody LoginRequest request) {
+            @Valid @RequestBody LoginRequest request,
+            @RequestHeader(name = AppConstants.CART_TOKEN_HEADER, required = false) String cartToken) {
 
         AuthResponse authResponse = authService.login(request);
+        // A guest cart sent along is merged in one batch, replacing a client-side replay
+        guestCartService.mergeInto(authResponse.getUser().getEmail(), cartToken);
         ResponseCookie cookie = createRefreshTokenCookie(authResponse.getRefreshToken());
 
         // 200 OK — authentication is an action, not resource creation
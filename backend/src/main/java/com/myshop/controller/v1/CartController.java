@@ -3,7 +3,7 @@ package com.myshop.controller.v1;
 import com.myshop.dto.request.CartItemRequest;
 import com.myshop.dto.response.ApiResponse;
 import com.myshop.dto.response.CartResponse;
-import com.myshop.service.CartService;
+import com.myshop.service.CartStore;
 import com.myshop.util.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -24,13 +24,13 @@ import java.util.UUID;
 @PreAuthorize("hasRole('USER')") // All cart endpoints require user login
 public class CartController {
 
-    private final CartService cartService;
+    private final CartStore cartStore;
 
     @GetMapping
     @Operation(summary = "Get user's cart")
     public ResponseEntity<ApiResponse<CartResponse>> getCart() {
         String email = SecurityUtils.getCurrentUserEmail().orElseThrow();
-        CartResponse cart = cartService.getCartByUser(email);
+        CartResponse cart = cartStore.getCartByUser(email);
         return ResponseEntity.ok(ApiResponse.success(cart, "Cart retrieved successfully"));
     }
 
@@ -38,7 +38,7 @@ public class CartController {
     @Operation(summary = "Add item to cart")
     public ResponseEntity<ApiResponse<CartResponse>> addItem(@Valid @RequestBody CartItemRequest request) {
         String email = SecurityUtils.getCurrentUserEmail().orElseThrow();
-        CartResponse cart = cartService.addItem(email, request);
+        CartResponse cart = cartStore.addItem(email, request);
         return ResponseEntity.ok(ApiResponse.success(cart, "Item added to cart"));
     }
 
@@ -48,7 +48,7 @@ public class CartController {
             @PathVariable UUID productId,
             @RequestParam int quantity) {
         String email = SecurityUtils.getCurrentUserEmail().orElseThrow();
-        CartResponse cart = cartService.updateItemQuantity(email, productId, quantity);
+        CartResponse cart = cartStore.updateItemQuantity(email, productId, quantity);
         return ResponseEntity.ok(ApiResponse.success(cart, "Cart item quantity updated"));
     }
 
@@ -56,7 +56,7 @@ public class CartController {
     @Operation(summary = "Remove item from cart")
     public ResponseEntity<ApiResponse<CartResponse>> removeItem(@PathVariable UUID productId) {
         String email = SecurityUtils.getCurrentUserEmail().orElseThrow();
-        CartResponse cart = cartService.removeItem(email, productId);
+        CartResponse cart = cartStore.removeItem(email, productId);
         return ResponseEntity.ok(ApiResponse.success(cart, "Item removed from cart"));
     }
 
@@ -64,7 +64,7 @@ public class CartController {
     @Operation(summary = "Clear the entire cart")
     public ResponseEntity<ApiResponse<Void>> clearCart() {
         String email = SecurityUtils.getCurrentUserEmail().orElseThrow();
-        cartService.clearCart(email);
+        cartStore.clearCart(email);
         return ResponseEntity.ok(ApiResponse.success(null, "Cart cleared successfully"));
     }
 }
@@ -36,6 +36,12 @@ public class CategoryController {
         return ResponseEntity.ok(ApiResponse.success(categoryService.getById(id)));
     }
 
+    @Operation(summary = "Get the category's ancestors, root first, ending with the category itself")
+    @GetMapping("/{id}/path")
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getPath(@PathVariable UUID id) {
+        return ResponseEntity.ok(ApiResponse.success(categoryService.getPath(id)));
+    }
+
     @Operation(summary = "Get category by slug (URL-friendly name)")
     @GetMapping("/slug/{slug}")
     public ResponseEntity<ApiResponse<CategoryResponse>> getBySlug(@PathVariable String slug) {
@@ -0,0 +1,85 @@
+package com.myshop.controller.v1;
+
+import com.myshop.constants.AppConstants;
+import com.myshop.dto.request.CartItemRequest;
+import com.myshop.dto.response.ApiResponse;
+import com.myshop.dto.response.CartResponse;
+import com.myshop.service.GuestCartService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * GuestCartController — the cart API for visitors who are not logged in.
+ *
+ * No authentication; the cart is identified by the signed X-Cart-Token
+ * header. A request without one starts a new cart, and every response
+ * carries the token to send next time. Sending the same header to
+ * /api/v1/auth/login or /register merges the cart into the account.
+ */
+@RestController
+@RequestMapping("/api/v1/guest-cart")
+@RequiredArgsConstructor
+@Tag(name = "Guest Cart", description = "Anonymous shopping cart, merged into the user's cart on login")
+public class GuestCartController {
+
+    private final GuestCartService guestCartService;
+
+    @GetMapping
+    @Operation(summary = "Get the guest cart")
+    public ResponseEntity<ApiResponse<CartResponse>> getCart(
+            @RequestHeader(name = AppConstants.CART_TOKEN_HEADER, required = false) String token) {
+        GuestCartService.Session session = guestCartService.open(token);
+        return respond(session, guestCartService.getCart(session), "Cart retrieved successfully");
+    }
+
+    @PostMapping("/items")
+    @Operation(summary = "Add item to the guest cart")
+    public ResponseEntity<ApiResponse<CartResponse>> addItem(
+            @RequestHeader(name = AppConstants.CART_TOKEN_HEADER, required = false) String token,
+            @Valid @RequestBody CartItemRequest request) {
+        GuestCartService.Session session = guestCartService.open(token);
+        return respond(session, guestCartService.addItem(session, request), "Item added to cart");
+    }
+
+    @PutMapping("/items/{productId}")
+    @Operation(summary = "Update item quantity in the guest cart")
+    public ResponseEntity<ApiResponse<CartResponse>> updateItemQuantity(
+            @RequestHeader(name = AppConstants.CART_TOKEN_HEADER, required = false) String token,
+            @PathVariable UUID productId,
+            @RequestParam int quantity) {
+        GuestCartService.Session session = guestCartService.open(token);
+        return respond(session, guestCartService.updateItemQuantity(session, productId, quantity),
+                "Cart item quantity updated");
+    }
+
+    @DeleteMapping("/items/{productId}")
+    @Operation(summary = "Remove item from the guest cart")
+    public ResponseEntity<ApiResponse<CartResponse>> removeItem(
+            @RequestHeader(name = AppConstants.CART_TOKEN_HEADER, required = false) String token,
+            @PathVariable UUID productId) {
+        GuestCartService.Session session = guestCartService.open(token);
+        return respond(session, guestCartService.removeItem(session, productId), "Item removed from cart");
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Clear the guest cart")
+    public ResponseEntity<ApiResponse<Void>> clearCart(
+            @RequestHeader(name = AppConstants.CART_TOKEN_HEADER, required = false) String token) {
+        GuestCartService.Session session = guestCartService.open(token);
+        guestCartService.clearCart(session);
+        return respond(session, null, "Cart cleared successfully");
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> respond(GuestCartService.Session session, T body,
+            String message) {
+        return ResponseEntity.ok()
+                .header(AppConstants.CART_TOKEN_HEADER, session.token())
+                .body(ApiResponse.success(body, message));
+    }
+}
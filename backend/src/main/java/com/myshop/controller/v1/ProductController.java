@@ -1,24 +1,44 @@
 package com.myshop.controller.v1;
 
+import com.myshop.config.CacheConfig;
+import com.myshop.config.cache.InstrumentedCache;
 import com.myshop.constants.AppConstants;
 import com.myshop.dto.request.CreateProductRequest;
+import com.myshop.dto.request.ProductBatchRequest;
 import com.myshop.dto.request.UpdateProductRequest;
 import com.myshop.dto.response.ApiResponse;
 import com.myshop.dto.response.PagedResponse;
 import com.myshop.dto.response.ProductResponse;
+import com.myshop.dto.response.RelatedProductResponse;
+import com.myshop.dto.response.TrendingProductResponse;
+import com.myshop.exception.BusinessException;
+import com.myshop.exception.ErrorCode;
 import com.myshop.service.ProductService;
+import com.myshop.service.ProductViewCounter;
+import com.myshop.service.RenderedResponseCache;
+import com.myshop.service.RelatedProductsService;
+import com.myshop.service.TrendingProductsService;
+import com.myshop.util.JsonEnvelope;
+import com.myshop.util.RequestUtils;
+import com.myshop.util.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -45,12 +65,16 @@ import java.util.UUID;
 public class ProductController {
 
         private final ProductService productService;
-        private final org.springframework.cache.CacheManager cacheManager;
-        private final StringRedisTemplate redisTemplate;
+        private final RenderedResponseCache renderedResponseCache;
+        private final ProductViewCounter productViewCounter;
+        private final TrendingProductsService trendingProductsService;
+        private final RelatedProductsService relatedProductsService;
 
         @Operation(summary = "Get all active products (paginated, filterable)")
+        @ApiResponses(@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200",
+                        content = @Content(schema = @Schema(implementation = PagedResponse.class))))
         @GetMapping
-        public ResponseEntity<ApiResponse<PagedResponse<ProductResponse>>> getAll(
+        public void getAll(
                         @Parameter(description = "Page number (0-indexed)") @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_NUMBER) int page,
 
                         @Parameter(description = "Items per page") @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_SIZE_STR) int size,
@@ -60,22 +84,75 @@ public class ProductController {
                         @RequestParam(required = false) BigDecimal maxPrice,
 
                         @RequestParam(defaultValue = "createdAt") String sortBy,
-                        @RequestParam(defaultValue = "desc") String sortDir) {
+                        @RequestParam(defaultValue = "desc") String sortDir,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
 
-                PagedResponse<ProductResponse> response = productService.getAll(
+                byte[] json = renderedResponseCache.getProductPage(
                                 page, size, categoryId, minPrice, maxPrice, sortBy, sortDir);
 
-                return ResponseEntity.ok()
-                                .body(ApiResponse.success(response));
+                setCacheHeader(request, response, CacheConfig.CACHE_PRODUCTS_PAGED_JSON);
+                JsonEnvelope.writeSuccess(response, json);
         }
 
+        /** Same request path as getAll; selected whenever an ids parameter is present. */
+        @Operation(summary = "Get several products by ID, in request order (unknown or inactive IDs are omitted)")
+        @GetMapping(params = "ids")
+        public ResponseEntity<ApiResponse<List<ProductResponse>>> getByIds(@RequestParam List<UUID> ids) {
+                if (ids.size() > AppConstants.MAX_BATCH_IDS) {
+                        throw new BusinessException(ErrorCode.VALIDATION_FAILED,
+                                        "At most " + AppConstants.MAX_BATCH_IDS + " product IDs per request; use POST /batch");
+                }
+                return ResponseEntity.ok(ApiResponse.success(productService.getByIds(ids)));
+        }
+
+        @Operation(summary = "Get several products by ID (POST body for long ID lists)")
+        @PostMapping("/batch")
+        public ResponseEntity<ApiResponse<List<ProductResponse>>> getByIdsBatch(
+                        @Valid @RequestBody ProductBatchRequest request) {
+                return ResponseEntity.ok(ApiResponse.success(productService.getByIds(request.ids())));
+        }
+
+        @Operation(summary = "Trending products (store-wide or per category), decayed over recent activity")
+        @GetMapping("/trending")
+        public ResponseEntity<ApiResponse<List<TrendingProductResponse>>> getTrending(
+                        @RequestParam(required = false) UUID categoryId,
+                        @RequestParam(defaultValue = "20") int limit) {
+
+                int boundedLimit = Math.max(1, Math.min(limit, AppConstants.MAX_PAGE_SIZE));
+                return ResponseEntity.ok(ApiResponse.success(
+                                trendingProductsService.getTrending(categoryId, boundedLimit)));
+        }
+
+        /**
+         * Written as pre-rendered bytes (RenderedResponseCache + JsonEnvelope):
+         * a hit never builds a ProductResponse or runs Jackson.
+         */
         @Operation(summary = "Get a product by ID")
+        @ApiResponses(@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200",
+                        content = @Content(schema = @Schema(implementation = ProductResponse.class))))
         @GetMapping("/{id}")
-        public ResponseEntity<ApiResponse<ProductResponse>> getById(@PathVariable UUID id) {
-                boolean isHit = Boolean.TRUE.equals(redisTemplate.hasKey("products::" + id));
-                return ResponseEntity.ok()
-                                .header("X-Cache", isHit ? "HIT" : "MISS")
-                                .body(ApiResponse.success(productService.getById(id)));
+        public void getById(@PathVariable UUID id,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+                RenderedResponseCache.RenderedProduct rendered = renderedResponseCache.getProduct(id);
+
+                // Counted here rather than in the @Cacheable service method so cache hits count too
+                productViewCounter.recordView(id, SecurityUtils.getCurrentUserEmail()
+                                .orElseGet(() -> "ip:" + RequestUtils.getClientIp(request)));
+                trendingProductsService.recordView(id, rendered.categoryId());
+
+                setCacheHeader(request, response, CacheConfig.CACHE_PRODUCTS_JSON);
+                JsonEnvelope.writeSuccess(response, rendered.json());
+        }
+
+        @Operation(summary = "Products frequently bought together with this one")
+        @GetMapping("/{id}/related")
+        public ResponseEntity<ApiResponse<List<RelatedProductResponse>>> getRelated(@PathVariable UUID id,
+                        @RequestParam(defaultValue = "10") int limit) {
+
+                int boundedLimit = Math.max(1, Math.min(limit, AppConstants.MAX_PAGE_SIZE));
+                return ResponseEntity.ok(ApiResponse.success(relatedProductsService.getRelated(id, boundedLimit)));
         }
 
         @Operation(summary = "Create a new product (ADMIN only)", security = @SecurityRequirement(name = "bearerAuth"))
@@ -104,4 +181,13 @@ public class ProductController {
                 // 204 No Content — delete succeeded, nothing to return
                 return ResponseEntity.noContent().build();
         }
+
+        /** X-Cache as recorded by the cache during this request; omitted if the lookup never completed. */
+        private static void setCacheHeader(HttpServletRequest request, HttpServletResponse response,
+                        String cacheName) {
+                String outcome = InstrumentedCache.outcome(request, cacheName);
+                if (outcome != null) {
+                        response.setHeader("X-Cache", outcome);
+                }
+        }
 }
@@ -0,0 +1,42 @@
+package com.myshop.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk repricing / warehouse sync payload.
+ *
+ * Each item may set a new absolute price, apply a signed stock delta, or both.
+ * The same product may appear several times: prices resolve last-wins and
+ * stock deltas are summed before anything touches the database. Deltas, and
+ * their per-product sums, are bounded by MAX_STOCK_DELTA.
+ */
+public record BulkProductUpdateRequest(
+        @NotEmpty(message = "At least one item is required")
+        @Size(max = 50_000, message = "At most 50,000 items per request")
+        List<@Valid @NotNull Item> items) {
+
+    public static final int MAX_STOCK_DELTA = 1_000_000;
+
+    public record Item(
+            @NotNull(message = "Product ID is required") UUID productId,
+
+            @Positive(message = "Price must be positive")
+            @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 integer digits and 2 decimal places")
+            BigDecimal price,
+
+            @Min(value = -MAX_STOCK_DELTA, message = "Stock delta must be at least -1,000,000")
+            @Max(value = MAX_STOCK_DELTA, message = "Stock delta must be at most 1,000,000")
+            Integer stockDelta) {
+    }
+}
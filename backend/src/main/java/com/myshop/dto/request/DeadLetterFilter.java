@@ -0,0 +1,21 @@
+package com.myshop.dto.request;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.Instant;
+
+/**
+ * Which dead letters to list or replay. Every field is optional; set fields
+ * are ANDed. from/to bound when the record reached the DLT (ISO-8601).
+ * includeReplayed = false (the default) skips records some earlier replay
+ * already republished, so an interrupted replay can simply be started again.
+ */
+public record DeadLetterFilter(
+        String originalTopic,
+        String consumerGroup,
+        String exceptionClass,
+        String key,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+        Boolean includeReplayed) {
+}
@@ -0,0 +1,22 @@
+package com.myshop.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Body of POST /api/v1/admin/dead-letters/replays.
+ *
+ * ratePerSecond caps how fast records are republished and concurrency how
+ * many sends may await a broker ack at once; both are further capped by
+ * myshop.kafka.replay.*. targetTopic defaults to each record's original
+ * topic — every consumer group on that topic sees the replay, so it can
+ * instead name one group's retry topic (e.g. order.placed.trending.retry-1s).
+ */
+public record DeadLetterReplayRequest(
+        @NotNull(message = "A filter is required; use {} to replay everything") @Valid DeadLetterFilter filter,
+        @Min(value = 1, message = "Rate must be at least 1 record per second") Integer ratePerSecond,
+        @Min(value = 1, message = "Concurrency must be at least 1") @Max(value = 1_000, message = "Concurrency must be at most 1000") Integer concurrency,
+        String targetTopic) {
+}
@@ -0,0 +1,19 @@
+package com.myshop.dto.request;
+
+import com.myshop.constants.AppConstants;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Body of POST /api/v1/products/batch — the same lookup as GET ?ids=, for id
+ * lists too long for a URL.
+ */
+public record ProductBatchRequest(
+        @NotEmpty(message = "At least one product ID is required")
+        @Size(max = AppConstants.MAX_BATCH_IDS, message = "At most " + AppConstants.MAX_BATCH_IDS + " product IDs per request")
+        List<@NotNull UUID> ids) {
+}
@@ -0,0 +1,16 @@
+package com.myshop.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk price/stock update.
+ *
+ * skippedProductIds — products that were not updated: unknown, inactive, or
+ * the stock delta would have taken them below zero.
+ */
+public record BulkProductUpdateResponse(
+        int requested,
+        int updated,
+        List<UUID> skippedProductIds) {
+}
@@ -0,0 +1,21 @@
+package com.myshop.dto.response;
+
+/**
+ * Usage of one cache.
+ *
+ * hits, misses, hitRatio, loads, meanLoadMillis — counted on this node since
+ *             it started (the myshop.cache.* meters)
+ * keys       — entries currently in Redis, shared by all nodes
+ * memoryBytes — Redis memory of those entries, extrapolated from MEMORY
+ *             USAGE of a sample of keys
+ */
+public record CacheStatsResponse(
+        String name,
+        long hits,
+        long misses,
+        double hitRatio,
+        long loads,
+        double meanLoadMillis,
+        long keys,
+        long memoryBytes) {
+}
@@ -0,0 +1,21 @@
+package com.myshop.dto.response;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of the product cache warming run on this node.
+ *
+ * state     — IDLE, RUNNING, COMPLETED, SKIPPED (another node holds the
+ *             warming lock) or FAILED
+ * candidates — products selected by popularity for this run
+ * warmed    — entries written to Redis so far
+ * missing   — candidates that no longer exist or are inactive
+ */
+public record CacheWarmingStatusResponse(
+        String state,
+        int candidates,
+        int warmed,
+        int missing,
+        Instant startedAt,
+        Instant finishedAt) {
+}
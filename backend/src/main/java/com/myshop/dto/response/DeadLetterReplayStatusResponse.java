@@ -0,0 +1,26 @@
+package com.myshop.dto.response;
+
+import java.time.Instant;
+
+/**
+ * Progress of one dead-letter replay job on this node.
+ *
+ * state    — RUNNING, COMPLETED, CANCELLED or FAILED
+ * matched  — records matching the filter when the job started
+ * replayed — records the broker acknowledged on the target topic
+ * failed   — sends the broker rejected (left unmarked, so a rerun retries them)
+ * skipped  — records without a replayable payload
+ */
+public record DeadLetterReplayStatusResponse(
+        String jobId,
+        String state,
+        long matched,
+        long replayed,
+        long failed,
+        long skipped,
+        int ratePerSecond,
+        int concurrency,
+        String targetTopic,
+        Instant startedAt,
+        Instant finishedAt) {
+}
@@ -0,0 +1,38 @@
+package com.myshop.dto.response;
+
+import com.myshop.model.document.DeadLetter;
+
+import java.time.Instant;
+import java.util.List;
+
+/** A dead-lettered record as stored in dead_letters (see DeadLetter). */
+public record DeadLetterResponse(
+        String id,
+        String dltTopic,
+        String originalTopic,
+        Integer originalPartition,
+        Long originalOffset,
+        Instant originalTimestamp,
+        String consumerGroup,
+        String key,
+        String payloadType,
+        String payload,
+        String exceptionClass,
+        String exceptionCauseClass,
+        String exceptionMessage,
+        String exceptionStacktrace,
+        List<DeadLetter.Header> headers,
+        Instant receivedAt,
+        int replayCount,
+        Instant lastReplayedAt) {
+
+    public static DeadLetterResponse from(DeadLetter deadLetter) {
+        return new DeadLetterResponse(deadLetter.getId(), deadLetter.getDltTopic(), deadLetter.getOriginalTopic(),
+                deadLetter.getOriginalPartition(), deadLetter.getOriginalOffset(),
+                deadLetter.getOriginalTimestamp(), deadLetter.getConsumerGroup(), deadLetter.getKey(),
+                deadLetter.getPayloadType(), deadLetter.getPayload(), deadLetter.getExceptionClass(),
+                deadLetter.getExceptionCauseClass(), deadLetter.getExceptionMessage(),
+                deadLetter.getExceptionStacktrace(), deadLetter.getHeaders(), deadLetter.getReceivedAt(),
+                deadLetter.getReplayCount(), deadLetter.getLastReplayedAt());
+    }
+}
@@ -0,0 +1,23 @@
+package com.myshop.dto.response;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import.
+ *
+ * received       — records read from the upload (excluding the CSV header)
+ * rejected       — records that failed parsing or bean validation
+ * unknownCategory — staged records whose categoryId does not exist
+ * inserted / updated — rows written by the merge (duplicate SKUs in one
+ *                  upload collapse to the last occurrence)
+ * errors         — the first few rejections, for fixing the source file
+ */
+public record ProductImportResponse(
+        long received,
+        long rejected,
+        long unknownCategory,
+        long inserted,
+        long updated,
+        List<String> errors,
+        long durationMs) {
+}
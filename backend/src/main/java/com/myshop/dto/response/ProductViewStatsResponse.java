@@ -0,0 +1,14 @@
+package com.myshop.dto.response;
+
+import java.util.UUID;
+
+/**
+ * View statistics for one product over the last {@code days} days.
+ * uniqueViewers is a HyperLogLog estimate (standard error ~0.81%).
+ */
+public record ProductViewStatsResponse(
+        UUID productId,
+        int days,
+        long views,
+        long uniqueViewers) {
+}
@@ -0,0 +1,12 @@
+package com.myshop.dto.response;
+
+import java.util.UUID;
+
+/**
+ * A product frequently bought together with the requested one.
+ * coPurchases = number of orders that contained both.
+ */
+public record RelatedProductResponse(
+        UUID productId,
+        int coPurchases) {
+}
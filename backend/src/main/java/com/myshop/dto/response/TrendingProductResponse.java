@@ -0,0 +1,12 @@
+package com.myshop.dto.response;
+
+import java.util.UUID;
+
+/**
+ * One entry of the trending list. score is the exponentially decayed,
+ * weighted activity count (views + purchases) merged across all nodes.
+ */
+public record TrendingProductResponse(
+        UUID productId,
+        double score) {
+}
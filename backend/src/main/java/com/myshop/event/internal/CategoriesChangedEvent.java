@@ -0,0 +1,14 @@
+package com.myshop.event.internal;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Internal Spring event published when a category is created or updated.
+ * Carries no payload: the category tree is always rebuilt as a whole.
+ */
+public class CategoriesChangedEvent extends ApplicationEvent {
+
+    public CategoriesChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,34 @@
+package com.myshop.event.internal;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Internal Spring event published when product rows change (create, update,
+ * soft delete, bulk update, rating sync) or, with allProducts = true, when
+ * too many changed to list (bulk import).
+ */
+@Getter
+public class ProductsChangedEvent extends ApplicationEvent {
+
+    private final Set<UUID> productIds;
+    private final boolean allProducts;
+
+    private ProductsChangedEvent(Object source, Set<UUID> productIds, boolean allProducts) {
+        super(source);
+        this.productIds = productIds;
+        this.allProducts = allProducts;
+    }
+
+    public static ProductsChangedEvent of(Object source, Collection<UUID> productIds) {
+        return new ProductsChangedEvent(source, Set.copyOf(productIds), false);
+    }
+
+    public static ProductsChangedEvent all(Object source) {
+        return new ProductsChangedEvent(source, Set.of(), true);
+    }
+}
@@ -42,6 +42,7 @@ public enum ErrorCode {
     PRODUCT_ALREADY_EXISTS("A product with this SKU already exists."),
     SKU_ALREADY_EXISTS("A product with this SKU already exists."),
     PRODUCT_INACTIVE("This product is no longer available."),
+    PRODUCT_IMPORT_FAILED("Product import failed. No products were changed."),
 
     // ── Category ──────────────────────────────────────────────────────────────
     CATEGORY_NOT_FOUND("Category not found."),
@@ -76,6 +77,7 @@ public enum ErrorCode {
 
     // ── Rate Limiting ─────────────────────────────────────────────────────────
     RATE_LIMIT_EXCEEDED("Too many requests. Please wait before trying again."),
+    SERVICE_OVERLOADED("The service is busy. Please retry shortly."),
 
     // ── Search ────────────────────────────────────────────────────────────────
     SEARCH_FAILED("Search service is temporarily unavailable.");
@@ -2,6 +2,7 @@ package com.myshop.exception;
 
 import com.myshop.dto.response.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -48,7 +49,8 @@ import java.util.stream.Collectors;
  *                   4. MethodArgumentNotValidException → 400 (Spring's own
  *                   validation exception)
  *                   5. AccessDeniedException → 403 (Spring Security)
- *                   6. Exception → 500 (catch-all, last resort)
+ *                   6. ServiceOverloadedException → 503 + Retry-After
+ *                   7. Exception → 500 (catch-all, last resort)
  */
 @Slf4j
 @RestControllerAdvice
@@ -112,6 +114,23 @@ public class GlobalExceptionHandler {
                                                 ex.getMessage()));
         }
 
+        /**
+         * 503 Service Unavailable — a bounded resource (e.g. the password
+         * hashing pool) is saturated. Retry-After tells well-behaved clients
+         * when to come back instead of hammering the same queue.
+         */
+        @ExceptionHandler(ServiceOverloadedException.class)
+        public ResponseEntity<ApiResponse<Void>> handleServiceOverloaded(ServiceOverloadedException ex) {
+                log.warn("Service overloaded: {}", ex.getMessage());
+
+                return ResponseEntity
+                                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                                .body(ApiResponse.error(
+                                                ex.getErrorCode().name(),
+                                                ex.getErrorCode().getDefaultMessage()));
+        }
+
         /**
          * 400 Bad Request — @Valid annotation on @RequestBody failed.
          *
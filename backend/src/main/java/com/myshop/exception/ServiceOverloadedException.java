@@ -0,0 +1,22 @@
+package com.myshop.exception;
+
+import lombok.Getter;
+
+/**
+ * ServiceOverloadedException — Thrown when work is refused because a bounded
+ * pool or queue is full, not because anything is wrong with the request.
+ *
+ * Mapped to 503 + Retry-After (not 422 like BusinessException): the same
+ * request is expected to succeed once the load passes.
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final ErrorCode errorCode = ErrorCode.SERVICE_OVERLOADED;
+    private final int retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,38 +1,174 @@
 package com.myshop.kafka.consumer;
 
+import com.myshop.constants.KafkaTopics;
 import com.myshop.kafka.event.OrderEvent;
 import com.myshop.model.document.AnalyticsRecord;
-import com.myshop.repository.mongo.AnalyticsRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
 
+/**
+ * Writes one analytics document per placed order, a whole poll at a time:
+ * the batch becomes a single unordered insertMany, so Mongo round trips
+ * grow with the number of polls, not the number of orders.
+ *
+ * The document _id is the event's eventId, which makes redelivery harmless —
+ * a record inserted before a crash comes back as a duplicate key error and
+ * is counted as done.
+ *
+ * PARTIAL FAILURE: the bulk write reports exactly which documents failed,
+ * so only those are written again, with the blocking backoff between
+ * attempts; the ones that went in are never re-sent. Whatever still fails
+ * after the last attempt, and any record whose payload could not be read,
+ * goes to the DLT one by one, and then the whole batch is acknowledged.
+ * Only if a DLT publish fails does the listener throw, at that record's
+ * index, leaving it and the rest of the batch to the error handler.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AnalyticsConsumer {
 
-    private final AnalyticsRepository analyticsRepository;
+    private static final int DUPLICATE_KEY = 11000;
 
-    @KafkaListener(topics = "order.placed", groupId = "analytics-service")
-    public void consumeOrderPlacedForAnalytics(@Payload OrderEvent event, Acknowledgment acknowledgment) {
-        log.info("AnalyticsConsumer received OrderEvent: {}", event.getOrderId());
+    private final MongoTemplate mongoTemplate;
+    private final ConsumerRecordRecoverer deadLetterRecoverer;
+    private final BackOff retryBackOff;
 
-        AnalyticsRecord record = AnalyticsRecord.builder()
+    public AnalyticsConsumer(MongoTemplate mongoTemplate,
+            @Qualifier("batchDeadLetterRecoverer") ConsumerRecordRecoverer deadLetterRecoverer,
+            @Qualifier("batchRetryBackOff") BackOff retryBackOff) {
+        this.mongoTemplate = mongoTemplate;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.retryBackOff = retryBackOff;
+    }
+
+    /** Outcome of one bulk write: positions in the documents list that did not go in, and why. */
+    private record WriteResult(List<Integer> failed, Exception error) {
+    }
+
+    @KafkaListener(topics = KafkaTopics.ORDER_PLACED, groupId = "analytics-service",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeOrderPlacedForAnalytics(List<ConsumerRecord<String, Object>> records,
+            Acknowledgment acknowledgment) {
+
+        List<AnalyticsRecord> documents = new ArrayList<>(records.size());
+        // documents.get(i) came from records.get(recordIndex.get(i))
+        List<Integer> recordIndex = new ArrayList<>(records.size());
+        // record index → why it goes to the DLT, in offset order
+        SortedMap<Integer, Exception> deadLetters = new TreeMap<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Object> record = records.get(i);
+            if (!(record.value() instanceof OrderEvent event)) {
+                // ErrorHandlingDeserializer leaves the value null when the payload could not be read;
+                // no retry will change that
+                log.warn("Unreadable order.placed record at {}-{}@{}", record.topic(), record.partition(),
+                        record.offset());
+                deadLetters.put(i, new IllegalArgumentException("Unreadable order.placed payload"));
+                continue;
+            }
+            documents.add(toDocument(event, record));
+            recordIndex.add(i);
+        }
+
+        WriteResult result = insertWithRetries(documents);
+        result.failed().forEach(failed -> deadLetters.put(recordIndex.get(failed), result.error()));
+
+        for (Map.Entry<Integer, Exception> deadLetter : deadLetters.entrySet()) {
+            int index = deadLetter.getKey();
+            try {
+                deadLetterRecoverer.accept(records.get(index), deadLetter.getValue());
+            } catch (Exception e) {
+                // Everything before index is stored or dead-lettered; the error handler takes it from here
+                throw new BatchListenerFailedException("Dead-lettering analytics record " + index + " failed", e,
+                        index);
+            }
+        }
+        log.debug("AnalyticsConsumer stored {} OrderEvents, dead-lettered {}",
+                documents.size() - result.failed().size(), deadLetters.size());
+        acknowledgment.acknowledge();
+    }
+
+    /** Writes the documents, then re-writes only the failed ones until they go in or the backoff runs out. */
+    private WriteResult insertWithRetries(List<AnalyticsRecord> documents) {
+        List<Integer> pending = IntStream.range(0, documents.size()).boxed().toList();
+        WriteResult result = insert(documents, pending);
+        BackOffExecution backOff = retryBackOff.start();
+        while (!result.failed().isEmpty()) {
+            long waitMs = backOff.nextBackOff();
+            if (waitMs == BackOffExecution.STOP) {
+                break;
+            }
+            log.warn("{} analytics writes failed, retrying in {} ms: {}", result.failed().size(), waitMs,
+                    result.error().getMessage());
+            try {
+                Thread.sleep(waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Shutting down: the batch is redelivered, and what went in counts as a duplicate then
+                throw new IllegalStateException("Interrupted while retrying analytics writes", e);
+            }
+            result = insert(documents, result.failed());
+        }
+        return result;
+    }
+
+    /** Inserts documents at the given positions; a document that already exists counts as written. */
+    private WriteResult insert(List<AnalyticsRecord> documents, List<Integer> positions) {
+        if (positions.isEmpty()) {
+            return new WriteResult(List.of(), null);
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AnalyticsRecord.class)
+                    .insert(positions.stream().map(documents::get).toList())
+                    .execute();
+            return new WriteResult(List.of(), null);
+        } catch (BulkOperationException e) {
+            // Error indexes refer to the list just sent
+            List<Integer> failed = e.getErrors().stream()
+                    .filter(error -> error.getCode() != DUPLICATE_KEY)
+                    .map(error -> positions.get(error.getIndex()))
+                    .sorted()
+                    .toList();
+            return new WriteResult(failed, e);
+        } catch (DataAccessException e) {
+            // Nothing is known to have gone in: all of them again
+            return new WriteResult(positions, e);
+        }
+    }
+
+    private AnalyticsRecord toDocument(OrderEvent event, ConsumerRecord<String, Object> record) {
+        // Events published before eventId existed fall back to their log position, just as unique
+        String id = event.getEventId() != null
+                ? event.getEventId()
+                : record.topic() + "-" + record.partition() + "@" + record.offset();
+        return AnalyticsRecord.builder()
+                .id(id)
                 .eventType("ORDER_PLACED")
                 .userId(event.getUserId().toString())
                 .data(Map.of(
                         "orderId", event.getOrderId().toString(),
                         "amount", event.getTotalAmount()))
+                .createdAt(Instant.now())
                 .build();
-
-        analyticsRepository.save(record);
-
-        acknowledgment.acknowledge();
     }
 }
@@ -1,23 +1,53 @@
 package com.myshop.kafka.consumer;
 
 import com.myshop.kafka.event.InventoryEvent;
+import com.myshop.kafka.idempotency.IdempotencyGuard;
+import com.myshop.kafka.retry.RetryTiers;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+/**
+ * Follows stock changes. Redelivered events are skipped by eventId through
+ * the IdempotencyGuard, so the sync this grows into can apply each change
+ * exactly once.
+ */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class InventorySyncConsumer {
 
-    @KafkaListener(topics = "inventory.updated", groupId = "inventory-sync-service")
-    public void consumeInventoryUpdatedEvent(@Payload InventoryEvent event, Acknowledgment acknowledgment) {
+    private static final String GROUP_ID = "inventory-sync-service";
+
+    private final IdempotencyGuard idempotencyGuard;
+
+    @RetryableTopic(attempts = RetryTiers.ATTEMPTS,
+            backoff = @Backoff(delayExpression = RetryTiers.INITIAL_DELAY_MS,
+                    multiplierExpression = RetryTiers.MULTIPLIER,
+                    maxDelayExpression = RetryTiers.MAX_DELAY_MS),
+            retryTopicSuffix = ".inventory-sync.retry", dltTopicSuffix = ".DLT",
+            autoStartDltHandler = "false")
+    @KafkaListener(topics = "inventory.updated", groupId = GROUP_ID)
+    public void consumeInventoryUpdatedEvent(ConsumerRecord<String, InventoryEvent> record,
+            Acknowledgment acknowledgment) {
+        InventoryEvent event = record.value();
+        if (idempotencyGuard.isDuplicate(GROUP_ID, record, event.getEventId())) {
+            log.debug("InventoryEvent {} already handled; skipped", event.getEventId());
+            acknowledgment.acknowledge();
+            return;
+        }
+
         // Just log for now. In Phase 6, this will synchronize the state with
         // Elasticsearch.
         log.info("InventorySyncConsumer received: Product {} stock changed from {} to {} due to {}",
                 event.getProductId(), event.getOldQuantity(), event.getNewQuantity(), event.getReason());
 
+        idempotencyGuard.markProcessed(GROUP_ID, record, event.getEventId());
         acknowledgment.acknowledge();
     }
 }
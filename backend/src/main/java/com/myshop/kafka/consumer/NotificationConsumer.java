@@ -1,27 +1,56 @@
 package com.myshop.kafka.consumer;
 
+import com.myshop.constants.KafkaTopics;
 import com.myshop.kafka.event.OrderEvent;
+import com.myshop.kafka.idempotency.IdempotencyGuard;
+import com.myshop.kafka.parallel.KeyOrderedDispatcher;
 import com.myshop.repository.mongo.NotificationRepository;
 import com.myshop.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Sends the order confirmation for every placed order.
+ *
+ * Each record costs two blocking Mongo round trips, so this listener runs on
+ * parallelKafkaListenerContainerFactory: records of one partition are
+ * processed concurrently, one lane per record key (the userId), instead of one
+ * at a time. A user's notifications still happen in order, and both copies of
+ * a redelivered order land in the same lane, so the check-then-insert below
+ * never races with itself.
+ *
+ * Duplicates are caught by eventId through the IdempotencyGuard (a local
+ * Bloom filter, then Redis); only events published before eventId existed
+ * fall back to looking for the notification in Mongo.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationConsumer {
 
+    private static final String GROUP_ID = "notification-service";
+
     private final NotificationService notificationService;
     private final NotificationRepository notificationRepository;
+    private final KeyOrderedDispatcher keyOrderedDispatcher;
+    private final IdempotencyGuard idempotencyGuard;
+
+    @KafkaListener(topics = KafkaTopics.ORDER_PLACED, groupId = GROUP_ID,
+            containerFactory = "parallelKafkaListenerContainerFactory")
+    public void consumeOrderPlacedEvents(List<ConsumerRecord<String, Object>> records, Consumer<?, ?> consumer)
+            throws InterruptedException {
+        keyOrderedDispatcher.dispatch(records, consumer, this::consumeOrderPlacedEvent);
+    }
 
-    @KafkaListener(topics = "order.placed", groupId = "notification-service")
-    public void consumeOrderPlacedEvent(@Payload OrderEvent event, Acknowledgment acknowledgment) {
+    private void consumeOrderPlacedEvent(ConsumerRecord<String, Object> record) {
+        OrderEvent event = (OrderEvent) record.value();
         log.info("NotificationConsumer received OrderEvent: {}", event);
 
         String orderIdStr = event.getOrderId().toString();
@@ -29,9 +58,11 @@ public class NotificationConsumer {
 
         // Idempotency check: Have we already sent an ORDER_CONFIRMED notification for
         // this order?
-        if (notificationRepository.existsByMetadataOrderIdAndType(orderIdStr, type)) {
+        boolean duplicate = event.getEventId() != null
+                ? idempotencyGuard.isDuplicate(GROUP_ID, record, event.getEventId())
+                : notificationRepository.existsByMetadataOrderIdAndType(orderIdStr, type);
+        if (duplicate) {
             log.warn("Duplicate notification detected for orderId: {}", orderIdStr);
-            acknowledgment.acknowledge();
             return;
         }
 
@@ -41,9 +72,6 @@ public class NotificationConsumer {
                 "Order Confirmed",
                 "Your order has been successfully placed. Total: $" + event.getTotalAmount(),
                 Map.of("orderId", orderIdStr));
-
-        // MANUAL ACKNOWLEDGE
-        acknowledgment.acknowledge();
-        log.info("Acknowledged processing of OrderEvent in NotificationConsumer.");
+        idempotencyGuard.markProcessed(GROUP_ID, record, event.getEventId());
     }
 }
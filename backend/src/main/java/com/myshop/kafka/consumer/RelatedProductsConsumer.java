@@ -0,0 +1,59 @@
+package com.myshop.kafka.consumer;
+
+import com.myshop.constants.KafkaTopics;
+import com.myshop.kafka.event.OrderEvent;
+import com.myshop.kafka.event.OrderEventItem;
+import com.myshop.service.RelatedProductsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Feeds the co-occurrence matrix. Every node builds its own full matrix, so
+ * the group id is per node (each node sees every order). Positions come from
+ * the node's local snapshot, not from committed group offsets: on assignment
+ * the consumer seeks to the offset stored with the snapshot, or replays the
+ * partition from the beginning when there is none.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelatedProductsConsumer implements ConsumerSeekAware {
+
+    private final RelatedProductsService relatedProductsService;
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<Integer, Long> resumeOffsets = relatedProductsService.getResumeOffsets();
+        assignments.keySet().forEach(partition -> {
+            Long next = resumeOffsets.get(partition.partition());
+            if (next != null) {
+                callback.seek(partition.topic(), partition.partition(), next);
+            } else {
+                callback.seekToBeginning(partition.topic(), partition.partition());
+            }
+        });
+    }
+
+    @KafkaListener(topics = KafkaTopics.ORDER_PLACED, groupId = "recommendation-${myshop.node-id}")
+    public void consumeOrderPlacedForRecommendations(@Payload OrderEvent event,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset,
+            Acknowledgment acknowledgment) {
+        if (event.getItems() != null && event.getItems().size() > 1) {
+            relatedProductsService.recordOrder(event.getOrderId(),
+                    event.getItems().stream().map(OrderEventItem::getProductId).toList(),
+                    partition, offset);
+        }
+        acknowledgment.acknowledge();
+    }
+}
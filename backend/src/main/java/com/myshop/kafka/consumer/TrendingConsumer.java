@@ -0,0 +1,60 @@
+package com.myshop.kafka.consumer;
+
+import com.myshop.constants.KafkaTopics;
+import com.myshop.kafka.event.OrderEvent;
+import com.myshop.kafka.idempotency.IdempotencyGuard;
+import com.myshop.service.TrendingProductsService;
+import com.myshop.kafka.retry.RetryTiers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Feeds purchases into the trending sketches. One shared group: each order is
+ * counted by a single node and reaches the others through the Redis merge.
+ *
+ * Counting is not idempotent, so a redelivered order would be counted twice;
+ * the IdempotencyGuard skips events whose eventId this group already handled.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingConsumer {
+
+    private static final String GROUP_ID = "trending-service";
+
+    private final TrendingProductsService trendingProductsService;
+    private final IdempotencyGuard idempotencyGuard;
+
+    @RetryableTopic(attempts = RetryTiers.ATTEMPTS,
+            backoff = @Backoff(delayExpression = RetryTiers.INITIAL_DELAY_MS,
+                    multiplierExpression = RetryTiers.MULTIPLIER,
+                    maxDelayExpression = RetryTiers.MAX_DELAY_MS),
+            retryTopicSuffix = ".trending.retry", dltTopicSuffix = ".DLT",
+            autoStartDltHandler = "false")
+    @KafkaListener(topics = KafkaTopics.ORDER_PLACED, groupId = GROUP_ID)
+    public void consumeOrderPlacedForTrending(ConsumerRecord<String, OrderEvent> record,
+            Acknowledgment acknowledgment) {
+        OrderEvent event = record.value();
+        if (idempotencyGuard.isDuplicate(GROUP_ID, record, event.getEventId())) {
+            log.debug("OrderEvent {} already counted; skipped for trending", event.getEventId());
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        if (event.getItems() != null) {
+            event.getItems().forEach(item -> trendingProductsService.recordPurchase(
+                    item.getProductId(), item.getCategoryId(), item.getQuantity()));
+        } else {
+            // Published before order events carried line items
+            log.debug("OrderEvent {} has no items; skipped for trending", event.getOrderId());
+        }
+        idempotencyGuard.markProcessed(GROUP_ID, record, event.getEventId());
+        acknowledgment.acknowledge();
+    }
+}
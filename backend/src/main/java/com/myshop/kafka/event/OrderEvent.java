@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import com.myshop.model.enums.OrderStatus;
@@ -21,4 +22,5 @@ public class OrderEvent {
     private String email;
     private BigDecimal totalAmount;
     private OrderStatus status;
+    private List<OrderEventItem> items;
 }
@@ -0,0 +1,22 @@
+package com.myshop.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One line of a placed order, carried inside OrderEvent so stream consumers
+ * (trending, recommendations) never have to query order_items.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventItem {
+    private UUID productId;
+    private UUID categoryId;
+    private int quantity;
+}
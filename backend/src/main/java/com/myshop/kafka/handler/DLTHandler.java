@@ -1,22 +1,39 @@
 package com.myshop.kafka.handler;
 
+import com.myshop.constants.KafkaTopics;
+import com.myshop.service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class DLTHandler {
 
+    private final DeadLetterService deadLetterService;
+
     /**
-     * Consumes messages from the Dead Letter Topic.
-     * These messages failed to process 3 times in their original consumer.
+     * Consumes messages from the per-topic Dead Letter Topics.
+     * These messages failed in their original consumer and in every retry
+     * tier after it (or in every blocking retry, for listeners without
+     * retry topics).
+     *
+     * Each one is stored in dead_letters for inspection and replay through
+     * /api/v1/admin/dead-letters. The document id is the DLT coordinates,
+     * so a redelivery after a failed ack overwrites instead of duplicating.
+     * If the save fails, dltKafkaListenerContainerFactory retries the record
+     * until it succeeds.
      */
-    @KafkaListener(topics = "myshop.dlt", groupId = "dlt-group")
-    public void processDltMessage(@Payload Object payload) {
-        log.error("Received message in DLT! Payload: {}", payload);
-        // In a real production system, you might save this to a database table
-        // or send an alert to PagerDuty/Slack for manual intervention.
+    @KafkaListener(topics = { KafkaTopics.ORDER_PLACED_DLT, KafkaTopics.INVENTORY_UPDATED_DLT,
+            KafkaTopics.NOTIFICATION_DISPATCH_DLT }, groupId = "dlt-group",
+            containerFactory = "dltKafkaListenerContainerFactory")
+    public void processDltMessage(ConsumerRecord<String, Object> record, Acknowledgment acknowledgment) {
+        deadLetterService.record(record);
+        log.warn("Stored dead letter {}-{}@{}", record.topic(), record.partition(), record.offset());
+        acknowledgment.acknowledge();
     }
 }
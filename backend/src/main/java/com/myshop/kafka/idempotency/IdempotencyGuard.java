@@ -0,0 +1,252 @@
+package com.myshop.kafka.idempotency;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * IdempotencyGuard — Tells a consumer whether it already processed an event,
+ * by the event's eventId, without a database query per record.
+ *
+ *   isDuplicate(group, record, eventId)   before handling
+ *   markProcessed(group, record, eventId) after handling succeeded
+ *
+ * Redis is the record of truth: one set of eventIds per group, partition and
+ * UTC hour (CacheKeys.KAFKA_PROCESSED_EVENTS), kept retention-hours. A
+ * redelivery older than that is treated as new.
+ *
+ * In front of it, a local Bloom filter per group answers "definitely not
+ * seen" for almost every new event, so the common case costs no round trip;
+ * only a "maybe" (a real duplicate or a ~fpp false positive) asks Redis.
+ * That shortcut is only sound if the filter holds everything in Redis for
+ * the partition, including what another node processed before a rebalance —
+ * so as a rebalance listener the guard loads a partition's sets into the
+ * filter when it is assigned, and until then always asks Redis.
+ *
+ * Bloom filters cannot delete, so there are two generations, each sized for
+ * expected-per-window events: marks go into the current one, both are
+ * checked, and every retention period the current one becomes the previous
+ * and a fresh one starts. An id therefore stays in the filter for at least as
+ * long as Redis keeps it.
+ *
+ * Metrics: myshop.kafka.idempotency.checks{group, result}, result =
+ * bloom_negative (no Redis call), redis_negative (asked Redis, new) or
+ * duplicate.
+ */
+@Slf4j
+@Component
+public class IdempotencyGuard implements ConsumerAwareRebalanceListener {
+
+    private static final DateTimeFormatter HOUR = DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(ZoneOffset.UTC);
+
+    private record GroupPartition(String groupId, String topic, int partition) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int retentionHours;
+    private final long expectedPerWindow;
+    private final double fpp;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, Generations> filters = new ConcurrentHashMap<>();
+    private final Set<GroupPartition> seeded = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public IdempotencyGuard(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+            @Value("${myshop.kafka.idempotency.retention-hours:24}") int retentionHours,
+            @Value("${myshop.kafka.idempotency.expected-per-window:1000000}") long expectedPerWindow,
+            @Value("${myshop.kafka.idempotency.fpp:0.01}") double fpp) {
+        this(redisTemplate, meterRegistry, retentionHours, expectedPerWindow, fpp, System::nanoTime);
+    }
+
+    /** nanoClock drives generation rotation; tests pass their own. */
+    IdempotencyGuard(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, int retentionHours,
+            long expectedPerWindow, double fpp, LongSupplier nanoClock) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.retentionHours = retentionHours;
+        this.expectedPerWindow = expectedPerWindow;
+        this.fpp = fpp;
+        this.nanoClock = nanoClock;
+    }
+
+    public boolean isDuplicate(String groupId, ConsumerRecord<?, ?> record, String eventId) {
+        if (eventId == null) {
+            // Published before events carried an id: nothing to compare
+            return false;
+        }
+        GroupPartition partition = new GroupPartition(groupId, record.topic(), record.partition());
+        if (seeded.contains(partition) && !generations(groupId).mightContain(eventId)) {
+            count(groupId, "bloom_negative");
+            return false;
+        }
+
+        List<Object> members = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] member = eventId.getBytes(StandardCharsets.UTF_8);
+            for (String key : retainedKeys(partition, Instant.now())) {
+                connection.setCommands().sIsMember(key.getBytes(StandardCharsets.UTF_8), member);
+            }
+            return null;
+        });
+        boolean duplicate = members.contains(Boolean.TRUE);
+        count(groupId, duplicate ? "duplicate" : "redis_negative");
+        if (duplicate) {
+            generations(groupId).put(eventId);
+        }
+        return duplicate;
+    }
+
+    /**
+     * Remembers the event. A Redis failure is logged, not thrown: the event
+     * was already handled, and failing here would only make it run again.
+     */
+    public void markProcessed(String groupId, ConsumerRecord<?, ?> record, String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        generations(groupId).put(eventId);
+        GroupPartition partition = new GroupPartition(groupId, record.topic(), record.partition());
+        byte[] key = key(partition, Instant.now()).getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.setCommands().sAdd(key, eventId.getBytes(StandardCharsets.UTF_8));
+                connection.keyCommands().expire(key, Duration.ofHours(retentionHours + 1L).toSeconds());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not record event {} as processed by {}: {}", eventId, groupId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        String groupId = consumer.groupMetadata().groupId();
+        Generations filter = generations(groupId);
+        Instant now = Instant.now();
+        for (TopicPartition topicPartition : partitions) {
+            GroupPartition partition = new GroupPartition(groupId, topicPartition.topic(), topicPartition.partition());
+            try {
+                long loaded = 0;
+                for (String key : retainedKeys(partition, now)) {
+                    loaded += seed(filter, key);
+                }
+                seeded.add(partition);
+                log.debug("Seeded {} processed event ids for {} {}", loaded, groupId, topicPartition);
+            } catch (RuntimeException e) {
+                // Unseeded partitions fall back to asking Redis for every record
+                log.warn("Could not seed processed events for {} {}: {}", groupId, topicPartition, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(consumer, partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(consumer, partitions);
+    }
+
+    private void forget(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Whoever owns them next may process events this filter never sees
+        String groupId = consumer.groupMetadata().groupId();
+        partitions.forEach(tp -> seeded.remove(new GroupPartition(groupId, tp.topic(), tp.partition())));
+    }
+
+    private long seed(Generations filter, String key) {
+        long loaded = 0;
+        try (Cursor<String> members = redisTemplate.opsForSet().scan(key,
+                ScanOptions.scanOptions().count(1_000).build())) {
+            while (members.hasNext()) {
+                filter.put(members.next());
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private List<String> retainedKeys(GroupPartition partition, Instant now) {
+        List<String> keys = new ArrayList<>(retentionHours + 1);
+        for (int hour = 0; hour <= retentionHours; hour++) {
+            keys.add(key(partition, now.minus(Duration.ofHours(hour))));
+        }
+        return keys;
+    }
+
+    private static String key(GroupPartition partition, Instant at) {
+        return CacheKeys.format(CacheKeys.KAFKA_PROCESSED_EVENTS, partition.groupId(), partition.topic(),
+                partition.partition(), HOUR.format(at));
+    }
+
+    private Generations generations(String groupId) {
+        return filters.computeIfAbsent(groupId, g -> new Generations());
+    }
+
+    private void count(String groupId, String result) {
+        Counter.builder("myshop.kafka.idempotency.checks")
+                .tag("group", groupId)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private final class Generations {
+        private final long windowNanos = Duration.ofHours(retentionHours).toNanos();
+        private volatile BloomFilter current = new BloomFilter(expectedPerWindow, fpp);
+        private volatile BloomFilter previous = new BloomFilter(expectedPerWindow, fpp);
+        private volatile long rotatedAt = nanoClock.getAsLong();
+
+        void put(String eventId) {
+            rotateIfDue();
+            current.put(eventId);
+        }
+
+        boolean mightContain(String eventId) {
+            rotateIfDue();
+            return current.mightContain(eventId) || previous.mightContain(eventId);
+        }
+
+        private void rotateIfDue() {
+            if (nanoClock.getAsLong() - rotatedAt < windowNanos) {
+                return;
+            }
+            synchronized (this) {
+                long now = nanoClock.getAsLong();
+                if (now - rotatedAt >= windowNanos) {
+                    previous = current;
+                    current = new BloomFilter(expectedPerWindow, fpp);
+                    rotatedAt = now;
+                }
+            }
+        }
+    }
+}
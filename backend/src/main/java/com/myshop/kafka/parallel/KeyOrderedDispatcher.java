@@ -0,0 +1,288 @@
+package com.myshop.kafka.parallel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * KeyOrderedDispatcher — Processes the records of one partition in parallel
+ * while keeping records with the same key in order.
+ *
+ * A partition is consumed by one thread, so a consumer doing blocking I/O per
+ * record is capped at one record in flight per partition. Here the consumer
+ * thread only hands records out: every key gets a lane, a chain of virtual
+ * thread tasks that run one after another, and different keys run at the same
+ * time. Records without a key have no order to keep and run on their own.
+ *
+ *   offsets  10(u1) 11(u2) 12(u1) 13(u3)
+ *   lane u1: 10 → 12      lane u2: 11      lane u3: 13
+ *
+ * Commits: records finish out of order, so a partition's committed offset is
+ * its lowest unfinished one (PartitionOffsets) — if 11 is still running when
+ * 10, 12 and 13 are done, 11 is committed and a crash redelivers 11-13.
+ * Commits happen on the consumer thread: after each dispatched poll, on
+ * ListenerContainerIdleEvent while no records arrive, and synchronously when
+ * partitions are revoked, after giving their running records drainTimeout to
+ * finish. An offset counts as committed only once the broker confirmed it,
+ * so a failed commitAsync is simply sent again next time. Delivery stays
+ * at-least-once, so handlers must be idempotent.
+ *
+ * Backpressure: at most maxInFlight records are dispatched and unfinished;
+ * beyond that the consumer thread waits, so the next poll waits too.
+ *
+ * Failures retry inside the lane per backOff — later records of that key
+ * wait, other keys carry on — and then go to the recoverer (the topic's DLT).
+ * Every record ends up completed or dead-lettered: if the DLT publish fails
+ * too, it is repeated per recoveryBackOff, still in the lane, until it
+ * succeeds. Only losing the partition (its new owner redelivers the record)
+ * or shutting down ends that loop early; otherwise one stuck record would
+ * hold its partition's commit point back for good.
+ */
+@Slf4j
+public class KeyOrderedDispatcher implements ConsumerAwareRebalanceListener, DisposableBean {
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(ConsumerRecord<String, Object> record) throws Exception;
+    }
+
+    private record GroupPartition(String groupId, TopicPartition partition) {
+    }
+
+    private record LaneKey(String groupId, String topic, String key) {
+    }
+
+    private final ConsumerRecordRecoverer recoverer;
+    private final BackOff backOff;
+    private final BackOff recoveryBackOff;
+    private final Duration drainTimeout;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<GroupPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+    private final Map<Object, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+
+    public KeyOrderedDispatcher(ConsumerRecordRecoverer recoverer, BackOff backOff, BackOff recoveryBackOff,
+            int maxInFlight, Duration drainTimeout) {
+        this.recoverer = recoverer;
+        this.backOff = backOff;
+        this.recoveryBackOff = recoveryBackOff;
+        this.drainTimeout = drainTimeout;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Dispatches one poll's records and commits what has finished so far.
+     * Called from a batch listener on the consumer thread.
+     */
+    public void dispatch(List<ConsumerRecord<String, Object>> records, Consumer<?, ?> consumer,
+            RecordHandler handler) throws InterruptedException {
+        String groupId = consumer.groupMetadata().groupId();
+        for (ConsumerRecord<String, Object> record : records) {
+            inFlight.acquire();
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            GroupPartition groupPartition = new GroupPartition(groupId, partition);
+            PartitionOffsets offsets = partitions.computeIfAbsent(groupPartition, gp -> new PartitionOffsets());
+            offsets.dispatched(record.offset());
+
+            Runnable task = () -> process(groupPartition, record, handler, offsets);
+            Object laneKey = record.key() != null ? new LaneKey(groupId, record.topic(), record.key()) : record;
+            CompletableFuture<Void> tail = lanes.compute(laneKey, (key, previous) -> previous == null
+                    ? CompletableFuture.runAsync(task, executor)
+                    // handleAsync rather than thenRunAsync: a lane must go on even if a task died
+                    : previous.handleAsync((result, e) -> {
+                        task.run();
+                        return null;
+                    }, executor));
+            // Drop the lane once its last task is done, unless a newer task has joined it
+            tail.whenComplete((result, e) -> lanes.remove(laneKey, tail));
+        }
+        commit(consumer);
+    }
+
+    /** Commits, for the consumer's group and assignment, every partition whose commit point moved. */
+    public void commit(Consumer<?, ?> consumer) {
+        String groupId = consumer.groupMetadata().groupId();
+        Map<TopicPartition, OffsetAndMetadata> offsets = committable(groupId, consumer.assignment());
+        if (!offsets.isEmpty()) {
+            // The callback runs on the consumer thread, during a later poll or commit
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    log.warn("Commit of {} failed; the next commit sends it again: {}", committed, e.getMessage());
+                } else {
+                    markCommitted(groupId, committed);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        // Published on the consumer thread, so the consumer may be used here
+        if (event.getConsumer() != null) {
+            commit(event.getConsumer());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        String groupId = consumer.groupMetadata().groupId();
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        try {
+            while (pending(groupId, revoked) > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int stillRunning = pending(groupId, revoked);
+        if (stillRunning > 0) {
+            log.warn("{} records of {} still running after {}; the new owner will process them again",
+                    stillRunning, revoked, drainTimeout);
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = committable(groupId, revoked);
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+        // Removing the partitions also ends any DLT publish still being repeated for them
+        revoked.forEach(partition -> partitions.remove(new GroupPartition(groupId, partition)));
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+        String groupId = consumer.groupMetadata().groupId();
+        lost.forEach(partition -> partitions.remove(new GroupPartition(groupId, partition)));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void process(GroupPartition groupPartition, ConsumerRecord<String, Object> record,
+            RecordHandler handler, PartitionOffsets offsets) {
+        try {
+            handleWithRetries(groupPartition, record, handler, offsets);
+            offsets.completed(record.offset());
+        } catch (InterruptedException e) {
+            // Only shutdown interrupts a lane; nothing commits after that, so the record is redelivered
+            Thread.currentThread().interrupt();
+        } catch (PartitionGoneException e) {
+            log.info("Gave up on {}-{}@{}: {} was revoked or lost", record.topic(), record.partition(),
+                    record.offset(), groupPartition.partition());
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void handleWithRetries(GroupPartition groupPartition, ConsumerRecord<String, Object> record,
+            RecordHandler handler, PartitionOffsets offsets) throws InterruptedException, PartitionGoneException {
+        BackOffExecution backOffExecution = backOff.start();
+        while (true) {
+            try {
+                handler.handle(record);
+                return;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                long waitMs = backOffExecution.nextBackOff();
+                if (waitMs == BackOffExecution.STOP) {
+                    recover(groupPartition, record, e, offsets);
+                    return;
+                }
+                log.warn("Record {}-{}@{} failed, retrying in {}ms: {}", record.topic(), record.partition(),
+                        record.offset(), waitMs, e.getMessage());
+                Thread.sleep(waitMs);
+            }
+        }
+    }
+
+    /** Publishes the record to its DLT, repeating per recoveryBackOff until that works. */
+    private void recover(GroupPartition groupPartition, ConsumerRecord<String, Object> record, Exception failure,
+            PartitionOffsets offsets) throws InterruptedException, PartitionGoneException {
+        BackOffExecution backOffExecution = recoveryBackOff.start();
+        while (true) {
+            long waitMs;
+            // The recoverer stamps the group on the DLT record from this thread-local
+            KafkaUtils.setConsumerGroupId(groupPartition.groupId());
+            try {
+                recoverer.accept(record, failure);
+                return;
+            } catch (RuntimeException recoveryFailure) {
+                waitMs = backOffExecution.nextBackOff();
+                if (waitMs == BackOffExecution.STOP) {
+                    // Giving up would leave the record pending for good: start the back-off over
+                    backOffExecution = recoveryBackOff.start();
+                    waitMs = backOffExecution.nextBackOff();
+                }
+                log.error("Could not dead-letter {}-{}@{}, trying again in {}ms", record.topic(),
+                        record.partition(), record.offset(), waitMs, recoveryFailure);
+            } finally {
+                KafkaUtils.clearConsumerGroupId();
+            }
+            Thread.sleep(waitMs);
+            if (partitions.get(groupPartition) != offsets) {
+                throw new PartitionGoneException();
+            }
+        }
+    }
+
+    private int pending(String groupId, Collection<TopicPartition> assigned) {
+        int pending = 0;
+        for (TopicPartition partition : assigned) {
+            PartitionOffsets offsets = partitions.get(new GroupPartition(groupId, partition));
+            if (offsets != null) {
+                pending += offsets.pendingCount();
+            }
+        }
+        return pending;
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committable(String groupId, Collection<TopicPartition> assigned) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : assigned) {
+            PartitionOffsets offsets = partitions.get(new GroupPartition(groupId, partition));
+            long next = offsets == null ? -1 : offsets.committable();
+            if (next >= 0) {
+                commits.put(partition, new OffsetAndMetadata(next));
+            }
+        }
+        return commits;
+    }
+
+    private void markCommitted(String groupId, Map<TopicPartition, OffsetAndMetadata> committed) {
+        committed.forEach((partition, offset) -> {
+            PartitionOffsets offsets = partitions.get(new GroupPartition(groupId, partition));
+            if (offsets != null) {
+                offsets.markCommitted(offset.offset());
+            }
+        });
+    }
+
+    /** The partition a record belongs to was revoked or lost while the record was still being retried. */
+    private static final class PartitionGoneException extends Exception {
+    }
+}
+
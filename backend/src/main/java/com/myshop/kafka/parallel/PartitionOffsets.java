@@ -0,0 +1,41 @@
+package com.myshop.kafka.parallel;
+
+import java.util.TreeSet;
+
+/**
+ * Offsets of one partition that were dispatched but have not completed.
+ *
+ * Records complete out of order, so the commit point is the lowest offset
+ * still pending: everything below it is done. With nothing pending it is one
+ * past the highest offset dispatched. A crash therefore redelivers at most
+ * the pending records and whatever completed above the first of them.
+ */
+final class PartitionOffsets {
+
+    private final TreeSet<Long> pending = new TreeSet<>();
+    private long nextAfterDispatched = -1;
+    private long committed = -1;
+
+    synchronized void dispatched(long offset) {
+        pending.add(offset);
+        nextAfterDispatched = Math.max(nextAfterDispatched, offset + 1);
+    }
+
+    synchronized void completed(long offset) {
+        pending.remove(offset);
+    }
+
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /** The offset to commit, or -1 when it has not moved since the last markCommitted. */
+    synchronized long committable() {
+        long next = pending.isEmpty() ? nextAfterDispatched : pending.first();
+        return next > committed ? next : -1;
+    }
+
+    synchronized void markCommitted(long offset) {
+        committed = Math.max(committed, offset);
+    }
+}
@@ -0,0 +1,66 @@
+package com.myshop.kafka.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.listener.KafkaBackoffException;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Counts listener outcomes per topic and retry tier:
+ * myshop.kafka.records{topic, tier, outcome=success|failure}, where topic is
+ * the main topic and tier is "main", a retry delay ("1s", "30s", ...) or
+ * "dlt". A rising failure count on the last tier means records are about to
+ * be dead-lettered.
+ *
+ * A record read from a retry topic before it is due is paused and redelivered
+ * later; that is not a failure and is not counted.
+ */
+public class RetryTierMetricsInterceptor implements RecordInterceptor<String, Object> {
+
+    private final MeterRegistry meterRegistry;
+
+    public RetryTierMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ConsumerRecord<String, Object> intercept(ConsumerRecord<String, Object> record,
+            Consumer<String, Object> consumer) {
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<String, Object> record, Consumer<String, Object> consumer) {
+        counter(record, "success").increment();
+    }
+
+    @Override
+    public void failure(ConsumerRecord<String, Object> record, Exception exception,
+            Consumer<String, Object> consumer) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KafkaBackoffException) {
+                return;
+            }
+        }
+        counter(record, "failure").increment();
+    }
+
+    private Counter counter(ConsumerRecord<String, Object> record, String outcome) {
+        // Forwarded records carry the topic they were first published to
+        Header originalTopic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        String mainTopic = originalTopic != null
+                ? new String(originalTopic.value(), StandardCharsets.UTF_8)
+                : record.topic();
+        return Counter.builder("myshop.kafka.records")
+                .tag("topic", mainTopic)
+                .tag("tier", RetryTiers.tierOf(record.topic()))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
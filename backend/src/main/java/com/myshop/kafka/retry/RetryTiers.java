@@ -0,0 +1,115 @@
+package com.myshop.kafka.retry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * RetryTiers — The retry topic ladder every @RetryableTopic listener shares.
+ *
+ * Attempt n (n = 1 is the first retry) waits initialDelay * multiplier^(n-1),
+ * capped at maxDelay, on its own topic named after that delay:
+ *   order.placed                              main topic
+ *   order.placed.trending.retry-1s            1st retry
+ *   order.placed.trending.retry-30s           2nd retry
+ *   order.placed.trending.retry-5m            3rd retry
+ *   order.placed.DLT                          after the last retry
+ * (the listener name in the middle keeps groups sharing a main topic from
+ * replaying each other's failures). The DLT is shared per main topic and
+ * read once, by DLTHandler — listeners set autoStartDltHandler = "false".
+ *
+ * Topic names use the nominal delay so every node derives the same ones.
+ * Jitter is applied per record instead, on the time the record becomes due
+ * (see jitteredDueTimestamp), so a burst of failures spreads out rather than
+ * retrying in lockstep.
+ *
+ * Because a tier is named by its delay, each delay can be used only once.
+ * Settings that reach maxDelay on more than one retry (or a multiplier of 1)
+ * would give two tiers the same topic, so the constructor refuses them.
+ */
+public final class RetryTiers {
+
+    // Shared by @RetryableTopic attributes and KafkaRetryConfig, so topic names and jitter agree
+    public static final String ATTEMPTS = "${myshop.kafka.retry.attempts:4}";
+    public static final String INITIAL_DELAY_MS = "${myshop.kafka.retry.initial-delay-ms:1000}";
+    public static final String MULTIPLIER = "${myshop.kafka.retry.multiplier:30}";
+    public static final String MAX_DELAY_MS = "${myshop.kafka.retry.max-delay-ms:300000}";
+
+    public static final String MAIN = "main";
+    public static final String DLT = "dlt";
+
+    private static final Pattern RETRY_TOPIC = Pattern.compile("\\.retry-(\\d+(?:ms|s|m|h))$");
+
+    private final List<Long> delaysMs;
+    private final double jitter;
+
+    public RetryTiers(long initialDelayMs, double multiplier, long maxDelayMs, int attempts, double jitter) {
+        List<Long> delays = new ArrayList<>();
+        double delay = initialDelayMs;
+        for (int retry = 1; retry < attempts; retry++) {
+            delays.add(Math.min((long) delay, maxDelayMs));
+            delay *= multiplier;
+        }
+        if (delays.isEmpty()) {
+            throw new IllegalArgumentException("attempts must allow at least one retry");
+        }
+        Set<String> labels = new HashSet<>();
+        for (long delayMs : delays) {
+            if (!labels.add(label(delayMs))) {
+                throw new IllegalArgumentException("Retry delays " + delays + " use tier " + label(delayMs)
+                        + " twice; raise max-delay-ms or the multiplier, or lower attempts");
+            }
+        }
+        this.delaysMs = List.copyOf(delays);
+        this.jitter = jitter;
+    }
+
+    /** Compact label for a delay: 500ms, 1s, 30s, 5m, 2h. */
+    public static String label(long delayMs) {
+        if (delayMs >= 3_600_000 && delayMs % 3_600_000 == 0) {
+            return delayMs / 3_600_000 + "h";
+        }
+        if (delayMs >= 60_000 && delayMs % 60_000 == 0) {
+            return delayMs / 60_000 + "m";
+        }
+        if (delayMs >= 1_000 && delayMs % 1_000 == 0) {
+            return delayMs / 1_000 + "s";
+        }
+        return delayMs + "ms";
+    }
+
+    /** "main", the delay label of a retry topic, or "dlt". */
+    public static String tierOf(String topic) {
+        if (topic.endsWith(".DLT")) {
+            return DLT;
+        }
+        Matcher matcher = RETRY_TOPIC.matcher(topic);
+        return matcher.find() ? matcher.group(1) : MAIN;
+    }
+
+    public List<Long> delaysMs() {
+        return delaysMs;
+    }
+
+    /** How long a record that just failed on this topic waits before its next attempt. */
+    public long nextDelayMs(String failedTopic) {
+        String tier = tierOf(failedTopic);
+        for (int i = 0; i < delaysMs.size(); i++) {
+            if (label(delaysMs.get(i)).equals(tier)) {
+                return delaysMs.get(Math.min(i + 1, delaysMs.size() - 1));
+            }
+        }
+        return delaysMs.get(0);
+    }
+
+    /** When a record that failed on failedTopic at nowMs should be retried: the tier delay plus up to jitter of it. */
+    public long jitteredDueTimestamp(String failedTopic, long nowMs, RandomGenerator random) {
+        long delay = nextDelayMs(failedTopic);
+        long maxJitter = (long) (delay * jitter);
+        return nowMs + delay + (maxJitter > 0 ? random.nextLong(maxJitter + 1) : 0);
+    }
+}
@@ -0,0 +1,33 @@
+package com.myshop.kafka.retry;
+
+import org.springframework.kafka.retrytopic.DestinationTopic;
+import org.springframework.kafka.retrytopic.RetryTopicNamesProviderFactory;
+import org.springframework.kafka.retrytopic.SuffixingRetryTopicNamesProviderFactory.SuffixingRetryTopicNamesProvider;
+
+import java.util.regex.Pattern;
+
+/**
+ * Names retry topics after their delay ("{topic}{retryTopicSuffix}-30s")
+ * instead of Spring's attempt index ("-1") or raw milliseconds ("-30000").
+ * Main and DLT topic names, endpoint ids and group ids are left as Spring
+ * builds them.
+ */
+public class TieredRetryTopicNamesProviderFactory implements RetryTopicNamesProviderFactory {
+
+    private static final Pattern INDEX_SUFFIX = Pattern.compile("-\\d+$");
+
+    @Override
+    public RetryTopicNamesProvider createRetryTopicNamesProvider(DestinationTopic.Properties properties) {
+        return new SuffixingRetryTopicNamesProvider(properties) {
+
+            @Override
+            public String getTopicName(String topic) {
+                if (!properties.isRetryTopic()) {
+                    return super.getTopicName(topic);
+                }
+                return topic + INDEX_SUFFIX.matcher(properties.suffix()).replaceFirst("")
+                        + "-" + RetryTiers.label(properties.delay());
+            }
+        };
+    }
+}
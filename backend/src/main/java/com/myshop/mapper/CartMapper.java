@@ -8,29 +8,37 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * CartMapper — Cart entity → DTO.
+ *
+ * Expects the cart loaded with its items and products
+ * (CartRepository.findWithItems…): each item's product is then already in
+ * the persistence context and nothing is lazy-loaded here.
+ */
 @Mapper(componentModel = "spring")
 public interface CartMapper {
 
-    @Mapping(target = "userId", source = "user.id")
-    @Mapping(target = "totalAmount", expression = "java(calculateTotalAmount(cart.getItems()))")
-    CartResponse toResponse(Cart cart);
+    /** One pass over the items: each subtotal is computed once and summed into the total. */
+    default CartResponse toResponse(Cart cart) {
+        List<CartItemResponse> items = new ArrayList<>(cart.getItems().size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartItem item : cart.getItems()) {
+            CartItemResponse response = toResponse(item);
+            items.add(response);
+            total = total.add(response.subtotal());
+        }
+        // getUser().getId() reads the FK from the proxy without loading the user
+        return new CartResponse(cart.getId(), cart.getUser() == null ? null : cart.getUser().getId(), items, total);
+    }
 
     @Mapping(target = "productId", source = "product.id")
     @Mapping(target = "productName", source = "product.name")
     // Unit price is calculated dynamically for the cart from the current product
     // price
     @Mapping(target = "unitPrice", source = "product.price")
-    @Mapping(target = "subtotal", expression = "java(cartItem.getProduct().getPrice().multiply(new java.math.BigDecimal(cartItem.getQuantity())))")
+    @Mapping(target = "subtotal", expression = "java(cartItem.getProduct().getPrice().multiply(java.math.BigDecimal.valueOf(cartItem.getQuantity())))")
     CartItemResponse toResponse(CartItem cartItem);
-
-    default BigDecimal calculateTotalAmount(List<CartItem> items) {
-        if (items == null || items.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        return items.stream()
-                .map(item -> item.getProduct().getPrice().multiply(new BigDecimal(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 }
@@ -0,0 +1,92 @@
+package com.myshop.model.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A Kafka record that exhausted its retries, as read from a {topic}.DLT.
+ *
+ * _id is "{dltTopic}-{partition}@{offset}", so a DLT record redelivered to
+ * DLTHandler overwrites its own document instead of adding a second one.
+ *
+ * payload is the record value as JSON and payloadType its event class;
+ * together they are what a replay republishes. A value that could not be
+ * deserialized is kept as raw text with no payloadType, and is never replayed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "dead_letters")
+@CompoundIndexes({
+        @CompoundIndex(name = "topic_received_idx", def = "{'original_topic': 1, 'received_at': -1}"),
+        @CompoundIndex(name = "group_received_idx", def = "{'consumer_group': 1, 'received_at': -1}"),
+        @CompoundIndex(name = "exception_received_idx", def = "{'exception_class': 1, 'received_at': -1}")
+})
+public class DeadLetter {
+
+    @Id
+    private String id;
+
+    @Field("dlt_topic")
+    private String dltTopic;
+
+    @Field("original_topic")
+    private String originalTopic;
+
+    @Field("original_partition")
+    private Integer originalPartition;
+
+    @Field("original_offset")
+    private Long originalOffset;
+
+    @Field("original_timestamp")
+    private Instant originalTimestamp;
+
+    @Field("consumer_group")
+    private String consumerGroup;
+
+    private String key;
+
+    @Field("payload_type")
+    private String payloadType;
+
+    private String payload;
+
+    @Field("exception_class")
+    private String exceptionClass;
+
+    @Field("exception_cause_class")
+    private String exceptionCauseClass;
+
+    @Field("exception_message")
+    private String exceptionMessage;
+
+    @Field("exception_stacktrace")
+    private String exceptionStacktrace;
+
+    /** Every other record header; binary values are base64 with a "base64:" prefix. */
+    private List<Header> headers;
+
+    @Field("received_at")
+    private Instant receivedAt;
+
+    @Field("replay_count")
+    private int replayCount;
+
+    @Field("last_replayed_at")
+    private Instant lastReplayedAt;
+
+    public record Header(String name, String value) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.myshop.model.document;
+
+import lombok.Data;
+
+/**
+ * Projection for "count per entity" aggregations (e.g. views per product).
+ */
+@Data
+public class EntityCountResult {
+    private String entityId;
+    private long count;
+}
@@ -0,0 +1,48 @@
+package com.myshop.model.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * Hourly product view totals.
+ *
+ * Replaces one user_activity_logs document per product view: each node
+ * aggregates views in memory and $inc's a single document per
+ * (product, hour) on every flush, so write volume scales with the number of
+ * products viewed per interval instead of the number of page views.
+ *
+ * _id is "{productId}:{bucketEpochHour}" so flushes from every node upsert
+ * into the same document. Buckets expire after 90 days, like activity logs.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "product_view_stats")
+@CompoundIndex(name = "product_bucket_idx", def = "{'product_id': 1, 'bucket': -1}")
+public class ProductViewStats {
+
+    @Id
+    private String id;
+
+    @Field("product_id")
+    private String productId;
+
+    /** Start of the hour this document counts views for. */
+    @Indexed(expireAfterSeconds = 7776000)
+    private Instant bucket;
+
+    private long views;
+
+    @Field("updated_at")
+    private Instant updatedAt;
+}
@@ -1,6 +1,7 @@
 package com.myshop.repository.jpa;
 
 import com.myshop.model.entity.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,15 @@ import java.util.UUID;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, UUID> {
     Optional<Cart> findByUserId(UUID userId);
+
+    /**
+     * Cart, items and their products in one query (user joined for the email
+     * match), so rendering or checking out the cart never lazy-loads a
+     * product per item.
+     */
+    @EntityGraph(attributePaths = { "items", "items.product" })
+    Optional<Cart> findWithItemsByUserEmail(String email);
+
+    @EntityGraph(attributePaths = { "items", "items.product" })
+    Optional<Cart> findWithItemsByUserId(UUID userId);
 }
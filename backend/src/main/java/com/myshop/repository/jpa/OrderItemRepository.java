@@ -1,9 +1,13 @@
 package com.myshop.repository.jpa;
 
 import com.myshop.model.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,4 +16,16 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, UUID> {
     List<OrderItem> findByOrderId(UUID orderId);
 
     boolean existsByOrderUserIdAndProductId(UUID userId, UUID productId);
+
+    /** Best sellers by units ordered since the given instant; limit via Pageable. */
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS units FROM OrderItem oi " +
+            "WHERE oi.order.createdAt >= :since " +
+            "GROUP BY oi.product.id ORDER BY SUM(oi.quantity) DESC")
+    List<ProductUnits> findTopSellingSince(@Param("since") Instant since, Pageable pageable);
+
+    interface ProductUnits {
+        UUID getProductId();
+
+        Long getUnits();
+    }
 }
@@ -3,12 +3,15 @@ package com.myshop.repository.jpa;
 import com.myshop.model.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,22 +22,41 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
 
         boolean existsBySku(String sku);
 
+        /**
+         * Active products by ID with their category fetched in the same query,
+         * so mapping to ProductResponse never triggers per-row lazy loads.
+         */
+        @EntityGraph(attributePaths = "category")
+        List<Product> findByIdInAndActiveTrue(Collection<UUID> ids);
+
         /** Paginated active products, optionally filtered by category */
         Page<Product> findByActiveTrueAndCategoryIdOrActiveTrueAndCategoryIdIsNull(
                         UUID categoryId, Pageable pageable);
 
         /**
          * Custom JPQL query for advanced filtering.
-         * Phase 1 will add more filter parameters (price range, etc.)
          * JPQL operates on entity objects, not table columns.
-         * ?:categoryId means "use this param, or match all if null"
+         * :minPrice IS NULL means "no lower bound" (same for :maxPrice).
          */
         @Query("SELECT p FROM Product p WHERE p.active = true " +
-                        "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
                         "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
                         "AND (:maxPrice IS NULL OR p.price <= :maxPrice)")
         Page<Product> findActiveProducts(
-                        @Param("categoryId") UUID categoryId,
+                        @Param("minPrice") BigDecimal minPrice,
+                        @Param("maxPrice") BigDecimal maxPrice,
+                        Pageable pageable);
+
+        /**
+         * Same filter restricted to a category subtree (the category plus all
+         * descendants, resolved by CategoryTreeService). One IN list served by
+         * idx_products_category_active instead of a query per subcategory.
+         */
+        @Query("SELECT p FROM Product p WHERE p.active = true " +
+                        "AND p.category.id IN :categoryIds " +
+                        "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+                        "AND (:maxPrice IS NULL OR p.price <= :maxPrice)")
+        Page<Product> findActiveProductsInCategories(
+                        @Param("categoryIds") Collection<UUID> categoryIds,
                         @Param("minPrice") BigDecimal minPrice,
                         @Param("maxPrice") BigDecimal maxPrice,
                         Pageable pageable);
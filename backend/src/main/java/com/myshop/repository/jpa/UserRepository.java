@@ -2,6 +2,9 @@ package com.myshop.repository.jpa;
 
 import com.myshop.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -29,4 +32,9 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     /** SELECT COUNT(*) > 0 FROM users WHERE email = ? — used during registration */
     boolean existsByEmail(String email);
+
+    /** Swap in a re-encoded hash (rehash on login) without loading the entity. */
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
 }
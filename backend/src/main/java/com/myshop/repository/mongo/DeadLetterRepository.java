@@ -0,0 +1,10 @@
+package com.myshop.repository.mongo;
+
+import com.myshop.model.document.DeadLetter;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/** Filtered search and replay go through MongoTemplate (DeadLetterService); this covers by-id access. */
+@Repository
+public interface DeadLetterRepository extends MongoRepository<DeadLetter, String> {
+}
@@ -0,0 +1,32 @@
+package com.myshop.repository.mongo;
+
+import com.myshop.model.document.EntityCountResult;
+import com.myshop.model.document.ProductViewStats;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ProductViewStatsRepository extends MongoRepository<ProductViewStats, String> {
+
+    /** Most viewed products since a point in time, summing the hourly buckets. */
+    @Aggregation(pipeline = {
+            "{ '$match': { 'bucket': { '$gte': ?0 } } }",
+            "{ '$group': { '_id': '$product_id', 'count': { '$sum': '$views' } } }",
+            "{ '$sort': { 'count': -1 } }",
+            "{ '$limit': ?1 }",
+            "{ '$project': { '_id': 0, 'entityId': '$_id', 'count': 1 } }"
+    })
+    List<EntityCountResult> findTopViewedSince(Instant since, int limit);
+
+    /** Total views of one product since a point in time. */
+    @Aggregation(pipeline = {
+            "{ '$match': { 'product_id': ?0, 'bucket': { '$gte': ?1 } } }",
+            "{ '$group': { '_id': '$product_id', 'count': { '$sum': '$views' } } }",
+            "{ '$project': { '_id': 0, 'entityId': '$_id', 'count': 1 } }"
+    })
+    EntityCountResult sumViewsSince(String productId, Instant since);
+}
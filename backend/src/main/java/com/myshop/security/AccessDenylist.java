@@ -0,0 +1,111 @@
+package com.myshop.security;
+
+import com.myshop.constants.CacheKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * AccessDenylist — Users whose still-unexpired access tokens must be refused.
+ *
+ * Access tokens are verified from their claims alone, so nothing per request
+ * notices that an account was disabled or its sessions revoked. This list
+ * closes that gap without a per-request lookup: it is a small in-memory map
+ * userId → cutoff, and a token is refused when it was issued at or before
+ * its user's cutoff.
+ *
+ * Both sides are milliseconds: the cutoff is the revocation time and the
+ * token's issue time is its "iat_ms" claim (see JwtTokenProvider). With the
+ * second-precision "iat" a login in the same second as a revocation would
+ * compare as issued before it and be refused for its whole lifetime.
+ *
+ * Sources, re-read every sync-interval:
+ * - users with is_active = false: cutoff "forever"
+ * - the Redis sorted set auth:revoked written by revoke() on any node
+ *
+ * A revocation is applied locally at once and reaches every other node
+ * within one sync interval. Revocations older than the access token lifetime
+ * cannot match a live token any more, so the sync drops them from Redis —
+ * the list stays as small as the set of recently revoked users.
+ */
+@Slf4j
+@Component
+public class AccessDenylist {
+
+    private static final long FOREVER = Long.MAX_VALUE;
+
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final long accessTokenExpiryMs;
+    private final LongSupplier clock;
+
+    private volatile Map<UUID, Long> cutoffs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AccessDenylist(StringRedisTemplate redisTemplate,
+            JdbcTemplate jdbcTemplate,
+            @Value("${jwt.expiration-ms}") long accessTokenExpiryMs) {
+        this(redisTemplate, jdbcTemplate, accessTokenExpiryMs, System::currentTimeMillis);
+    }
+
+    /** clock is epoch milliseconds; tests pass their own. */
+    AccessDenylist(StringRedisTemplate redisTemplate, JdbcTemplate jdbcTemplate, long accessTokenExpiryMs,
+            LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.accessTokenExpiryMs = accessTokenExpiryMs;
+        this.clock = clock;
+    }
+
+    public boolean isDenied(AuthenticatedUser user) {
+        Long cutoff = cutoffs.get(user.id());
+        return cutoff != null && user.issuedAt().toEpochMilli() <= cutoff;
+    }
+
+    /** Refuse every access token issued to the user up to now; new logins are unaffected. */
+    public void revoke(UUID userId) {
+        long now = clock.getAsLong();
+        redisTemplate.opsForZSet().add(CacheKeys.AUTH_REVOKED, userId.toString(), now);
+        cutoffs.merge(userId, now, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${myshop.auth.denylist.sync-interval-ms:30000}", initialDelay = 0)
+    public void sync() {
+        try {
+            Map<UUID, Long> fresh = new ConcurrentHashMap<>();
+
+            List<UUID> disabled = jdbcTemplate.queryForList("SELECT id FROM users WHERE is_active = false", UUID.class);
+            disabled.forEach(id -> fresh.put(id, FOREVER));
+
+            // Score = revocation time, so expiring old entries is one atomic range delete
+            // that cannot race a fresh revoke() of the same user
+            long oldestRelevant = clock.getAsLong() - accessTokenExpiryMs;
+            Long pruned = redisTemplate.opsForZSet().removeRangeByScore(CacheKeys.AUTH_REVOKED,
+                    Double.NEGATIVE_INFINITY, oldestRelevant - 1);
+            Set<ZSetOperations.TypedTuple<String>> revoked = redisTemplate.opsForZSet()
+                    .rangeWithScores(CacheKeys.AUTH_REVOKED, 0, -1);
+            if (revoked != null) {
+                revoked.forEach(entry -> fresh.merge(UUID.fromString(entry.getValue()),
+                        entry.getScore().longValue(), Math::max));
+            }
+
+            cutoffs = fresh;
+            log.debug("Access denylist synced: {} disabled, {} revoked, {} expired revocations pruned",
+                    disabled.size(), revoked == null ? 0 : revoked.size(), pruned);
+        } catch (Exception e) {
+            log.warn("Access denylist sync failed; keeping previous list: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.myshop.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * AuthenticatedUser — the request principal, built from verified access token
+ * claims alone (see JwtAuthenticationFilter).
+ *
+ * WHY NOT UserDetails?
+ * UserDetails carries a password hash and is meant to be loaded from the
+ * users table. Per request we only need who the caller is and what role the
+ * token says they have; the signature already vouches for both.
+ *
+ * @param issuedAt token "iat_ms" (millisecond issue time), compared against
+ *                 revocations by AccessDenylist
+ */
+public record AuthenticatedUser(UUID id, String email, String role, Instant issuedAt) implements Principal {
+
+    public List<SimpleGrantedAuthority> authorities() {
+        // "ROLE_" prefix: what hasRole("ADMIN") in SecurityConfig matches against
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
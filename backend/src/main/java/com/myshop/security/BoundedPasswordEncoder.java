@@ -0,0 +1,120 @@
+package com.myshop.security;
+
+import com.myshop.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * BoundedPasswordEncoder — Runs a PasswordEncoder's hashing on the dedicated
+ * passwordHashingExecutor instead of the calling request thread.
+ *
+ * The caller (a virtual thread in prod) just parks until its hash is done,
+ * so the number of hashes burning CPU at once is the pool size, whatever the
+ * login rate. When the pool's queue is full the call is refused with
+ * ServiceOverloadedException → 503 + Retry-After.
+ *
+ * Metrics, for sizing the pool:
+ *   myshop.auth.password.hash{operation}   time spent hashing on the pool
+ *   myshop.auth.password.queue.wait        time from submit to a thread picking it up
+ *   myshop.auth.password.queue.size        tasks currently waiting
+ *   myshop.auth.password.rejected          calls refused because the queue was full
+ *
+ * Rehash on login: DaoAuthenticationProvider re-encodes a password whose
+ * upgradeEncoding() is true (e.g. stored at a lower BCrypt cost than the
+ * configured one). That extra hash is skipped while the queue is more than
+ * half full — an upgrade can always wait for the user's next login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final int queueCapacity;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ThreadPoolTaskExecutor executor,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.queueCapacity = executor.getQueueCapacity();
+        this.encodeTimer = hashTimer("encode", meterRegistry);
+        this.matchesTimer = hashTimer("matches", meterRegistry);
+        this.queueWaitTimer = Timer.builder("myshop.auth.password.queue.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("myshop.auth.password.rejected")
+                .description("Password hashes refused because the hashing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("myshop.auth.password.queue.size", this, encoder -> encoder.queueDepth())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return runOnPool(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return runOnPool(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword) && queueDepth() < queueCapacity / 2;
+    }
+
+    private <T> T runOnPool(Timer hashTimer, Supplier<T> hash) {
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(hash);
+            });
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Password hashing queue is full", RETRY_AFTER_SECONDS);
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private int queueDepth() {
+        return executor.getQueueSize();
+    }
+
+    private static Timer hashTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder("myshop.auth.password.hash")
+                .description("Time spent computing a password hash")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
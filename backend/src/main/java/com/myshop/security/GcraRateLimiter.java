@@ -0,0 +1,95 @@
+package com.myshop.security;
+
+import com.myshop.constants.CacheKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * GcraRateLimiter — Exact distributed rate limiting, one Redis call per check
+ * (myshop.rate-limit.mode=exact).
+ *
+ * The whole decision — read the key's state, allow or deny, write the new
+ * state, compute remaining/reset — is redis/gcra_rate_limit.lua, run with
+ * EVALSHA. It is atomic, so concurrent requests on different nodes can never
+ * both take the last slot, and it stores one number per key.
+ *
+ * If the script call fails (Redis down, AUTH refused, timeout) the request
+ * is decided by an in-memory LocalRateLimiter instead: a limiter outage
+ * should not become an API outage, but it must not switch limiting off
+ * either. During the outage each node enforces the limit on its own; that
+ * fallback is never synced, so Redis picks up again from its own state.
+ *
+ * An outage is logged once when it starts and once when it ends, not per
+ * request — at full traffic that would be a WARN per request. How many
+ * decisions fell back is the counter myshop.rate-limit.fallback.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "myshop.rate-limit.mode", havingValue = "exact")
+public class GcraRateLimiter implements RateLimiter {
+
+    private static final long PERIOD_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GCRA_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/gcra_rate_limit.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final LocalRateLimiter fallback;
+    private final Counter fallbacks;
+    private final AtomicBoolean redisDown = new AtomicBoolean();
+
+    public GcraRateLimiter(StringRedisTemplate redisTemplate,
+            @Value("${myshop.rate-limit.max-keys:100000}") long maxKeys,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.fallback = new LocalRateLimiter(redisTemplate, maxKeys);
+        this.fallbacks = Counter.builder("myshop.rate-limit.fallback")
+                .description("Rate limit decisions made locally because the Redis script call failed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key, int limitPerMinute) {
+        if (limitPerMinute < 1) {
+            throw new IllegalArgumentException("Rate limit must be at least 1 per minute, was " + limitPerMinute);
+        }
+        long intervalMicros = Math.max(1, PERIOD_MICROS / limitPerMinute);
+        List<?> reply;
+        try {
+            reply = redisTemplate.execute(GCRA_SCRIPT,
+                    List.of(CacheKeys.format(CacheKeys.RATE_LIMIT_GCRA, key)),
+                    Long.toString(intervalMicros), Integer.toString(limitPerMinute));
+        } catch (Exception e) {
+            fallbacks.increment();
+            if (redisDown.compareAndSet(false, true)) {
+                log.warn("Rate limit checks failing; deciding locally until Redis is back: {}", e.getMessage());
+            }
+            return fallback.tryAcquire(key, limitPerMinute);
+        }
+        if (redisDown.compareAndSet(true, false)) {
+            log.info("Rate limit checks reach Redis again");
+        }
+        return new RateLimitDecision(
+                ((Number) reply.get(0)).longValue() == 1,
+                limitPerMinute,
+                (int) ((Number) reply.get(1)).longValue(),
+                toSeconds(((Number) reply.get(2)).longValue()),
+                toSeconds(((Number) reply.get(3)).longValue()));
+    }
+
+    private static long toSeconds(long micros) {
+        return (micros + 999_999) / 1_000_000;
+    }
+}
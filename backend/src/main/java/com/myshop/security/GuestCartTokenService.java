@@ -0,0 +1,112 @@
+package com.myshop.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * GuestCartTokenService — issues and checks the X-Cart-Token of anonymous carts.
+ *
+ * Token = base64url(cartId) "." base64url(HMAC_SHA256(cartId, secret)).
+ * The cart id is random, so it cannot be guessed; the signature means a
+ * client cannot swap in another cart's id either. Unlike a JWT there are no
+ * claims and no expiry: the cart's Redis TTL is the expiry.
+ *
+ * The HMAC key is not the configured secret itself but derived from it with
+ * HKDF-SHA256 under a guest-cart label. When the secret falls back to the JWT
+ * secret, the two HMACs therefore still use unrelated keys: a signature from
+ * one can never verify as the other.
+ */
+@Component
+public class GuestCartTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final byte[] KEY_LABEL = "myshop guest-cart token key v1".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKeySpec key;
+
+    public GuestCartTokenService(@Value("${myshop.guest-cart.secret}") String secret) {
+        byte[] derived = hkdfSha256(secret.getBytes(StandardCharsets.UTF_8), new byte[0], KEY_LABEL, 32);
+        this.key = new SecretKeySpec(derived, ALGORITHM);
+    }
+
+    public String issue(UUID cartId) {
+        byte[] id = toBytes(cartId);
+        return ENCODER.encodeToString(id) + "." + ENCODER.encodeToString(sign(id));
+    }
+
+    /** The cart id, or empty when the token is malformed or the signature does not match. */
+    public Optional<UUID> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] id = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            // Constant-time comparison: no timing hints about how much of a forged signature matched
+            if (id.length != 16 || !MessageDigest.isEqual(sign(id), signature)) {
+                return Optional.empty();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(id);
+            return Optional.of(new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] data) {
+        try {
+            // Mac instances are not thread-safe; creating one is cheap next to a request
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /** RFC 5869 extract-then-expand; an empty salt means HashLen zero bytes. */
+    static byte[] hkdfSha256(byte[] inputKey, byte[] salt, byte[] info, int length) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(salt.length == 0 ? new byte[32] : salt, ALGORITHM));
+            byte[] pseudoRandomKey = mac.doFinal(inputKey);
+
+            mac.init(new SecretKeySpec(pseudoRandomKey, ALGORITHM));
+            byte[] output = new byte[length];
+            byte[] block = new byte[0];
+            for (int offset = 0, counter = 1; offset < length; offset += block.length, counter++) {
+                mac.update(block);
+                mac.update(info);
+                mac.update((byte) counter);
+                block = mac.doFinal();
+                System.arraycopy(block, 0, output, offset, Math.min(block.length, length - offset));
+            }
+            return output;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
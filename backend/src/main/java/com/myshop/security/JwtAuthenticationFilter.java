@@ -1,5 +1,6 @@
 package com.myshop.security;
 
+import com.myshop.util.RequestUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,10 +9,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -26,11 +25,17 @@ import java.io.IOException;
  * This filter does the following on each request:
  * 1. Extract the Authorization header
  * 2. Parse the Bearer token
- * 3. Validate the token (signature + expiry)
- * 4. Load user from DB (or UserDetails cache)
+ * 3. Validate the token (signature + expiry) and read its claims
+ * 4. Refuse it if the user is on the AccessDenylist
  * 5. Set SecurityContextHolder (marks request as authenticated)
  * 6. Continue the filter chain (no short-circuit on success)
  *
+ * WHY NO DATABASE LOOKUP?
+ * The token's signature already proves the claims (user id, email, role)
+ * were issued by us, so the principal is built from them directly. The
+ * only thing a lookup would add is "has this account been disabled or
+ * signed out since?" — which AccessDenylist answers from memory.
+ *
  * WHY OncePerRequestFilter?
  * Some frameworks call filters multiple times per request (e.g. on
  * forwards/includes).
@@ -49,7 +54,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final AccessDenylist accessDenylist;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -59,44 +64,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             // Step 1 & 2: Extract Bearer token from header
-            String jwt = extractTokenFromRequest(request);
-
-            // Step 3: Validate token (null check + signature + expiry)
-            if (jwt != null && jwtTokenProvider.validateToken(jwt)) {
+            String jwt = RequestUtils.getBearerToken(request);
 
-                // Step 4: Extract email and load UserDetails
-                String email = jwtTokenProvider.extractEmail(jwt);
-                if (email != null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            // Step 3: Validate token (null check + signature + expiry) and read its claims
+            AuthenticatedUser user = jwt == null ? null : jwtTokenProvider.parseAccessToken(jwt).orElse(null);
 
-                    if (userDetails != null) {
-                        /**
-                         * Step 5: Create authentication token.
-                         * UsernamePasswordAuthenticationToken(principal, credentials, authorities)
-                         * - principal: who is authenticated (UserDetails)
-                         * - credentials: null (we don't need the password after successful auth)
-                         * - authorities: granted roles (ROLE_USER, ROLE_ADMIN)
-                         *
-                         * The 3-arg constructor marks the authentication as "authenticated=true".
-                         * The 2-arg constructor (without authorities) marks it as
-                         * "authenticated=false".
-                         */
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
+            // Step 4: Disabled accounts and revoked sessions stay anonymous
+            if (user != null && !accessDenylist.isDenied(user)) {
+                /**
+                 * Step 5: Create authentication token.
+                 * UsernamePasswordAuthenticationToken(principal, credentials, authorities)
+                 * - principal: who is authenticated (AuthenticatedUser)
+                 * - credentials: null (we never have a password here)
+                 * - authorities: granted roles from the token (ROLE_USER, ROLE_ADMIN)
+                 *
+                 * The 3-arg constructor marks the authentication as "authenticated=true".
+                 * The 2-arg constructor (without authorities) marks it as
+                 * "authenticated=false".
+                 */
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        user, null, user.authorities());
 
-                        // Attaches request details (IP, session ID) to the authentication object
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                // Attaches request details (IP, session ID) to the authentication object
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                        /**
-                         * Step 5b: Set in SecurityContextHolder.
-                         * SecurityContextHolder is thread-local — each thread (request) has its own
-                         * context.
-                         * After this line, Spring Security considers this request authenticated.
-                         * SecurityUtils.getCurrentUserEmail() reads from here.
-                         */
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
-                }
+                /**
+                 * Step 5b: Set in SecurityContextHolder.
+                 * SecurityContextHolder is thread-local — each thread (request) has its own
+                 * context.
+                 * After this line, Spring Security considers this request authenticated.
+                 * SecurityUtils.getCurrentUserEmail() reads from here.
+                 */
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception e) {
             // Don't propagate — unauthenticated state is handled downstream
@@ -106,16 +105,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // ALWAYS continue the filter chain
         filterChain.doFilter(request, response);
     }
-
-    /**
-     * Extract token from "Authorization: Bearer <token>" header.
-     * Returns null if header is missing or malformed.
-     */
-    private String extractTokenFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7); // Remove "Bearer " prefix (7 chars)
-        }
-        return null;
-    }
 }
@@ -1,15 +1,25 @@
 package com.myshop.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
+import com.myshop.model.entity.User;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JwtTokenProvider — creates and validates JSON Web Tokens.
@@ -18,8 +28,8 @@ import java.util.Date;
  * A JWT has 3 parts separated by dots: header.payload.signature
  *
  * Header: {"alg": "HS256", "typ": "JWT"} → Base64 encoded
- * Payload: {"sub": "email", "iat": ..., "exp": ...} → Base64 encoded (NOT
- * encrypted!)
+ * Payload: {"sub": "email", "uid": ..., "role": ..., "iat_ms": ..., "iat": ..., "exp": ...}
+ * → Base64 encoded (NOT encrypted!)
  * Signature: HMAC_SHA256(base64(header) + "." + base64(payload), secretKey)
  *
  * WHY IS THE SIGNATURE IMPORTANT?
@@ -33,6 +43,15 @@ import java.util.Date;
  * (each service has the public key but not the private key).
  * We'll use HS256 here (Phase 0 → monolith).
  *
+ * VERIFY ONCE, REMEMBER THE RESULT:
+ * A client sends the same access token with every request for 15 minutes,
+ * and each full verification is a Base64 decode, a JSON parse and an HMAC.
+ * So verify() keeps verified claims in a bounded Caffeine cache until the
+ * token's own "exp" — a repeat is one SHA-256 of the token plus a lookup.
+ * Keys are that hash, not the token, so the heap never holds a usable bearer
+ * credential. Only tokens that pass verification are cached, so a flood of
+ * forged tokens cannot push real ones out.
+ *
  * WHY @Component?
  * Registered as a Spring bean so it can be @Autowired into filters and
  * services.
@@ -41,35 +60,67 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_ISSUED_AT_MS = "iat_ms";
+
     private final SecretKey secretKey;
     private final long accessTokenExpiryMs;
     private final long refreshTokenExpiryMs;
 
+    /** Immutable and thread-safe: built once, shared by every request thread. */
+    private final JwtParser parser;
+
+    /** SHA-256(token) → verified claims, each entry expiring with its token. */
+    private final Cache<String, Claims> verified;
+
     public JwtTokenProvider(
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.expiration-ms}") long accessTokenExpiryMs,
-            @Value("${jwt.refresh-expiration-ms}") long refreshTokenExpiryMs) {
+            @Value("${jwt.refresh-expiration-ms}") long refreshTokenExpiryMs,
+            @Value("${myshop.auth.token-cache.max-size:10000}") long tokenCacheMaxSize) {
 
         // Keys.hmacShaKeyFor: creates a secure key from the secret bytes
         // Validates key length (≥32 bytes for HS256)
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.accessTokenExpiryMs = accessTokenExpiryMs;
         this.refreshTokenExpiryMs = refreshTokenExpiryMs;
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(tokenCacheMaxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
     /**
      * Generate an ACCESS token for the given user.
-     * Access tokens are short-lived (15 min). They contain the user's email
-     * so the server can identify the user without hitting the database on every
-     * request.
+     * Access tokens are short-lived (15 min). They carry everything a request
+     * needs to be authorized, so the server never has to hit the database to
+     * find out who the caller is.
      *
      * Claims included:
-     * - sub: user's email (subject, used to load user on each request)
-     * - iat: issued-at timestamp
+     * - sub: user's email
+     * - uid: user's id
+     * - role: USER or ADMIN, becomes the ROLE_ authority
+     * - iat_ms: issued-at in epoch milliseconds. Revocations are cut off by
+     *   it: the standard "iat" only has whole seconds, so a login in the same
+     *   second as a revocation would look older than it and be refused.
+     * - iat: issued-at timestamp, seconds
      * - exp: expiry timestamp
+     *
+     * A role change therefore takes effect when the token is next refreshed.
      */
-    public String generateAccessToken(UserDetails userDetails) {
-        return buildToken(userDetails.getUsername(), accessTokenExpiryMs);
+    public String generateAccessToken(User user) {
+        Date now = new Date();
+        return Jwts.builder()
+                .subject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId().toString())
+                .claim(CLAIM_ROLE, user.getRole())
+                .claim(CLAIM_ISSUED_AT_MS, now.getTime())
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + accessTokenExpiryMs))
+                .signWith(secretKey)
+                .compact();
     }
 
     /**
@@ -94,29 +145,69 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Extract the email (subject) from a token.
-     * No validation here — call validateToken first.
+     * Verify an ACCESS token and turn its claims into the request principal.
+     * Empty if the token fails verify(), or lacks the uid/role claims —
+     * which refresh tokens (and access tokens minted before those claims
+     * existed) do, so neither can stand in for an access token.
      */
-    public String extractEmail(String token) {
-        return parseClaims(token).getSubject();
+    public Optional<AuthenticatedUser> parseAccessToken(String token) {
+        Claims claims = verify(token).orElse(null);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        String userId = claims.get(CLAIM_USER_ID, String.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null || claims.getIssuedAt() == null) {
+            return Optional.empty();
+        }
+        // Tokens minted before iat_ms existed fall back to iat's whole seconds
+        Long issuedAtMs = claims.get(CLAIM_ISSUED_AT_MS, Long.class);
+        Instant issuedAt = issuedAtMs != null ? Instant.ofEpochMilli(issuedAtMs) : claims.getIssuedAt().toInstant();
+        try {
+            return Optional.of(new AuthenticatedUser(UUID.fromString(userId), claims.getSubject(), role, issuedAt));
+        } catch (IllegalArgumentException e) {
+            log.debug("JWT uid claim is not a UUID: {}", userId);
+            return Optional.empty();
+        }
     }
 
     /**
-     * Validate a token: checks signature + expiry.
+     * Verify a token (signature + expiry) and return its claims — the one
+     * parse a caller needs, served from the cache when this token has been
+     * verified before.
      *
-     * EXCEPTION HIERARCHY:
+     * EXCEPTION HIERARCHY (all caught and logged at debug):
      * - ExpiredJwtException: token has passed its exp time
      * - UnsupportedJwtException: token format is wrong
      * - MalformedJwtException: token can't be parsed
      * - SecurityException: signature validation failed
      * - IllegalArgumentException: token is null/empty
      *
-     * All → return false → filter won't set SecurityContext → 401 Unauthorized.
+     * All → empty → filter won't set SecurityContext → 401 Unauthorized.
      */
-    public boolean validateToken(String token) {
+    public Optional<Claims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        String key = sha256(token);
+        Claims claims = verified.getIfPresent(key);
+        if (claims == null) {
+            claims = parseClaims(token);
+            if (claims != null && claims.getExpiration() != null) {
+                verified.put(key, claims);
+            }
+        }
+        return Optional.ofNullable(claims);
+    }
+
+    public long getAccessTokenExpiryMs() {
+        return accessTokenExpiryMs;
+    }
+
+    /** Full verification; null for any of the failures listed on verify(). */
+    private Claims parseClaims(String token) {
         try {
-            parseClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.debug("JWT token expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
@@ -129,18 +220,36 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException e) {
             log.debug("JWT token is null or empty: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 
-    public long getAccessTokenExpiryMs() {
-        return accessTokenExpiryMs;
+    /** A cache entry lives exactly as long as the token it vouches for. */
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
-    private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String sha256(String token) {
+        try {
+            // MessageDigest is not thread-safe; getInstance per call is cheap next to a parse
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,117 @@
+package com.myshop.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myshop.constants.CacheKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LocalRateLimiter — Per-key token buckets decided in memory, reconciled
+ * with Redis in the background (myshop.rate-limit.mode=local, the default).
+ *
+ * HOT PATH: a map lookup and a synchronized decrement on the caller's own
+ * bucket. No Redis call, so a Redis hiccup never adds latency to a request.
+ *
+ * SYNC (every sync-interval-ms): one pipeline for all keys that consumed
+ * anything since the last sync — INCRBY of the consumed count on
+ * rate_limit:{key}:{minute} (+ EXPIRE) — and each reply, the cluster-wide
+ * count for that minute, is fed back into its bucket (TokenBucket explains
+ * how). Keys nobody touched cost nothing.
+ *
+ * TRADE-OFF: between syncs each node only knows its own traffic, so with N
+ * nodes a client can briefly get up to N x limit; after a sync the buckets
+ * pay it back. If Redis is down, each node simply enforces the limit on its
+ * own and reports the backlog once Redis returns.
+ *
+ * Buckets live in a size-bounded Caffeine map and are dropped after two idle
+ * minutes — by then a bucket is full again anyway, identical to a new one.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "myshop.rate-limit.mode", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimiter implements RateLimiter {
+
+    private static final long WINDOW_SECONDS = 60;
+    private static final long KEY_TTL_SECONDS = 2 * WINDOW_SECONDS;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, TokenBucket> buckets;
+
+    public LocalRateLimiter(StringRedisTemplate redisTemplate,
+            @Value("${myshop.rate-limit.max-keys:100000}") long maxKeys) {
+        this.redisTemplate = redisTemplate;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(KEY_TTL_SECONDS))
+                .build();
+    }
+
+    /** Take one request from the key's bucket (created full on first use). */
+    @Override
+    public RateLimitDecision tryAcquire(String key, int limitPerMinute) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(limitPerMinute, now));
+        boolean allowed = bucket.tryConsume(now);
+        return new RateLimitDecision(allowed, bucket.capacity(), bucket.remaining(now),
+                allowed ? 0 : Math.max(1, toSeconds(bucket.nanosUntilToken(now))),
+                toSeconds(bucket.nanosUntilFull(now)));
+    }
+
+    @Scheduled(fixedDelayString = "${myshop.rate-limit.sync-interval-ms:1000}")
+    public void sync() {
+        List<String> keys = new ArrayList<>();
+        List<TokenBucket> synced = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        for (Map.Entry<String, TokenBucket> entry : buckets.asMap().entrySet()) {
+            long count = entry.getValue().drainPending();
+            if (count > 0) {
+                keys.add(entry.getKey());
+                synced.add(entry.getValue());
+                counts.add(count);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        long window = System.currentTimeMillis() / 1000 / WINDOW_SECONDS;
+        try {
+            List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    byte[] key = CacheKeys.format(CacheKeys.RATE_LIMIT_WINDOW, keys.get(i), window)
+                            .getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().incrBy(key, counts.get(i));
+                    connection.keyCommands().expire(key, KEY_TTL_SECONDS);
+                }
+                return null;
+            });
+            // Two replies per key: INCRBY's new total, then EXPIRE's flag
+            for (int i = 0; i < keys.size(); i++) {
+                synced.get(i).applyGlobalCount(window, counts.get(i), ((Number) replies.get(2 * i)).longValue());
+            }
+        } catch (Exception e) {
+            for (int i = 0; i < synced.size(); i++) {
+                synced.get(i).restorePending(counts.get(i));
+            }
+            log.warn("Rate limit sync failed for {} keys; enforcing locally until Redis is back: {}",
+                    keys.size(), e.getMessage());
+        }
+    }
+
+    private static long toSeconds(long nanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nanos + 999_999_999L);
+    }
+}
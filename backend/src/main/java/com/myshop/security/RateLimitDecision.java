@@ -0,0 +1,14 @@
+package com.myshop.security;
+
+/**
+ * Outcome of one rate limit check — everything the RateLimit-* response
+ * headers need, so no second lookup is made to fill them in.
+ *
+ * @param limit             requests allowed per window
+ * @param remaining         requests left right now
+ * @param retryAfterSeconds when a denied caller may try again (0 if allowed)
+ * @param resetSeconds      when the full limit is available again
+ */
+public record RateLimitDecision(boolean allowed, int limit, int remaining, long retryAfterSeconds,
+        long resetSeconds) {
+}
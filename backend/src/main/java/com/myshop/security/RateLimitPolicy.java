@@ -0,0 +1,78 @@
+package com.myshop.security;
+
+import java.util.List;
+
+/**
+ * RateLimitPolicy — Route groups and their per-minute limits.
+ *
+ * A request is charged to exactly one policy: the first constant whose
+ * method and path prefixes match, so specific groups come before API (the
+ * catch-all). Within a policy, callers with a valid access token get their
+ * own quota per user id; everyone else shares one per IP. AUTH is always per
+ * IP — it guards the login form, where a token says nothing about who is
+ * guessing passwords.
+ *
+ * The numbers here are defaults; each can be overridden with
+ * myshop.rate-limit.policies.{name}.anonymous-per-minute / user-per-minute.
+ */
+public enum RateLimitPolicy {
+
+    AUTH(null, List.of("/api/v1/auth/"), 5, 5, true),
+    CHECKOUT(null, List.of("/api/v1/orders", "/api/v1/cart", "/api/v1/guest-cart"), 30, 60, false),
+    CATALOG("GET", List.of("/api/v1/products", "/api/v1/categories"), 120, 300, false),
+    API(null, List.of("/api/"), 100, 200, false);
+
+    private final String method;
+    private final List<String> pathPrefixes;
+    private final int anonymousPerMinute;
+    private final int userPerMinute;
+    private final boolean perIpOnly;
+
+    RateLimitPolicy(String method, List<String> pathPrefixes, int anonymousPerMinute, int userPerMinute,
+            boolean perIpOnly) {
+        this.method = method;
+        this.pathPrefixes = pathPrefixes;
+        this.anonymousPerMinute = anonymousPerMinute;
+        this.userPerMinute = userPerMinute;
+        this.perIpOnly = perIpOnly;
+    }
+
+    /** The policy a request is charged to; null for paths outside the API (not limited). */
+    public static RateLimitPolicy resolve(String method, String path) {
+        for (RateLimitPolicy policy : values()) {
+            if (policy.matches(method, path)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    public int anonymousPerMinute() {
+        return anonymousPerMinute;
+    }
+
+    public int userPerMinute() {
+        return userPerMinute;
+    }
+
+    public boolean perIpOnly() {
+        return perIpOnly;
+    }
+
+    /** Lower-case name, as used in limiter keys and config properties. */
+    public String id() {
+        return name().toLowerCase();
+    }
+
+    private boolean matches(String requestMethod, String path) {
+        if (method != null && !method.equalsIgnoreCase(requestMethod)) {
+            return false;
+        }
+        for (String prefix : pathPrefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
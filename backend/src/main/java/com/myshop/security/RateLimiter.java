@@ -0,0 +1,15 @@
+package com.myshop.security;
+
+/**
+ * RateLimiter — Takes one request from a key's per-minute quota.
+ *
+ * Two implementations, chosen by myshop.rate-limit.mode:
+ * - local (default): LocalRateLimiter — in-memory buckets, approximately
+ *   global, no Redis call per request
+ * - exact: GcraRateLimiter — one atomic Redis script call per request,
+ *   exactly one shared limit across all nodes
+ */
+public interface RateLimiter {
+
+    RateLimitDecision tryAcquire(String key, int limitPerMinute);
+}
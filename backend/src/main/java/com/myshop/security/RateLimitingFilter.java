@@ -1,109 +1,137 @@
 package com.myshop.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.myshop.constants.CacheKeys;
 import com.myshop.dto.response.ApiResponse;
+import com.myshop.util.RequestUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RRateLimiter;
-import org.redisson.api.RateIntervalUnit;
-import org.redisson.api.RateType;
-import org.redisson.api.RedissonClient;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
- * Global Rate Limiting Filter using Redis (via Redisson).
+ * Global Rate Limiting Filter.
  *
- * Requirements:
- * 1. 100 requests per minute per IP globally.
- * 2. 5 requests per minute per IP for Auth endpoints (/api/v1/auth/*) to
- * prevent brute force.
+ * Each /api request is charged to one RateLimitPolicy (auth, checkout,
+ * catalog, or the API catch-all) and one principal: the user id from a valid
+ * access token, otherwise the client IP. A token whose user is on the
+ * AccessDenylist counts as no token: a revoked session falls back to the
+ * per-IP quota instead of keeping its own. The check itself is the configured
+ * RateLimiter — in-memory buckets by default, one Redis GCRA script call in
+ * exact mode.
+ *
+ * Every limited response carries the draft-standard headers, filled from
+ * that same check:
+ *   RateLimit-Limit      requests per window
+ *   RateLimit-Remaining  requests left now
+ *   RateLimit-Reset      seconds until the full limit is available again
+ *   RateLimit-Policy     "{limit};w=60"
  *
  * Ordered before Spring Security filter chain to drop requests early, saving
- * CPU/DB.
+ * CPU/DB. That is also why the token is read here directly; verification is
+ * served from JwtTokenProvider's cache, so the security filter's later check
+ * of the same token costs nothing extra.
  */
 @Slf4j
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE + 1) // Just after RequestIdFilter
-@RequiredArgsConstructor
 public class RateLimitingFilter extends OncePerRequestFilter {
 
-    private final RedissonClient redissonClient;
+    private static final int WINDOW_SECONDS = 60;
+
+    private final RateLimiter rateLimiter;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final AccessDenylist accessDenylist;
     private final ObjectMapper objectMapper;
 
+    /** Per policy: [anonymous, user] requests per minute, after config overrides. */
+    private final Map<RateLimitPolicy, int[]> limits = new EnumMap<>(RateLimitPolicy.class);
+
+    public RateLimitingFilter(RateLimiter rateLimiter, JwtTokenProvider jwtTokenProvider,
+            AccessDenylist accessDenylist, ObjectMapper objectMapper, Environment environment) {
+        this.rateLimiter = rateLimiter;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.accessDenylist = accessDenylist;
+        this.objectMapper = objectMapper;
+        for (RateLimitPolicy policy : RateLimitPolicy.values()) {
+            String prefix = "myshop.rate-limit.policies." + policy.id() + ".";
+            limits.put(policy, new int[] {
+                    limit(environment, prefix + "anonymous-per-minute", policy.anonymousPerMinute()),
+                    limit(environment, prefix + "user-per-minute", policy.userPerMinute())
+            });
+        }
+    }
+
+    /** A limit below 1 would block a route group outright (and divide by zero in GCRA): refuse to start. */
+    private static int limit(Environment environment, String property, int defaultLimit) {
+        int limit = environment.getProperty(property, Integer.class, defaultLimit);
+        if (limit < 1) {
+            throw new IllegalStateException(property + " must be at least 1, was " + limit);
+        }
+        return limit;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        String clientIp = getClientIp(request);
-        String path = request.getRequestURI();
-
-        // Check Auth specific rate limit (stricter)
-        if (path.startsWith("/api/v1/auth/")) {
-            if (!isAllowed(CacheKeys.format(CacheKeys.RATE_LIMIT_AUTH, clientIp, getMinuteWindow()), 5)) {
-                sendRateLimitResponse(response, "Too many authentication attempts. Please try again later.");
-                return;
-            }
+        RateLimitPolicy policy = RateLimitPolicy.resolve(request.getMethod(), request.getRequestURI());
+        if (policy == null) {
+            filterChain.doFilter(request, response);
+            return;
         }
 
-        // Check Global API rate limit
-        if (path.startsWith("/api/")) {
-            if (!isAllowed(CacheKeys.format(CacheKeys.RATE_LIMIT_API, clientIp, getMinuteWindow()), 100)) {
-                sendRateLimitResponse(response, "Too many API requests. Please try again later.");
-                return;
-            }
+        String userId = policy.perIpOnly() ? null : authenticatedUserId(request);
+        String key = userId != null
+                ? policy.id() + ":user:" + userId
+                : policy.id() + ":ip:" + RequestUtils.getClientIp(request);
+        int limit = limits.get(policy)[userId != null ? 1 : 0];
+
+        RateLimitDecision decision = rateLimiter.tryAcquire(key, limit);
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+        response.setHeader("RateLimit-Policy", decision.limit() + ";w=" + WINDOW_SECONDS);
+
+        if (!decision.allowed()) {
+            sendRateLimitResponse(response, decision, policy == RateLimitPolicy.AUTH
+                    ? "Too many authentication attempts. Please try again later."
+                    : "Too many API requests. Please try again later.");
+            return;
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private boolean isAllowed(String key, int maxRequestsPerMinute) {
-        RRateLimiter rateLimiter = redissonClient.getRateLimiter(key);
-        // Initialize rate limiter if it doesn't exist
-        // RateType.OVERALL means across all instances/threads using this Redis key
-        rateLimiter.trySetRate(RateType.OVERALL, maxRequestsPerMinute, 1, RateIntervalUnit.MINUTES);
-
-        // TTL management: if we just created it, set TTL so it doesn't sit in Redis
-        // forever
-        rateLimiter.expire(java.time.Duration.ofMinutes(2));
-
-        return rateLimiter.tryAcquire(1);
+    private String authenticatedUserId(HttpServletRequest request) {
+        String token = RequestUtils.getBearerToken(request);
+        if (token == null) {
+            return null;
+        }
+        return jwtTokenProvider.parseAccessToken(token)
+                .filter(user -> !accessDenylist.isDenied(user))
+                .map(user -> user.id().toString())
+                .orElse(null);
     }
 
-    private void sendRateLimitResponse(HttpServletResponse response, String message) throws IOException {
+    private void sendRateLimitResponse(HttpServletResponse response, RateLimitDecision decision, String message)
+            throws IOException {
         response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
         response.setContentType("application/json");
-        response.setHeader("Retry-After", "60");
+        // When the limiter will let a request through again, rather than a flat minute
+        response.setHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
 
         ApiResponse<Void> apiResponse = ApiResponse.error("rate_limit_exceeded", message);
         response.getWriter().write(objectMapper.writeValueAsString(apiResponse));
     }
-
-    private String getClientIp(HttpServletRequest request) {
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader == null) {
-            return request.getRemoteAddr();
-        }
-        return xfHeader.split(",")[0].trim(); // Get the first IP which is the actual client
-    }
-
-    // Returns the current minute window (e.g. seconds since epoch / 60)
-    // We use this as part of the key to automatically bucket quotas by minute.
-    // Redisson's RRateLimiter tracks rates, but appending minute timestamp to key
-    // prevents drift
-    // and guarantees reset at the top of the minute, serving as a sliding/fixed
-    // window hybrid.
-    private long getMinuteWindow() {
-        return System.currentTimeMillis() / 60000;
-    }
 }
@@ -0,0 +1,110 @@
+package com.myshop.security;
+
+/**
+ * TokenBucket — One rate limit key's local state in LocalRateLimiter.
+ *
+ * Refills continuously at capacity per minute, bursts up to capacity. Every
+ * token taken here is also counted in pending until the next Redis sync
+ * reports it; the sync hands back the key's cluster-wide count for the
+ * current minute, and whatever other nodes consumed since the last sync is
+ * taken out of this bucket too. So each node decides alone, yet all nodes
+ * together stay close to one shared limit.
+ *
+ * Times are System.nanoTime() values passed in by the caller (tests pass
+ * their own). All methods are synchronized on the bucket: contention is per
+ * client key, never global.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final int capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    /** Taken locally, not yet reported to Redis. */
+    private long pending;
+
+    /** Minute window that ownReported and othersSeen belong to. */
+    private long window = -1;
+    private long ownReported;
+    private long othersSeen;
+
+    TokenBucket(int capacityPerMinute, long now) {
+        this.capacity = capacityPerMinute;
+        this.tokensPerNano = (double) capacityPerMinute / NANOS_PER_MINUTE;
+        this.tokens = capacityPerMinute;
+        this.lastRefill = now;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    synchronized boolean tryConsume(long now) {
+        refill(now);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        pending++;
+        return true;
+    }
+
+    synchronized int remaining(long now) {
+        refill(now);
+        return (int) Math.floor(tokens);
+    }
+
+    /** Time until one whole token is available; 0 if one is available now. */
+    synchronized long nanosUntilToken(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /** Time until the bucket is back to full capacity. */
+    synchronized long nanosUntilFull(long now) {
+        refill(now);
+        return (long) Math.ceil((capacity - tokens) / tokensPerNano);
+    }
+
+    synchronized long drainPending() {
+        long drained = pending;
+        pending = 0;
+        return drained;
+    }
+
+    /** A failed sync gives its count back, to be reported next time. */
+    synchronized void restorePending(long count) {
+        pending += count;
+    }
+
+    /**
+     * @param window      minute window the count was reported into
+     * @param reported    what this node just added (a drainPending() result)
+     * @param globalCount the window's cluster-wide total after that add
+     */
+    synchronized void applyGlobalCount(long window, long reported, long globalCount) {
+        if (window != this.window) {
+            this.window = window;
+            ownReported = 0;
+            othersSeen = 0;
+        }
+        ownReported += reported;
+        long others = globalCount - ownReported;
+        if (others > othersSeen) {
+            tokens = Math.max(0, tokens - (others - othersSeen));
+            othersSeen = others;
+        }
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
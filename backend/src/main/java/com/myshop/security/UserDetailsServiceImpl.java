@@ -5,6 +5,7 @@ import com.myshop.repository.jpa.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -25,10 +26,13 @@ import java.util.List;
  * using the configured PasswordEncoder (BCrypt)
  * → If match → authentication success → generate JWT
  *
- * During request: JwtAuthenticationFilter extracts email from token
- * → calls loadUserByUsername(email) → builds
- * UsernamePasswordAuthenticationToken
- * → Spring security context knows who the user is for this request
+ * During request: NOT used. JwtAuthenticationFilter builds the principal
+ * from the access token's claims (see AuthenticatedUser), so authenticated
+ * API calls never touch the users table.
+ *
+ * After login: if the stored hash is outdated (PasswordEncoder.upgradeEncoding,
+ * e.g. a lower BCrypt cost than configured), DaoAuthenticationProvider calls
+ * updatePassword with a fresh hash of the password the user just typed.
  *
  * WHY "username" = email here?
  * Spring Security uses "username" as a generic identifier. In our system
@@ -36,7 +40,7 @@ import java.util.List;
  */
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -71,4 +75,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 user.getPasswordHash(),
                 authorities);
     }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 }
@@ -32,8 +32,9 @@ public class ActivityLogService {
      * 
      * @param emailOrAnonymous The user email who performed the action (or
      *                         'anonymous')
-     * @param action           One of: PRODUCT_VIEWED, PRODUCT_SEARCHED,
-     *                         CART_UPDATED, ORDER_PLACED
+     * @param action           One of: PRODUCT_SEARCHED, CART_UPDATED,
+     *                         ORDER_PLACED (product views are aggregated by
+     *                         ProductViewCounter instead)
      * @param entityType       The type of entity affected
      * @param entityId         The ID of the entity
      */
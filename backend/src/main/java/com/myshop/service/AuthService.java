@@ -5,21 +5,25 @@ import com.myshop.dto.request.RegisterRequest;
 import com.myshop.dto.response.AuthResponse;
 import com.myshop.exception.BusinessException;
 import com.myshop.exception.ErrorCode;
+import com.myshop.exception.ResourceNotFoundException;
 import com.myshop.mapper.UserMapper;
 import com.myshop.model.entity.User;
 import com.myshop.repository.jpa.UserRepository;
+import com.myshop.security.AccessDenylist;
 import com.myshop.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.UUID;
+
 /**
  * AuthService — handles registration, login, and token refresh.
  *
@@ -43,6 +47,10 @@ import org.springframework.transaction.annotation.Transactional;
  * - Store refresh token hash in DB
  * - Check if it's been revoked on logout
  * - Implement token rotation (issue new refresh token on each refresh)
+ *
+ * 4. Revocation — access tokens are checked from their claims only, so
+ * signing a user out everywhere means deleting the refresh token AND putting
+ * the user on the AccessDenylist until their live access tokens expire.
  */
 @Slf4j
 @Service
@@ -53,7 +61,7 @@ public class AuthService {
         private final PasswordEncoder passwordEncoder;
         private final JwtTokenProvider jwtTokenProvider;
         private final AuthenticationManager authenticationManager;
-        private final UserDetailsService userDetailsService;
+        private final AccessDenylist accessDenylist;
         private final UserMapper userMapper;
         private final org.redisson.api.RedissonClient redissonClient;
 
@@ -80,8 +88,7 @@ public class AuthService {
                 log.info("New user registered: {}", savedUser.getEmail());
 
                 // Generate tokens immediately after registration — user is logged in
-                UserDetails userDetails = userDetailsService.loadUserByUsername(savedUser.getEmail());
-                String accessToken = jwtTokenProvider.generateAccessToken(userDetails);
+                String accessToken = jwtTokenProvider.generateAccessToken(savedUser);
                 String refreshToken = jwtTokenProvider.generateRefreshToken(savedUser.getEmail());
 
                 storeRefreshTokenInRedis(savedUser.getEmail(), refreshToken);
@@ -107,14 +114,14 @@ public class AuthService {
                                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
 
                 UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-                String accessToken = jwtTokenProvider.generateAccessToken(userDetails);
+                // The access token carries id and role, so it is minted from the entity
+                User user = userRepository.findByEmail(userDetails.getUsername())
+                                .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, "User not found"));
+                String accessToken = jwtTokenProvider.generateAccessToken(user);
 
                 String refreshToken = jwtTokenProvider.generateRefreshToken(userDetails.getUsername());
                 storeRefreshTokenInRedis(userDetails.getUsername(), refreshToken);
 
-                User user = userRepository.findByEmail(userDetails.getUsername())
-                                .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, "User not found"));
-
                 log.info("User logged in: {}", userDetails.getUsername());
 
                 return AuthResponse.builder()
@@ -126,11 +133,10 @@ public class AuthService {
         }
 
         public AuthResponse refreshToken(String refreshToken) {
-                if (!jwtTokenProvider.validateToken(refreshToken)) {
-                        throw new BusinessException(ErrorCode.INVALID_TOKEN, "Refresh token is invalid or expired");
-                }
-
-                String email = jwtTokenProvider.extractEmail(refreshToken);
+                String email = jwtTokenProvider.verify(refreshToken)
+                                .map(Claims::getSubject)
+                                .orElseThrow(() -> new BusinessException(ErrorCode.INVALID_TOKEN,
+                                                "Refresh token is invalid or expired"));
 
                 // Validate against Redis allowlist
                 String redisKey = com.myshop.constants.CacheKeys.format(com.myshop.constants.CacheKeys.JWT_REFRESH,
@@ -143,11 +149,13 @@ public class AuthService {
                                         "Refresh token has been revoked or expired");
                 }
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                String newAccessToken = jwtTokenProvider.generateAccessToken(userDetails);
-
+                // Re-read the user: a refresh is where role changes reach the token
                 User user = userRepository.findByEmail(email)
                                 .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, "User not found"));
+                if (!user.isActive()) {
+                        throw new BusinessException(ErrorCode.ACCOUNT_DEACTIVATED, "Account is deactivated");
+                }
+                String newAccessToken = jwtTokenProvider.generateAccessToken(user);
 
                 return AuthResponse.builder()
                                 .accessToken(newAccessToken)
@@ -164,13 +172,26 @@ public class AuthService {
         }
 
         public void logout(String refreshToken) {
-                if (refreshToken != null && jwtTokenProvider.validateToken(refreshToken)) {
-                        String email = jwtTokenProvider.extractEmail(refreshToken);
+                jwtTokenProvider.verify(refreshToken).map(Claims::getSubject).ifPresent(email -> {
                         String redisKey = com.myshop.constants.CacheKeys.format(
                                         com.myshop.constants.CacheKeys.JWT_REFRESH,
                                         email);
                         redissonClient.getBucket(redisKey).delete();
                         log.info("User logged out, refresh token cleared: {}", email);
-                }
+                });
+        }
+
+        /**
+         * Sign a user out of every session: the refresh token is dropped and
+         * access tokens issued so far are refused (on other nodes within one
+         * denylist sync). Logging in again works as usual.
+         */
+        public void revokeSessions(UUID userId) {
+                User user = userRepository.findById(userId)
+                                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND, userId));
+                accessDenylist.revoke(userId);
+                redissonClient.getBucket(com.myshop.constants.CacheKeys.format(
+                                com.myshop.constants.CacheKeys.JWT_REFRESH, user.getEmail())).delete();
+                log.info("All sessions revoked for user: {}", user.getEmail());
         }
 }
@@ -0,0 +1,94 @@
+package com.myshop.service;
+
+import com.myshop.config.cache.InstrumentedCache;
+import com.myshop.config.cache.InstrumentedCacheManager;
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.response.CacheStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CacheStatsService — Hit ratios, key counts and memory per cache.
+ *
+ * Hit/miss/load figures come from the InstrumentedCache meters, so reading
+ * them is free. Key counts need a SCAN of "{cache}::*" (SCAN, never KEYS,
+ * so Redis keeps serving other clients in between batches); memory is
+ * MEMORY USAGE of the first MEMORY_SAMPLE_SIZE keys found, pipelined, scaled
+ * up to the full count. Meant for the admin endpoint, not for hot paths.
+ */
+@Service
+@RequiredArgsConstructor
+public class CacheStatsService {
+
+    private static final int SCAN_BATCH_SIZE = 1_000;
+    private static final int MEMORY_SAMPLE_SIZE = 50;
+    private static final byte[] USAGE = "USAGE".getBytes(StandardCharsets.UTF_8);
+
+    private final InstrumentedCacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+
+    public List<CacheStatsResponse> getStats() {
+        return cacheManager.getCaches().stream()
+                .map(this::stats)
+                .toList();
+    }
+
+    private CacheStatsResponse stats(InstrumentedCache cache) {
+        long hits = cache.hitCount();
+        long misses = cache.missCount();
+        double hitRatio = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+
+        List<byte[]> sample = new ArrayList<>(MEMORY_SAMPLE_SIZE);
+        long keys = countKeys(cache.getName(), sample);
+        long memoryBytes = sample.isEmpty() ? 0 : Math.round(sampledMemory(sample) * ((double) keys / sample.size()));
+
+        return new CacheStatsResponse(cache.getName(), hits, misses, hitRatio, cache.loadCount(),
+                cache.meanLoadMillis(), keys, memoryBytes);
+    }
+
+    /** Counts the cache's keys, keeping the first few in sample. */
+    private long countKeys(String cacheName, List<byte[]> sample) {
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(CacheKeys.format(CacheKeys.SPRING_CACHE_ENTRY, cacheName, "*"))
+                .count(SCAN_BATCH_SIZE)
+                .build();
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            long found = 0;
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    byte[] key = cursor.next();
+                    if (sample.size() < MEMORY_SAMPLE_SIZE) {
+                        sample.add(key);
+                    }
+                    found++;
+                }
+            }
+            return found;
+        });
+        return count == null ? 0 : count;
+    }
+
+    private long sampledMemory(List<byte[]> keys) {
+        List<Object> usages = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] key : keys) {
+                connection.execute("MEMORY", USAGE, key);
+            }
+            return null;
+        });
+        long total = 0;
+        for (Object usage : usages) {
+            if (usage instanceof Number bytes) {
+                total += bytes.longValue();
+            }
+        }
+        return total;
+    }
+}
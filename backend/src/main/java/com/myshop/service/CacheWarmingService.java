@@ -1,79 +1,236 @@
 package com.myshop.service;
 
+import com.myshop.dto.response.CacheWarmingStatusResponse;
+import com.myshop.dto.response.ProductResponse;
+import com.myshop.mapper.ProductMapper;
+import com.myshop.model.document.EntityCountResult;
 import com.myshop.model.entity.Product;
+import com.myshop.repository.jpa.OrderItemRepository;
 import com.myshop.repository.jpa.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import com.myshop.repository.mongo.ProductViewStatsRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Cache Warming Service.
- * Runs on ApplicationReadyEvent (when Spring context is fully initialized).
- * Fetches the newest or most popular 50 products and populates the Redis cache.
- * Uses CompletableFuture for parallel execution to avoid blocking startup,
- * and CountDownLatch to coordinate logging when all are finished.
+ *
+ * Runs on ApplicationReadyEvent (and on demand from the admin API) and fills
+ * the products cache with what shoppers actually look at:
+ * - view counts from product_view_stats over the lookback window
+ * - units sold from order history over the same window (weighted higher —
+ *   a purchase is a much stronger signal than a view)
+ * Falls back to the newest products when there is no activity yet.
+ *
+ * Protecting Postgres on cold start:
+ * - A Redisson lock makes exactly one node warm per deploy; the cache is
+ *   shared, so the other nodes skip instead of repeating the same queries.
+ * - Candidates are loaded in batches (one IN query each, category fetched
+ *   in the same query) on the 2-thread cacheWarmingExecutor.
+ * - Each batch is written to Redis in a single pipelined round trip.
+ *
+ * Entries are built directly from the repository, NOT via
+ * ProductService.getById, so warming never records fake product views.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CacheWarmingService implements ApplicationListener<ApplicationReadyEvent> {
 
+    private static final String WARMING_LOCK = "lock:cache-warming";
+
     private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductViewStatsRepository productViewStatsRepository;
+    private final ProductMapper productMapper;
+    private final ProductCacheService productCacheService;
+    private final RedissonClient redissonClient;
+    private final ThreadPoolTaskExecutor generalTaskExecutor;
+    private final ThreadPoolTaskExecutor cacheWarmingExecutor;
+
+    @Value("${myshop.cache-warming.enabled:true}")
+    private boolean enabled;
+
+    @Value("${myshop.cache-warming.top-n:200}")
+    private int topN;
+
+    @Value("${myshop.cache-warming.lookback-days:7}")
+    private int lookbackDays;
+
+    @Value("${myshop.cache-warming.purchase-weight:5}")
+    private int purchaseWeight;
 
-    // We inject ProductService to call its @Cacheable method, which triggers
-    // caching.
-    // If we just called the repository, it wouldn't hit the Cache interceptor.
-    private final ProductService productService;
+    @Value("${myshop.cache-warming.batch-size:50}")
+    private int batchSize;
+
+    // ── Progress (read by the admin endpoint while a run is in flight) ──────
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile String state = "IDLE";
+    private volatile int candidates;
+    private final AtomicInteger warmed = new AtomicInteger();
+    private final AtomicInteger missing = new AtomicInteger();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public CacheWarmingService(ProductRepository productRepository,
+            OrderItemRepository orderItemRepository,
+            ProductViewStatsRepository productViewStatsRepository,
+            ProductMapper productMapper,
+            ProductCacheService productCacheService,
+            RedissonClient redissonClient,
+            @Qualifier("generalTaskExecutor") ThreadPoolTaskExecutor generalTaskExecutor,
+            @Qualifier("cacheWarmingExecutor") ThreadPoolTaskExecutor cacheWarmingExecutor) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productViewStatsRepository = productViewStatsRepository;
+        this.productMapper = productMapper;
+        this.productCacheService = productCacheService;
+        this.redissonClient = redissonClient;
+        this.generalTaskExecutor = generalTaskExecutor;
+        this.cacheWarmingExecutor = cacheWarmingExecutor;
+    }
 
     @Override
-    @Async
     public void onApplicationEvent(ApplicationReadyEvent event) {
-        log.info("Starting Cache Warming for top 50 products...");
-        long startTime = System.currentTimeMillis();
+        if (enabled) {
+            startWarming();
+        }
+    }
 
-        // Get 50 newest products as our "popular" heuristic for this demo
-        Page<Product> topProductsPage = productRepository.findAll(
-                PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "createdAt")));
+    /**
+     * Starts a warming run in the background unless one is already running on
+     * this node. Returns the status right after the decision.
+     */
+    public CacheWarmingStatusResponse startWarming() {
+        if (running.compareAndSet(false, true)) {
+            state = "RUNNING";
+            startedAt = Instant.now();
+            finishedAt = null;
+            candidates = 0;
+            warmed.set(0);
+            missing.set(0);
+            generalTaskExecutor.execute(this::warmWithLock);
+        }
+        return getStatus();
+    }
+
+    public CacheWarmingStatusResponse getStatus() {
+        return new CacheWarmingStatusResponse(state, candidates, warmed.get(), missing.get(), startedAt, finishedAt);
+    }
 
-        List<Product> topProducts = topProductsPage.getContent();
-        if (topProducts.isEmpty()) {
+    private void warmWithLock() {
+        RLock lock = redissonClient.getLock(WARMING_LOCK);
+        boolean acquired = false;
+        try {
+            // Lease bounds the lock if this node dies mid-run
+            acquired = lock.tryLock(0, 10, TimeUnit.MINUTES);
+            if (!acquired) {
+                log.info("Cache warming skipped: another node is already warming");
+                finish("SKIPPED");
+                return;
+            }
+            warm();
+            finish("COMPLETED");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish("FAILED");
+        } catch (Exception e) {
+            log.error("Cache warming failed", e);
+            finish("FAILED");
+        } finally {
+            if (acquired && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void warm() {
+        long startTime = System.currentTimeMillis();
+        List<UUID> ids = selectCandidates();
+        candidates = ids.size();
+        if (ids.isEmpty()) {
             log.info("No products found to warm cache.");
             return;
         }
 
-        CountDownLatch latch = new CountDownLatch(topProducts.size());
-
-        for (Product product : topProducts) {
-            CompletableFuture.runAsync(() -> {
-                try {
-                    // Call the Cacheable method
-                    productService.getById(product.getId());
-                    log.debug("Warmed cache for product: {}", product.getId());
-                } catch (Exception e) {
-                    log.error("Failed to warm cache for product: {}", product.getId(), e);
-                } finally {
-                    latch.countDown();
-                }
-            }); // Utilizes ForkJoinPool.commonPool() implicitly
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<UUID> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            batches.add(CompletableFuture.runAsync(() -> warmBatch(batch), cacheWarmingExecutor));
+        }
+        CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+
+        log.info("Cache warming completed: {} of {} popular products cached in {} ms ({} missing)",
+                warmed.get(), ids.size(), System.currentTimeMillis() - startTime, missing.get());
+    }
+
+    private void warmBatch(List<UUID> batch) {
+        List<ProductResponse> responses = productRepository.findByIdInAndActiveTrue(batch).stream()
+                .map(productMapper::toResponse)
+                .toList();
+        productCacheService.putAll(responses);
+        warmed.addAndGet(responses.size());
+        missing.addAndGet(batch.size() - responses.size());
+    }
+
+    /** Views + weighted purchases over the lookback window, best first. */
+    List<UUID> selectCandidates() {
+        Instant since = Instant.now().minus(Duration.ofDays(lookbackDays));
+        Map<UUID, Long> scores = new HashMap<>();
+
+        for (EntityCountResult viewed : productViewStatsRepository.findTopViewedSince(since, topN)) {
+            UUID id = parseUuid(viewed.getEntityId());
+            if (id != null) {
+                scores.merge(id, viewed.getCount(), Long::sum);
+            }
+        }
+        orderItemRepository.findTopSellingSince(since, PageRequest.of(0, topN))
+                .forEach(sold -> scores.merge(sold.getProductId(), sold.getUnits() * purchaseWeight, Long::sum));
+
+        if (scores.isEmpty()) {
+            // Fresh install / quiet week: newest products are the best guess
+            return productRepository.findAll(PageRequest.of(0, topN, Sort.by(Sort.Direction.DESC, "createdAt")))
+                    .map(Product::getId)
+                    .getContent();
         }
 
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<UUID, Long>comparingByValue().reversed())
+                .limit(topN)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void finish(String finalState) {
+        state = finalState;
+        finishedAt = Instant.now();
+        running.set(false);
+    }
+
+    private static UUID parseUuid(String value) {
         try {
-            latch.await();
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("Cache warming completed successfully for {} products in {} ms", topProducts.size(), duration);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.warn("Cache warming interrupted", e);
+            return value == null ? null : UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 }
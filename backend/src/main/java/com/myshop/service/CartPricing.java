@@ -0,0 +1,65 @@
+package com.myshop.service;
+
+import com.myshop.dto.response.CartItemResponse;
+import com.myshop.dto.response.CartResponse;
+import com.myshop.dto.response.ProductResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers for carts held as a Redis hash of productId → quantity (Redis user
+ * carts, guest carts): parsing the hash and pricing it from current product
+ * data.
+ */
+final class CartPricing {
+
+    private CartPricing() {
+    }
+
+    /** Hash fields → quantities in a stable order; "_"-prefixed meta fields and quantities below 1 are skipped. */
+    static Map<UUID, Integer> quantities(Map<String, String> fields) {
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        fields.entrySet().stream()
+                .filter(entry -> !entry.getKey().startsWith("_"))
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    int quantity = Integer.parseInt(entry.getValue());
+                    if (quantity > 0) {
+                        quantities.put(UUID.fromString(entry.getKey()), quantity);
+                    }
+                });
+        return quantities;
+    }
+
+    /**
+     * @param products current data for (some of) the cart's products; items
+     *                 whose product is missing (deactivated since it was
+     *                 added) are left out — an order would reject them anyway
+     */
+    static CartResponse toResponse(UUID cartId, UUID userId, Map<UUID, Integer> quantities,
+            List<ProductResponse> products) {
+        Map<UUID, ProductResponse> byId = products.stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+
+        List<CartItemResponse> items = new ArrayList<>(quantities.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            ProductResponse product = byId.get(entry.getKey());
+            if (product == null) {
+                continue;
+            }
+            BigDecimal subtotal = product.getPrice().multiply(BigDecimal.valueOf(entry.getValue()));
+            items.add(new CartItemResponse(null, product.getId(), product.getName(), entry.getValue(),
+                    product.getPrice(), subtotal));
+            total = total.add(subtotal);
+        }
+        return new CartResponse(cartId, userId, items, total);
+    }
+}
@@ -16,29 +16,58 @@ import com.myshop.repository.jpa.ProductRepository;
 import com.myshop.repository.jpa.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * CartService — Database-backed CartStore (myshop.cart.storage=db, the
+ * default): every operation is one Postgres transaction.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class CartService {
+@ConditionalOnProperty(name = "myshop.cart.storage", havingValue = "db", matchIfMissing = true)
+public class CartService implements CartStore {
+
+    private static final String ENSURE_CART_SQL = """
+            INSERT INTO carts (user_id)
+            SELECT id FROM users WHERE email = ?
+            ON CONFLICT (user_id) DO UPDATE SET updated_at = NOW()
+            """;
+
+    private static final String MERGE_ITEMS_SQL = """
+            INSERT INTO cart_items (cart_id, product_id, quantity)
+            SELECT c.id, p.id, LEAST(g.quantity, p.stock_quantity)
+            FROM unnest(?, ?) AS g(product_id, quantity)
+            JOIN products p ON p.id = g.product_id AND p.is_active AND p.stock_quantity > 0
+            JOIN carts c ON c.user_id = (SELECT id FROM users WHERE email = ?)
+            ON CONFLICT (cart_id, product_id) DO UPDATE
+            SET quantity = LEAST(cart_items.quantity + EXCLUDED.quantity,
+                    (SELECT stock_quantity FROM products WHERE id = EXCLUDED.product_id))
+            """;
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CartMapper cartMapper;
+    private final JdbcTemplate jdbcTemplate;
 
+    @Override
     @Transactional
     public CartResponse getCartByUser(String email) {
         Cart cart = getOrCreateCart(email);
         return cartMapper.toResponse(cart);
     }
 
+    @Override
     @Transactional
     public CartResponse addItem(String email, CartItemRequest request) {
         Cart cart = getOrCreateCart(email);
@@ -55,7 +84,7 @@ public class CartService {
         }
 
         // Check if item already exists in cart
-        Optional<CartItem> existingItemOpt = cartItemRepository.findByCartIdAndProductId(cart.getId(), product.getId());
+        Optional<CartItem> existingItemOpt = findItem(cart, product.getId());
 
         if (existingItemOpt.isPresent()) {
             CartItem existingItem = existingItemOpt.get();
@@ -82,11 +111,12 @@ public class CartService {
         return cartMapper.toResponse(savedCart);
     }
 
+    @Override
     @Transactional
     public CartResponse updateItemQuantity(String email, UUID productId, int quantity) {
         Cart cart = getOrCreateCart(email);
 
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+        CartItem cartItem = findItem(cart, productId)
                 .orElseThrow(() -> new ResourceNotFoundException("CartItem for Product", "id", productId.toString()));
 
         Product product = cartItem.getProduct();
@@ -102,11 +132,12 @@ public class CartService {
         return cartMapper.toResponse(cart);
     }
 
+    @Override
     @Transactional
     public CartResponse removeItem(String email, UUID productId) {
         Cart cart = getOrCreateCart(email);
 
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+        CartItem cartItem = findItem(cart, productId)
                 .orElseThrow(() -> new ResourceNotFoundException("CartItem for Product", "id", productId.toString()));
 
         cart.removeItem(cartItem);
@@ -117,6 +148,7 @@ public class CartService {
         return cartMapper.toResponse(savedCart);
     }
 
+    @Override
     @Transactional
     public void clearCart(String email) {
         Cart cart = getOrCreateCart(email);
@@ -124,15 +156,55 @@ public class CartService {
         cartRepository.save(cart);
     }
 
-    // Helper method: get the cart or create an empty one if it doesn't exist
-    private Cart getOrCreateCart(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+    /**
+     * Two set-based statements however many items: ensure the cart row, then
+     * upsert every item from unnest()ed arrays, summing into existing rows via
+     * ON CONFLICT on uq_cart_product.
+     */
+    @Override
+    @Transactional
+    public void mergeItems(String email, Map<UUID, Integer> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(ENSURE_CART_SQL, email);
+
+        UUID[] productIds = items.keySet().toArray(UUID[]::new);
+        Integer[] quantities = Arrays.stream(productIds).map(items::get).toArray(Integer[]::new);
+        int merged = jdbcTemplate.update(MERGE_ITEMS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", productIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("integer", quantities));
+            ps.setString(3, email);
+        });
+        log.debug("Merged {} of {} guest cart items into cart of {}", merged, items.size(), email);
+    }
+
+    /** Nothing to do: the tables are always current. */
+    @Override
+    public void flush(String email) {
+    }
 
-        return cartRepository.findByUserId(user.getId())
+    /** Nothing to do: OrderService empties the database cart itself. */
+    @Override
+    public void checkedOut(String email, Map<UUID, Integer> ordered) {
+    }
+
+    // Helper method: get the cart or create an empty one if it doesn't exist.
+    // One query loads cart + items + products; the user is only looked up to create a cart.
+    private Cart getOrCreateCart(String email) {
+        return cartRepository.findWithItemsByUserEmail(email)
                 .orElseGet(() -> {
+                    User user = userRepository.findByEmail(email)
+                            .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
                     Cart newCart = Cart.builder().user(user).build();
                     return cartRepository.save(newCart);
                 });
     }
+
+    // Items are already loaded with the cart — no per-item query
+    private static Optional<CartItem> findItem(Cart cart, UUID productId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProduct().getId().equals(productId))
+                .findFirst();
+    }
 }
@@ -0,0 +1,46 @@
+package com.myshop.service;
+
+import com.myshop.dto.request.CartItemRequest;
+import com.myshop.dto.response.CartResponse;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * CartStore — Where the shopping cart lives, selected by myshop.cart.storage:
+ * - db (default): CartService, every operation is a Postgres transaction
+ * - redis: RedisCartService, Redis hash with write-behind to Postgres
+ *
+ * The carts/cart_items tables stay the system of record either way: order
+ * placement reads them, after calling flush().
+ */
+public interface CartStore {
+
+    CartResponse getCartByUser(String email);
+
+    CartResponse addItem(String email, CartItemRequest request);
+
+    CartResponse updateItemQuantity(String email, UUID productId, int quantity);
+
+    CartResponse removeItem(String email, UUID productId);
+
+    void clearCart(String email);
+
+    /**
+     * Adds a guest cart's items to this user's cart in one batched operation
+     * (quantities of products already in the cart are summed, capped at stock;
+     * unknown or inactive products are skipped).
+     */
+    void mergeItems(String email, Map<UUID, Integer> items);
+
+    /** Makes the carts tables reflect this user's cart right now. Joins the caller's transaction. */
+    void flush(String email);
+
+    /**
+     * Called inside the order transaction once the order has consumed (and
+     * emptied) the database cart.
+     *
+     * @param ordered product id → quantity of the cart items the order took
+     */
+    void checkedOut(String email, Map<UUID, Integer> ordered);
+}
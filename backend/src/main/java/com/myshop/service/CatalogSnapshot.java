@@ -0,0 +1,329 @@
+package com.myshop.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * CatalogSnapshot — The active catalog as memory-mapped columns.
+ *
+ * One file, one region per column, each a primitive array view over the
+ * mapping (row i of every column describes the same product):
+ *
+ *   id_hi, id_lo    long   UUID halves
+ *   category        int    ordinal into the category dictionary, -1 = none
+ *   price           long   cents
+ *   rating          int    avg_rating × 100
+ *   created         long   epoch seconds
+ *   active          byte   0 after a soft delete patch
+ *   by_price, by_rating, by_created   int   row numbers in ascending order
+ *
+ * The data lives in the page cache, not on the Java heap, so a large catalog
+ * adds no GC work. Only the UUID → row index and the (small) category
+ * dictionary are on-heap, for patching.
+ *
+ * Filtering is a sequential, branch-free pass over the category/price/active
+ * columns; sorting is free because the per-column orderings are sorted at
+ * build time and kept sorted row by row on patches. A page query walks one ordering and stops as soon as
+ * the page is full.
+ *
+ * Capacity is fixed at build time with headroom for new products; when it
+ * runs out patch() returns false and the owner rebuilds.
+ */
+final class CatalogSnapshot implements AutoCloseable {
+
+    enum SortKey {
+        PRICE, RATING, CREATED
+    }
+
+    record Row(UUID id, UUID categoryId, long priceCents, int ratingHundredths, long createdEpochSeconds,
+            boolean active) {
+    }
+
+    record Result(List<UUID> ids, long total) {
+    }
+
+    /** Row numbers are packed into the low bits of the sort keys. */
+    static final int MAX_CAPACITY = 1 << 24;
+    private static final int ROW_BITS = 24;
+
+    private final Path file;
+    private final int capacity;
+    private final LongBuffer idHi;
+    private final LongBuffer idLo;
+    private final IntBuffer category;
+    private final LongBuffer price;
+    private final IntBuffer rating;
+    private final LongBuffer created;
+    private final ByteBuffer active;
+    private final Map<SortKey, IntBuffer> orderings = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // ── Guarded by lock ──────────────────────────────────────────────────────
+    private final Map<UUID, Integer> rowById = new HashMap<>();
+    private final Map<UUID, Integer> categoryOrdinals = new HashMap<>();
+    private int size;
+
+    CatalogSnapshot(Path directory, int capacity) throws IOException {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Catalog too large for snapshot: " + capacity);
+        }
+        this.capacity = capacity;
+        Files.createDirectories(directory);
+        this.file = Files.createTempFile(directory, "catalog-", ".col");
+
+        // 8+8+4+8+4+8+1 column bytes + 3 × 4 ordering bytes per row
+        long bytes = (long) capacity * (41 + 12);
+        MappedByteBuffer mapping;
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(bytes);
+            // The mapping stays valid after the channel is closed
+            mapping = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+
+        int offset = 0;
+        idHi = slice(mapping, offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        idLo = slice(mapping, offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        category = slice(mapping, offset, capacity * 4).asIntBuffer();
+        offset += capacity * 4;
+        price = slice(mapping, offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        rating = slice(mapping, offset, capacity * 4).asIntBuffer();
+        offset += capacity * 4;
+        created = slice(mapping, offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        active = slice(mapping, offset, capacity);
+        offset += capacity;
+        for (SortKey key : SortKey.values()) {
+            orderings.put(key, slice(mapping, offset, capacity * 4).asIntBuffer());
+            offset += capacity * 4;
+        }
+    }
+
+    /**
+     * Writes or overwrites rows and keeps the orderings sorted. False when out
+     * of capacity (rows up to that point are still applied).
+     *
+     * A delta patch moves each changed row to its new place in every
+     * ordering: binary search, then shift the entries in between by one. A
+     * batch larger than 1/16 of the snapshot (the initial build) is cheaper
+     * to sort once at the end.
+     */
+    boolean patch(List<Row> rows) {
+        lock.writeLock().lock();
+        try {
+            boolean resort = rows.size() > size / 16;
+            boolean fits = true;
+            int[] from = new int[SortKey.values().length];
+            for (Row row : rows) {
+                Integer index = rowById.get(row.id());
+                if (index == null) {
+                    if (!row.active()) {
+                        continue; // never listed, nothing to hide
+                    }
+                    if (size == capacity) {
+                        fits = false;
+                        break;
+                    }
+                    index = size++;
+                    rowById.put(row.id(), index);
+                    // A new row starts in the (unsorted) last slot of every ordering
+                    Arrays.fill(from, size - 1);
+                } else if (!resort) {
+                    // Found by the old values, so before they are overwritten
+                    for (SortKey key : SortKey.values()) {
+                        from[key.ordinal()] = position(key, index);
+                    }
+                }
+                write(index, row);
+                if (!resort) {
+                    for (SortKey key : SortKey.values()) {
+                        move(key, index, from[key.ordinal()]);
+                    }
+                }
+            }
+            if (resort) {
+                sortOrderings();
+            }
+            return fits;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param categoryIds null = any category
+     * @param minCents    inclusive; Long.MIN_VALUE = unbounded
+     * @param maxCents    inclusive; Long.MAX_VALUE = unbounded
+     */
+    Result query(Collection<UUID> categoryIds, long minCents, long maxCents, SortKey sortKey, boolean ascending,
+            long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            // allowed[ordinal + 1] == 1 for every wanted category; slot 0 is "no category"
+            byte[] allowed = new byte[categoryOrdinals.size() + 1];
+            if (categoryIds == null) {
+                Arrays.fill(allowed, (byte) 1);
+            } else {
+                for (UUID categoryId : categoryIds) {
+                    Integer ordinal = categoryOrdinals.get(categoryId);
+                    if (ordinal != null) {
+                        allowed[ordinal + 1] = 1;
+                    }
+                }
+            }
+
+            long total = count(allowed, minCents, maxCents);
+            List<UUID> ids = new ArrayList<>(limit);
+            if (offset >= total) {
+                return new Result(ids, total);
+            }
+
+            IntBuffer ordering = orderings.get(sortKey);
+            long skipped = 0;
+            for (int i = 0; i < size && ids.size() < limit; i++) {
+                int row = ordering.get(ascending ? i : size - 1 - i);
+                if (matches(row, allowed, minCents, maxCents) == 1 && skipped++ >= offset) {
+                    ids.add(new UUID(idHi.get(row), idLo.get(row)));
+                }
+            }
+            return new Result(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Deletes the backing file; the mapping itself is released when the buffers are collected. */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /** Sequential pass with no data-dependent branches — the JIT can unroll it freely. */
+    private long count(byte[] allowedCategories, long minCents, long maxCents) {
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            total += matches(row, allowedCategories, minCents, maxCents);
+        }
+        return total;
+    }
+
+    /** The category test is a table lookup, so a whole subtree costs the same as one category. */
+    private int matches(int row, byte[] allowedCategories, long minCents, long maxCents) {
+        long cents = price.get(row);
+        int categoryOk = allowedCategories[category.get(row) + 1];
+        int priceOk = (cents >= minCents ? 1 : 0) & (cents <= maxCents ? 1 : 0);
+        return active.get(row) & categoryOk & priceOk;
+    }
+
+    private void write(int index, Row row) {
+        idHi.put(index, row.id().getMostSignificantBits());
+        idLo.put(index, row.id().getLeastSignificantBits());
+        category.put(index, row.categoryId() == null ? -1
+                : categoryOrdinals.computeIfAbsent(row.categoryId(), id -> categoryOrdinals.size()));
+        price.put(index, row.priceCents());
+        rating.put(index, row.ratingHundredths());
+        created.put(index, row.createdEpochSeconds());
+        active.put(index, (byte) (row.active() ? 1 : 0));
+    }
+
+    /** key << 24 | row, sorted as primitives: no comparator, no boxing. Ties keep row order. */
+    private void sortOrderings() {
+        long[] packed = new long[size];
+        for (SortKey key : SortKey.values()) {
+            for (int row = 0; row < size; row++) {
+                packed[row] = packed(key, row);
+            }
+            Arrays.sort(packed);
+            IntBuffer ordering = orderings.get(key);
+            for (int i = 0; i < size; i++) {
+                ordering.put(i, (int) (packed[i] & ((1 << ROW_BITS) - 1)));
+            }
+        }
+    }
+
+    /** Where row currently sits in the ordering; packed keys are unique, so the search is exact. */
+    private int position(SortKey key, int row) {
+        IntBuffer ordering = orderings.get(key);
+        long target = packed(key, row);
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (packed(key, ordering.get(mid)) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves row from slot from to where its current values belong. The search
+     * runs over the ordering as if slot from were already removed; only the
+     * entries between the old and new slot shift.
+     */
+    private void move(SortKey key, int row, int from) {
+        IntBuffer ordering = orderings.get(key);
+        long target = packed(key, row);
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int other = ordering.get(mid < from ? mid : mid + 1);
+            if (packed(key, other) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int to = low;
+        if (to > from) {
+            ordering.put(from, ordering, from + 1, to - from);
+        } else if (to < from) {
+            ordering.put(to + 1, ordering, to, from - to);
+        }
+        ordering.put(to, row);
+    }
+
+    private long packed(SortKey key, int row) {
+        long value = switch (key) {
+            case PRICE -> price.get(row);
+            case RATING -> rating.get(row);
+            case CREATED -> created.get(row);
+        };
+        return (Math.max(0, value) << ROW_BITS) | row;
+    }
+
+    private static ByteBuffer slice(MappedByteBuffer mapping, int offset, int length) {
+        return mapping.slice(offset, length).order(ByteOrder.nativeOrder());
+    }
+}
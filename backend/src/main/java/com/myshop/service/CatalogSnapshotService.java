@@ -0,0 +1,289 @@
+package com.myshop.service;
+
+import com.myshop.event.internal.ProductsChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * CatalogSnapshotService — Answers product listing queries from an off-heap
+ * columnar snapshot instead of Postgres (opt-in:
+ * myshop.catalog-snapshot.enabled).
+ *
+ * Lifecycle:
+ * - full build at startup and every rebuild-interval (self-healing if a
+ *   patch was ever missed), swapped in atomically
+ * - delta patches: every ProductsChangedEvent is broadcast after commit on a
+ *   Redis topic, so every node re-reads just those rows and patches its own
+ *   snapshot in place; "all products" (bulk import) triggers a rebuild
+ * - changes that arrive during a rebuild are held back and replayed onto
+ *   the new snapshot, so the swap never drops them
+ *
+ * ProductService.getAll asks query() first. It returns empty — and the
+ * caller falls back to the JPA query — when the engine is disabled, not
+ * built yet, or the sort column is not one of the snapshot columns.
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotService {
+
+    private static final String CHANGES_TOPIC = "catalog:products-changed";
+    private static final String ALL_PRODUCTS = "*";
+
+    private static final String ROW_COLUMNS = "SELECT id, category_id, price, avg_rating, created_at, is_active FROM products ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final RedissonClient redissonClient;
+    private final ThreadPoolTaskExecutor generalTaskExecutor;
+
+    @Value("${myshop.catalog-snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${myshop.catalog-snapshot.directory}")
+    private Path directory;
+
+    /** Extra capacity for products created between rebuilds, as a fraction of the catalog. */
+    @Value("${myshop.catalog-snapshot.headroom:0.25}")
+    private double headroom;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private final Object rebuildLock = new Object();
+    // ── Guarded by rebuildLock; non-null only while a rebuild runs ───────────
+    private Set<UUID> changedDuringRebuild;
+    private boolean allChangedDuringRebuild;
+    private RTopic changesTopic;
+
+    public CatalogSnapshotService(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            RedissonClient redissonClient,
+            @Qualifier("generalTaskExecutor") ThreadPoolTaskExecutor generalTaskExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.redissonClient = redissonClient;
+        this.generalTaskExecutor = generalTaskExecutor;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (!enabled) {
+            return;
+        }
+        changesTopic = redissonClient.getTopic(CHANGES_TOPIC);
+        // Redisson delivers on its own threads; the JDBC work belongs on ours
+        changesTopic.addListener(String.class, (channel, message) ->
+                generalTaskExecutor.execute(() -> applyChange(message)));
+    }
+
+    /**
+     * Page of product ids matching the listing filters, in sort order, with
+     * the total match count. Empty = not answerable here, use the database.
+     *
+     * @param categoryIds null = any category
+     */
+    public Optional<Page<UUID>> query(int page, int size, Collection<UUID> categoryIds, BigDecimal minPrice,
+            BigDecimal maxPrice, String sortBy, String sortDir) {
+        CatalogSnapshot snapshot = current.get();
+        CatalogSnapshot.SortKey sortKey = sortKey(sortBy);
+        if (!enabled || snapshot == null || sortKey == null) {
+            return Optional.empty();
+        }
+        long minCents = minPrice == null ? Long.MIN_VALUE : toCents(minPrice, RoundingMode.CEILING);
+        long maxCents = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR);
+
+        CatalogSnapshot.Result result = snapshot.query(categoryIds, minCents, maxCents, sortKey,
+                "asc".equalsIgnoreCase(sortDir), (long) page * size, size);
+        return Optional.of(new PageImpl<>(result.ids(), PageRequest.of(page, size), result.total()));
+    }
+
+    /** Broadcast after commit so no node patches in data it cannot read yet. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        if (!enabled || changesTopic == null) {
+            return;
+        }
+        String message = event.isAllProducts() ? ALL_PRODUCTS
+                : event.getProductIds().stream().map(UUID::toString).collect(Collectors.joining(","));
+        if (!message.isEmpty()) {
+            changesTopic.publish(message);
+        }
+    }
+
+    /**
+     * Changes that arrive while the build is reading may be missing from it,
+     * and patching them into the outgoing snapshot would lose them at the
+     * swap. So they are collected instead and replayed onto whichever
+     * snapshot is current once the rebuild ends (re-reading the rows, so a
+     * change the build already saw is just written again).
+     */
+    @Scheduled(fixedDelayString = "${myshop.catalog-snapshot.rebuild-interval-ms:600000}", initialDelay = 0)
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            changedDuringRebuild = new HashSet<>();
+            allChangedDuringRebuild = false;
+        }
+        long start = System.currentTimeMillis();
+        Set<UUID> missed;
+        boolean allMissed;
+        try {
+            CatalogSnapshot fresh = readOnlyTransaction.execute(status -> build());
+            CatalogSnapshot previous = current.getAndSet(fresh);
+            if (previous != null) {
+                previous.close();
+            }
+            log.info("Catalog snapshot rebuilt: {} products in {} ms", fresh.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Catalog snapshot rebuild failed; keeping previous snapshot", e);
+        } finally {
+            synchronized (rebuildLock) {
+                missed = changedDuringRebuild;
+                allMissed = allChangedDuringRebuild;
+                changedDuringRebuild = null;
+            }
+            rebuilding.set(false);
+        }
+        if (allMissed) {
+            rebuild();
+        } else if (!missed.isEmpty() && current.get() != null) {
+            patch(current.get(), missed);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        CatalogSnapshot snapshot = current.getAndSet(null);
+        if (snapshot != null) {
+            snapshot.close();
+        }
+    }
+
+    void applyChange(String message) {
+        boolean all = ALL_PRODUCTS.equals(message);
+        Set<UUID> ids = all ? Set.of()
+                : Arrays.stream(message.split(",")).map(UUID::fromString).collect(Collectors.toSet());
+        CatalogSnapshot snapshot;
+        synchronized (rebuildLock) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(ids);
+                allChangedDuringRebuild |= all;
+                return;
+            }
+            snapshot = current.get();
+        }
+        if (snapshot == null) {
+            return; // the initial build will read the change anyway
+        }
+        if (all) {
+            rebuild();
+        } else {
+            patch(snapshot, ids);
+        }
+    }
+
+    private void patch(CatalogSnapshot snapshot, Set<UUID> ids) {
+        try {
+            List<CatalogSnapshot.Row> rows = new ArrayList<>(jdbcTemplate.query(ROW_COLUMNS + "WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())),
+                    (rs, rowNum) -> toRow(rs)));
+            // Hard-deleted rows come back missing: hide them like soft deletes
+            Set<UUID> found = new HashSet<>();
+            rows.forEach(row -> found.add(row.id()));
+            ids.stream().filter(id -> !found.contains(id))
+                    .forEach(id -> rows.add(new CatalogSnapshot.Row(id, null, 0, 0, 0, false)));
+
+            if (!snapshot.patch(rows)) {
+                log.info("Catalog snapshot out of capacity; rebuilding");
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("Catalog snapshot patch failed; rebuilding", e);
+            rebuild();
+        }
+    }
+
+    private CatalogSnapshot build() {
+        Long activeCount = jdbcTemplate.queryForObject("SELECT count(*) FROM products WHERE is_active = true", Long.class);
+        long count = activeCount == null ? 0 : activeCount;
+        int capacity = (int) Math.min(CatalogSnapshot.MAX_CAPACITY, count + (long) (count * headroom) + 1_024);
+
+        List<CatalogSnapshot.Row> rows = new ArrayList<>((int) Math.min(count, capacity));
+        jdbcTemplate.query(ROW_COLUMNS + "WHERE is_active = true", rs -> {
+            rows.add(toRow(rs));
+        });
+        try {
+            CatalogSnapshot snapshot = new CatalogSnapshot(directory, capacity);
+            if (!snapshot.patch(rows)) {
+                snapshot.close();
+                throw new IllegalStateException("Catalog grew past snapshot capacity during rebuild");
+            }
+            return snapshot;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create catalog snapshot in " + directory, e);
+        }
+    }
+
+    private static CatalogSnapshot.Row toRow(ResultSet rs) throws SQLException {
+        BigDecimal rating = rs.getBigDecimal("avg_rating");
+        java.sql.Timestamp createdAt = rs.getTimestamp("created_at");
+        return new CatalogSnapshot.Row(
+                rs.getObject("id", UUID.class),
+                rs.getObject("category_id", UUID.class),
+                toCents(rs.getBigDecimal("price"), RoundingMode.HALF_UP),
+                rating == null ? 0 : rating.movePointRight(2).intValue(),
+                createdAt == null ? 0 : createdAt.toInstant().getEpochSecond(),
+                rs.getBoolean("is_active"));
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode rounding) {
+        return amount.setScale(2, rounding).movePointRight(2).longValueExact();
+    }
+
+    /** Sort properties the snapshot keeps an ordering for (entity property names, as in the API). */
+    private static CatalogSnapshot.SortKey sortKey(String sortBy) {
+        return switch (sortBy) {
+            case "price" -> CatalogSnapshot.SortKey.PRICE;
+            case "avgRating" -> CatalogSnapshot.SortKey.RATING;
+            case "createdAt" -> CatalogSnapshot.SortKey.CREATED;
+            default -> null;
+        };
+    }
+}
@@ -1,7 +1,9 @@
 package com.myshop.service;
 
+import com.myshop.config.CacheConfig;
 import com.myshop.dto.request.CreateCategoryRequest;
 import com.myshop.dto.response.CategoryResponse;
+import com.myshop.event.internal.CategoriesChangedEvent;
 import com.myshop.exception.BusinessException;
 import com.myshop.exception.ErrorCode;
 import com.myshop.exception.ResourceNotFoundException;
@@ -10,12 +12,19 @@ import com.myshop.model.entity.Category;
 import com.myshop.repository.jpa.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * CategoryService — Category reads come from the in-memory CategoryTree
+ * (no query, no lazy parent loads); writes go to the database and publish
+ * CategoriesChangedEvent so the tree is rebuilt after commit.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -23,29 +32,42 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final CategoryTreeService categoryTreeService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional(readOnly = true)
     public List<CategoryResponse> getAll() {
-        return categoryRepository.findAll()
-                .stream()
-                .map(categoryMapper::toResponse)
+        CategoryTree tree = categoryTreeService.tree();
+        return tree.all().stream()
+                .map(node -> toResponse(tree, node))
                 .toList();
     }
 
-    @Transactional(readOnly = true)
     public CategoryResponse getById(UUID id) {
-        return categoryRepository.findById(id)
-                .map(categoryMapper::toResponse)
+        CategoryTree tree = categoryTreeService.tree();
+        return tree.get(id)
+                .map(node -> toResponse(tree, node))
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id.toString()));
     }
 
-    @Transactional(readOnly = true)
     public CategoryResponse getBySlug(String slug) {
-        return categoryRepository.findBySlug(slug)
-                .map(categoryMapper::toResponse)
+        CategoryTree tree = categoryTreeService.tree();
+        return tree.getBySlug(slug)
+                .map(node -> toResponse(tree, node))
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "slug", slug));
     }
 
+    /** Breadcrumb: root category first, the requested one last. */
+    public List<CategoryResponse> getPath(UUID id) {
+        CategoryTree tree = categoryTreeService.tree();
+        List<CategoryTree.Node> path = tree.path(id);
+        if (path.isEmpty()) {
+            throw new ResourceNotFoundException("Category", "id", id.toString());
+        }
+        return path.stream()
+                .map(node -> toResponse(tree, node))
+                .toList();
+    }
+
     @Transactional
     public CategoryResponse create(CreateCategoryRequest request) {
         if (categoryRepository.existsBySlug(request.getSlug())) {
@@ -64,9 +86,12 @@ public class CategoryService {
 
         Category saved = categoryRepository.save(category);
         log.info("Category created: {} (slug: {})", saved.getName(), saved.getSlug());
+        eventPublisher.publishEvent(new CategoriesChangedEvent(this));
         return categoryMapper.toResponse(saved);
     }
 
+    /** Moving a category changes which products every ancestor's listing includes. */
+    @CacheEvict(value = { CacheConfig.CACHE_PRODUCTS_PAGED, CacheConfig.CACHE_PRODUCTS_PAGED_JSON }, allEntries = true)
     @Transactional
     public CategoryResponse update(UUID id, CreateCategoryRequest request) {
         Category category = categoryRepository.findById(id)
@@ -82,6 +107,10 @@ public class CategoryService {
         category.setSlug(request.getSlug());
 
         if (request.getParentId() != null) {
+            if (categoryTreeService.tree().isInSubtree(request.getParentId(), id)) {
+                throw new BusinessException(ErrorCode.VALIDATION_FAILED,
+                        "A category cannot be moved under itself or one of its subcategories");
+            }
             Category parent = categoryRepository.findById(request.getParentId())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Category", "id", request.getParentId().toString()));
@@ -90,6 +119,19 @@ public class CategoryService {
             category.setParent(null);
         }
 
-        return categoryMapper.toResponse(categoryRepository.save(category));
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoriesChangedEvent(this));
+        return categoryMapper.toResponse(saved);
+    }
+
+    private static CategoryResponse toResponse(CategoryTree tree, CategoryTree.Node node) {
+        return CategoryResponse.builder()
+                .id(node.id())
+                .name(node.name())
+                .slug(node.slug())
+                .parentId(node.parentId())
+                .parentName(node.parentId() == null ? null
+                        : tree.get(node.parentId()).map(CategoryTree.Node::name).orElse(null))
+                .build();
     }
 }
@@ -0,0 +1,167 @@
+package com.myshop.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * CategoryTree — Immutable snapshot of the whole category hierarchy.
+ *
+ * Everything a read needs is precomputed at build time:
+ *   path         ancestors from the root down to the category itself
+ *   subtree      the category plus all its descendants, as one array
+ * so a breadcrumb or a "this category and everything below it" filter is a
+ * map lookup, never a walk over parent links or a query.
+ *
+ * A tree is never modified after build(); CategoryTreeService swaps in a new
+ * one after every category write, so readers need no locking.
+ *
+ * Parent links that would form a cycle (or point at a missing row) are
+ * ignored: such a category is treated as a root rather than looping forever.
+ */
+final class CategoryTree {
+
+    record Row(UUID id, String name, String slug, UUID parentId) {
+    }
+
+    record Node(UUID id, String name, String slug, UUID parentId, List<UUID> path) {
+    }
+
+    private final Map<UUID, Node> nodes;
+    private final Map<String, Node> bySlug;
+    private final Map<UUID, UUID[]> subtrees;
+
+    private CategoryTree(Map<UUID, Node> nodes, Map<String, Node> bySlug, Map<UUID, UUID[]> subtrees) {
+        this.nodes = nodes;
+        this.bySlug = bySlug;
+        this.subtrees = subtrees;
+    }
+
+    static CategoryTree build(List<Row> rows) {
+        Map<UUID, Row> byId = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> byId.put(row.id(), row));
+
+        Map<UUID, List<Row>> children = new HashMap<>();
+        List<Row> roots = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.parentId() == null || !byId.containsKey(row.parentId())) {
+                roots.add(row);
+            } else {
+                children.computeIfAbsent(row.parentId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        Comparator<Row> byName = Comparator.comparing(Row::name, String.CASE_INSENSITIVE_ORDER);
+        roots.sort(byName);
+        children.values().forEach(list -> list.sort(byName));
+
+        // Pre-order walk: parents are placed before their children, so every
+        // path can extend its parent's. Rows left unvisited sit on a cycle.
+        Map<UUID, Node> nodes = new LinkedHashMap<>(rows.size() * 2);
+        walk(roots, children, nodes);
+        if (nodes.size() < rows.size()) {
+            rows.stream().sorted(byName).forEach(row -> {
+                if (!nodes.containsKey(row.id())) {
+                    walk(List.of(new Row(row.id(), row.name(), row.slug(), null)), children, nodes);
+                }
+            });
+        }
+
+        // Post-order over the pre-order list: every child's subtree is done before its parent's
+        Map<UUID, UUID[]> subtrees = new HashMap<>(nodes.size() * 2);
+        List<Node> ordered = new ArrayList<>(nodes.values());
+        Collections.reverse(ordered);
+        for (Node node : ordered) {
+            List<Row> kids = children.getOrDefault(node.id(), List.of());
+            int size = 1;
+            for (Row kid : kids) {
+                size += subtreeOf(subtrees, kid.id()).length;
+            }
+            UUID[] subtree = new UUID[size];
+            subtree[0] = node.id();
+            int offset = 1;
+            for (Row kid : kids) {
+                UUID[] kidSubtree = subtreeOf(subtrees, kid.id());
+                System.arraycopy(kidSubtree, 0, subtree, offset, kidSubtree.length);
+                offset += kidSubtree.length;
+            }
+            subtrees.put(node.id(), subtree);
+        }
+
+        Map<String, Node> bySlug = new HashMap<>(nodes.size() * 2);
+        nodes.values().forEach(node -> bySlug.put(node.slug(), node));
+        return new CategoryTree(Collections.unmodifiableMap(nodes), bySlug, subtrees);
+    }
+
+    Optional<Node> get(UUID id) {
+        return Optional.ofNullable(nodes.get(id));
+    }
+
+    Optional<Node> getBySlug(String slug) {
+        return Optional.ofNullable(bySlug.get(slug));
+    }
+
+    /** Every category, each parent directly followed by its subtree, siblings by name. */
+    List<Node> all() {
+        return List.copyOf(nodes.values());
+    }
+
+    /** Root → id, inclusive; empty for an unknown id. */
+    List<Node> path(UUID id) {
+        Node node = nodes.get(id);
+        return node == null ? List.of() : node.path().stream().map(nodes::get).toList();
+    }
+
+    /** The category and all its descendants; empty for an unknown id. */
+    List<UUID> subtreeIds(UUID id) {
+        UUID[] subtree = subtrees.get(id);
+        return subtree == null ? List.of() : List.of(subtree);
+    }
+
+    boolean isInSubtree(UUID candidate, UUID root) {
+        Node node = nodes.get(candidate);
+        return node != null && node.path().contains(root);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    private static void walk(List<Row> roots, Map<UUID, List<Row>> children, Map<UUID, Node> nodes) {
+        Deque<Row> stack = new ArrayDeque<>();
+        for (int i = roots.size() - 1; i >= 0; i--) {
+            stack.push(roots.get(i));
+        }
+        while (!stack.isEmpty()) {
+            Row row = stack.pop();
+            if (nodes.containsKey(row.id())) {
+                continue;
+            }
+            Node parent = row.parentId() == null ? null : nodes.get(row.parentId());
+            List<UUID> path = new ArrayList<>(parent == null ? 1 : parent.path().size() + 1);
+            if (parent != null) {
+                path.addAll(parent.path());
+            }
+            path.add(row.id());
+            nodes.put(row.id(), new Node(row.id(), row.name(), row.slug(),
+                    parent == null ? null : parent.id(), List.copyOf(path)));
+
+            List<Row> kids = children.getOrDefault(row.id(), List.of());
+            for (int i = kids.size() - 1; i >= 0; i--) {
+                stack.push(kids.get(i));
+            }
+        }
+    }
+
+    /** Empty for the cycle-breaking root seen again as its old parent's child — not done yet, not counted twice. */
+    private static UUID[] subtreeOf(Map<UUID, UUID[]> subtrees, UUID id) {
+        return subtrees.getOrDefault(id, new UUID[0]);
+    }
+}
@@ -0,0 +1,104 @@
+package com.myshop.service;
+
+import com.myshop.event.internal.CategoriesChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * CategoryTreeService — Holds the current CategoryTree for this node.
+ *
+ * The tree is loaded with one query on first use and replaced wholesale
+ * (never patched) whenever categories change:
+ * - the writing node rebuilds synchronously after commit, so the admin who
+ *   just moved a category sees the change on the next request
+ * - the change is broadcast on a Redis topic and every other node rebuilds
+ *   in the background
+ * Categories are a few hundred rows at most, so a full rebuild is cheap and
+ * leaves no room for a missed delta.
+ */
+@Slf4j
+@Service
+public class CategoryTreeService {
+
+    private static final String CHANGES_TOPIC = "catalog:categories-changed";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedissonClient redissonClient;
+    private final ThreadPoolTaskExecutor generalTaskExecutor;
+    private final String nodeId;
+
+    private final AtomicReference<CategoryTree> current = new AtomicReference<>();
+    private RTopic changesTopic;
+
+    public CategoryTreeService(JdbcTemplate jdbcTemplate,
+            RedissonClient redissonClient,
+            @Qualifier("generalTaskExecutor") ThreadPoolTaskExecutor generalTaskExecutor,
+            @Value("${myshop.node-id}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redissonClient = redissonClient;
+        this.generalTaskExecutor = generalTaskExecutor;
+        this.nodeId = nodeId;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        changesTopic = redissonClient.getTopic(CHANGES_TOPIC);
+        changesTopic.addListener(String.class, (channel, sender) -> {
+            if (!nodeId.equals(sender)) {
+                generalTaskExecutor.execute(this::rebuild);
+            }
+        });
+    }
+
+    /** The category and all its descendants; just the id itself if the tree doesn't know it yet. */
+    public List<UUID> subtreeIds(UUID categoryId) {
+        List<UUID> subtree = tree().subtreeIds(categoryId);
+        return subtree.isEmpty() ? List.of(categoryId) : subtree;
+    }
+
+    CategoryTree tree() {
+        CategoryTree tree = current.get();
+        return tree != null ? tree : rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoriesChanged(CategoriesChangedEvent event) {
+        rebuild();
+        changesTopic.publish(nodeId);
+    }
+
+    CategoryTree rebuild() {
+        try {
+            CategoryTree tree = CategoryTree.build(jdbcTemplate.query(
+                    "SELECT id, name, slug, parent_id FROM categories",
+                    (rs, rowNum) -> new CategoryTree.Row(
+                            rs.getObject("id", UUID.class),
+                            rs.getString("name"),
+                            rs.getString("slug"),
+                            rs.getObject("parent_id", UUID.class))));
+            current.set(tree);
+            log.debug("Category tree rebuilt: {} categories", tree.size());
+            return tree;
+        } catch (RuntimeException e) {
+            CategoryTree previous = current.get();
+            if (previous == null) {
+                throw e; // nothing to fall back to
+            }
+            log.error("Category tree rebuild failed; keeping previous tree", e);
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.myshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.dto.request.DeadLetterFilter;
+import com.myshop.dto.request.DeadLetterReplayRequest;
+import com.myshop.dto.response.DeadLetterReplayStatusResponse;
+import com.myshop.dto.response.DeadLetterResponse;
+import com.myshop.dto.response.PagedResponse;
+import com.myshop.exception.ResourceNotFoundException;
+import com.myshop.exception.ServiceOverloadedException;
+import com.myshop.model.document.DeadLetter;
+import com.myshop.repository.mongo.DeadLetterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * DeadLetterService — Keeps dead-lettered Kafka records and replays them.
+ *
+ * Storage: DLTHandler hands over every record read from a {topic}.DLT; it is
+ * saved to dead_letters with its payload, headers, exception details and
+ * original topic/partition/offset (see DeadLetter).
+ *
+ * Replay: a job streams the matching documents (one Mongo cursor, never the
+ * whole result in memory) on the deadLetterReplayExecutor and republishes
+ * each payload with its original key. A ReplayThrottle spaces sends to the
+ * requested rate and bounds how many await a broker ack, so replaying
+ * millions of records arrives at consumers as a steady trickle rather than a
+ * flood. Acknowledged records are marked (replay_count, last_replayed_at) in
+ * batches; a rerun with the same filter skips them.
+ *
+ * Job progress is kept in memory on the node that runs the job, like cache
+ * warming; the markers in Mongo are what survive a restart.
+ */
+@Slf4j
+@Service
+public class DeadLetterService {
+
+    /** Set on every replayed record: the dead letter it came from. */
+    public static final String REPLAY_OF_HEADER = "myshop_replay-of";
+
+    private static final String EVENT_PACKAGE = "com.myshop.kafka.event.";
+    private static final int MAX_STACKTRACE_CHARS = 16_384;
+    private static final int MAX_JOBS_KEPT = 20;
+    // Replays run for minutes, so checking back within seconds is pointless
+    private static final int REPLAY_BUSY_RETRY_AFTER_SECONDS = 60;
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(DeadLetterService.class);
+
+    /** Headers turned into DeadLetter fields rather than copied to headers. */
+    private static final Set<String> MAPPED_HEADERS = Set.of(
+            KafkaHeaders.DLT_ORIGINAL_TOPIC, KafkaHeaders.DLT_ORIGINAL_PARTITION,
+            KafkaHeaders.DLT_ORIGINAL_OFFSET, KafkaHeaders.DLT_ORIGINAL_TIMESTAMP,
+            KafkaHeaders.DLT_ORIGINAL_CONSUMER_GROUP, KafkaHeaders.DLT_EXCEPTION_FQCN,
+            KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN, KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+            KafkaHeaders.DLT_EXCEPTION_STACKTRACE, AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+            SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER);
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor deadLetterReplayExecutor;
+
+    private final Map<String, ReplayJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${myshop.kafka.replay.default-rate-per-second:100}")
+    private int defaultRatePerSecond;
+
+    @Value("${myshop.kafka.replay.max-rate-per-second:1000}")
+    private int maxRatePerSecond;
+
+    @Value("${myshop.kafka.replay.default-concurrency:10}")
+    private int defaultConcurrency;
+
+    @Value("${myshop.kafka.replay.max-concurrency:100}")
+    private int maxConcurrency;
+
+    @Value("${myshop.kafka.replay.mark-batch-size:500}")
+    private int markBatchSize;
+
+    public DeadLetterService(DeadLetterRepository deadLetterRepository,
+            MongoTemplate mongoTemplate,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ObjectMapper objectMapper,
+            @Qualifier("deadLetterReplayExecutor") ThreadPoolTaskExecutor deadLetterReplayExecutor) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.deadLetterReplayExecutor = deadLetterReplayExecutor;
+    }
+
+    // ── Storage ──────────────────────────────────────────────────────────────
+
+    public void record(ConsumerRecord<String, Object> record) {
+        Headers headers = record.headers();
+        DeadLetter.DeadLetterBuilder deadLetter = DeadLetter.builder()
+                .id(record.topic() + "-" + record.partition() + "@" + record.offset())
+                .dltTopic(record.topic())
+                // First occurrence: the topic/group where the record originally failed,
+                // before any retry tier re-published it
+                .originalTopic(firstString(headers, KafkaHeaders.DLT_ORIGINAL_TOPIC))
+                .originalPartition(firstInt(headers, KafkaHeaders.DLT_ORIGINAL_PARTITION))
+                .originalOffset(firstLong(headers, KafkaHeaders.DLT_ORIGINAL_OFFSET))
+                .originalTimestamp(toInstant(firstLong(headers, KafkaHeaders.DLT_ORIGINAL_TIMESTAMP)))
+                .consumerGroup(firstString(headers, KafkaHeaders.DLT_ORIGINAL_CONSUMER_GROUP))
+                .key(record.key())
+                // Last occurrence: the failure that finally gave up
+                .exceptionClass(lastString(headers, KafkaHeaders.DLT_EXCEPTION_FQCN))
+                .exceptionCauseClass(lastString(headers, KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN))
+                .exceptionMessage(lastString(headers, KafkaHeaders.DLT_EXCEPTION_MESSAGE))
+                .exceptionStacktrace(truncate(lastString(headers, KafkaHeaders.DLT_EXCEPTION_STACKTRACE)))
+                .headers(otherHeaders(headers))
+                .receivedAt(Instant.now());
+
+        if (record.value() != null) {
+            deadLetter.payloadType(record.value().getClass().getName()).payload(toJson(record.value()));
+        } else {
+            // The DLT copy could not be deserialized either: keep the raw bytes as text, not replayable
+            DeserializationException failure = SerializationUtils.getExceptionFromHeader(record,
+                    SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+            if (failure != null && failure.getData() != null) {
+                deadLetter.payload(new String(failure.getData(), StandardCharsets.UTF_8));
+            }
+        }
+
+        deadLetterRepository.save(deadLetter.build());
+    }
+
+    // ── Inspection ───────────────────────────────────────────────────────────
+
+    public PagedResponse<DeadLetterResponse> search(DeadLetterFilter filter, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "received_at"));
+        Query query = query(filter);
+        long total = mongoTemplate.count(query, DeadLetter.class);
+        List<DeadLetterResponse> content = mongoTemplate.find(query.with(pageRequest), DeadLetter.class).stream()
+                .map(DeadLetterResponse::from)
+                .toList();
+        return PagedResponse.of(new PageImpl<>(content, pageRequest, total), content);
+    }
+
+    public DeadLetterResponse get(String id) {
+        return deadLetterRepository.findById(id)
+                .map(DeadLetterResponse::from)
+                .orElseThrow(() -> new ResourceNotFoundException("DeadLetter", "id", id));
+    }
+
+    // ── Replay ───────────────────────────────────────────────────────────────
+
+    public DeadLetterReplayStatusResponse startReplay(DeadLetterReplayRequest request) {
+        int rate = Math.min(request.ratePerSecond() != null ? request.ratePerSecond() : defaultRatePerSecond,
+                maxRatePerSecond);
+        int concurrency = Math.min(request.concurrency() != null ? request.concurrency() : defaultConcurrency,
+                maxConcurrency);
+        Query query = query(request.filter());
+
+        ReplayJob job = new ReplayJob(UUID.randomUUID().toString(), rate, concurrency, request.targetTopic(),
+                mongoTemplate.count(query, DeadLetter.class));
+        try {
+            deadLetterReplayExecutor.execute(() -> run(job, query));
+        } catch (TaskRejectedException e) {
+            throw new ServiceOverloadedException("Too many dead letter replays are running",
+                    REPLAY_BUSY_RETRY_AFTER_SECONDS);
+        }
+        jobs.put(job.id, job);
+        pruneJobs();
+        return job.status();
+    }
+
+    public DeadLetterReplayStatusResponse getReplay(String jobId) {
+        return job(jobId).status();
+    }
+
+    public List<DeadLetterReplayStatusResponse> getReplays() {
+        return jobs.values().stream()
+                .map(ReplayJob::status)
+                .sorted(Comparator.comparing(DeadLetterReplayStatusResponse::startedAt).reversed())
+                .toList();
+    }
+
+    /** Stops after the send in progress; records already acknowledged stay marked as replayed. */
+    public DeadLetterReplayStatusResponse cancelReplay(String jobId) {
+        ReplayJob job = job(jobId);
+        job.cancelled = true;
+        return job.status();
+    }
+
+    private void run(ReplayJob job, Query query) {
+        ReplayThrottle throttle = new ReplayThrottle(job.ratePerSecond, job.concurrency);
+        Queue<String> acknowledged = new ConcurrentLinkedQueue<>();
+        query.with(Sort.by("_id")).cursorBatchSize(markBatchSize);
+        try (Stream<DeadLetter> deadLetters = mongoTemplate.stream(query, DeadLetter.class)) {
+            Iterator<DeadLetter> iterator = deadLetters.iterator();
+            while (iterator.hasNext() && !job.cancelled) {
+                DeadLetter deadLetter = iterator.next();
+                Object payload = replayablePayload(deadLetter);
+                String topic = job.targetTopic != null ? job.targetTopic : deadLetter.getOriginalTopic();
+                if (payload == null || topic == null) {
+                    job.skipped.incrementAndGet();
+                    continue;
+                }
+
+                throttle.acquire();
+                ProducerRecord<String, Object> out = new ProducerRecord<>(topic, deadLetter.getKey(), payload);
+                out.headers().add(REPLAY_OF_HEADER, deadLetter.getId().getBytes(StandardCharsets.UTF_8));
+                kafkaTemplate.send(out).whenComplete((result, e) -> {
+                    throttle.release();
+                    if (e == null) {
+                        job.replayed.incrementAndGet();
+                        acknowledged.add(deadLetter.getId());
+                    } else {
+                        job.failed.incrementAndGet();
+                        log.warn("Replay of dead letter {} to {} failed: {}", deadLetter.getId(), topic, e.getMessage());
+                    }
+                });
+
+                if (acknowledged.size() >= markBatchSize) {
+                    markReplayed(acknowledged);
+                }
+            }
+            throttle.awaitIdle();
+            markReplayed(acknowledged);
+            job.finish(job.cancelled ? "CANCELLED" : "COMPLETED");
+            log.info("Dead letter replay {} {}: {} replayed, {} failed, {} skipped of {}", job.id, job.state,
+                    job.replayed.get(), job.failed.get(), job.skipped.get(), job.matched);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markReplayed(acknowledged);
+            job.finish("CANCELLED");
+        } catch (RuntimeException e) {
+            log.error("Dead letter replay {} failed", job.id, e);
+            markReplayed(acknowledged);
+            job.finish("FAILED");
+        }
+    }
+
+    private void markReplayed(Queue<String> acknowledged) {
+        List<String> ids = new ArrayList<>(markBatchSize);
+        for (String id; (id = acknowledged.poll()) != null;) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)),
+                new Update().inc("replay_count", 1).set("last_replayed_at", Instant.now()),
+                DeadLetter.class);
+    }
+
+    /** The payload as its event class again, or null if it cannot be republished. */
+    private Object replayablePayload(DeadLetter deadLetter) {
+        String type = deadLetter.getPayloadType();
+        // Only our own event classes: the type name comes from a Kafka header
+        if (type == null || deadLetter.getPayload() == null || !type.startsWith(EVENT_PACKAGE)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(deadLetter.getPayload(), Class.forName(type));
+        } catch (ClassNotFoundException | JsonProcessingException e) {
+            log.warn("Dead letter {} has an unreadable {} payload", deadLetter.getId(), type);
+            return null;
+        }
+    }
+
+    private ReplayJob job(String jobId) {
+        ReplayJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Replay job", "id", jobId);
+        }
+        return job;
+    }
+
+    /** Keeps the most recent MAX_JOBS_KEPT jobs; running jobs are never dropped. */
+    private void pruneJobs() {
+        if (jobs.size() <= MAX_JOBS_KEPT) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((ReplayJob job) -> job.startedAt))
+                .limit(jobs.size() - MAX_JOBS_KEPT)
+                .forEach(job -> jobs.remove(job.id));
+    }
+
+    private static Query query(DeadLetterFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.originalTopic() != null) {
+            criteria.add(Criteria.where("original_topic").is(filter.originalTopic()));
+        }
+        if (filter.consumerGroup() != null) {
+            criteria.add(Criteria.where("consumer_group").is(filter.consumerGroup()));
+        }
+        if (filter.exceptionClass() != null) {
+            criteria.add(Criteria.where("exception_class").is(filter.exceptionClass()));
+        }
+        if (filter.key() != null) {
+            criteria.add(Criteria.where("key").is(filter.key()));
+        }
+        if (filter.from() != null || filter.to() != null) {
+            Criteria received = Criteria.where("received_at");
+            if (filter.from() != null) {
+                received.gte(filter.from());
+            }
+            if (filter.to() != null) {
+                received.lt(filter.to());
+            }
+            criteria.add(received);
+        }
+        if (!Boolean.TRUE.equals(filter.includeReplayed())) {
+            criteria.add(Criteria.where("last_replayed_at").is(null));
+        }
+        return criteria.isEmpty()
+                ? new Query()
+                : Query.query(new Criteria().andOperator(criteria.toArray(Criteria[]::new)));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(value);
+        }
+    }
+
+    private static List<DeadLetter.Header> otherHeaders(Headers headers) {
+        List<DeadLetter.Header> other = new ArrayList<>();
+        for (Header header : headers) {
+            if (!MAPPED_HEADERS.contains(header.key())) {
+                other.add(new DeadLetter.Header(header.key(), headerText(header.value())));
+            }
+        }
+        return other;
+    }
+
+    /** UTF-8 text when the bytes are valid text, otherwise base64 (offsets, attempt counters...). */
+    private static String headerText(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            CharBuffer text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(value));
+            boolean printable = text.chars().allMatch(c -> c >= 0x20 || c == '\n' || c == '\r' || c == '\t');
+            if (printable) {
+                return text.toString();
+            }
+        } catch (CharacterCodingException e) {
+            // fall through to base64
+        }
+        return "base64:" + Base64.getEncoder().encodeToString(value);
+    }
+
+    private static Header first(Headers headers, String key) {
+        Iterator<Header> all = headers.headers(key).iterator();
+        return all.hasNext() ? all.next() : null;
+    }
+
+    private static String firstString(Headers headers, String key) {
+        Header header = first(headers, key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static Integer firstInt(Headers headers, String key) {
+        Header header = first(headers, key);
+        return header == null || header.value().length != Integer.BYTES ? null
+                : ByteBuffer.wrap(header.value()).getInt();
+    }
+
+    private static Long firstLong(Headers headers, String key) {
+        Header header = first(headers, key);
+        return header == null || header.value().length != Long.BYTES ? null
+                : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    private static String lastString(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static Instant toInstant(Long epochMillis) {
+        return epochMillis == null ? null : Instant.ofEpochMilli(epochMillis);
+    }
+
+    private static String truncate(String text) {
+        return text == null || text.length() <= MAX_STACKTRACE_CHARS ? text : text.substring(0, MAX_STACKTRACE_CHARS);
+    }
+
+    private static final class ReplayJob {
+        private final String id;
+        private final int ratePerSecond;
+        private final int concurrency;
+        private final String targetTopic;
+        private final long matched;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong replayed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private volatile String state = "RUNNING";
+        private volatile boolean cancelled;
+        private volatile Instant finishedAt;
+
+        private ReplayJob(String id, int ratePerSecond, int concurrency, String targetTopic, long matched) {
+            this.id = id;
+            this.ratePerSecond = ratePerSecond;
+            this.concurrency = concurrency;
+            this.targetTopic = targetTopic;
+            this.matched = matched;
+        }
+
+        private void finish(String finalState) {
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        private DeadLetterReplayStatusResponse status() {
+            return new DeadLetterReplayStatusResponse(id, state, matched, replayed.get(), failed.get(),
+                    skipped.get(), ratePerSecond, concurrency, targetTopic, startedAt, finishedAt);
+        }
+    }
+}
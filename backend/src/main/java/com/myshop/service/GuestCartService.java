@@ -0,0 +1,189 @@
+package com.myshop.service;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.request.CartItemRequest;
+import com.myshop.dto.response.CartResponse;
+import com.myshop.dto.response.ProductResponse;
+import com.myshop.exception.BusinessException;
+import com.myshop.exception.ErrorCode;
+import com.myshop.exception.ResourceNotFoundException;
+import com.myshop.security.GuestCartTokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * GuestCartService — Server-side carts for visitors who are not logged in.
+ *
+ * A guest cart is a Redis hash cart:guest:{cartId} (productId → quantity)
+ * with a TTL, identified to the client only through a signed token
+ * (GuestCartTokenService) in the X-Cart-Token header. Nothing is written to
+ * Postgres until the visitor logs in or registers with the token: then
+ * mergeInto() hands the whole cart to the CartStore in one batched call and
+ * deletes it, instead of the client replaying it item by item.
+ */
+@Slf4j
+@Service
+public class GuestCartService {
+
+    /** The cart a request works on and the token to hand back for it. */
+    public record Session(UUID cartId, String token) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final HashOperations<String, String, String> hashOps;
+    private final GuestCartTokenService tokenService;
+    private final ProductService productService;
+    private final CartStore cartStore;
+    private final Duration ttl;
+    private final int maxItems;
+
+    public GuestCartService(StringRedisTemplate redisTemplate,
+            GuestCartTokenService tokenService,
+            ProductService productService,
+            CartStore cartStore,
+            @Value("${myshop.guest-cart.ttl-days:7}") long ttlDays,
+            @Value("${myshop.guest-cart.max-items:50}") int maxItems) {
+        this.redisTemplate = redisTemplate;
+        this.hashOps = redisTemplate.opsForHash();
+        this.tokenService = tokenService;
+        this.productService = productService;
+        this.cartStore = cartStore;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.maxItems = maxItems;
+    }
+
+    /** No token: a new (empty, not yet stored) cart. A token that fails verification is rejected. */
+    public Session open(String token) {
+        if (token == null || token.isBlank()) {
+            UUID cartId = UUID.randomUUID();
+            return new Session(cartId, tokenService.issue(cartId));
+        }
+        UUID cartId = tokenService.verify(token)
+                .orElseThrow(() -> new BusinessException(ErrorCode.INVALID_TOKEN, "Guest cart token is invalid"));
+        return new Session(cartId, token);
+    }
+
+    public CartResponse getCart(Session session) {
+        return toResponse(session);
+    }
+
+    public CartResponse addItem(Session session, CartItemRequest request) {
+        String key = key(session.cartId());
+        ProductResponse product = product(request.productId());
+        String field = product.getId().toString();
+
+        if (!hashOps.hasKey(key, field) && hashOps.size(key) >= maxItems) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED,
+                    "A guest cart holds at most " + maxItems + " different products");
+        }
+        Long newQuantity = hashOps.increment(key, field, request.quantity());
+        if (newQuantity != null && newQuantity > product.getStockQuantity()) {
+            hashOps.increment(key, field, -request.quantity());
+            throw new BusinessException(ErrorCode.INSUFFICIENT_STOCK,
+                    "Not enough stock for product: " + product.getName() + ". Available: "
+                            + product.getStockQuantity());
+        }
+        redisTemplate.expire(key, ttl);
+        return toResponse(session);
+    }
+
+    public CartResponse updateItemQuantity(Session session, UUID productId, int quantity) {
+        String key = key(session.cartId());
+        if (!hashOps.hasKey(key, productId.toString())) {
+            throw new ResourceNotFoundException("CartItem for Product", "id", productId.toString());
+        }
+        ProductResponse product = product(productId);
+        if (product.getStockQuantity() < quantity) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_STOCK,
+                    "Not enough stock for product: " + product.getName());
+        }
+        hashOps.put(key, productId.toString(), Integer.toString(quantity));
+        redisTemplate.expire(key, ttl);
+        return toResponse(session);
+    }
+
+    public CartResponse removeItem(Session session, UUID productId) {
+        if (hashOps.delete(key(session.cartId()), productId.toString()) == 0) {
+            throw new ResourceNotFoundException("CartItem for Product", "id", productId.toString());
+        }
+        return toResponse(session);
+    }
+
+    public void clearCart(Session session) {
+        redisTemplate.delete(key(session.cartId()));
+    }
+
+    /**
+     * Moves the guest cart into the user's cart: read-and-delete in one
+     * MULTI (a retried login cannot merge it twice), then one CartStore
+     * merge. Best-effort — a failed merge puts the items back and never fails
+     * the login itself.
+     */
+    public void mergeInto(String email, String token) {
+        if (token == null || token.isBlank()) {
+            return;
+        }
+        UUID cartId = tokenService.verify(token).orElse(null);
+        if (cartId == null) {
+            log.debug("Ignoring invalid guest cart token on login of {}", email);
+            return;
+        }
+        String key = key(cartId);
+        Map<String, String> fields = Map.of();
+        try {
+            fields = takeAll(key);
+            if (!fields.isEmpty()) {
+                cartStore.mergeItems(email, CartPricing.quantities(fields));
+                log.info("Merged guest cart {} ({} products) into cart of {}", cartId, fields.size(), email);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Guest cart merge failed for {}; guest cart kept", email, e);
+            if (!fields.isEmpty()) {
+                hashOps.putAll(key, fields);
+                redisTemplate.expire(key, ttl);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> takeAll(String key) {
+        List<Object> results = redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) throws DataAccessException {
+                operations.multi();
+                operations.opsForHash().entries((K) key);
+                operations.delete((K) key);
+                return operations.exec();
+            }
+        });
+        return results == null || results.isEmpty() ? Map.of() : (Map<String, String>) results.get(0);
+    }
+
+    private CartResponse toResponse(Session session) {
+        Map<UUID, Integer> quantities = CartPricing.quantities(hashOps.entries(key(session.cartId())));
+        return CartPricing.toResponse(session.cartId(), null, quantities,
+                productService.getByIds(new ArrayList<>(quantities.keySet())));
+    }
+
+    private ProductResponse product(UUID productId) {
+        return productService.getByIds(List.of(productId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId.toString()));
+    }
+
+    private static String key(UUID cartId) {
+        return CacheKeys.format(CacheKeys.CART_GUEST, cartId);
+    }
+}
@@ -12,6 +12,7 @@ import com.myshop.exception.ErrorCode;
 import com.myshop.exception.ResourceNotFoundException;
 import com.myshop.kafka.event.InventoryEvent;
 import com.myshop.kafka.event.OrderEvent;
+import com.myshop.kafka.event.OrderEventItem;
 import com.myshop.kafka.producer.InventoryEventProducer;
 import com.myshop.kafka.producer.OrderEventProducer;
 import com.myshop.mapper.OrderMapper;
@@ -38,7 +39,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * OrderService manages order placement and transactions.
@@ -63,6 +66,7 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final OrderMapper orderMapper;
@@ -76,7 +80,10 @@ public class OrderService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
 
-        Cart cart = cartRepository.findByUserId(user.getId())
+        // With the Redis cart store, pending cart changes are written through first
+        cartStore.flush(email);
+        // Items and products in the same query: the loop below touches every product
+        Cart cart = cartRepository.findWithItemsByUserId(user.getId())
                 .orElseThrow(
                         () -> new BusinessException(ErrorCode.CART_IS_EMPTY, "Cannot place order with empty cart."));
 
@@ -174,11 +181,23 @@ public class OrderService {
                 .email(user.getEmail())
                 .totalAmount(savedOrder.getTotalAmount())
                 .status(savedOrder.getStatus())
+                .items(savedOrder.getItems().stream()
+                        .map(item -> OrderEventItem.builder()
+                                .productId(item.getProduct().getId())
+                                .categoryId(item.getProduct().getCategory() == null
+                                        ? null
+                                        : item.getProduct().getCategory().getId())
+                                .quantity(item.getQuantity())
+                                .build())
+                        .toList())
                 .build());
 
         // 4. Clear the shopping cart
+        Map<UUID, Integer> ordered = cart.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity));
         cart.getItems().clear();
         cartRepository.save(cart);
+        cartStore.checkedOut(email, ordered);
 
         log.info("Order {} placed successfully for user {}", savedOrder.getId(), email);
 
@@ -0,0 +1,178 @@
+package com.myshop.service;
+
+import com.myshop.dto.request.BulkProductUpdateRequest;
+import com.myshop.dto.response.BulkProductUpdateResponse;
+import com.myshop.event.internal.ProductsChangedEvent;
+import com.myshop.exception.BusinessException;
+import com.myshop.exception.ErrorCode;
+import com.myshop.kafka.event.InventoryEvent;
+import com.myshop.kafka.producer.InventoryEventProducer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ProductBulkUpdateService — Applies price and stock changes to many products
+ * without loading a single JPA entity.
+ *
+ * 1. Compaction: duplicate product IDs in the payload collapse to one row
+ *    (last price wins, stock deltas summed). A delta whose sum lies outside
+ *    ±MAX_STOCK_DELTA rejects the whole request (422) before any row is
+ *    written.
+ * 2. One parameterized UPDATE, sent in JDBC batches of BATCH_SIZE. The stock
+ *    change is relative (stock_quantity + ?) so it composes safely with
+ *    concurrent order placement, and the version bump makes in-flight JPA
+ *    writers fail their optimistic-lock check instead of overwriting us.
+ * 3. One SELECT ... WHERE id = ANY(?) reads back names and new quantities for
+ *    the InventoryEvents.
+ * 4. After commit: one InventoryEvent per product whose stock changed, and one
+ *    targeted cache invalidation pass for all updated IDs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductBulkUpdateService {
+
+    private static final int BATCH_SIZE = 500;
+
+    // The stock guard keeps a bad warehouse feed from driving stock negative or
+    // past the INTEGER column; such rows report 0 updated and are returned as
+    // skipped. It adds in bigint, so the check itself cannot overflow.
+    private static final String UPDATE_SQL = """
+            UPDATE products
+            SET price          = COALESCE(?, price),
+                stock_quantity = stock_quantity + ?,
+                version        = version + 1,
+                updated_at     = NOW() AT TIME ZONE 'UTC'
+            WHERE id = ? AND is_active = true
+              AND stock_quantity::bigint + ? BETWEEN 0 AND 2147483647
+            """;
+
+    private static final String SELECT_STOCK_SQL =
+            "SELECT id, name, stock_quantity FROM products WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryEventProducer inventoryEventProducer;
+    private final ProductCacheService productCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public BulkProductUpdateResponse applyUpdates(BulkProductUpdateRequest request) {
+        List<Change> changes = compact(request.items());
+
+        int[][] batchCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, changes, BATCH_SIZE, (ps, change) -> {
+            if (change.price == null) {
+                ps.setNull(1, Types.NUMERIC);
+            } else {
+                ps.setBigDecimal(1, change.price);
+            }
+            ps.setInt(2, change.stockDelta);
+            ps.setObject(3, change.productId);
+            ps.setInt(4, change.stockDelta);
+        });
+
+        List<UUID> updatedIds = new ArrayList<>(changes.size());
+        List<UUID> skippedIds = new ArrayList<>();
+        Map<UUID, Integer> stockDeltas = new LinkedHashMap<>();
+        int index = 0;
+        for (int[] batch : batchCounts) {
+            for (int count : batch) {
+                Change change = changes.get(index++);
+                if (count > 0) {
+                    updatedIds.add(change.productId);
+                    if (change.stockDelta != 0) {
+                        stockDeltas.put(change.productId, change.stockDelta);
+                    }
+                } else {
+                    skippedIds.add(change.productId);
+                }
+            }
+        }
+
+        List<InventoryEvent> events = buildInventoryEvents(stockDeltas);
+        runAfterCommit(() -> {
+            events.forEach(inventoryEventProducer::publishInventoryUpdated);
+            productCacheService.evictProducts(updatedIds);
+        });
+        eventPublisher.publishEvent(ProductsChangedEvent.of(this, updatedIds));
+
+        log.info("Bulk product update: {} items compacted to {}, {} updated, {} skipped, {} inventory events",
+                request.items().size(), changes.size(), updatedIds.size(), skippedIds.size(), events.size());
+        return new BulkProductUpdateResponse(request.items().size(), updatedIds.size(), skippedIds);
+    }
+
+    private List<Change> compact(List<BulkProductUpdateRequest.Item> items) {
+        Map<UUID, Change> byProduct = new LinkedHashMap<>();
+        for (BulkProductUpdateRequest.Item item : items) {
+            Change change = byProduct.computeIfAbsent(item.productId(), Change::new);
+            if (item.price() != null) {
+                change.price = item.price();
+            }
+            if (item.stockDelta() != null) {
+                // Summed in long: at most 50,000 items cannot overflow it
+                long sum = (long) change.stockDelta + item.stockDelta();
+                if (Math.abs(sum) > BulkProductUpdateRequest.MAX_STOCK_DELTA) {
+                    throw new BusinessException(ErrorCode.VALIDATION_FAILED, "Stock deltas for product "
+                            + item.productId() + " add up to more than " + BulkProductUpdateRequest.MAX_STOCK_DELTA);
+                }
+                change.stockDelta = (int) sum;
+            }
+        }
+        return new ArrayList<>(byProduct.values());
+    }
+
+    /** Rows are locked by our UPDATE until commit, so new - delta is the exact old quantity. */
+    private List<InventoryEvent> buildInventoryEvents(Map<UUID, Integer> stockDeltas) {
+        if (stockDeltas.isEmpty()) {
+            return List.of();
+        }
+        List<InventoryEvent> events = new ArrayList<>(stockDeltas.size());
+        jdbcTemplate.query(SELECT_STOCK_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", stockDeltas.keySet().toArray())),
+                rs -> {
+                    UUID productId = rs.getObject("id", UUID.class);
+                    int newQuantity = rs.getInt("stock_quantity");
+                    events.add(InventoryEvent.builder()
+                            .eventId(UUID.randomUUID().toString())
+                            .productId(productId)
+                            .name(rs.getString("name"))
+                            .oldQuantity(newQuantity - stockDeltas.get(productId))
+                            .newQuantity(newQuantity)
+                            .reason("BULK_UPDATE")
+                            .build());
+                });
+        return events;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Change {
+        private final UUID productId;
+        private BigDecimal price;
+        private int stockDelta;
+
+        private Change(UUID productId) {
+            this.productId = productId;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.myshop.service;
+
+import com.myshop.config.CacheConfig;
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.response.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ProductCacheService — Programmatic bulk access to the product caches.
+ *
+ * Single-product reads and writes use @Cacheable/@CacheEvict on
+ * ProductService. Bulk operations go through here instead: batch reads use
+ * one MGET and one pipelined backfill instead of a GET per product; bulk writes
+ * (imports, mass updates) touch thousands of rows in one statement, so they
+ * invalidate here exactly once when the whole operation has committed,
+ * instead of evicting per row.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductCacheService {
+
+    /** Keys per DEL command — keeps a single command from blocking Redis for long. */
+    private static final int DELETE_BATCH_SIZE = 1_000;
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisSerializer<Object> cacheValueSerializer;
+
+    /** Drops every cached product detail and every cached listing page, objects and rendered JSON. */
+    public void evictAll() {
+        clear(CacheConfig.CACHE_PRODUCTS);
+        clear(CacheConfig.CACHE_PRODUCTS_JSON);
+        clearPages();
+        log.info("Product caches cleared after bulk write");
+    }
+
+    /**
+     * Drops the detail entries of exactly these products with multi-key DELs
+     * (one round trip per DELETE_BATCH_SIZE keys instead of one per id, covering
+     * both the object and the rendered JSON entry), then
+     * clears the listing pages once — any page may contain an affected product.
+     */
+    public void evictProducts(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(Math.min(productIds.size(), DELETE_BATCH_SIZE));
+        long deleted = 0;
+        for (UUID id : productIds) {
+            keys.add(CacheKeys.format(CacheKeys.SPRING_CACHE_ENTRY, CacheConfig.CACHE_PRODUCTS, id));
+            keys.add(CacheKeys.format(CacheKeys.SPRING_CACHE_ENTRY, CacheConfig.CACHE_PRODUCTS_JSON, id));
+            if (keys.size() >= DELETE_BATCH_SIZE) {
+                deleted += delete(keys);
+            }
+        }
+        deleted += delete(keys);
+        clearPages();
+        log.info("Evicted {} cache entries for {} products after bulk write", deleted, productIds.size());
+    }
+
+    /**
+     * Reads product detail entries with a single MGET. The map holds only the
+     * hits; anything missing or unreadable is left for the caller to load.
+     */
+    public Map<UUID, ProductResponse> getAll(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        List<UUID> ids = List.copyOf(productIds);
+        byte[][] keys = ids.stream()
+                .map(id -> CacheKeys.format(CacheKeys.SPRING_CACHE_ENTRY, CacheConfig.CACHE_PRODUCTS, id)
+                        .getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        List<byte[]> values = redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys));
+
+        Map<UUID, ProductResponse> hits = new HashMap<>();
+        for (int i = 0; values != null && i < values.size(); i++) {
+            byte[] value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            try {
+                if (cacheValueSerializer.deserialize(value) instanceof ProductResponse product) {
+                    hits.put(ids.get(i), product);
+                }
+            } catch (SerializationException e) {
+                // Entry from an older class version — treat as a miss, the backfill overwrites it
+                log.debug("Unreadable product cache entry for {}", ids.get(i));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Writes product detail entries in one pipelined round trip, in exactly
+     * the format (key, serializer, TTL) @Cacheable(products) reads. Unlike
+     * going through ProductService.getById, nothing else runs per entry.
+     */
+    public void putAll(Collection<ProductResponse> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Expiration ttl = Expiration.from(CacheConfig.PRODUCTS_TTL);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (ProductResponse product : products) {
+                byte[] key = CacheKeys.format(CacheKeys.SPRING_CACHE_ENTRY, CacheConfig.CACHE_PRODUCTS, product.getId())
+                        .getBytes(StandardCharsets.UTF_8);
+                connection.stringCommands().set(key, cacheValueSerializer.serialize(product), ttl,
+                        RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+
+    private void clearPages() {
+        clear(CacheConfig.CACHE_PRODUCTS_PAGED);
+        clear(CacheConfig.CACHE_PRODUCTS_PAGED_JSON);
+    }
+
+    private long delete(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long deleted = redisTemplate.delete(keys);
+        keys.clear();
+        return deleted == null ? 0 : deleted;
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.myshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myshop.dto.request.CreateProductRequest;
+import com.myshop.dto.response.ProductImportResponse;
+import com.myshop.event.internal.ProductsChangedEvent;
+import com.myshop.exception.BusinessException;
+import com.myshop.exception.ErrorCode;
+import com.myshop.exception.ServiceOverloadedException;
+import com.myshop.util.CsvRecordReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * ProductImportService — Streams NDJSON or CSV product catalogs into
+ * PostgreSQL.
+ *
+ * Pipeline (two stages, running concurrently):
+ * 1. Request thread: reads the upload record by record, validates each one
+ *    with the same constraints as CreateProductRequest, and encodes accepted
+ *    rows as COPY-CSV text in chunks of ROWS_PER_CHUNK.
+ * 2. importTaskExecutor thread: inside one transaction, streams those chunks
+ *    into a temp staging table with COPY FROM STDIN, then upserts the whole
+ *    staging table into products with a single INSERT ... ON CONFLICT (sku).
+ *
+ * The bounded queue between the stages gives backpressure: if PostgreSQL is
+ * slower than parsing, the request thread simply stops reading the socket.
+ * The upload is never fully buffered in memory and no JPA entities are built.
+ *
+ * All-or-nothing: rows are only visible once the merge commits, and the
+ * product caches are invalidated exactly once, after the commit.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+    public static final String MEDIA_TYPE_CSV = "text/csv";
+
+    private static final int ROWS_PER_CHUNK = 1_000;
+    private static final int QUEUED_CHUNKS = 8;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int IMPORT_BUSY_RETRY_AFTER_SECONDS = 60;
+
+    /** Identity-compared sentinel telling the COPY stage the upload is finished. */
+    private static final String END_OF_INPUT = new String("");
+
+    private static final Set<String> REQUIRED_CSV_COLUMNS = Set.of("sku", "name", "price", "stockquantity");
+
+    // ON COMMIT DROP: the staging table lives exactly as long as the import transaction.
+    private static final String CREATE_STAGING_SQL = """
+            CREATE TEMP TABLE product_import_staging (
+                line_no        BIGINT        NOT NULL,
+                sku            VARCHAR(100)  NOT NULL,
+                name           VARCHAR(500)  NOT NULL,
+                description    TEXT,
+                price          DECIMAL(10,2) NOT NULL,
+                stock_quantity INTEGER       NOT NULL,
+                image_url      VARCHAR(500),
+                category_id    UUID
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_SQL = """
+            COPY product_import_staging
+                (line_no, sku, name, description, price, stock_quantity, image_url, category_id)
+            FROM STDIN WITH (FORMAT csv)
+            """;
+
+    private static final String UNKNOWN_CATEGORY_SQL = """
+            SELECT COUNT(*) FROM product_import_staging s
+            WHERE s.category_id IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM categories c WHERE c.id = s.category_id)
+            """;
+
+    // DISTINCT ON keeps the last occurrence of a SKU in the upload — ON CONFLICT
+    // cannot touch the same target row twice in one statement.
+    // (xmax = 0) is true only for freshly inserted rows, which lets one
+    // statement report inserted vs updated counts.
+    private static final String MERGE_SQL = """
+            WITH latest AS (
+                SELECT DISTINCT ON (s.sku) s.*
+                FROM product_import_staging s
+                WHERE s.category_id IS NULL
+                   OR EXISTS (SELECT 1 FROM categories c WHERE c.id = s.category_id)
+                ORDER BY s.sku, s.line_no DESC
+            ), merged AS (
+                INSERT INTO products AS p
+                    (name, description, price, stock_quantity, sku, image_url, category_id,
+                     is_active, created_at, updated_at)
+                SELECT name, description, price, stock_quantity, sku, image_url, category_id,
+                       true, NOW() AT TIME ZONE 'UTC', NOW() AT TIME ZONE 'UTC'
+                FROM latest
+                ON CONFLICT (sku) DO UPDATE SET
+                    name           = EXCLUDED.name,
+                    description    = EXCLUDED.description,
+                    price          = EXCLUDED.price,
+                    stock_quantity = EXCLUDED.stock_quantity,
+                    image_url      = EXCLUDED.image_url,
+                    category_id    = EXCLUDED.category_id,
+                    is_active      = true,
+                    version        = p.version + 1,
+                    updated_at     = NOW() AT TIME ZONE 'UTC'
+                RETURNING (xmax = 0) AS inserted
+            )
+            SELECT COUNT(*) FILTER (WHERE inserted)     AS inserted,
+                   COUNT(*) FILTER (WHERE NOT inserted) AS updated
+            FROM merged
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader ndjsonReader;
+    private final Validator validator;
+    private final ThreadPoolTaskExecutor importTaskExecutor;
+    private final ProductCacheService productCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductImportService(DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Qualifier("importTaskExecutor") ThreadPoolTaskExecutor importTaskExecutor,
+            ProductCacheService productCacheService,
+            ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ndjsonReader = objectMapper.readerFor(CreateProductRequest.class);
+        this.validator = validator;
+        this.importTaskExecutor = importTaskExecutor;
+        this.productCacheService = productCacheService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Imports every valid record of the upload; invalid records are skipped and
+     * reported. Existing products are matched by SKU and overwritten.
+     *
+     * @param body        raw request body, consumed as a stream
+     * @param contentType application/x-ndjson or text/csv (with header row)
+     */
+    public ProductImportResponse importProducts(InputStream body, String contentType) {
+        boolean csv = resolveCsv(contentType);
+        long startNanos = System.nanoTime();
+
+        BlockingQueue<String> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+        Future<MergeCounts> writer;
+        try {
+            writer = importTaskExecutor.submit(
+                    () -> transactionTemplate.execute(status -> stageAndMerge(chunks)));
+        } catch (TaskRejectedException e) {
+            throw new ServiceOverloadedException("Too many product imports are running",
+                    IMPORT_BUSY_RETRY_AFTER_SECONDS);
+        }
+
+        ParseStats stats = new ParseStats();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16)) {
+            if (csv) {
+                parseCsv(reader, chunks, writer, stats);
+            } else {
+                parseNdjson(reader, chunks, writer, stats);
+            }
+        } catch (IOException e) {
+            writer.cancel(true);
+            throw new BusinessException(ErrorCode.PRODUCT_IMPORT_FAILED,
+                    "Could not read import stream: " + e.getMessage());
+        } catch (InterruptedException e) {
+            writer.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.PRODUCT_IMPORT_FAILED);
+        } catch (RuntimeException e) {
+            writer.cancel(true);
+            throw e;
+        }
+
+        MergeCounts counts = await(writer);
+        if (counts.inserted() + counts.updated() > 0) {
+            productCacheService.evictAll();
+            eventPublisher.publishEvent(ProductsChangedEvent.all(this));
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        log.info("Product import finished: received={}, rejected={}, unknownCategory={}, inserted={}, updated={}, {}ms",
+                stats.received, stats.rejected, counts.unknownCategory(), counts.inserted(), counts.updated(),
+                durationMs);
+        return new ProductImportResponse(stats.received, stats.rejected, counts.unknownCategory(),
+                counts.inserted(), counts.updated(), stats.errors, durationMs);
+    }
+
+    // ── Stage 1: parse + validate (request thread) ──────────────────────────
+
+    private void parseNdjson(BufferedReader reader, BlockingQueue<String> chunks,
+            Future<MergeCounts> writer, ParseStats stats) throws IOException, InterruptedException {
+        ChunkBuilder chunk = new ChunkBuilder(chunks, writer);
+        String line;
+        long lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            stats.received++;
+            CreateProductRequest request;
+            try {
+                request = ndjsonReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                stats.reject(lineNo, "malformed JSON");
+                continue;
+            }
+            if (accept(request, lineNo, stats) && !chunk.add(lineNo, request)) {
+                return;
+            }
+        }
+        chunk.finish();
+    }
+
+    private void parseCsv(BufferedReader reader, BlockingQueue<String> chunks,
+            Future<MergeCounts> writer, ParseStats stats) throws IOException, InterruptedException {
+        CsvRecordReader csvReader = new CsvRecordReader(reader);
+        List<String> header = csvReader.next();
+        if (header == null) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "CSV import is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(normalizeHeader(header.get(i)), i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED_CSV_COLUMNS)) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED,
+                    "CSV header must contain sku, name, price and stockQuantity columns");
+        }
+
+        ChunkBuilder chunk = new ChunkBuilder(chunks, writer);
+        List<String> record;
+        while ((record = csvReader.next()) != null) {
+            long recordNo = csvReader.getRecordNumber();
+            stats.received++;
+            CreateProductRequest request;
+            try {
+                request = toRequest(record, columns);
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException included: bad price / quantity / UUID
+                stats.reject(recordNo, "unparseable value (" + e.getMessage() + ")");
+                continue;
+            }
+            if (accept(request, recordNo, stats) && !chunk.add(recordNo, request)) {
+                return;
+            }
+        }
+        chunk.finish();
+    }
+
+    private CreateProductRequest toRequest(List<String> record, Map<String, Integer> columns) {
+        CreateProductRequest request = new CreateProductRequest();
+        request.setSku(column(record, columns, "sku"));
+        request.setName(column(record, columns, "name"));
+        request.setDescription(column(record, columns, "description"));
+        request.setImageUrl(column(record, columns, "imageurl"));
+
+        String price = column(record, columns, "price");
+        request.setPrice(price == null ? null : new BigDecimal(price.trim()));
+        String stock = column(record, columns, "stockquantity");
+        request.setStockQuantity(stock == null ? null : Integer.valueOf(stock.trim()));
+        String categoryId = column(record, columns, "categoryid");
+        request.setCategoryId(categoryId == null ? null : UUID.fromString(categoryId.trim()));
+        return request;
+    }
+
+    private String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /** "stock_quantity", "Stock Quantity" and "stockQuantity" all map to "stockquantity". */
+    private String normalizeHeader(String name) {
+        return name.replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private boolean accept(CreateProductRequest request, long lineNo, ParseStats stats) {
+        if (request == null) {
+            stats.reject(lineNo, "empty record");
+            return false;
+        }
+        Set<ConstraintViolation<CreateProductRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return true;
+        }
+        stats.reject(lineNo, violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; ")));
+        return false;
+    }
+
+    // ── Stage 2: COPY + merge (importTaskExecutor thread) ──────────────────
+
+    private MergeCounts stageAndMerge(BlockingQueue<String> chunks) {
+        // Same connection the surrounding transaction is bound to
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_SQL);
+            }
+
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                String chunk;
+                while ((chunk = chunks.take()) != END_OF_INPUT) {
+                    byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+
+            Long unknownCategory = jdbcTemplate.queryForObject(UNKNOWN_CATEGORY_SQL, Long.class);
+            return jdbcTemplate.queryForObject(MERGE_SQL, (rs, rowNum) -> new MergeCounts(
+                    unknownCategory == null ? 0 : unknownCategory,
+                    rs.getLong("inserted"),
+                    rs.getLong("updated")));
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into staging table failed", e);
+        } catch (InterruptedException e) {
+            // Stage 1 failed and cancelled us — rolling back is the whole point
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import cancelled", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private MergeCounts await(Future<MergeCounts> writer) {
+        try {
+            return writer.get();
+        } catch (ExecutionException e) {
+            log.error("Product import rolled back", e.getCause());
+            throw new BusinessException(ErrorCode.PRODUCT_IMPORT_FAILED);
+        } catch (InterruptedException e) {
+            writer.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.PRODUCT_IMPORT_FAILED);
+        }
+    }
+
+    private boolean resolveCsv(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith(MEDIA_TYPE_CSV)) {
+            return true;
+        }
+        if (type.startsWith(MEDIA_TYPE_NDJSON) || type.startsWith("application/jsonl")) {
+            return false;
+        }
+        throw new BusinessException(ErrorCode.VALIDATION_FAILED,
+                "Unsupported import content type. Use " + MEDIA_TYPE_NDJSON + " or " + MEDIA_TYPE_CSV);
+    }
+
+    // ── Helpers ─────────────────────────────────────────────────────────────
+
+    private record MergeCounts(long unknownCategory, long inserted, long updated) {
+    }
+
+    private static final class ParseStats {
+        private long received;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(long lineNo, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("record " + lineNo + ": " + reason);
+            }
+        }
+    }
+
+    /**
+     * Accumulates COPY-CSV rows and hands full chunks to the COPY stage.
+     * add/finish return false when the COPY stage has already died, so the
+     * parser stops reading and the caller surfaces the stage-2 failure.
+     */
+    private static final class ChunkBuilder {
+        private final BlockingQueue<String> chunks;
+        private final Future<MergeCounts> writer;
+        private final StringBuilder buffer = new StringBuilder(ROWS_PER_CHUNK * 128);
+        private int rows;
+
+        private ChunkBuilder(BlockingQueue<String> chunks, Future<MergeCounts> writer) {
+            this.chunks = chunks;
+            this.writer = writer;
+        }
+
+        private boolean add(long lineNo, CreateProductRequest r) throws InterruptedException {
+            buffer.append(lineNo).append(',')
+                    .append(quote(r.getSku())).append(',')
+                    .append(quote(r.getName())).append(',')
+                    .append(quote(r.getDescription())).append(',')
+                    .append(r.getPrice().toPlainString()).append(',')
+                    .append(r.getStockQuantity()).append(',')
+                    .append(quote(r.getImageUrl())).append(',')
+                    .append(r.getCategoryId() == null ? "" : r.getCategoryId().toString())
+                    .append('\n');
+            if (++rows < ROWS_PER_CHUNK) {
+                return true;
+            }
+            return flush();
+        }
+
+        private boolean finish() throws InterruptedException {
+            return (rows == 0 || flush()) && offer(END_OF_INPUT);
+        }
+
+        private boolean flush() throws InterruptedException {
+            String chunk = buffer.toString();
+            buffer.setLength(0);
+            rows = 0;
+            return offer(chunk);
+        }
+
+        private boolean offer(String chunk) throws InterruptedException {
+            while (!chunks.offer(chunk, 1, TimeUnit.SECONDS)) {
+                if (writer.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** COPY csv: unquoted empty = NULL, quoted = literal text (with "" escaping). */
+        private static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.myshop.dto.request.CreateProductRequest;
 import com.myshop.dto.request.UpdateProductRequest;
 import com.myshop.dto.response.PagedResponse;
 import com.myshop.dto.response.ProductResponse;
+import com.myshop.event.internal.ProductsChangedEvent;
 import com.myshop.exception.BusinessException;
 import com.myshop.exception.ErrorCode;
 import com.myshop.exception.ResourceNotFoundException;
@@ -12,9 +13,9 @@ import com.myshop.model.entity.Category;
 import com.myshop.model.entity.Product;
 import com.myshop.repository.jpa.CategoryRepository;
 import com.myshop.repository.jpa.ProductRepository;
-import com.myshop.util.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -24,8 +25,13 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.cache.annotation.Cacheable;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * ProductService — the core business logic for the product catalog.
@@ -39,10 +45,10 @@ import java.util.UUID;
  * IMPORTANT: readOnly requests CAN'T write — Hibernate skips flush entirely.
  *
  * 2. @Transactional on write methods:
- * If productRepository.save() succeeds but activityLogService fails,
- * the transaction ROLLS BACK — no partial state.
- * (ActivityLogService is @Async, so it runs AFTER the transaction commits —
- * it won't cause rollback even if async work fails. This is intentional.)
+ * If any step after productRepository.save() fails (e.g. the category
+ * lookup), the transaction ROLLS BACK — no partial state.
+ * Product views are NOT recorded here: ProductController feeds
+ * ProductViewCounter, so cached reads are counted too.
  *
  * 3. PATCH semantics via MapStruct @MappingTarget:
  * productMapper.updateEntity(product, request) modifies the existing entity
@@ -66,7 +72,10 @@ public class ProductService {
         private final ProductRepository productRepository;
         private final CategoryRepository categoryRepository;
         private final ProductMapper productMapper;
-        private final ActivityLogService activityLogService;
+        private final CatalogSnapshotService catalogSnapshotService;
+        private final CategoryTreeService categoryTreeService;
+        private final ProductCacheService productCacheService;
+        private final ApplicationEventPublisher eventPublisher;
 
         @Cacheable(value = com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED, key = "T(java.util.Objects).hash(#page, #size, #categoryId, #minPrice, #maxPrice, #sortBy, #sortDir)")
         @Transactional(readOnly = true)
@@ -77,14 +86,25 @@ public class ProductService {
                         String sortBy,
                         String sortDir) {
 
+                // A category listing includes its subcategories
+                List<UUID> categoryIds = categoryId == null ? null : categoryTreeService.subtreeIds(categoryId);
+
+                // Filter/sort/count from the columnar snapshot when possible; only the page is loaded
+                Page<UUID> idPage = catalogSnapshotService.query(page, size, categoryIds, minPrice, maxPrice, sortBy, sortDir)
+                                .orElse(null);
+                if (idPage != null) {
+                        return PagedResponse.of(idPage, loadInOrder(idPage.getContent()));
+                }
+
                 Sort sort = sortDir.equalsIgnoreCase("asc")
                                 ? Sort.by(sortBy).ascending()
                                 : Sort.by(sortBy).descending();
 
                 Pageable pageable = PageRequest.of(page, size, sort);
 
-                Page<Product> productPage = productRepository.findActiveProducts(
-                                categoryId, minPrice, maxPrice, pageable);
+                Page<Product> productPage = categoryIds == null
+                                ? productRepository.findActiveProducts(minPrice, maxPrice, pageable)
+                                : productRepository.findActiveProductsInCategories(categoryIds, minPrice, maxPrice, pageable);
 
                 List<ProductResponse> content = productPage.getContent()
                                 .stream()
@@ -101,18 +121,44 @@ public class ProductService {
                                 .filter(Product::isActive)
                                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id.toString()));
 
-                // Async: log product view — won't block the HTTP response
-                String currentUser = SecurityUtils.getCurrentUserEmail().orElse("anonymous");
+                return productMapper.toResponse(product);
+        }
 
-                // TODO Phase 3: Verify async wiring. This runs in "analyticsTaskExecutor" and
-                // logs to console.
-                // In Phase 3, this will save a document to MongoDB.
-                activityLogService.logActivity(currentUser, "PRODUCT_VIEWED", "PRODUCT", id.toString());
+        /**
+         * Batch lookup: one MGET for the cached products, one IN query for the
+         * misses, one pipelined write to cache them — three round trips no
+         * matter how many ids, instead of a getById per id.
+         *
+         * Results follow request order with duplicates collapsed; unknown and
+         * inactive ids are left out rather than failing the whole batch.
+         *
+         * Deliberately not @Transactional: when every id is a cache hit no DB
+         * connection is taken at all. The miss query runs in the repository's
+         * own read-only transaction and fetches the category eagerly.
+         */
+        public List<ProductResponse> getByIds(List<UUID> ids) {
+                List<UUID> distinct = ids.stream().distinct().toList();
+                Map<UUID, ProductResponse> found = new HashMap<>(productCacheService.getAll(distinct));
 
-                return productMapper.toResponse(product);
+                List<UUID> misses = distinct.stream().filter(id -> !found.containsKey(id)).toList();
+                if (!misses.isEmpty()) {
+                        // Not findAllById: the active filter and category fetch belong in the same query
+                        List<ProductResponse> loaded = productRepository.findByIdInAndActiveTrue(misses).stream()
+                                        .map(productMapper::toResponse)
+                                        .toList();
+                        loaded.forEach(product -> found.put(product.getId(), product));
+                        productCacheService.putAll(loaded);
+                }
+
+                return distinct.stream()
+                                .map(found::get)
+                                .filter(Objects::nonNull)
+                                .toList();
         }
 
-        @org.springframework.cache.annotation.CacheEvict(value = com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED, allEntries = true)
+        @org.springframework.cache.annotation.CacheEvict(value = {
+                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED,
+                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED_JSON }, allEntries = true)
         @Transactional
         public ProductResponse create(CreateProductRequest request) {
                 // Guard: SKU must be globally unique
@@ -134,13 +180,18 @@ public class ProductService {
                 product.setActive(true);
                 Product saved = productRepository.save(product);
                 log.info("Product created: {} (SKU: {})", saved.getName(), saved.getSku());
+                eventPublisher.publishEvent(ProductsChangedEvent.of(this, List.of(saved.getId())));
 
                 return productMapper.toResponse(saved);
         }
 
         @org.springframework.cache.annotation.Caching(evict = {
-                        @org.springframework.cache.annotation.CacheEvict(value = com.myshop.config.CacheConfig.CACHE_PRODUCTS, key = "#id"),
-                        @org.springframework.cache.annotation.CacheEvict(value = com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED, allEntries = true)
+                        @org.springframework.cache.annotation.CacheEvict(value = {
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS,
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_JSON }, key = "#id"),
+                        @org.springframework.cache.annotation.CacheEvict(value = {
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED,
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED_JSON }, allEntries = true)
         })
         @Transactional
         public ProductResponse update(UUID id, UpdateProductRequest request) {
@@ -168,13 +219,18 @@ public class ProductService {
 
                 Product updated = productRepository.save(product);
                 log.info("Product updated: {}", updated.getId());
+                eventPublisher.publishEvent(ProductsChangedEvent.of(this, List.of(id)));
 
                 return productMapper.toResponse(updated);
         }
 
         @org.springframework.cache.annotation.Caching(evict = {
-                        @org.springframework.cache.annotation.CacheEvict(value = com.myshop.config.CacheConfig.CACHE_PRODUCTS, key = "#id"),
-                        @org.springframework.cache.annotation.CacheEvict(value = com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED, allEntries = true)
+                        @org.springframework.cache.annotation.CacheEvict(value = {
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS,
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_JSON }, key = "#id"),
+                        @org.springframework.cache.annotation.CacheEvict(value = {
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED,
+                                        com.myshop.config.CacheConfig.CACHE_PRODUCTS_PAGED_JSON }, allEntries = true)
         })
         @Transactional
         public void delete(UUID id) {
@@ -185,5 +241,21 @@ public class ProductService {
                 product.setActive(false);
                 productRepository.save(product);
                 log.info("Product soft-deleted: {}", id);
+                eventPublisher.publishEvent(ProductsChangedEvent.of(this, List.of(id)));
+        }
+
+        /** One primary-key IN query for the page, returned in the snapshot's sort order. */
+        private List<ProductResponse> loadInOrder(List<UUID> ids) {
+                if (ids.isEmpty()) {
+                        return List.of();
+                }
+                Map<UUID, Product> byId = productRepository.findByIdInAndActiveTrue(ids).stream()
+                                .collect(Collectors.toMap(Product::getId, Function.identity()));
+                // A product deactivated since the last patch is simply left out of this page
+                return ids.stream()
+                                .map(byId::get)
+                                .filter(Objects::nonNull)
+                                .map(productMapper::toResponse)
+                                .toList();
         }
 }
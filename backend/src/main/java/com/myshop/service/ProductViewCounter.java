@@ -0,0 +1,202 @@
+package com.myshop.service;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.response.ProductViewStatsResponse;
+import com.myshop.model.document.EntityCountResult;
+import com.myshop.model.document.ProductViewStats;
+import com.myshop.repository.mongo.ProductViewStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ProductViewCounter — Per-node aggregation of product views.
+ *
+ * Hot path (every product page view) is two in-memory operations:
+ * - a LongAdder increment per product. LongAdder stripes the count across
+ *   cells under contention, so a viral product does not turn into a CAS
+ *   retry loop on a single AtomicLong.
+ * - adding the viewer key to a per-product set for the current interval,
+ *   under the shared side of a read-write lock; the flush takes the
+ *   exclusive side only for the instant it swaps in a fresh interval.
+ *
+ * Every flush interval, in bulk:
+ * - one unordered Mongo bulk write: $inc per (product, hour) document in
+ *   product_view_stats
+ * - one Redis pipeline: PFADD the interval's viewers into a per-product,
+ *   per-day HyperLogLog (12KB max per key regardless of audience size)
+ *
+ * Trade-off: up to one interval of views is lost if the JVM dies without a
+ * graceful shutdown (a @PreDestroy flush covers normal restarts). That is
+ * acceptable for analytics counters.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductViewCounter {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+    private static final long HLL_TTL_SECONDS = Duration.ofDays(35).toSeconds();
+
+    /** Caps memory if a flush stalls; beyond it, views are still counted but not de-duplicated. */
+    private static final int MAX_BUFFERED_VIEWERS = 200_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ProductViewStatsRepository productViewStatsRepository;
+
+    // Adders are never removed: a recorder may hold one it got from the map, and
+    // anything it adds after a removal would be lost. One per viewed product is small.
+    private final ConcurrentHashMap<UUID, LongAdder> views = new ConcurrentHashMap<>();
+
+    // Recorders add under the read lock, the flush swaps the map under the write
+    // lock, so once the swap returns no recorder can still be writing to the old map
+    private final ReadWriteLock viewersLock = new ReentrantReadWriteLock();
+    private ConcurrentHashMap<UUID, Set<String>> viewers = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedViewers = new AtomicInteger();
+
+    /**
+     * @param viewerKey stable identity of the viewer (user email, or client IP
+     *                  for anonymous traffic); null skips unique tracking
+     */
+    public void recordView(UUID productId, String viewerKey) {
+        views.computeIfAbsent(productId, id -> new LongAdder()).increment();
+        if (viewerKey == null || bufferedViewers.get() >= MAX_BUFFERED_VIEWERS) {
+            return;
+        }
+        viewersLock.readLock().lock();
+        try {
+            if (viewers.computeIfAbsent(productId, id -> ConcurrentHashMap.newKeySet()).add(viewerKey)) {
+                bufferedViewers.incrementAndGet();
+            }
+        } finally {
+            viewersLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${myshop.analytics.view-flush-interval-ms:10000}",
+            initialDelayString = "${myshop.analytics.view-flush-interval-ms:10000}")
+    public void flush() {
+        Instant now = Instant.now();
+        try {
+            flushViews(now);
+        } catch (Exception e) {
+            log.warn("Product view count flush failed; counts kept for next interval", e);
+        }
+        try {
+            flushViewers(now);
+        } catch (Exception e) {
+            log.warn("Unique viewer flush failed; interval dropped", e);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    public ProductViewStatsResponse getStats(UUID productId, int days) {
+        Instant since = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(Duration.ofDays(days - 1L));
+        EntityCountResult total = productViewStatsRepository.sumViewsSince(productId.toString(), since);
+
+        String[] dayKeys = new String[days];
+        for (int i = 0; i < days; i++) {
+            dayKeys[i] = viewersKey(productId, since.plus(Duration.ofDays(i)));
+        }
+        Long unique = redisTemplate.opsForHyperLogLog().size(dayKeys);
+
+        return new ProductViewStatsResponse(productId, days,
+                total == null ? 0 : total.getCount(),
+                unique == null ? 0 : unique);
+    }
+
+    private void flushViews(Instant now) {
+        Instant bucket = now.truncatedTo(ChronoUnit.HOURS);
+        long bucketHour = bucket.getEpochSecond() / 3600;
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductViewStats.class);
+        List<Map.Entry<UUID, Long>> flushed = new ArrayList<>();
+        for (Map.Entry<UUID, LongAdder> entry : views.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            UUID productId = entry.getKey();
+            ops.upsert(Query.query(Criteria.where("_id").is(productId + ":" + bucketHour)),
+                    new Update()
+                            .inc("views", count)
+                            .setOnInsert("product_id", productId.toString())
+                            .setOnInsert("bucket", bucket)
+                            .set("updated_at", now));
+            flushed.add(Map.entry(productId, count));
+        }
+        if (flushed.isEmpty()) {
+            return;
+        }
+
+        try {
+            ops.execute();
+            log.debug("Flushed {} product view counters", flushed.size());
+        } catch (RuntimeException e) {
+            // Put the counts back so the next flush retries them
+            flushed.forEach(f -> views.computeIfAbsent(f.getKey(), id -> new LongAdder()).add(f.getValue()));
+            throw e;
+        }
+    }
+
+    private void flushViewers(Instant now) {
+        Map<UUID, Set<String>> interval;
+        viewersLock.writeLock().lock();
+        try {
+            interval = viewers;
+            viewers = new ConcurrentHashMap<>();
+            bufferedViewers.set(0);
+        } finally {
+            viewersLock.writeLock().unlock();
+        }
+        if (interval.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            interval.forEach((productId, viewerKeys) -> {
+                byte[] key = viewersKey(productId, now).getBytes(StandardCharsets.UTF_8);
+                byte[][] values = viewerKeys.stream()
+                        .map(v -> v.getBytes(StandardCharsets.UTF_8))
+                        .toArray(byte[][]::new);
+                connection.hyperLogLogCommands().pfAdd(key, values);
+                connection.keyCommands().expire(key, HLL_TTL_SECONDS);
+            });
+            return null;
+        });
+    }
+
+    private static String viewersKey(UUID productId, Instant day) {
+        return CacheKeys.format(CacheKeys.PRODUCT_UNIQUE_VIEWERS, productId, DAY.format(day));
+    }
+}
@@ -0,0 +1,425 @@
+package com.myshop.service;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.request.CartItemRequest;
+import com.myshop.dto.response.CartResponse;
+import com.myshop.dto.response.ProductResponse;
+import com.myshop.exception.BusinessException;
+import com.myshop.exception.ErrorCode;
+import com.myshop.exception.ResourceNotFoundException;
+import com.myshop.model.entity.Cart;
+import com.myshop.model.entity.CartItem;
+import com.myshop.model.entity.Product;
+import com.myshop.model.entity.User;
+import com.myshop.repository.jpa.CartRepository;
+import com.myshop.repository.jpa.ProductRepository;
+import com.myshop.repository.jpa.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * RedisCartService — Redis-resident CartStore (myshop.cart.storage=redis).
+ *
+ * Each cart is one hash, cart:user:{email}:
+ *   {productId} → quantity      changed with HINCRBY / HSET / HDEL
+ *   _loaded, _user, _cart       meta fields, see hydrate()
+ * renewed to the configured TTL on every write. A cart operation is a couple
+ * of Redis round trips plus cached product lookups — no DB connection.
+ *
+ * Durability is write-behind: every write adds the email to cart:dirty and a
+ * scheduled job SPOPs a batch (atomically, so each cart is flushed by exactly
+ * one node) and writes each cart's current state to carts/cart_items. Any
+ * number of changes between two runs become one database write. If a flush
+ * fails the email goes back into the set, up to max-flush-attempts times in
+ * a row; after that the cart waits for its next change to be retried.
+ * Items whose product no longer exists are dropped from the cart on flush
+ * instead of failing it.
+ *
+ * Trade-offs:
+ * - stock checks use the cached product (up to the products cache TTL old);
+ *   OrderService re-checks stock against the database when the order is
+ *   placed, so a stale check can only let an item into the cart, not sell it
+ * - if Redis loses data, carts fall back to their last flushed state
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "myshop.cart.storage", havingValue = "redis")
+public class RedisCartService implements CartStore {
+
+    private static final String LOADED = "_loaded";
+    private static final String USER_ID = "_user";
+    private static final String CART_ID = "_cart";
+    private static final String FLUSH_FAILURES = "_failures";
+
+    private static final RedisScript<Long> HYDRATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/cart_hydrate.lua"), Long.class);
+    private static final RedisScript<Long> CHECKOUT_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/cart_checkout.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final HashOperations<String, String, String> hashOps;
+    private final ProductService productService;
+    private final UserRepository userRepository;
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int flushBatchSize;
+    private final int maxFlushAttempts;
+
+    public RedisCartService(StringRedisTemplate redisTemplate,
+            ProductService productService,
+            UserRepository userRepository,
+            CartRepository cartRepository,
+            ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${myshop.cart.redis.ttl-days:30}") long ttlDays,
+            @Value("${myshop.cart.redis.flush-batch-size:200}") int flushBatchSize,
+            @Value("${myshop.cart.redis.max-flush-attempts:10}") int maxFlushAttempts) {
+        this.redisTemplate = redisTemplate;
+        this.hashOps = redisTemplate.opsForHash();
+        this.productService = productService;
+        this.userRepository = userRepository;
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofDays(ttlDays);
+        this.flushBatchSize = flushBatchSize;
+        this.maxFlushAttempts = maxFlushAttempts;
+    }
+
+    @Override
+    public CartResponse getCartByUser(String email) {
+        return toResponse(email, hydrate(email));
+    }
+
+    @Override
+    public CartResponse addItem(String email, CartItemRequest request) {
+        String key = hydrate(email);
+        ProductResponse product = product(request.productId());
+
+        if (product.getStockQuantity() < request.quantity()) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_STOCK,
+                    "Not enough stock for product: " + product.getName() + ". Available: "
+                            + product.getStockQuantity());
+        }
+
+        String field = product.getId().toString();
+        Long newQuantity = hashOps.increment(key, field, request.quantity());
+        if (newQuantity != null && newQuantity > product.getStockQuantity()) {
+            // Undo atomically rather than read-check-write: a concurrent add may have landed in between
+            hashOps.increment(key, field, -request.quantity());
+            throw new BusinessException(ErrorCode.INSUFFICIENT_STOCK,
+                    "Not enough stock to add " + request.quantity() + " more of " + product.getName());
+        }
+        markDirty(email, key);
+        return toResponse(email, key);
+    }
+
+    @Override
+    public CartResponse updateItemQuantity(String email, UUID productId, int quantity) {
+        String key = hydrate(email);
+        if (!hashOps.hasKey(key, productId.toString())) {
+            throw new ResourceNotFoundException("CartItem for Product", "id", productId.toString());
+        }
+
+        ProductResponse product = product(productId);
+        if (product.getStockQuantity() < quantity) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_STOCK,
+                    "Not enough stock for product: " + product.getName());
+        }
+
+        hashOps.put(key, productId.toString(), Integer.toString(quantity));
+        markDirty(email, key);
+        return toResponse(email, key);
+    }
+
+    @Override
+    public CartResponse removeItem(String email, UUID productId) {
+        String key = hydrate(email);
+        if (hashOps.delete(key, productId.toString()) == 0) {
+            throw new ResourceNotFoundException("CartItem for Product", "id", productId.toString());
+        }
+        markDirty(email, key);
+        return toResponse(email, key);
+    }
+
+    @Override
+    public void clearCart(String email) {
+        String key = hydrate(email);
+        deleteItems(key);
+        markDirty(email, key);
+    }
+
+    /** HINCRBYs in one pipeline, then caps anything that went over stock. */
+    @Override
+    public void mergeItems(String email, Map<UUID, Integer> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        String key = hydrate(email);
+        List<ProductResponse> products = productService.getByIds(new ArrayList<>(items.keySet()));
+        List<Object> totals = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+            for (ProductResponse product : products) {
+                connection.hashCommands().hIncrBy(rawKey, product.getId().toString().getBytes(StandardCharsets.UTF_8),
+                        items.get(product.getId()));
+            }
+            return null;
+        });
+        for (int i = 0; i < products.size(); i++) {
+            ProductResponse product = products.get(i);
+            if (((Number) totals.get(i)).longValue() > product.getStockQuantity()) {
+                hashOps.put(key, product.getId().toString(), Integer.toString(product.getStockQuantity()));
+            }
+        }
+        markDirty(email, key);
+    }
+
+    /**
+     * Writes this cart through now, ahead of the scheduler, inside the
+     * caller's transaction. If that transaction rolls back, the cart is
+     * marked dirty again so the write-behind retries it.
+     */
+    @Override
+    public void flush(String email) {
+        redisTemplate.opsForSet().remove(CacheKeys.CART_DIRTY, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        redisTemplate.opsForSet().add(CacheKeys.CART_DIRTY, email);
+                    }
+                }
+            });
+        }
+        try {
+            persist(email);
+        } catch (RuntimeException e) {
+            redisTemplate.opsForSet().add(CacheKeys.CART_DIRTY, email);
+            throw e;
+        }
+    }
+
+    /**
+     * Once the order commits, removes the ordered items from the Redis cart
+     * (cart_checkout.lua: only items still at the ordered quantity, so an
+     * item added while the order was being placed survives). On rollback the
+     * cart stays as it was.
+     */
+    @Override
+    public void checkedOut(String email, Map<UUID, Integer> ordered) {
+        Object[] args = new Object[1 + ordered.size() * 2];
+        args[0] = email;
+        int i = 1;
+        for (Map.Entry<UUID, Integer> item : ordered.entrySet()) {
+            args[i++] = item.getKey().toString();
+            args[i++] = item.getValue().toString();
+        }
+        Runnable clear = () -> redisTemplate.execute(CHECKOUT_SCRIPT, List.of(key(email), CacheKeys.CART_DIRTY),
+                args);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clear.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clear.run();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${myshop.cart.redis.flush-interval-ms:2000}",
+            initialDelayString = "${myshop.cart.redis.flush-interval-ms:2000}")
+    public void flushDirty() {
+        List<String> emails;
+        do {
+            emails = redisTemplate.opsForSet().pop(CacheKeys.CART_DIRTY, flushBatchSize);
+            if (emails == null) {
+                return;
+            }
+            for (String email : emails) {
+                try {
+                    persist(email);
+                } catch (Exception e) {
+                    requeue(email, e);
+                }
+            }
+        } while (emails.size() == flushBatchSize);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushDirty();
+    }
+
+    /**
+     * Loads the cart from Postgres the first time it is touched (or after it
+     * expired), through cart_hydrate.lua: exactly one concurrent hydration
+     * loads, and an increment that hit the expired key in the meantime is
+     * added to, not overwritten. Returns the hash key.
+     */
+    private String hydrate(String email) {
+        String key = key(email);
+        if (Boolean.TRUE.equals(hashOps.hasKey(key, LOADED))) {
+            return key;
+        }
+        Map<String, String> stored = transactionTemplate.execute(status -> {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+            Map<String, String> fields = new HashMap<>();
+            fields.put(USER_ID, user.getId().toString());
+            cartRepository.findByUserId(user.getId()).ifPresent(cart -> {
+                fields.put(CART_ID, cart.getId().toString());
+                // getProduct().getId() reads the FK from the proxy without loading the product
+                cart.getItems().forEach(item ->
+                        fields.put(item.getProduct().getId().toString(), Integer.toString(item.getQuantity())));
+            });
+            return fields;
+        });
+        List<String> args = new ArrayList<>(1 + stored.size() * 2);
+        args.add(Long.toString(ttl.toSeconds()));
+        stored.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        redisTemplate.execute(HYDRATE_SCRIPT, List.of(key), args.toArray());
+        return key;
+    }
+
+    /** Writes the cart's current Redis state over its carts/cart_items rows. */
+    private void persist(String email) {
+        String key = key(email);
+        Map<String, String> fields = hashOps.entries(key);
+        if (!fields.containsKey(LOADED)) {
+            if (CartPricing.quantities(fields).isEmpty()) {
+                return; // expired or never hydrated: the database already has the last flushed state
+            }
+            // Written to after it expired: merge with the stored cart first
+            hydrate(email);
+            fields = hashOps.entries(key);
+        }
+        Map<UUID, Integer> quantities = CartPricing.quantities(fields);
+        List<UUID> gone = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findByEmail(email).orElse(null);
+            if (user == null) {
+                return;
+            }
+            Cart cart = cartRepository.findByUserId(user.getId())
+                    .orElseGet(() -> cartRepository.save(Cart.builder().user(user).build()));
+
+            Map<UUID, CartItem> existing = cart.getItems().stream()
+                    .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+            existing.forEach((productId, item) -> {
+                if (!quantities.containsKey(productId)) {
+                    cart.removeItem(item); // orphanRemoval deletes the row
+                }
+            });
+            // Only products new to the cart can have been deleted since they were added
+            List<UUID> added = quantities.keySet().stream().filter(id -> !existing.containsKey(id)).toList();
+            Map<UUID, Product> products = productRepository.findAllById(added).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            quantities.forEach((productId, quantity) -> {
+                CartItem item = existing.get(productId);
+                if (item != null) {
+                    item.setQuantity(quantity);
+                } else if (products.containsKey(productId)) {
+                    cart.addItem(CartItem.builder()
+                            .product(products.get(productId))
+                            .quantity(quantity)
+                            .build());
+                } else {
+                    gone.add(productId); // would violate the FK on every retry
+                }
+            });
+            cartRepository.save(cart);
+            hashOps.putIfAbsent(key, CART_ID, cart.getId().toString());
+        });
+        if (!gone.isEmpty()) {
+            log.info("Dropping deleted products {} from the cart of {}", gone, email);
+            hashOps.delete(key, gone.stream().map(UUID::toString).toArray());
+        }
+        if (fields.containsKey(FLUSH_FAILURES)) {
+            hashOps.delete(key, FLUSH_FAILURES);
+        }
+    }
+
+    /** Back into the dirty set for the next run, unless this cart keeps failing. */
+    private void requeue(String email, Exception cause) {
+        String key = key(email);
+        Long failures = hashOps.increment(key, FLUSH_FAILURES, 1);
+        redisTemplate.expire(key, ttl);
+        if (failures != null && failures >= maxFlushAttempts) {
+            // The next change marks it dirty again, with a fresh budget
+            hashOps.delete(key, FLUSH_FAILURES);
+            log.error("Cart write-behind failed {} times in a row for {}; giving up until the cart changes",
+                    failures, email, cause);
+            return;
+        }
+        redisTemplate.opsForSet().add(CacheKeys.CART_DIRTY, email);
+        log.warn("Cart write-behind failed for {}; retrying next run", email, cause);
+    }
+
+    /** One batched product lookup (Redis MGET, DB only for misses) for the whole cart. */
+    private CartResponse toResponse(String email, String key) {
+        Map<String, String> fields = hashOps.entries(key);
+        Map<UUID, Integer> quantities = CartPricing.quantities(fields);
+        return CartPricing.toResponse(uuidOrNull(fields.get(CART_ID)), uuidOrNull(fields.get(USER_ID)), quantities,
+                productService.getByIds(new ArrayList<>(quantities.keySet())));
+    }
+
+    /** Through the batch lookup, which stays off the DB pool on a cache hit. */
+    private ProductResponse product(UUID productId) {
+        return productService.getByIds(List.of(productId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId.toString()));
+    }
+
+    private void markDirty(String email, String key) {
+        redisTemplate.expire(key, ttl);
+        redisTemplate.opsForSet().add(CacheKeys.CART_DIRTY, email);
+    }
+
+    private void deleteItems(String key) {
+        Object[] itemFields = hashOps.keys(key).stream()
+                .filter(field -> !field.startsWith("_"))
+                .toArray();
+        if (itemFields.length > 0) {
+            hashOps.delete(key, itemFields);
+        }
+    }
+
+    private static UUID uuidOrNull(String value) {
+        return value == null ? null : UUID.fromString(value);
+    }
+
+    private static String key(String email) {
+        return CacheKeys.format(CacheKeys.CART_USER, email);
+    }
+}
@@ -0,0 +1,287 @@
+package com.myshop.service;
+
+import com.myshop.dto.response.RelatedProductResponse;
+import com.myshop.util.IntIntHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * RelatedProductsService — "Frequently bought together", maintained
+ * incrementally from order.placed events.
+ *
+ * DATA LAYOUT (sparse co-occurrence matrix):
+ * - Product UUIDs are mapped to dense ints once (dictionary). Everything
+ *   after that is primitive: one IntIntHashMap row per product, mapping
+ *   co-purchased product index → number of orders containing both.
+ * - An order with n distinct products adds 1 to n×(n-1) cells.
+ * - A row is pruned back to its max-neighbours strongest entries when it
+ *   reaches twice that size, so memory is bounded by
+ *   products × 2 × max-neighbours regardless of order volume. Long-tail
+ *   pairs that never get strong enough are forgotten (heavy-hitter
+ *   approximation).
+ *
+ * Reads (GET /products/{id}/related) take a read lock and sort at most
+ * 2 × max-neighbours ints — no database, no Redis.
+ *
+ * RESTART:
+ * The matrix, together with the next Kafka offset per partition, is written
+ * to a local snapshot file (temp file + atomic rename). On startup the
+ * snapshot is loaded and RelatedProductsConsumer seeks to the saved offsets,
+ * so each order is counted exactly once across restarts. Without a snapshot
+ * the consumer replays the topic from the beginning.
+ */
+@Slf4j
+@Service
+public class RelatedProductsService {
+
+    private static final int SNAPSHOT_MAGIC = 0x4D535250; // "MSRP"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /** OrderService publishes some orders more than once; remember recent ids to count each once. */
+    private static final int RECENT_ORDERS = 10_000;
+
+    @Value("${myshop.recommendations.max-neighbours:50}")
+    private int maxNeighbours;
+
+    @Value("${myshop.recommendations.max-items-per-order:50}")
+    private int maxItemsPerOrder;
+
+    @Value("${myshop.recommendations.snapshot-path}")
+    private Path snapshotPath;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ── Guarded by lock ──────────────────────────────────────────────────────
+    private final Map<UUID, Integer> indexById = new HashMap<>();
+    private final List<UUID> idByIndex = new ArrayList<>();
+    private final List<IntIntHashMap> rows = new ArrayList<>();
+    private final Map<Integer, Long> nextOffsets = new HashMap<>();
+    private final Set<UUID> recentOrders = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+            return size() > RECENT_ORDERS;
+        }
+    });
+    private boolean dirty;
+
+    @PostConstruct
+    void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            log.info("No related-products snapshot at {}; matrix will be rebuilt from order.placed", snapshotPath);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            read(in);
+            log.info("Loaded related-products snapshot: {} products, offsets {}", idByIndex.size(), nextOffsets);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unreadable related-products snapshot {}; starting empty", snapshotPath, e);
+            indexById.clear();
+            idByIndex.clear();
+            rows.clear();
+            nextOffsets.clear();
+        }
+    }
+
+    /**
+     * Counts one order. Records at or below an offset already covered by the
+     * loaded snapshot are ignored.
+     */
+    public void recordOrder(UUID orderId, List<UUID> productIds, int partition, long offset) {
+        lock.writeLock().lock();
+        try {
+            Long next = nextOffsets.get(partition);
+            if (next != null && offset < next) {
+                return;
+            }
+            nextOffsets.put(partition, offset + 1);
+            dirty = true;
+            if (!recentOrders.add(orderId)) {
+                return;
+            }
+
+            int[] items = productIds.stream()
+                    .distinct()
+                    .limit(maxItemsPerOrder)
+                    .mapToInt(this::indexOf)
+                    .toArray();
+            for (int a : items) {
+                IntIntHashMap row = rows.get(a);
+                for (int b : items) {
+                    if (a != b) {
+                        row.addTo(b, 1);
+                    }
+                }
+                if (row.size() >= maxNeighbours * 2) {
+                    row.retainTop(maxNeighbours);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Products most often bought together with productId, strongest first. */
+    public List<RelatedProductResponse> getRelated(UUID productId, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer index = indexById.get(productId);
+            if (index == null) {
+                return List.of();
+            }
+            IntIntHashMap row = rows.get(index);
+            long[] packed = new long[row.size()];
+            int[] i = {0};
+            row.forEach((key, count) -> packed[i[0]++] = ((long) count << 32) | key);
+            Arrays.sort(packed);
+
+            List<RelatedProductResponse> related = new ArrayList<>(Math.min(limit, packed.length));
+            for (int j = packed.length - 1; j >= 0 && related.size() < limit; j--) {
+                related.add(new RelatedProductResponse(idByIndex.get((int) packed[j]), (int) (packed[j] >>> 32)));
+            }
+            return related;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Next offset to consume per partition, as of the loaded snapshot plus everything since. */
+    public Map<Integer, Long> getResumeOffsets() {
+        lock.readLock().lock();
+        try {
+            return Map.copyOf(nextOffsets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${myshop.recommendations.snapshot-interval-ms:60000}",
+            initialDelayString = "${myshop.recommendations.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            // Serialize in memory under the lock; disk I/O happens without it
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            write(new DataOutputStream(buffer));
+            bytes = buffer.toByteArray();
+            dirty = false;
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream does not throw
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+            Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote related-products snapshot ({} bytes)", bytes.length);
+        } catch (IOException e) {
+            log.warn("Failed to write related-products snapshot to {}", snapshotPath, e);
+            markDirty();
+        }
+    }
+
+    @PreDestroy
+    void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    private void markDirty() {
+        lock.writeLock().lock();
+        try {
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int indexOf(UUID productId) {
+        return indexById.computeIfAbsent(productId, id -> {
+            idByIndex.add(id);
+            rows.add(new IntIntHashMap());
+            return idByIndex.size() - 1;
+        });
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(nextOffsets.size());
+        for (Map.Entry<Integer, Long> entry : nextOffsets.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(idByIndex.size());
+        for (UUID id : idByIndex) {
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+        }
+        for (IntIntHashMap row : rows) {
+            out.writeInt(row.size());
+            IOException[] failure = {null};
+            row.forEach((key, count) -> {
+                try {
+                    out.writeInt(key);
+                    out.writeInt(count);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        out.flush();
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unknown snapshot format");
+        }
+        int partitions = in.readInt();
+        for (int i = 0; i < partitions; i++) {
+            nextOffsets.put(in.readInt(), in.readLong());
+        }
+        int products = in.readInt();
+        for (int i = 0; i < products; i++) {
+            indexOf(new UUID(in.readLong(), in.readLong()));
+        }
+        for (int i = 0; i < products; i++) {
+            int size = in.readInt();
+            IntIntHashMap row = new IntIntHashMap(size);
+            for (int j = 0; j < size; j++) {
+                row.addTo(in.readInt(), in.readInt());
+            }
+            rows.set(i, row);
+        }
+    }
+}
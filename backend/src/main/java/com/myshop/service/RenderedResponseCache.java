@@ -0,0 +1,100 @@
+package com.myshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.config.CacheConfig;
+import com.myshop.dto.response.PagedResponse;
+import com.myshop.dto.response.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * RenderedResponseCache — Serialize-once JSON for the hottest reads.
+ *
+ * The object caches (products, products_paged) still save the database
+ * round trip, but every hit used to deserialize the cached JSON into a
+ * ProductResponse graph and serialize it back to JSON for the response.
+ * Here the "data" part of the response is rendered once, with the same
+ * ObjectMapper Spring MVC uses, and stored as UTF-8 bytes. A hit is a
+ * single Redis GET whose bytes go straight to the servlet output stream
+ * inside the ApiResponse envelope (JsonEnvelope).
+ *
+ * Misses go through ProductService, so they still benefit from (and fill)
+ * the object caches. Whether a call hit is recorded by the cache itself
+ * (InstrumentedCache.outcome), not returned from here. Eviction happens wherever the object caches are
+ * evicted (ProductService @CacheEvict, ProductCacheService).
+ */
+@Service
+@RequiredArgsConstructor
+public class RenderedResponseCache {
+
+    /** Product detail entries start with the category id (16 bytes, zeros = none), then the JSON. */
+    private static final int CATEGORY_HEADER_BYTES = 16;
+
+    /** The category travels with the bytes so callers can act on it without parsing JSON. */
+    public record RenderedProduct(byte[] json, UUID categoryId) {
+    }
+
+    private final CacheManager cacheManager;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    public RenderedProduct getProduct(UUID id) {
+        Cache cache = cache(CacheConfig.CACHE_PRODUCTS_JSON);
+        byte[] entry = cache.get(id, byte[].class);
+        if (entry != null) {
+            ByteBuffer header = ByteBuffer.wrap(entry, 0, CATEGORY_HEADER_BYTES);
+            long msb = header.getLong();
+            long lsb = header.getLong();
+            UUID categoryId = msb == 0 && lsb == 0 ? null : new UUID(msb, lsb);
+            return new RenderedProduct(Arrays.copyOfRange(entry, CATEGORY_HEADER_BYTES, entry.length), categoryId);
+        }
+
+        ProductResponse product = productService.getById(id);
+        byte[] json = render(product);
+        UUID categoryId = product.getCategoryId();
+        cache.put(id, ByteBuffer.allocate(CATEGORY_HEADER_BYTES + json.length)
+                .putLong(categoryId == null ? 0 : categoryId.getMostSignificantBits())
+                .putLong(categoryId == null ? 0 : categoryId.getLeastSignificantBits())
+                .put(json)
+                .array());
+        return new RenderedProduct(json, categoryId);
+    }
+
+    /** Same parameters and key as ProductService.getAll. */
+    public byte[] getProductPage(int page, int size, UUID categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+            String sortBy, String sortDir) {
+        Cache cache = cache(CacheConfig.CACHE_PRODUCTS_PAGED_JSON);
+        int key = Objects.hash(page, size, categoryId, minPrice, maxPrice, sortBy, sortDir);
+        byte[] json = cache.get(key, byte[].class);
+        if (json != null) {
+            return json;
+        }
+
+        PagedResponse<ProductResponse> response = productService.getAll(
+                page, size, categoryId, minPrice, maxPrice, sortBy, sortDir);
+        json = render(response);
+        cache.put(key, json);
+        return json;
+    }
+
+    private byte[] render(Object data) {
+        try {
+            return objectMapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot render response JSON", e);
+        }
+    }
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), name);
+    }
+}
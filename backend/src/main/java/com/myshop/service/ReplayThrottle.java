@@ -0,0 +1,64 @@
+package com.myshop.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces a replay: at most ratePerSecond acquisitions per second, evenly
+ * spaced (no bursts after an idle stretch), and at most concurrency permits
+ * held at once — a permit is held from send until the broker acknowledges.
+ *
+ * acquire() is called by the single replay thread only; release() may come
+ * from any producer callback thread.
+ */
+class ReplayThrottle {
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleepNanos(long nanos) throws InterruptedException;
+    }
+
+    private final long intervalNanos;
+    private final int concurrency;
+    private final Semaphore inFlight;
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+
+    private long nextSlot;
+
+    ReplayThrottle(int ratePerSecond, int concurrency) {
+        this(ratePerSecond, concurrency, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    ReplayThrottle(int ratePerSecond, int concurrency, LongSupplier nanoClock, Sleeper sleeper) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        this.concurrency = concurrency;
+        this.inFlight = new Semaphore(concurrency);
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+        this.nextSlot = nanoClock.getAsLong();
+    }
+
+    void acquire() throws InterruptedException {
+        inFlight.acquire();
+        long now = nanoClock.getAsLong();
+        if (nextSlot > now) {
+            sleeper.sleepNanos(nextSlot - now);
+        } else {
+            // Idle time is not banked: the next send goes now, the one after a full interval later
+            nextSlot = now;
+        }
+        nextSlot += intervalNanos;
+    }
+
+    void release() {
+        inFlight.release();
+    }
+
+    /** Blocks until every acquired permit has been released. */
+    void awaitIdle() throws InterruptedException {
+        inFlight.acquire(concurrency);
+        inFlight.release(concurrency);
+    }
+}
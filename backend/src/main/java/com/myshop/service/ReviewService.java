@@ -3,6 +3,7 @@ package com.myshop.service;
 import com.myshop.dto.request.ReviewRequest;
 import com.myshop.dto.response.PagedResponse;
 import com.myshop.dto.response.ReviewResponse;
+import com.myshop.event.internal.ProductsChangedEvent;
 import com.myshop.exception.BusinessException;
 import com.myshop.exception.ErrorCode;
 import com.myshop.exception.ResourceNotFoundException;
@@ -16,6 +17,7 @@ import com.myshop.repository.jpa.UserRepository;
 import com.myshop.repository.mongo.ReviewRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -47,6 +49,7 @@ public class ReviewService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final OrderItemRepository orderItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ReviewResponse createReview(String email, UUID productId, ReviewRequest request) {
         User user = userRepository.findByEmail(email)
@@ -155,6 +158,7 @@ public class ReviewService {
                 product.setAvgRating(avg);
 
                 productRepository.save(product);
+                eventPublisher.publishEvent(ProductsChangedEvent.of(this, List.of(productId)));
                 log.info("Successfully synced Postgres product {} rating to {} ({} reviews)",
                         productId, avg, stats.getReviewCount());
             }
@@ -0,0 +1,304 @@
+package com.myshop.service;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.response.TrendingProductResponse;
+import com.myshop.util.CountMinSketch;
+import com.myshop.util.TopKHeap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TrendingProductsService — "What is hot right now", served from memory.
+ *
+ * Per scope ("all" plus one per category) each node keeps:
+ * - a CountMinSketch of weighted activity (views ×view-weight, units bought
+ *   ×purchase-weight), decayed so a score halves every half-life
+ * - a TopKHeap of the products with the highest sketch estimates
+ *
+ * Cross-node merge, every sync interval:
+ * 1. decay the local state for the elapsed time
+ * 2. publish each local sketch + its top-k ids into Redis hashes, one field
+ *    per node (a node only ever overwrites its own field — no locking)
+ * 3. read every live node's fields, add the sketches together, re-score the
+ *    union of candidates against the merged sketch and keep the top k;
+ *    fields of nodes that are no longer live are deleted on the way, so a
+ *    restarted pod (new HOSTNAME, new node id) does not leave its sketch
+ *    behind in every scope for as long as live nodes keep the TTL fresh
+ * The merged result replaces an immutable snapshot that GET /trending reads
+ * without touching Redis or the database.
+ *
+ * Orders are consumed by exactly one node (shared consumer group), views by
+ * whichever node served them — the merge is what makes every node see both.
+ * If Redis is unavailable the snapshot falls back to this node's own view.
+ */
+@Slf4j
+@Service
+public class TrendingProductsService {
+
+    public static final String SCOPE_ALL = "all";
+
+    private static final int UUID_BYTES = 16;
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${myshop.node-id}")
+    private String nodeId;
+
+    @Value("${myshop.trending.top-k:50}")
+    private int topK;
+
+    @Value("${myshop.trending.half-life-minutes:60}")
+    private long halfLifeMinutes;
+
+    @Value("${myshop.trending.depth:4}")
+    private int depth;
+
+    @Value("${myshop.trending.width:1024}")
+    private int width;
+
+    @Value("${myshop.trending.view-weight:1}")
+    private double viewWeight;
+
+    @Value("${myshop.trending.purchase-weight:5}")
+    private double purchaseWeight;
+
+    @Value("${myshop.trending.sync-interval-ms:15000}")
+    private long syncIntervalMs;
+
+    private record ScopeState(CountMinSketch sketch, TopKHeap<UUID> top) {
+    }
+
+    private final ConcurrentHashMap<String, ScopeState> scopes = new ConcurrentHashMap<>();
+    private volatile Map<String, List<TrendingProductResponse>> snapshot = Map.of();
+    private volatile long lastDecayAt = System.currentTimeMillis();
+
+    public TrendingProductsService(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void recordView(UUID productId, UUID categoryId) {
+        record(productId, categoryId, viewWeight);
+    }
+
+    public void recordPurchase(UUID productId, UUID categoryId, int quantity) {
+        record(productId, categoryId, purchaseWeight * quantity);
+    }
+
+    /**
+     * @param categoryId null for the store-wide list
+     * @param limit      capped at top-k
+     */
+    public List<TrendingProductResponse> getTrending(UUID categoryId, int limit) {
+        String scope = scopeOf(categoryId);
+        List<TrendingProductResponse> merged = snapshot.get(scope);
+        if (merged == null) {
+            // Not merged yet (first sync pending or Redis down): local view only
+            ScopeState state = scopes.get(scope);
+            merged = state == null ? List.of() : toResponses(state.top().top());
+        }
+        return merged.stream().limit(Math.min(limit, topK)).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${myshop.trending.sync-interval-ms:15000}",
+            initialDelayString = "${myshop.trending.sync-interval-ms:15000}")
+    public void sync() {
+        decay();
+        try {
+            snapshot = redisTemplate.execute((RedisCallback<Map<String, List<TrendingProductResponse>>>) connection -> {
+                publish(connection);
+                return mergeAll(connection);
+            });
+        } catch (Exception e) {
+            log.warn("Trending sync with Redis failed; serving local trending data", e);
+            Map<String, List<TrendingProductResponse>> local = new HashMap<>();
+            scopes.forEach((scope, state) -> local.put(scope, toResponses(state.top().top())));
+            snapshot = Map.copyOf(local);
+        }
+    }
+
+    private void record(UUID productId, UUID categoryId, double weight) {
+        update(SCOPE_ALL, productId, weight);
+        if (categoryId != null) {
+            update(categoryId.toString(), productId, weight);
+        }
+    }
+
+    private void update(String scope, UUID productId, double weight) {
+        ScopeState state = scopes.computeIfAbsent(scope,
+                s -> new ScopeState(new CountMinSketch(depth, width), new TopKHeap<>(topK)));
+        state.sketch().add(productId, weight);
+        state.top().offer(productId, state.sketch().estimate(productId));
+    }
+
+    /** Scales everything by 0.5^(elapsed / half-life); sketch and heap decay together so ordering holds. */
+    private void decay() {
+        long now = System.currentTimeMillis();
+        double halfLives = (now - lastDecayAt) / (double) Duration.ofMinutes(halfLifeMinutes).toMillis();
+        lastDecayAt = now;
+        double factor = Math.pow(0.5, halfLives);
+        scopes.values().forEach(state -> {
+            state.sketch().scale(factor);
+            state.top().scale(factor);
+        });
+    }
+
+    private void publish(RedisConnection connection) {
+        byte[] node = bytes(nodeId);
+        long ttlSeconds = Duration.ofMinutes(halfLifeMinutes * 8).toSeconds();
+        connection.openPipeline();
+        // Registered before the scope fields, so a merge that sees the fields also
+        // sees the node as live and does not delete them as stale
+        connection.hashCommands().hSet(bytes(CacheKeys.TRENDING_NODES), node,
+                bytes(Long.toString(System.currentTimeMillis())));
+        scopes.forEach((scope, state) -> {
+            byte[] sketchKey = bytes(CacheKeys.format(CacheKeys.TRENDING_SKETCH, scope));
+            byte[] candidatesKey = bytes(CacheKeys.format(CacheKeys.TRENDING_CANDIDATES, scope));
+            connection.hashCommands().hSet(sketchKey, node, state.sketch().toBytes());
+            connection.hashCommands().hSet(candidatesKey, node, encodeIds(state.top().top()));
+            connection.keyCommands().expire(sketchKey, ttlSeconds);
+            connection.keyCommands().expire(candidatesKey, ttlSeconds);
+            connection.setCommands().sAdd(bytes(CacheKeys.TRENDING_SCOPES), bytes(scope));
+        });
+        connection.closePipeline();
+    }
+
+    private Map<String, List<TrendingProductResponse>> mergeAll(RedisConnection connection) {
+        Set<String> liveNodes = liveNodes(connection);
+        Set<byte[]> scopeNames = connection.setCommands().sMembers(bytes(CacheKeys.TRENDING_SCOPES));
+        Map<String, List<TrendingProductResponse>> merged = new HashMap<>();
+        if (scopeNames == null) {
+            return merged;
+        }
+        for (byte[] rawScope : scopeNames) {
+            String scope = new String(rawScope, StandardCharsets.UTF_8);
+            List<TrendingProductResponse> top = mergeScope(connection, scope, liveNodes);
+            if (!top.isEmpty()) {
+                merged.put(scope, top);
+            }
+        }
+        return Map.copyOf(merged);
+    }
+
+    private List<TrendingProductResponse> mergeScope(RedisConnection connection, String scope, Set<String> liveNodes) {
+        byte[] sketchKey = bytes(CacheKeys.format(CacheKeys.TRENDING_SKETCH, scope));
+        byte[] candidatesKey = bytes(CacheKeys.format(CacheKeys.TRENDING_CANDIDATES, scope));
+        Map<byte[], byte[]> sketches = connection.hashCommands().hGetAll(sketchKey);
+        Map<byte[], byte[]> candidates = connection.hashCommands().hGetAll(candidatesKey);
+        if (sketches == null || candidates == null) {
+            return List.of();
+        }
+        deleteDeadFields(connection, sketchKey, sketches.keySet(), liveNodes);
+        deleteDeadFields(connection, candidatesKey, candidates.keySet(), liveNodes);
+
+        CountMinSketch merged = new CountMinSketch(depth, width);
+        sketches.forEach((node, value) -> {
+            if (liveNodes.contains(new String(node, StandardCharsets.UTF_8))) {
+                try {
+                    merged.merge(CountMinSketch.fromBytes(value));
+                } catch (IllegalArgumentException e) {
+                    // Node running with different dimensions (rolling config change) — skip it
+                    log.debug("Skipping incompatible trending sketch from node {}", new String(node, StandardCharsets.UTF_8));
+                }
+            }
+        });
+
+        Set<UUID> ids = new HashSet<>();
+        candidates.forEach((node, value) -> {
+            if (liveNodes.contains(new String(node, StandardCharsets.UTF_8))) {
+                ids.addAll(decodeIds(value));
+            }
+        });
+
+        return ids.stream()
+                .map(id -> new TrendingProductResponse(id, merged.estimate(id)))
+                .filter(entry -> entry.score() > 0)
+                .sorted(Comparator.comparingDouble(TrendingProductResponse::score).reversed())
+                .limit(topK)
+                .toList();
+    }
+
+    /**
+     * Drops the fields of nodes that are not live: pruned just now by
+     * liveNodes, or gone from the registry already.
+     */
+    private void deleteDeadFields(RedisConnection connection, byte[] key, Set<byte[]> fields, Set<String> liveNodes) {
+        byte[][] dead = fields.stream()
+                .filter(node -> !liveNodes.contains(new String(node, StandardCharsets.UTF_8)))
+                .toArray(byte[][]::new);
+        if (dead.length > 0) {
+            connection.hashCommands().hDel(key, dead);
+        }
+    }
+
+    /** Nodes that published recently; long-silent ones are dropped from the registry. */
+    private Set<String> liveNodes(RedisConnection connection) {
+        byte[] nodesKey = bytes(CacheKeys.TRENDING_NODES);
+        Map<byte[], byte[]> nodes = connection.hashCommands().hGetAll(nodesKey);
+        Set<String> live = new HashSet<>();
+        if (nodes == null) {
+            return live;
+        }
+        long cutoff = System.currentTimeMillis() - syncIntervalMs * 4;
+        List<byte[]> stale = new ArrayList<>();
+        nodes.forEach((node, lastSeen) -> {
+            if (Long.parseLong(new String(lastSeen, StandardCharsets.UTF_8)) >= cutoff) {
+                live.add(new String(node, StandardCharsets.UTF_8));
+            } else {
+                stale.add(node);
+            }
+        });
+        if (!stale.isEmpty()) {
+            connection.hashCommands().hDel(nodesKey, stale.toArray(byte[][]::new));
+        }
+        return live;
+    }
+
+    private static byte[] encodeIds(List<TopKHeap.Entry<UUID>> entries) {
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * UUID_BYTES);
+        entries.forEach(entry -> buffer
+                .putLong(entry.item().getMostSignificantBits())
+                .putLong(entry.item().getLeastSignificantBits()));
+        return buffer.array();
+    }
+
+    private static List<UUID> decodeIds(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        List<UUID> ids = new ArrayList<>(value.length / UUID_BYTES);
+        while (buffer.remaining() >= UUID_BYTES) {
+            ids.add(new UUID(buffer.getLong(), buffer.getLong()));
+        }
+        return ids;
+    }
+
+    private static List<TrendingProductResponse> toResponses(List<TopKHeap.Entry<UUID>> entries) {
+        return entries.stream()
+                .map(entry -> new TrendingProductResponse(entry.item(), entry.score()))
+                .toList();
+    }
+
+    private static String scopeOf(UUID categoryId) {
+        return categoryId == null ? SCOPE_ALL : categoryId.toString();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.myshop.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter — Fixed-size set membership test with no false negatives.
+ *
+ * put() sets k bits chosen by k hashes of the item; mightContain() is true
+ * only if all k are set. An item that was put is always reported, an item
+ * that was not is reported with probability about fpp once
+ * expectedInsertions items are in — past that the rate climbs, so callers
+ * start a fresh filter rather than overfilling one.
+ *
+ * Sizing (standard formulas): bits m = -n ln(p) / ln(2)^2 and hashes
+ * k = m/n ln(2). One million items at 1% is ~9.6 bits each, ~1.2 MB.
+ * The k indexes come from two 64-bit hashes (h1 + i * h2, Kirsch and
+ * Mitzenmacher), which is as good as k independent hashes.
+ *
+ * Thread-safe without locks: bits are set with compare-and-set.
+ */
+public class BloomFilter {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp must be between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact((bits + 63) / 64);
+        this.words = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String item) {
+        long h1 = hash(item);
+        long h2 = mix(h1 ^ SEED);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) >>> 1) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String item) {
+        long h1 = hash(item);
+        long h2 = mix(h1 ^ SEED);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) >>> 1) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /** FNV-1a over the chars, then SplitMix64 to spread similar ids. */
+    private static long hash(String item) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < item.length(); i++) {
+            h ^= item.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
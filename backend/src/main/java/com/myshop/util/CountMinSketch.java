@@ -0,0 +1,125 @@
+package com.myshop.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * CountMinSketch — Fixed-size frequency estimator with exponential decay.
+ *
+ * depth rows × width counters. add() bumps one counter per row (chosen by a
+ * per-row hash); estimate() returns the minimum over the rows. Estimates
+ * never undercount and overcount by at most ~(e / width) × total weight with
+ * probability 1 - e^-depth — memory stays constant no matter how many
+ * distinct products are seen.
+ *
+ * Counters are doubles so the sketch can be decayed in place (scale by a
+ * factor < 1), which turns raw counts into "recent activity" scores.
+ *
+ * Two sketches with the same dimensions are mergeable by element-wise
+ * addition; the hash seeds are fixed constants so that every node maps a
+ * product to the same cells.
+ *
+ * Thread-safe: all methods synchronize on the instance.
+ */
+public class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27BB2EE687B0B0FDL, 0x94D049BB133111EBL
+    };
+
+    private final int depth;
+    private final int width;
+    private final double[] counts;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+        }
+        if (width < 1) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counts = new double[depth * width];
+    }
+
+    public synchronized void add(UUID item, double weight) {
+        long key = key(item);
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + index(key, row)] += weight;
+        }
+    }
+
+    public synchronized double estimate(UUID item) {
+        long key = key(item);
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + index(key, row)]);
+        }
+        return min;
+    }
+
+    /** Multiplies every counter by factor — the decay step. */
+    public synchronized void scale(double factor) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] *= factor;
+        }
+    }
+
+    /** Adds other's counters into this sketch. Dimensions must match. */
+    public synchronized void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        double[] theirs = other.snapshotCounts();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += theirs[i];
+        }
+    }
+
+    /** Compact binary form: depth, width, then the counters. */
+    public synchronized byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + counts.length * Double.BYTES);
+        buffer.putInt(depth).putInt(width);
+        buffer.asDoubleBuffer().put(counts);
+        return buffer.array();
+    }
+
+    public static CountMinSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CountMinSketch sketch = new CountMinSketch(buffer.getInt(), buffer.getInt());
+        if (buffer.remaining() != sketch.counts.length * Double.BYTES) {
+            throw new IllegalArgumentException("Corrupt sketch: unexpected length");
+        }
+        buffer.asDoubleBuffer().get(sketch.counts);
+        return sketch;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    private synchronized double[] snapshotCounts() {
+        return counts.clone();
+    }
+
+    private int index(long key, int row) {
+        return (int) ((mix(key ^ SEEDS[row]) >>> 1) % width);
+    }
+
+    private static long key(UUID item) {
+        return item.getMostSignificantBits() * 31 + item.getLeastSignificantBits();
+    }
+
+    /** SplitMix64 finalizer — spreads similar keys across the whole range. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,124 @@
+package com.myshop.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CsvRecordReader — Minimal streaming RFC 4180 reader.
+ *
+ * Reads one record at a time straight off the underlying Reader, so an upload
+ * of a million rows never has to be held in memory. Supports quoted fields,
+ * escaped quotes ("") and line breaks inside quoted fields; both \n and \r\n
+ * record terminators are accepted.
+ *
+ * Not thread-safe — one reader per stream.
+ */
+public class CsvRecordReader {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int pushedBack = -2;
+    private long recordNumber;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next record, or null at end of stream.
+     * Blank lines are skipped.
+     */
+    public List<String> next() throws IOException {
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean inQuotes = false;
+        boolean fieldStarted = false;
+
+        while (true) {
+            int c = read();
+            if (inQuotes) {
+                if (c == EOF) {
+                    throw new IOException("Unterminated quoted field in record " + (recordNumber + 1));
+                }
+                if (c == '"') {
+                    int peek = read();
+                    if (peek == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        unread(peek);
+                    }
+                } else {
+                    field.append((char) c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case EOF -> {
+                    if (!fieldStarted && record.isEmpty()) {
+                        return null;
+                    }
+                    record.add(field.toString());
+                    recordNumber++;
+                    return record;
+                }
+                case '\r' -> {
+                    int peek = read();
+                    if (peek != '\n') {
+                        unread(peek);
+                    }
+                    if (!fieldStarted && record.isEmpty()) {
+                        continue;
+                    }
+                    record.add(field.toString());
+                    recordNumber++;
+                    return record;
+                }
+                case '\n' -> {
+                    if (!fieldStarted && record.isEmpty()) {
+                        continue;
+                    }
+                    record.add(field.toString());
+                    recordNumber++;
+                    return record;
+                }
+                case ',' -> {
+                    record.add(field.toString());
+                    field.setLength(0);
+                    fieldStarted = true;
+                }
+                case '"' -> {
+                    inQuotes = true;
+                    fieldStarted = true;
+                }
+                default -> {
+                    field.append((char) c);
+                    fieldStarted = true;
+                }
+            }
+        }
+    }
+
+    /** Number of records returned so far (1-based position of the last record). */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
@@ -0,0 +1,130 @@
+package com.myshop.util;
+
+import java.util.Arrays;
+
+/**
+ * IntIntHashMap — Open-addressing int → int map without boxing.
+ *
+ * A HashMap<Integer, Integer> costs roughly 50+ bytes per entry (node, two
+ * boxed Integers, table slot) and chases pointers on every lookup. Here an
+ * entry is two ints in parallel arrays (~8 bytes at load factor 0.5-0.75)
+ * and a lookup is a linear probe through contiguous memory.
+ *
+ * Keys must be non-negative (they are dense dictionary indexes); -1 marks an
+ * empty slot. There is no single-key remove — callers shrink a map with
+ * retainTop(), which rebuilds it.
+ *
+ * Not thread-safe.
+ */
+public class IntIntHashMap {
+
+    private static final int EMPTY = -1;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntHashMap() {
+        this(8);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /** Adds delta to key's value (starting from 0) and returns the new value. */
+    public int addTo(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Keys must be non-negative");
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            return values[slot] += delta;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 4 > keys.length * 3) {
+            resize(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /** Value for key, or 0 if absent. */
+    public int get(int key) {
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Keeps only the n entries with the highest values (ties broken
+     * arbitrarily) and rebuilds the table at a matching capacity.
+     */
+    public void retainTop(int n) {
+        if (size <= n) {
+            return;
+        }
+        // Sort (value, key) pairs packed into longs: value in the high bits
+        long[] packed = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                packed[i++] = ((long) values[slot] << 32) | keys[slot];
+            }
+        }
+        Arrays.sort(packed);
+
+        IntIntHashMap kept = new IntIntHashMap(n);
+        for (int j = packed.length - n; j < packed.length; j++) {
+            kept.addTo((int) packed[j], (int) (packed[j] >>> 32));
+        }
+        keys = kept.keys;
+        values = kept.values;
+        size = kept.size;
+    }
+
+    /** Slot holding key, or the empty slot where it would go. */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.myshop.util;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * JsonEnvelope — Writes ApiResponse.success(data) around pre-rendered data
+ * JSON, byte for byte what Jackson would produce for the envelope:
+ *
+ *   {"success":true,"data":<data>,"message":"OK","timestamp":"...","requestId":"..."}
+ *
+ * Only the per-request fields (timestamp, requestId) are encoded here; the
+ * data bytes are copied to the output stream untouched.
+ */
+public class JsonEnvelope {
+
+    private static final byte[] PREFIX = "{\"success\":true,\"data\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MESSAGE_AND_TIMESTAMP = ",\"message\":\"OK\",\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REQUEST_ID = "\",\"requestId\":\"".getBytes(StandardCharsets.UTF_8);
+
+    private JsonEnvelope() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static void writeSuccess(HttpServletResponse response, byte[] dataJson) throws IOException {
+        String requestId = MDC.get("requestId");
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write(PREFIX);
+        out.write(dataJson);
+        out.write(MESSAGE_AND_TIMESTAMP);
+        // Instant.toString() is ISO-8601, the same format Jackson writes for Instant
+        out.write(Instant.now().toString().getBytes(StandardCharsets.US_ASCII));
+        if (requestId != null) {
+            out.write(REQUEST_ID);
+            out.write(JsonStringEncoder.getInstance().quoteAsUTF8(requestId));
+        }
+        out.write('"');
+        out.write('}');
+    }
+}
@@ -0,0 +1,34 @@
+package com.myshop.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * RequestUtils — Helpers for reading client details off an HTTP request.
+ */
+public class RequestUtils {
+
+    private RequestUtils() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Best-effort client IP. Behind the load balancer the socket address is the
+     * proxy, so the first X-Forwarded-For entry (the original client) wins.
+     */
+    public static String getClientIp(HttpServletRequest request) {
+        String xfHeader = request.getHeader("X-Forwarded-For");
+        if (xfHeader == null) {
+            return request.getRemoteAddr();
+        }
+        return xfHeader.split(",")[0].trim(); // Get the first IP which is the actual client
+    }
+
+    /** Token from "Authorization: Bearer <token>"; null if the header is missing or malformed. */
+    public static String getBearerToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ") && header.length() > 7) {
+            return header.substring(7);
+        }
+        return null;
+    }
+}
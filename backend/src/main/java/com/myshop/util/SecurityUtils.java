@@ -1,10 +1,12 @@
 package com.myshop.util;
 
+import com.myshop.security.AuthenticatedUser;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * SecurityUtils — Utility methods for accessing the current authenticated user.
@@ -38,6 +40,9 @@ public class SecurityUtils {
             return Optional.empty();
         }
         Object principal = authentication.getPrincipal();
+        if (principal instanceof AuthenticatedUser user) {
+            return Optional.of(user.email());
+        }
         if (principal instanceof UserDetails userDetails) {
             return Optional.of(userDetails.getUsername());
         }
@@ -47,6 +52,18 @@ public class SecurityUtils {
         return Optional.empty();
     }
 
+    /**
+     * Returns the id of the currently authenticated user, straight from the
+     * access token's uid claim. Empty for anonymous requests.
+     */
+    public static Optional<UUID> getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return Optional.of(user.id());
+        }
+        return Optional.empty();
+    }
+
     /**
      * Returns true if there is an authenticated user in the current context.
      */
@@ -0,0 +1,93 @@
+package com.myshop.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * TopKHeap — Keeps the k items with the highest scores seen so far.
+ *
+ * A min-heap of size k ordered by score: the root is the weakest member, so
+ * deciding whether a new item gets in is O(1) and replacing it O(log k).
+ * A side index finds existing members so their score can be refreshed.
+ *
+ * Used together with CountMinSketch: after every update the caller offers
+ * the item with its fresh sketch estimate.
+ *
+ * Thread-safe: all methods synchronize on the instance.
+ *
+ * @param <T> item type (must have proper equals/hashCode)
+ */
+public class TopKHeap<T> {
+
+    public record Entry<T>(T item, double score) {
+    }
+
+    private static final class Node<T> {
+        private final T item;
+        private double score;
+
+        private Node(T item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+    }
+
+    private final int k;
+    private final PriorityQueue<Node<T>> heap;
+    private final Map<T, Node<T>> index;
+
+    public TopKHeap(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.k = k;
+        this.heap = new PriorityQueue<>(k, Comparator.comparingDouble(n -> n.score));
+        this.index = new HashMap<>(k * 2);
+    }
+
+    /** Inserts or re-scores item; evicts the current minimum if full and item beats it. */
+    public synchronized void offer(T item, double score) {
+        Node<T> existing = index.get(item);
+        if (existing != null) {
+            heap.remove(existing); // O(k), k is small
+            existing.score = score;
+            heap.add(existing);
+            return;
+        }
+        if (heap.size() < k) {
+            Node<T> node = new Node<>(item, score);
+            heap.add(node);
+            index.put(item, node);
+            return;
+        }
+        Node<T> min = heap.peek();
+        if (min != null && score > min.score) {
+            heap.poll();
+            index.remove(min.item);
+            Node<T> node = new Node<>(item, score);
+            heap.add(node);
+            index.put(item, node);
+        }
+    }
+
+    /** Multiplies every score by factor (decay); ordering is unchanged. */
+    public synchronized void scale(double factor) {
+        heap.forEach(node -> node.score *= factor);
+    }
+
+    /** Members sorted by descending score. */
+    public synchronized List<Entry<T>> top() {
+        List<Entry<T>> entries = new ArrayList<>(heap.size());
+        heap.forEach(node -> entries.add(new Entry<>(node.item, node.score)));
+        entries.sort(Comparator.comparingDouble(Entry<T>::score).reversed());
+        return entries;
+    }
+
+    public synchronized int size() {
+        return heap.size();
+    }
+}
@@ -0,0 +1,32 @@
+-- Removes what an order bought from the Redis cart, and only that.
+--
+-- An item is deleted only while it still holds the quantity the order read;
+-- anything added or changed after the order read the cart stays. Whatever
+-- stays is no longer in the (emptied) database cart, so the cart is marked
+-- dirty for the write-behind; a cart left with no items needs no flush.
+--
+-- KEYS[1]  cart hash
+-- KEYS[2]  dirty cart set
+-- ARGV[1]  email (the dirty set member)
+-- ARGV[2..] productId, quantity pairs of the ordered items
+--
+-- Returns the number of items left in the cart
+
+for i = 2, #ARGV, 2 do
+    if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then
+        redis.call('HDEL', KEYS[1], ARGV[i])
+    end
+end
+
+local remaining = 0
+for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+    if string.sub(field, 1, 1) ~= '_' then
+        remaining = remaining + 1
+    end
+end
+if remaining > 0 then
+    redis.call('SADD', KEYS[2], ARGV[1])
+else
+    redis.call('SREM', KEYS[2], ARGV[1])
+end
+return remaining
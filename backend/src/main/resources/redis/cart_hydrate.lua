@@ -0,0 +1,26 @@
+-- Loads a cart's database state into its Redis hash, once.
+--
+-- Whoever sets _loaded first does the load; a concurrent hydration finds it
+-- set and changes nothing. Item quantities are added with HINCRBY rather
+-- than written: if the hash expired between a request's hydrate and its
+-- HINCRBY, that increment created a fresh hash holding only the delta, and
+-- the stored quantity belongs on top of it.
+--
+-- KEYS[1]  cart hash
+-- ARGV[1]  TTL in seconds
+-- ARGV[2..] field, value pairs; "_"-prefixed meta fields are set as-is
+--
+-- Returns 1 when this call loaded the cart, 0 when it was already loaded
+
+if redis.call('HSETNX', KEYS[1], '_loaded', '1') == 0 then
+    return 0
+end
+for i = 2, #ARGV, 2 do
+    if string.sub(ARGV[i], 1, 1) == '_' then
+        redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+    else
+        redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])
+    end
+end
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return 1
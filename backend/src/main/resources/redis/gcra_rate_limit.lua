@@ -0,0 +1,36 @@
+-- GCRA (generic cell rate algorithm) rate limit check in one atomic round trip.
+--
+-- The key holds a single number, the theoretical arrival time (TAT): when the
+-- limiter would be back to empty if requests kept arriving at exactly the
+-- allowed rate. Each allowed request pushes it one emission interval further.
+-- A request is allowed while TAT stays within one full period (the burst) of
+-- now; no counters, windows or refill timers are stored.
+--
+-- KEYS[1]  limiter key
+-- ARGV[1]  emission interval = period / limit, in microseconds
+-- ARGV[2]  limit (requests per period, also the burst size)
+--
+-- Returns {allowed (1/0), remaining, retry_after_us, reset_after_us}
+
+local interval = tonumber(ARGV[1])
+local limit = tonumber(ARGV[2])
+local burst = interval * limit
+
+-- Redis's clock, so every app node measures time the same way
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+
+local tat = tonumber(redis.call('GET', KEYS[1]))
+if not tat or tat < now then
+    tat = now
+end
+
+local new_tat = tat + interval
+local allow_at = new_tat - burst
+if now < allow_at then
+    return {0, 0, allow_at - now, tat - now}
+end
+
+-- The key is worthless once TAT has passed: let it expire right then
+redis.call('SET', KEYS[1], string.format('%d', new_tat), 'PX', math.ceil((new_tat - now) / 1000))
+return {1, math.floor((now - allow_at) / interval), 0, new_tat - now}
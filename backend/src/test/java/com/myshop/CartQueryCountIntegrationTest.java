@@ -0,0 +1,108 @@
+package com.myshop;
+
+import com.myshop.dto.response.CartResponse;
+import com.myshop.model.entity.Cart;
+import com.myshop.model.entity.CartItem;
+import com.myshop.model.entity.Category;
+import com.myshop.model.entity.Product;
+import com.myshop.model.entity.User;
+import com.myshop.repository.jpa.CartRepository;
+import com.myshop.repository.jpa.CategoryRepository;
+import com.myshop.repository.jpa.ProductRepository;
+import com.myshop.repository.jpa.UserRepository;
+import com.myshop.service.CartService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Locks in the cart read path's query count: rendering a cart must cost one
+ * statement however many items it holds (no lazy product load per item).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional
+@EnabledIfSystemProperty(named = "integration.tests", matches = "true")
+class CartQueryCountIntegrationTest {
+
+    private static final int ITEMS = 5;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private User testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = userRepository.save(User.builder()
+                .email("cart-" + UUID.randomUUID() + "@example.com")
+                .passwordHash("hash")
+                .fullName("Cart Tester")
+                .build());
+
+        Category cat = categoryRepository.save(Category.builder()
+                .name("Test Category")
+                .slug("test-cat-" + UUID.randomUUID())
+                .build());
+
+        Cart cart = cartRepository.save(Cart.builder().user(testUser).build());
+        for (int i = 1; i <= ITEMS; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Product " + i)
+                    .price(new BigDecimal("10.10"))
+                    .sku("CART-" + UUID.randomUUID())
+                    .stockQuantity(100)
+                    .category(cat)
+                    .build());
+            cart.addItem(CartItem.builder().product(product).quantity(i).build());
+        }
+        cartRepository.save(cart);
+
+        // Start the measured call from an empty persistence context, as a fresh request would
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getCartByUser_LoadsCartItemsAndProductsInOneQuery() {
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        CartResponse cart = cartService.getCartByUser(testUser.getEmail());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(cart.items()).hasSize(ITEMS);
+        // 10.10 × (1 + 2 + 3 + 4 + 5), exactly
+        assertThat(cart.totalAmount()).isEqualByComparingTo("151.50");
+    }
+}
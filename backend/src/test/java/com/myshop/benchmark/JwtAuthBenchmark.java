@@ -0,0 +1,94 @@
+package com.myshop.benchmark;
+
+import com.myshop.model.entity.User;
+import com.myshop.security.AuthenticatedUser;
+import com.myshop.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthBenchmark — Token work JwtAuthenticationFilter does per request.
+ *
+ *   perRequestBefore   the old path: validateToken and extractEmail each
+ *                      built a fresh JwtParser and fully verified the token
+ *   cacheMiss          one verification with the shared parser (the first
+ *                      request carrying a given token)
+ *   cacheHit           JwtTokenProvider.parseAccessToken on a token it has
+ *                      already verified (every later request)
+ *
+ * The old path also ran loadUserByUsername, a users query, on every request;
+ * that database round trip is not part of this benchmark.
+ *
+ * Not a test — surefire ignores it. Run from backend/ with:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.myshop.benchmark.JwtAuthBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark";
+
+    private SecretKey key;
+    private JwtParser sharedParser;
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        sharedParser = Jwts.parser().verifyWith(key).build();
+        provider = new JwtTokenProvider(SECRET, TimeUnit.MINUTES.toMillis(15), TimeUnit.DAYS.toMillis(7), 10_000);
+        token = provider.generateAccessToken(User.builder()
+                .id(UUID.randomUUID())
+                .email("bench@example.com")
+                .role("USER")
+                .build());
+        provider.parseAccessToken(token);
+    }
+
+    @Benchmark
+    public String perRequestBefore() {
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Benchmark
+    public Claims cacheMiss() {
+        return sharedParser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedUser> cacheHit() {
+        return provider.parseAccessToken(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthBenchmark.class.getSimpleName()).build()).run();
+    }
+}
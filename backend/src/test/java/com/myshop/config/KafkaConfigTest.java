@@ -0,0 +1,72 @@
+package com.myshop.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KafkaConfigTest {
+
+    private final KafkaConfig config = new KafkaConfig();
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(config, "bootstrapServers", "localhost:9092");
+    }
+
+    @Test
+    void batchFactory_ManualBatchAcksWithTheTunedFetch() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                config.batchKafkaListenerContainerFactory(kafkaTemplate, 250, 8192, 100);
+
+        assertThat(factory.isBatchListener()).isTrue();
+        assertThat(factory.getContainerProperties().getAckMode()).isEqualTo(ContainerProperties.AckMode.MANUAL);
+        assertThat(factory.getConsumerFactory().getConfigurationProperties())
+                .containsEntry(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 250)
+                .containsEntry(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 8192)
+                .containsEntry(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchDeadLetterRecoverer_PublishesToTheTopicsDlt() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        config.batchDeadLetterRecoverer(kafkaTemplate)
+                .accept(new ConsumerRecord<>("order.placed", 2, 7L, "key", "value"), new IllegalStateException("x"));
+
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertThat(sent.getValue().topic()).isEqualTo("order.placed.DLT");
+    }
+
+    @Test
+    void batchRetryBackOff_ThreeDoublingRetriesFromOneSecond() {
+        BackOffExecution backOff = config.batchRetryBackOff().start();
+
+        assertThat(backOff.nextBackOff()).isEqualTo(1000);
+        assertThat(backOff.nextBackOff()).isEqualTo(2000);
+        assertThat(backOff.nextBackOff()).isEqualTo(4000);
+        assertThat(backOff.nextBackOff()).isEqualTo(BackOffExecution.STOP);
+    }
+}
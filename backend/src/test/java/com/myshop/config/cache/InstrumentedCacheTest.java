@@ -0,0 +1,94 @@
+package com.myshop.config.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InstrumentedCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong ticker = new AtomicLong();
+    private final InstrumentedCache cache =
+            new InstrumentedCache(new ConcurrentMapCache("products"), registry, ticker::get);
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void getThenPut_CountsMissLoadAndHit() {
+        assertThat(cache.get("a")).isNull();
+        cache.put("a", "value");
+        assertThat(cache.get("a", String.class)).isEqualTo("value");
+
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.loadCount()).isEqualTo(1);
+        assertThat(registry.get("myshop.cache.puts").tag("cache", "products").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getWithLoader_TimesLoaderOnlyOnMiss() {
+        assertThat(cache.get("a", () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.get("a", () -> "reloaded")).isEqualTo("loaded");
+
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.loadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void outcome_RecordedOnCurrentRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThat(InstrumentedCache.outcome(request, "products")).isNull();
+        cache.get("a");
+        assertThat(InstrumentedCache.outcome(request, "products")).isEqualTo("MISS");
+        cache.put("a", "value");
+        cache.get("a");
+        assertThat(InstrumentedCache.outcome(request, "products")).isEqualTo("HIT");
+    }
+
+    @Test
+    void getThenPut_PendingMissesAreTrackedPerKey() {
+        cache.get("a");
+        cache.get("b");
+        cache.put("c", "value"); // no miss before it: a plain write, not a load
+        cache.put("a", "value");
+        cache.put("b", "value");
+
+        assertThat(cache.loadCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getThenPut_MissNeverFollowedByAPutExpires() {
+        cache.get("a"); // e.g. the @Cacheable method threw
+
+        ticker.addAndGet(InstrumentedCache.PENDING_LOAD_TTL.toNanos() + 1);
+        cache.put("a", "value");
+
+        assertThat(cache.loadCount()).isZero();
+    }
+
+    @Test
+    void getWithLoader_FailingLoaderIsTimedAndLeavesNothingPending() {
+        assertThatThrownBy(() -> cache.get("a", () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(RuntimeException.class);
+        cache.put("a", "value");
+
+        // The failed load, but not the later write
+        assertThat(cache.loadCount()).isEqualTo(1);
+    }
+}
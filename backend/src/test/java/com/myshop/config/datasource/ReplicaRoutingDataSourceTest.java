@@ -0,0 +1,143 @@
+package com.myshop.config.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(lagMonitor.isReachable()).thenReturn(true);
+        when(lagMonitor.isWithinLag()).thenReturn(true);
+        routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor,
+                new ReadYourWritesTracker(5_000), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_ReadOnlyTransactionUsesReplica() throws SQLException {
+        inTransaction(true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        assertThat(routed("replica", "read_only")).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_ReadWriteTransactionUsesPrimary() throws SQLException {
+        inTransaction(false);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(routed("primary", "write")).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_NoTransactionUsesPrimary() throws SQLException {
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(routed("primary", "no_transaction")).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_UnreachableReplicaFallsBackToPrimary() throws SQLException {
+        when(lagMonitor.isReachable()).thenReturn(false);
+        inTransaction(true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+        assertThat(routed("primary", "replica_unavailable")).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_FailedReplicaConnectionFallsBackToPrimary() throws SQLException {
+        SQLException refused = new SQLException("connection refused");
+        when(replica.getConnection()).thenThrow(refused);
+        inTransaction(true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(lagMonitor).markUnavailable(refused);
+        assertThat(routed("primary", "replica_error")).isEqualTo(1);
+    }
+
+    @Test
+    void getConnectionWithCredentials_DelegatesToTheRoutedPool() throws SQLException {
+        when(replica.getConnection("reporting", "secret")).thenReturn(replicaConnection);
+        inTransaction(true);
+
+        assertThat(routing.getConnection("reporting", "secret")).isSameAs(replicaConnection);
+        verify(primary, never()).getConnection(any(), any());
+    }
+
+    /**
+     * Login's shape: a read-only lookup followed by a password-hash update in
+     * the same request. Each transaction must take its own connection, so the
+     * write goes to the primary even though the read went to the replica.
+     */
+    @Test
+    void consecutiveTransactions_AreRoutedIndependently() throws SQLException {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> prepare(dataSource, "SELECT password_hash FROM users"));
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> prepare(dataSource, "UPDATE users SET password_hash = ?"));
+
+        verify(replicaConnection).prepareStatement("SELECT password_hash FROM users");
+        verify(primaryConnection).prepareStatement("UPDATE users SET password_hash = ?");
+        verify(replicaConnection, never()).prepareStatement("UPDATE users SET password_hash = ?");
+    }
+
+    private static void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void prepare(DataSource dataSource, String sql) {
+        try {
+            DataSourceUtils.getConnection(dataSource).prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double routed(String target, String reason) {
+        return meterRegistry.get("myshop.datasource.routing").tag("target", target).tag("reason", reason)
+                .counter().count();
+    }
+}
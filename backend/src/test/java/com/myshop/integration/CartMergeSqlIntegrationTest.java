@@ -0,0 +1,76 @@
+package com.myshop.integration;
+
+import com.myshop.mapper.CartMapper;
+import com.myshop.repository.jpa.CartItemRepository;
+import com.myshop.repository.jpa.CartRepository;
+import com.myshop.repository.jpa.ProductRepository;
+import com.myshop.repository.jpa.UserRepository;
+import com.myshop.service.CartService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs CartService.mergeItems' unnest / ON CONFLICT statement against the
+ * real schema (Flyway migrations, seed data included).
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CartMergeSqlIntegrationTest {
+
+    private static final String EMAIL = "user@myshop.com"; // seeded by V2
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static CartService cartService;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        cartService = new CartService(mock(CartRepository.class), mock(CartItemRepository.class),
+                mock(ProductRepository.class), mock(UserRepository.class), mock(CartMapper.class), jdbcTemplate);
+    }
+
+    @Test
+    void mergeItems_SumsCapsAtStockAndSkipsInactiveOrUnknownProducts() {
+        List<UUID> products = jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE is_active ORDER BY sku LIMIT 3", UUID.class);
+        UUID inCart = products.get(0);
+        UUID fresh = products.get(1);
+        UUID inactive = products.get(2);
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 3 WHERE id = ?", inCart);
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 10 WHERE id = ?", fresh);
+        jdbcTemplate.update("UPDATE products SET is_active = false WHERE id = ?", inactive);
+
+        // The user's cart already holds 2 of inCart
+        cartService.mergeItems(EMAIL, Map.of(inCart, 2));
+        cartService.mergeItems(EMAIL, Map.of(inCart, 5, fresh, 4, inactive, 1, UUID.randomUUID(), 1));
+
+        Map<UUID, Integer> items = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT ci.product_id, ci.quantity FROM cart_items ci
+                JOIN carts c ON c.id = ci.cart_id JOIN users u ON u.id = c.user_id
+                WHERE u.email = ?
+                """, rs -> {
+            items.put(rs.getObject("product_id", UUID.class), rs.getInt("quantity"));
+        }, EMAIL);
+        assertThat(items).containsOnly(Map.entry(inCart, 3), Map.entry(fresh, 4));
+    }
+}
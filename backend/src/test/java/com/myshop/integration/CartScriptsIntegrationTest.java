@@ -0,0 +1,112 @@
+package com.myshop.integration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the cart Lua scripts against a real Redis. The service-level paths
+ * around them are in RedisCartServiceTest.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CartScriptsIntegrationTest {
+
+    private static final RedisScript<Long> HYDRATE =
+            RedisScript.of(new ClassPathResource("redis/cart_hydrate.lua"), Long.class);
+    private static final RedisScript<Long> CHECKOUT =
+            RedisScript.of(new ClassPathResource("redis/cart_checkout.lua"), Long.class);
+
+    private static final String CART = "cart:user:shopper@example.com";
+    private static final String DIRTY = "cart:dirty";
+    private static final String EMAIL = "shopper@example.com";
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+        redis.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        redis.delete(List.of(CART, DIRTY));
+    }
+
+    @Test
+    void hydrate_AddsStoredQuantityToAnIncrementThatHitTheExpiredKey() {
+        // The key expired after this request's hydrate; its HINCRBY recreated it
+        redis.opsForHash().increment(CART, "p1", 1);
+
+        Long loaded = redis.execute(HYDRATE, List.of(CART), "3600", "_user", "u1", "p1", "2", "p2", "5");
+
+        assertThat(loaded).isEqualTo(1);
+        assertThat(redis.opsForHash().entries(CART))
+                .containsEntry("p1", "3")
+                .containsEntry("p2", "5")
+                .containsEntry("_user", "u1")
+                .containsEntry("_loaded", "1");
+        assertThat(redis.getExpire(CART)).isPositive();
+    }
+
+    @Test
+    void hydrate_SecondConcurrentLoadChangesNothing() {
+        redis.execute(HYDRATE, List.of(CART), "3600", "p1", "2");
+
+        Long loaded = redis.execute(HYDRATE, List.of(CART), "3600", "p1", "2");
+
+        assertThat(loaded).isZero();
+        assertThat(redis.opsForHash().get(CART, "p1")).isEqualTo("2");
+    }
+
+    @Test
+    void checkout_DeletesOnlyItemsStillAtTheOrderedQuantity() {
+        redis.opsForHash().putAll(CART, Map.of("_loaded", "1", "p1", "2", "p2", "4", "p3", "1"));
+        redis.opsForSet().add(DIRTY, EMAIL);
+
+        // p2 went from 3 to 4 while the order was placed; p3 was added afterwards
+        Long remaining = redis.execute(CHECKOUT, List.of(CART, DIRTY), EMAIL, "p1", "2", "p2", "3");
+
+        assertThat(remaining).isEqualTo(2);
+        assertThat(redis.opsForHash().entries(CART)).containsOnlyKeys("_loaded", "p2", "p3");
+        assertThat(redis.opsForSet().isMember(DIRTY, EMAIL)).isTrue();
+    }
+
+    @Test
+    void checkout_EmptiedCartLeavesTheDirtySet() {
+        redis.opsForHash().putAll(CART, Map.of("_loaded", "1", "p1", "2"));
+        redis.opsForSet().add(DIRTY, EMAIL);
+
+        Long remaining = redis.execute(CHECKOUT, List.of(CART, DIRTY), EMAIL, "p1", "2");
+
+        assertThat(remaining).isZero();
+        assertThat(redis.opsForHash().entries(CART)).containsOnlyKeys("_loaded");
+        assertThat(redis.opsForSet().isMember(DIRTY, EMAIL)).isFalse();
+    }
+}
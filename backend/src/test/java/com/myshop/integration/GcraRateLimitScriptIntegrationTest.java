@@ -0,0 +1,81 @@
+package com.myshop.integration;
+
+import com.myshop.security.GcraRateLimiter;
+import com.myshop.security.RateLimitDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs redis/gcra_rate_limit.lua through GcraRateLimiter against a real
+ * Redis: the full burst, then a denial, then one slot back per interval.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class GcraRateLimitScriptIntegrationTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static GcraRateLimiter limiter;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        StringRedisTemplate redis = new StringRedisTemplate(connectionFactory);
+        redis.afterPropertiesSet();
+        limiter = new GcraRateLimiter(redis, 1000, new SimpleMeterRegistry());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void tryAcquire_AllowsTheBurstThenDeniesWithRetryAfter() {
+        String key = "test:" + UUID.randomUUID();
+
+        for (int i = 0; i < 10; i++) {
+            RateLimitDecision decision = limiter.tryAcquire(key, 10);
+            assertThat(decision.allowed()).isTrue();
+            assertThat(decision.remaining()).isEqualTo(9 - i);
+        }
+        RateLimitDecision denied = limiter.tryAcquire(key, 10);
+
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.remaining()).isZero();
+        // One slot every 6 s at 10/min
+        assertThat(denied.retryAfterSeconds()).isBetween(1L, 6L);
+        assertThat(denied.resetSeconds()).isBetween(55L, 60L);
+    }
+
+    @Test
+    void tryAcquire_RefillsOneSlotPerEmissionInterval() throws InterruptedException {
+        String key = "test:" + UUID.randomUUID();
+        // 600/min: one slot every 100 ms
+        for (int i = 0; i < 600; i++) {
+            limiter.tryAcquire(key, 600);
+        }
+        assertThat(limiter.tryAcquire(key, 600).allowed()).isFalse();
+
+        Thread.sleep(250);
+
+        assertThat(limiter.tryAcquire(key, 600).allowed()).isTrue();
+        assertThat(limiter.tryAcquire(key, 600).allowed()).isTrue();
+        assertThat(limiter.tryAcquire(key, 600).allowed()).isFalse();
+    }
+}
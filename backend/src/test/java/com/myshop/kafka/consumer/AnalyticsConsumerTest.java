@@ -0,0 +1,135 @@
+package com.myshop.kafka.consumer;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.myshop.kafka.event.OrderEvent;
+import com.myshop.model.document.AnalyticsRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnalyticsConsumerTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOps = mock(BulkOperations.class);
+    private final ConsumerRecordRecoverer recoverer = mock(ConsumerRecordRecoverer.class);
+    private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+    // Two retries, no waiting
+    private final AnalyticsConsumer consumer = new AnalyticsConsumer(mongoTemplate, recoverer, new FixedBackOff(0, 2));
+
+    /** The ids sent by each bulk insert, in call order. */
+    private final List<List<String>> inserts = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AnalyticsRecord.class)).thenReturn(bulkOps);
+        when(bulkOps.insert(anyList())).thenAnswer(invocation -> {
+            inserts.add(((List<AnalyticsRecord>) invocation.getArgument(0)).stream()
+                    .map(AnalyticsRecord::getId).toList());
+            return bulkOps;
+        });
+    }
+
+    @Test
+    void consume_RetriesOnlyFailedWritesAndDeadLettersWhatNeverGoesIn() {
+        List<ConsumerRecord<String, Object>> batch = List.of(
+                record(0, "stored"), record(1, "duplicate"), record(2, "flaky"), record(3, "rejected"),
+                record(4, null));
+        when(bulkOps.execute())
+                // positions 1 and 2 of {stored, duplicate, flaky, rejected}
+                .thenThrow(bulkFailure(error(11000, 1), error(91, 2), error(121, 3)))
+                // of {flaky, rejected}: flaky goes in now
+                .thenThrow(bulkFailure(error(121, 1)))
+                .thenThrow(bulkFailure(error(121, 0)));
+
+        consumer.consumeOrderPlacedForAnalytics(batch, acknowledgment);
+
+        assertThat(inserts).containsExactly(
+                List.of("stored", "duplicate", "flaky", "rejected"),
+                List.of("flaky", "rejected"),
+                List.of("rejected"));
+        ArgumentCaptor<ConsumerRecord<?, ?>> deadLettered = recordCaptor();
+        verify(recoverer, times(2)).accept(deadLettered.capture(), any());
+        assertThat(deadLettered.getAllValues()).containsExactly(batch.get(3), batch.get(4));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void consume_AllWrittenOrDuplicateIsAcknowledgedWithoutRetry() {
+        when(bulkOps.execute()).thenThrow(bulkFailure(error(11000, 0)));
+
+        consumer.consumeOrderPlacedForAnalytics(List.of(record(0, "again"), record(1, "new")), acknowledgment);
+
+        assertThat(inserts).hasSize(1);
+        verify(recoverer, never()).accept(any(), any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void consume_FailedDeadLetterPublishHandsTheRestToTheErrorHandler() {
+        List<ConsumerRecord<String, Object>> batch = List.of(record(0, null), record(1, "a"), record(2, null));
+        doThrow(new KafkaException("broker down")).when(recoverer).accept(eq(batch.get(2)), any());
+
+        assertThatThrownBy(() -> consumer.consumeOrderPlacedForAnalytics(batch, acknowledgment))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(2));
+        verify(recoverer).accept(eq(batch.get(0)), any());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<ConsumerRecord<?, ?>> recordCaptor() {
+        return ArgumentCaptor.forClass(ConsumerRecord.class);
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, String eventId) {
+        OrderEvent event = eventId == null ? null : OrderEvent.builder()
+                .eventId(eventId)
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .totalAmount(BigDecimal.TEN)
+                .build();
+        return new ConsumerRecord<>("order.placed", 0, offset, "key", event);
+    }
+
+    private static BulkWriteError error(int code, int index) {
+        return new BulkWriteError(code, "error " + code, new BsonDocument(), index);
+    }
+
+    private static BulkOperationException bulkFailure(BulkWriteError... errors) {
+        return new BulkOperationException("bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), Arrays.asList(errors), null, new ServerAddress()));
+    }
+}
@@ -0,0 +1,158 @@
+package com.myshop.kafka.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * When the guard answers from its Bloom filter and when it has to ask Redis,
+ * against a mocked Redis and a hand-driven clock.
+ */
+class IdempotencyGuardTest {
+
+    private static final String GROUP = "trending-service";
+    private static final String TOPIC = "order.placed";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final SetOperations<String, String> setOps = mock(SetOperations.class);
+    @SuppressWarnings("unchecked")
+    private final Cursor<String> members = mock(Cursor.class);
+    private final Consumer<?, ?> consumer = mock(Consumer.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final ConsumerRecord<String, String> record = new ConsumerRecord<>(TOPIC, 0, 0L, "key", "value");
+
+    private IdempotencyGuard guard;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        guard = new IdempotencyGuard(redisTemplate, meterRegistry, 1, 1_000, 0.01, clock::get);
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata(GROUP));
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(setOps.scan(anyString(), any(ScanOptions.class))).thenReturn(members);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(false, false));
+    }
+
+    @Test
+    void isDuplicate_SeededPartitionAnswersNewEventsWithoutRedis() {
+        guard.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        assertThat(guard.isDuplicate(GROUP, record, "new-event")).isFalse();
+
+        verifyNoPipeline();
+        assertThat(checks("bloom_negative")).isEqualTo(1);
+    }
+
+    @Test
+    void isDuplicate_UnseededPartitionAsksRedis() {
+        assertThat(guard.isDuplicate(GROUP, record, "new-event")).isFalse();
+
+        verifyPipeline();
+        assertThat(checks("redis_negative")).isEqualTo(1);
+        assertThat(checks("bloom_negative")).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void isDuplicate_SeededIdIsConfirmedInRedis() {
+        when(members.hasNext()).thenReturn(true, false);
+        when(members.next()).thenReturn("seen");
+        guard.onPartitionsAssigned(consumer, List.of(PARTITION));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(true, false));
+
+        assertThat(guard.isDuplicate(GROUP, record, "seen")).isTrue();
+
+        assertThat(checks("duplicate")).isEqualTo(1);
+    }
+
+    @Test
+    void onPartitionsRevokedAfterCommit_ForgetsTheSeeding() {
+        guard.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        guard.onPartitionsRevokedAfterCommit(consumer, List.of(PARTITION));
+        guard.isDuplicate(GROUP, record, "new-event");
+
+        verifyPipeline();
+        assertThat(checks("redis_negative")).isEqualTo(1);
+    }
+
+    @Test
+    void onPartitionsLost_ForgetsTheSeeding() {
+        guard.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        guard.onPartitionsLost(consumer, List.of(PARTITION));
+        guard.isDuplicate(GROUP, record, "new-event");
+
+        verifyPipeline();
+        assertThat(checks("redis_negative")).isEqualTo(1);
+    }
+
+    @Test
+    void isDuplicate_MarkedIdLeavesTheFilterAfterTwoWindows() {
+        guard.onPartitionsAssigned(consumer, List.of(PARTITION));
+        guard.markProcessed(GROUP, record, "old-event");
+
+        // One window on it sits in the previous generation: still a "maybe"
+        clock.addAndGet(Duration.ofHours(1).toNanos());
+        guard.isDuplicate(GROUP, record, "old-event");
+        assertThat(checks("redis_negative")).isEqualTo(1);
+
+        // Two windows on both generations have rotated past it
+        clock.addAndGet(Duration.ofHours(1).toNanos());
+        guard.isDuplicate(GROUP, record, "old-event");
+        assertThat(checks("bloom_negative")).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markProcessed_SwallowsRedisFailures() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new QueryTimeoutException("redis down"));
+
+        assertThatCode(() -> guard.markProcessed(GROUP, record, "event")).doesNotThrowAnyException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyPipeline() {
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyNoPipeline() {
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    private double checks(String result) {
+        Counter counter = meterRegistry.find("myshop.kafka.idempotency.checks")
+                .tags("group", GROUP, "result", result)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,213 @@
+package com.myshop.kafka.parallel;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedDispatcherTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("order.placed", 0);
+
+    private final List<ConsumerRecord<?, ?>> deadLettered = Collections.synchronizedList(new ArrayList<>());
+    /** How many DLT publishes fail before one succeeds. */
+    private final AtomicInteger failingPublishes = new AtomicInteger();
+    private final AtomicInteger publishAttempts = new AtomicInteger();
+    private final KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher((record, e) -> {
+        publishAttempts.incrementAndGet();
+        if (failingPublishes.getAndDecrement() > 0) {
+            throw new KafkaException("broker down");
+        }
+        deadLettered.add(record);
+    }, new FixedBackOff(0, 1), new FixedBackOff(5, FixedBackOff.UNLIMITED_ATTEMPTS), 100, Duration.ofSeconds(1));
+    private final MockConsumer<String, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    void keepsKeyOrderWhileOtherKeysOvertake() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        Map<String, List<Long>> seen = new ConcurrentHashMap<>();
+        consumer.assign(List.of(PARTITION));
+
+        dispatcher.dispatch(List.of(record(0, "u1"), record(1, "u2"), record(2, "u1"), record(3, "u2")), consumer,
+                record -> {
+                    if (record.offset() == 0) {
+                        slowStarted.countDown();
+                        releaseSlow.await();
+                    }
+                    seen.computeIfAbsent(record.key(), k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(record.offset());
+                });
+
+        slowStarted.await();
+        awaitUntil(() -> seen.getOrDefault("u2", List.of()).size() == 2);
+        // u2 finished behind a stuck u1, but u1's second record waits for its first
+        assertThat(seen.get("u2")).containsExactly(1L, 3L);
+        assertThat(seen).doesNotContainKey("u1");
+
+        releaseSlow.countDown();
+        awaitUntil(() -> seen.getOrDefault("u1", List.of()).size() == 2);
+        assertThat(seen.get("u1")).containsExactly(0L, 2L);
+    }
+
+    @Test
+    void commitsOnlyUpToTheLowestUnfinishedOffset() throws Exception {
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        Set<Long> done = ConcurrentHashMap.newKeySet();
+        consumer.assign(List.of(PARTITION));
+
+        dispatcher.dispatch(List.of(record(0, "u1"), record(1, "u2"), record(2, "u3")), consumer, record -> {
+            if (record.offset() == 1) {
+                releaseSlow.await();
+            }
+            done.add(record.offset());
+        });
+        awaitUntil(() -> done.containsAll(Set.of(0L, 2L)));
+
+        dispatcher.commit(consumer);
+        assertThat(committed()).isEqualTo(1);
+
+        releaseSlow.countDown();
+        awaitUntil(() -> done.contains(1L));
+        awaitUntil(() -> {
+            dispatcher.commit(consumer);
+            return committed() == 3;
+        });
+    }
+
+    @Test
+    void deadLettersARecordOnceRetriesAreExhaustedAndMovesOn() throws Exception {
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        consumer.assign(List.of(PARTITION));
+
+        dispatcher.dispatch(List.of(record(0, "u1"), record(1, "u1")), consumer, record -> {
+            handled.add(record.offset());
+            if (record.offset() == 0) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        awaitUntil(() -> handled.contains(1L));
+        // One attempt plus one retry, then the DLT, then the next record of the key
+        assertThat(handled).containsExactly(0L, 0L, 1L);
+        assertThat(deadLettered).extracting(ConsumerRecord::offset).containsExactly(0L);
+        awaitUntil(() -> {
+            dispatcher.commit(consumer);
+            return committed() == 2;
+        });
+    }
+
+    @Test
+    void repeatsAFailedDeadLetterPublishInTheLaneUntilItWorks() throws Exception {
+        failingPublishes.set(2);
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        consumer.assign(List.of(PARTITION));
+
+        dispatcher.dispatch(List.of(record(0, "u1"), record(1, "u1")), consumer, record -> {
+            handled.add(record.offset());
+            if (record.offset() == 0) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        awaitUntil(() -> handled.contains(1L));
+        assertThat(publishAttempts).hasValue(3);
+        assertThat(deadLettered).extracting(ConsumerRecord::offset).containsExactly(0L);
+        awaitUntil(() -> {
+            dispatcher.commit(consumer);
+            return committed() == 2;
+        });
+    }
+
+    @Test
+    void stopsRepeatingTheDeadLetterPublishOnceThePartitionIsLost() throws Exception {
+        failingPublishes.set(Integer.MAX_VALUE);
+        consumer.assign(List.of(PARTITION));
+        dispatcher.dispatch(List.of(record(0, "u1")), consumer, record -> {
+            throw new IllegalStateException("boom");
+        });
+        awaitUntil(() -> publishAttempts.get() >= 2);
+
+        dispatcher.onPartitionsLost(consumer, List.of(PARTITION));
+        Thread.sleep(30);
+        int attempts = publishAttempts.get();
+        Thread.sleep(50);
+
+        assertThat(publishAttempts).hasValue(attempts);
+    }
+
+    @Test
+    void sendsAFailedCommitAgain() throws Exception {
+        AtomicBoolean failNextCommitOfOne = new AtomicBoolean(true);
+        MockConsumer<String, Object> flakyConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets,
+                    OffsetCommitCallback callback) {
+                if (offsets.get(PARTITION).offset() == 1 && failNextCommitOfOne.getAndSet(false)) {
+                    callback.onComplete(offsets, new RetriableCommitFailedException("coordinator moved"));
+                    return;
+                }
+                super.commitAsync(offsets, callback);
+            }
+        };
+        flakyConsumer.assign(List.of(PARTITION));
+        Set<Long> done = ConcurrentHashMap.newKeySet();
+
+        dispatcher.dispatch(List.of(record(0, "u1")), flakyConsumer, record -> done.add(record.offset()));
+        awaitUntil(() -> done.contains(0L));
+
+        awaitUntil(() -> {
+            dispatcher.commit(flakyConsumer);
+            var offset = flakyConsumer.committed(Set.of(PARTITION)).get(PARTITION);
+            return offset != null && offset.offset() == 1;
+        });
+        assertThat(failNextCommitOfOne).isFalse();
+    }
+
+    private long committed() {
+        var offset = consumer.committed(Set.of(PARTITION)).get(PARTITION);
+        return offset == null ? -1 : offset.offset();
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, String key) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, key, "event-" + offset);
+    }
+
+    private interface Condition {
+        boolean met() throws Exception;
+    }
+
+    private static void awaitUntil(Condition condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.met()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
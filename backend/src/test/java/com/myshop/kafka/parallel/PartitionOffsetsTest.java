@@ -0,0 +1,40 @@
+package com.myshop.kafka.parallel;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionOffsetsTest {
+
+    @Test
+    void commitPointIsTheLowestPendingOffset() {
+        PartitionOffsets offsets = new PartitionOffsets();
+        for (long offset = 10; offset <= 13; offset++) {
+            offsets.dispatched(offset);
+        }
+
+        offsets.completed(10);
+        offsets.completed(12);
+        offsets.completed(13);
+        assertThat(offsets.committable()).isEqualTo(11);
+
+        offsets.completed(11);
+        assertThat(offsets.committable()).isEqualTo(14);
+        assertThat(offsets.pendingCount()).isZero();
+    }
+
+    @Test
+    void reportsNothingUntilTheCommitPointMoves() {
+        PartitionOffsets offsets = new PartitionOffsets();
+        assertThat(offsets.committable()).isEqualTo(-1);
+
+        offsets.dispatched(0);
+        offsets.dispatched(1);
+        offsets.completed(1);
+        offsets.markCommitted(offsets.committable());
+        assertThat(offsets.committable()).isEqualTo(-1);
+
+        offsets.completed(0);
+        assertThat(offsets.committable()).isEqualTo(2);
+    }
+}
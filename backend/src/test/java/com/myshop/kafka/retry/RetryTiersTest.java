@@ -0,0 +1,73 @@
+package com.myshop.kafka.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.retrytopic.DestinationTopic;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RetryTiersTest {
+
+    private final RetryTiers tiers = new RetryTiers(1_000, 30, 300_000, 4, 0.2);
+
+    @Test
+    void delays_GrowExponentiallyUpToCap() {
+        assertThat(tiers.delaysMs()).containsExactly(1_000L, 30_000L, 300_000L);
+        assertThat(tiers.delaysMs().stream().map(RetryTiers::label)).containsExactly("1s", "30s", "5m");
+        assertThat(RetryTiers.label(1_500)).isEqualTo("1500ms");
+    }
+
+    @Test
+    void constructor_RejectsTiersThatWouldShareATopic() {
+        // 1s, 30s, 5m, then 15m capped back to 5m
+        assertThatThrownBy(() -> new RetryTiers(1_000, 30, 300_000, 5, 0.2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("5m");
+        assertThatThrownBy(() -> new RetryTiers(1_000, 1, 300_000, 3, 0.2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void nextDelay_FollowsTierOfFailedTopic() {
+        assertThat(tiers.nextDelayMs("order.placed")).isEqualTo(1_000);
+        assertThat(tiers.nextDelayMs("order.placed.notification.retry-1s")).isEqualTo(30_000);
+        assertThat(tiers.nextDelayMs("order.placed.notification.retry-30s")).isEqualTo(300_000);
+        assertThat(tiers.nextDelayMs("order.placed.notification.retry-5m")).isEqualTo(300_000);
+
+        assertThat(RetryTiers.tierOf("order.placed")).isEqualTo(RetryTiers.MAIN);
+        assertThat(RetryTiers.tierOf("order.placed.DLT")).isEqualTo(RetryTiers.DLT);
+    }
+
+    @Test
+    void jitteredDueTimestamp_StaysWithinJitterOfDelay() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 1_000; i++) {
+            long due = tiers.jitteredDueTimestamp("order.placed.notification.retry-1s", 0, random);
+            assertThat(due).isBetween(30_000L, 36_000L);
+        }
+    }
+
+    @Test
+    void namesProvider_NamesRetryTopicsByDelay() {
+        TieredRetryTopicNamesProviderFactory factory = new TieredRetryTopicNamesProviderFactory();
+
+        assertThat(factory.createRetryTopicNamesProvider(properties(true, 30_000, ".notification.retry-1"))
+                .getTopicName("order.placed"))
+                .isEqualTo("order.placed.notification.retry-30s");
+        assertThat(factory.createRetryTopicNamesProvider(properties(false, 0, ".DLT"))
+                .getTopicName("order.placed"))
+                .isEqualTo("order.placed.DLT");
+    }
+
+    private static DestinationTopic.Properties properties(boolean retry, long delay, String suffix) {
+        DestinationTopic.Properties properties = mock(DestinationTopic.Properties.class);
+        when(properties.isRetryTopic()).thenReturn(retry);
+        when(properties.delay()).thenReturn(delay);
+        when(properties.suffix()).thenReturn(suffix);
+        return properties;
+    }
+}
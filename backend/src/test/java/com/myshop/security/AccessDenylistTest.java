@@ -0,0 +1,102 @@
+package com.myshop.security;
+
+import com.myshop.constants.CacheKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessDenylistTest {
+
+    private static final long EXPIRY_MS = 900_000;
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ZSetOperations<String, String> zSetOps = mock(ZSetOperations.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_500L);
+
+    private final UUID revoked = UUID.randomUUID();
+    private final UUID disabled = UUID.randomUUID();
+
+    private AccessDenylist denylist;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        denylist = new AccessDenylist(redisTemplate, jdbcTemplate, EXPIRY_MS, clock::get);
+    }
+
+    @Test
+    void revoke_RefusesTokensUpToTheRevocationButNotALoginInTheSameSecond() {
+        long revokedAt = clock.get();
+
+        denylist.revoke(revoked);
+
+        verify(zSetOps).add(CacheKeys.AUTH_REVOKED, revoked.toString(), revokedAt);
+        assertThat(denylist.isDenied(user(revoked, revokedAt - 400))).isTrue();
+        assertThat(denylist.isDenied(user(revoked, revokedAt))).isTrue();
+        // Logged in again 100 ms later, still within the same wall-clock second
+        assertThat(denylist.isDenied(user(revoked, revokedAt + 100))).isFalse();
+        assertThat(denylist.isDenied(user(UUID.randomUUID(), revokedAt - 400))).isFalse();
+    }
+
+    @Test
+    void sync_PrunesExpiredRevocationsAndDeniesDisabledUsersForever() {
+        long now = clock.get();
+        long revokedAt = now - 60_000;
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class))).thenReturn(List.of(disabled));
+        when(zSetOps.rangeWithScores(CacheKeys.AUTH_REVOKED, 0, -1))
+                .thenReturn(Set.of(new DefaultTypedTuple<>(revoked.toString(), (double) revokedAt)));
+
+        denylist.sync();
+
+        verify(zSetOps).removeRangeByScore(CacheKeys.AUTH_REVOKED, Double.NEGATIVE_INFINITY,
+                now - EXPIRY_MS - 1);
+        assertThat(denylist.isDenied(user(disabled, now))).isTrue();
+        assertThat(denylist.isDenied(user(revoked, revokedAt))).isTrue();
+        assertThat(denylist.isDenied(user(revoked, revokedAt + 1))).isFalse();
+    }
+
+    @Test
+    void sync_DropsLocalRevocationsNoLongerInRedis() {
+        denylist.revoke(revoked);
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class))).thenReturn(List.of());
+        when(zSetOps.rangeWithScores(CacheKeys.AUTH_REVOKED, 0, -1)).thenReturn(Set.of());
+
+        denylist.sync();
+
+        assertThat(denylist.isDenied(user(revoked, clock.get()))).isFalse();
+    }
+
+    @Test
+    void sync_FailureKeepsThePreviousList() {
+        denylist.revoke(revoked);
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class)))
+                .thenThrow(new QueryTimeoutException("db down"));
+
+        denylist.sync();
+
+        assertThat(denylist.isDenied(user(revoked, clock.get()))).isTrue();
+    }
+
+    private static AuthenticatedUser user(UUID id, long issuedAtMs) {
+        return new AuthenticatedUser(id, "user@example.com", "USER", Instant.ofEpochMilli(issuedAtMs));
+    }
+}
@@ -0,0 +1,80 @@
+package com.myshop.security;
+
+import com.myshop.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ThreadPoolTaskExecutor executor = executor(1, 2);
+    private final BoundedPasswordEncoder encoder =
+            new BoundedPasswordEncoder(new BCryptPasswordEncoder(6), executor, registry);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_RunOnPoolAndAreTimed() {
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(registry.get("myshop.auth.password.hash").tag("operation", "matches").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("myshop.auth.password.queue.wait").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void encode_RejectedWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release)); // occupies the only thread
+        executor.execute(() -> awaitQuietly(release)); // queue: 1 of 2
+        executor.execute(() -> awaitQuietly(release)); // queue: 2 of 2
+
+        try {
+            assertThatThrownBy(() -> encoder.encode("secret"))
+                    .isInstanceOf(ServiceOverloadedException.class);
+            assertThat(registry.get("myshop.auth.password.rejected").counter().count()).isEqualTo(1);
+            // No headroom: an outdated hash is left for a quieter login
+            assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isFalse();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void upgradeEncoding_TrueForLowerCostHashWhenIdle() {
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret"))).isFalse();
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.myshop.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reply mapping and the Redis-down fallback. The GCRA script itself (burst,
+ * refill) runs against a real Redis in GcraRateLimitScriptIntegrationTest.
+ */
+class GcraRateLimiterTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GcraRateLimiter limiter = new GcraRateLimiter(redisTemplate, 1000, meterRegistry);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryAcquire_MapsTheScriptReplyAndRoundsMicrosUp() {
+        // 60/min: one request per second, sent as a 1_000_000 µs emission interval
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("rate_limit:gcra:api:ip:1.2.3.4")),
+                eq("1000000"), eq("60")))
+                .thenReturn(List.of(0L, 0L, 1_500_000L, 59_000_001L));
+
+        RateLimitDecision decision = limiter.tryAcquire("api:ip:1.2.3.4", 60);
+
+        assertThat(decision).isEqualTo(new RateLimitDecision(false, 60, 0, 2, 60));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryAcquire_RedisFailureFallsBackToLocalLimiting() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("NOAUTH Authentication required"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("auth:ip:1.2.3.4", 3).allowed()).isTrue();
+        }
+        RateLimitDecision denied = limiter.tryAcquire("auth:ip:1.2.3.4", 3);
+
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.retryAfterSeconds()).isPositive();
+        assertThat(meterRegistry.get("myshop.rate-limit.fallback").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void tryAcquire_RejectsALimitBelowOne() {
+        assertThatThrownBy(() -> limiter.tryAcquire("api:ip:1.2.3.4", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package com.myshop.security;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GuestCartTokenServiceTest {
+
+    private final GuestCartTokenService tokens = new GuestCartTokenService("test-secret-test-secret-test-secret");
+
+    @Test
+    void verify_ReturnsCartIdOfIssuedToken() {
+        UUID cartId = UUID.randomUUID();
+
+        assertThat(tokens.verify(tokens.issue(cartId))).contains(cartId);
+    }
+
+    @Test
+    void verify_RejectsForgedAndMalformedTokens() {
+        String token = tokens.issue(UUID.randomUUID());
+        String otherId = tokens.issue(UUID.randomUUID()).split("\\.")[0];
+
+        assertThat(tokens.verify(otherId + token.substring(token.indexOf('.')))).isEmpty();
+        assertThat(tokens.verify(new GuestCartTokenService("another-secret-another-secret").issue(UUID.randomUUID())))
+                .isEmpty();
+        assertThat(tokens.verify("not-a-token")).isEmpty();
+        assertThat(tokens.verify("%%%.###")).isEmpty();
+        assertThat(tokens.verify(null)).isEmpty();
+    }
+
+    @Test
+    void signature_IsNotKeyedWithTheRawSecret() throws Exception {
+        // What an HMAC keyed directly with the (possibly shared JWT) secret would produce
+        UUID cartId = UUID.randomUUID();
+        Mac raw = Mac.getInstance("HmacSHA256");
+        raw.init(new SecretKeySpec("test-secret-test-secret-test-secret".getBytes(StandardCharsets.UTF_8),
+                "HmacSHA256"));
+        byte[] id = ByteBuffer.allocate(16)
+                .putLong(cartId.getMostSignificantBits())
+                .putLong(cartId.getLeastSignificantBits())
+                .array();
+        String rawSigned = Base64.getUrlEncoder().withoutPadding().encodeToString(id) + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(raw.doFinal(id));
+
+        assertThat(tokens.issue(cartId)).isNotEqualTo(rawSigned);
+        assertThat(tokens.verify(rawSigned)).isEmpty();
+    }
+
+    @Test
+    void hkdfSha256_MatchesRfc5869TestCase1() {
+        HexFormat hex = HexFormat.of();
+        byte[] okm = GuestCartTokenService.hkdfSha256(hex.parseHex("0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b"),
+                hex.parseHex("000102030405060708090a0b0c"), hex.parseHex("f0f1f2f3f4f5f6f7f8f9"), 42);
+
+        assertThat(hex.formatHex(okm)).isEqualTo("3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf"
+                + "34007208d5b887185865");
+    }
+}
@@ -0,0 +1,59 @@
+package com.myshop.security;
+
+import com.myshop.model.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret";
+
+    private final JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 120_000, 100);
+
+    @Test
+    void parseAccessToken_BuildsPrincipalFromClaims() {
+        User user = User.builder().id(UUID.randomUUID()).email("admin@example.com").role("ADMIN").build();
+
+        AuthenticatedUser principal = provider.parseAccessToken(provider.generateAccessToken(user)).orElseThrow();
+
+        assertThat(principal.id()).isEqualTo(user.getId());
+        assertThat(principal.email()).isEqualTo("admin@example.com");
+        assertThat(principal.issuedAt()).isNotNull();
+        assertThat(principal.authorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void parseAccessToken_IssuedAtKeepsMilliseconds() {
+        User user = User.builder().id(UUID.randomUUID()).email("user@example.com").role("USER").build();
+        Instant before = Instant.now();
+
+        AuthenticatedUser principal = provider.parseAccessToken(provider.generateAccessToken(user)).orElseThrow();
+
+        // Whole-second "iat" would land before this almost every time
+        assertThat(principal.issuedAt()).isBetween(before.truncatedTo(ChronoUnit.MILLIS), Instant.now());
+    }
+
+    @Test
+    void parseAccessToken_RejectsRefreshAndForeignTokens() {
+        User user = User.builder().id(UUID.randomUUID()).email("user@example.com").role("USER").build();
+        JwtTokenProvider other = new JwtTokenProvider("another-secret-another-secret-another", 60_000, 120_000, 100);
+
+        assertThat(provider.parseAccessToken(provider.generateRefreshToken("user@example.com"))).isEmpty();
+        assertThat(provider.parseAccessToken(other.generateAccessToken(user))).isEmpty();
+        assertThat(provider.parseAccessToken("not-a-token")).isEmpty();
+    }
+
+    @Test
+    void verify_ServesRepeatsFromCacheAndSkipsInvalidTokens() {
+        String token = provider.generateRefreshToken("user@example.com");
+
+        assertThat(provider.verify(token)).get().isSameAs(provider.verify(token).orElseThrow());
+        assertThat(provider.verify(token.substring(0, token.length() - 2))).isEmpty();
+        assertThat(provider.verify(null)).isEmpty();
+    }
+}
@@ -0,0 +1,138 @@
+package com.myshop.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * The background reconciliation against a mocked pipeline: what each node
+ * reports, how the replies are matched back to their buckets, and what
+ * happens to the counts when Redis is down. The bucket arithmetic itself is
+ * in TokenBucketTest.
+ */
+class LocalRateLimiterTest {
+
+    private static final int LIMIT = 10;
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+    private final RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+
+    /** Per sync: rate-limited key → INCRBY amount, in pipeline order. */
+    private final List<Map<String, Long>> reported = new ArrayList<>();
+    /** What other nodes have already added to each key's current window. */
+    private final Map<String, Long> otherNodes = new HashMap<>();
+    /** Redis window key → its total, as INCRBY would keep it. */
+    private final Map<String, Long> windowTotals = new HashMap<>();
+    private boolean redisDown;
+
+    private LocalRateLimiter limiter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        limiter = new LocalRateLimiter(redisTemplate, 1_000);
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            if (redisDown) {
+                throw new RedisConnectionFailureException("down");
+            }
+            Map<String, Long> increments = new LinkedHashMap<>();
+            List<Object> replies = new ArrayList<>();
+            when(stringCommands.incrBy(any(byte[].class), anyLong())).thenAnswer(incrBy -> {
+                String windowKey = new String(incrBy.getArgument(0, byte[].class), StandardCharsets.UTF_8);
+                String key = windowKey.substring("rate_limit:".length(), windowKey.lastIndexOf(':'));
+                long count = incrBy.getArgument(1, Long.class);
+                increments.put(key, count);
+                // INCRBY's new window total, then EXPIRE's flag, per key in the order sent
+                replies.add(windowTotals.merge(windowKey, otherNodes.getOrDefault(key, 0L) + count,
+                        (total, ignored) -> total + count));
+                replies.add(true);
+                return null;
+            });
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            reported.add(increments);
+            return replies;
+        });
+    }
+
+    @Test
+    void sync_ReportsOwnCountsAndChargesEachBucketForOtherNodes() {
+        consume("alice", 3);
+        consume("bob", 1);
+        otherNodes.put("alice", 5L);
+
+        limiter.sync();
+
+        assertThat(reported).containsExactly(Map.of("alice", 3L, "bob", 1L));
+        verify(keyCommands, times(2)).expire(any(byte[].class), eq(120L));
+        // alice: 3 here + 5 elsewhere of 10; bob only pays for bob's own request
+        assertThat(limiter.tryAcquire("alice", LIMIT).remaining()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("bob", LIMIT).remaining()).isEqualTo(8);
+    }
+
+    @Test
+    void sync_OtherNodesTrafficIsChargedOnlyOnce() {
+        consume("alice", 1);
+        otherNodes.put("alice", 4L);
+        limiter.sync();
+
+        consume("alice", 1);
+        limiter.sync();
+
+        // 2 here + 4 elsewhere, not 2 + 4 + 4
+        assertThat(limiter.tryAcquire("alice", LIMIT).remaining()).isEqualTo(3);
+    }
+
+    @Test
+    void sync_NothingConsumedSkipsRedis() {
+        limiter.sync();
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void sync_FailedPipelineKeepsTheCountsForTheNextSync() {
+        consume("alice", 3);
+        redisDown = true;
+        limiter.sync();
+
+        consume("alice", 1);
+        redisDown = false;
+        limiter.sync();
+
+        assertThat(reported).containsExactly(Map.of("alice", 4L));
+        // Enforced locally all along: 4 of 10 used
+        assertThat(limiter.tryAcquire("alice", LIMIT).remaining()).isEqualTo(5);
+    }
+
+    private void consume(String key, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertThat(limiter.tryAcquire(key, LIMIT).allowed()).isTrue();
+        }
+    }
+}
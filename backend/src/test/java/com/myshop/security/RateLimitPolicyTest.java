@@ -0,0 +1,35 @@
+package com.myshop.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitPolicyTest {
+
+    @Test
+    void resolve_SpecificGroupsWinOverTheApiCatchAll() {
+        assertThat(RateLimitPolicy.resolve("POST", "/api/v1/auth/login")).isEqualTo(RateLimitPolicy.AUTH);
+        assertThat(RateLimitPolicy.resolve("POST", "/api/v1/orders")).isEqualTo(RateLimitPolicy.CHECKOUT);
+        assertThat(RateLimitPolicy.resolve("DELETE", "/api/v1/cart/items/1")).isEqualTo(RateLimitPolicy.CHECKOUT);
+        assertThat(RateLimitPolicy.resolve("GET", "/api/v1/products/42")).isEqualTo(RateLimitPolicy.CATALOG);
+        assertThat(RateLimitPolicy.resolve("GET", "/api/v1/users/me")).isEqualTo(RateLimitPolicy.API);
+    }
+
+    @Test
+    void resolve_CatalogOnlyCoversReads() {
+        assertThat(RateLimitPolicy.resolve("get", "/api/v1/categories")).isEqualTo(RateLimitPolicy.CATALOG);
+        assertThat(RateLimitPolicy.resolve("POST", "/api/v1/products")).isEqualTo(RateLimitPolicy.API);
+    }
+
+    @Test
+    void resolve_PathsOutsideTheApiAreNotLimited() {
+        assertThat(RateLimitPolicy.resolve("GET", "/actuator/health")).isNull();
+        assertThat(RateLimitPolicy.resolve("GET", "/")).isNull();
+    }
+
+    @Test
+    void perIpOnly_OnlyForAuth() {
+        assertThat(RateLimitPolicy.values()).filteredOn(RateLimitPolicy::perIpOnly)
+                .containsExactly(RateLimitPolicy.AUTH);
+    }
+}
@@ -0,0 +1,73 @@
+package com.myshop.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimitingFilterTest {
+
+    private final RateLimiter rateLimiter = mock(RateLimiter.class);
+    private final JwtTokenProvider jwtTokenProvider = mock(JwtTokenProvider.class);
+    private final AccessDenylist accessDenylist = mock(AccessDenylist.class);
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private final AuthenticatedUser user =
+            new AuthenticatedUser(UUID.randomUUID(), "shopper@example.com", "USER", Instant.now());
+
+    @BeforeEach
+    void setUp() {
+        when(rateLimiter.tryAcquire(anyString(), anyInt())).thenReturn(new RateLimitDecision(true, 1, 1, 0, 0));
+        when(jwtTokenProvider.parseAccessToken("token")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void doFilter_ChargesAValidTokenToItsUser() throws Exception {
+        filter().doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(rateLimiter).tryAcquire("api:user:" + user.id(), 200);
+    }
+
+    @Test
+    void doFilter_RevokedTokenIsChargedToTheCallersIp() throws Exception {
+        when(accessDenylist.isDenied(user)).thenReturn(true);
+
+        filter().doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(rateLimiter).tryAcquire("api:ip:10.0.0.7", 100);
+    }
+
+    @Test
+    void constructor_RefusesALimitBelowOne() {
+        environment.setProperty("myshop.rate-limit.policies.checkout.user-per-minute", "0");
+
+        assertThatThrownBy(this::filter)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("myshop.rate-limit.policies.checkout.user-per-minute");
+    }
+
+    private RateLimitingFilter filter() {
+        return new RateLimitingFilter(rateLimiter, jwtTokenProvider, accessDenylist, new ObjectMapper(), environment);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        request.setRemoteAddr("10.0.0.7");
+        request.addHeader("Authorization", "Bearer token");
+        return request;
+    }
+}
@@ -0,0 +1,63 @@
+package com.myshop.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryConsume_AllowsBurstUpToCapacityThenRefills() {
+        TokenBucket bucket = new TokenBucket(60, 0); // one token per second
+
+        for (int i = 0; i < 60; i++) {
+            assertThat(bucket.tryConsume(0)).isTrue();
+        }
+        assertThat(bucket.tryConsume(0)).isFalse();
+        assertThat(bucket.nanosUntilToken(0)).isEqualTo(SECOND);
+
+        assertThat(bucket.tryConsume(SECOND)).isTrue();
+        assertThat(bucket.tryConsume(SECOND)).isFalse();
+        assertThat(bucket.remaining(10 * SECOND)).isEqualTo(9);
+        // 51 tokens short of a full bucket at one per second
+        assertThat(bucket.nanosUntilFull(10 * SECOND)).isCloseTo(51 * SECOND, within(1L));
+    }
+
+    @Test
+    void drainPending_ReportsEachConsumptionOnce() {
+        TokenBucket bucket = new TokenBucket(10, 0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        assertThat(bucket.drainPending()).isEqualTo(2);
+        assertThat(bucket.drainPending()).isZero();
+
+        bucket.restorePending(2);
+        assertThat(bucket.drainPending()).isEqualTo(2);
+    }
+
+    @Test
+    void applyGlobalCount_DebitsOnlyWhatOtherNodesConsumed() {
+        TokenBucket bucket = new TokenBucket(10, 0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryConsume(0);
+        }
+
+        // We reported 3; the window total of 7 means other nodes took 4
+        bucket.applyGlobalCount(100, bucket.drainPending(), 7);
+        assertThat(bucket.remaining(0)).isEqualTo(3);
+
+        // Nothing new from us, others took 1 more: only that 1 is debited
+        bucket.applyGlobalCount(100, 0, 8);
+        assertThat(bucket.remaining(0)).isEqualTo(2);
+
+        // A new window starts from scratch and never drives the bucket below zero
+        bucket.applyGlobalCount(101, 0, 50);
+        assertThat(bucket.remaining(0)).isZero();
+    }
+}
@@ -0,0 +1,164 @@
+package com.myshop.service;
+
+import com.myshop.dto.response.CacheWarmingStatusResponse;
+import com.myshop.dto.response.ProductResponse;
+import com.myshop.mapper.ProductMapper;
+import com.myshop.model.document.EntityCountResult;
+import com.myshop.model.entity.Product;
+import com.myshop.repository.jpa.OrderItemRepository;
+import com.myshop.repository.jpa.ProductRepository;
+import com.myshop.repository.mongo.ProductViewStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Candidate ranking and the one-node-per-deploy lock, with repositories,
+ * Redisson and both executors mocked (tasks run on the calling thread).
+ */
+class CacheWarmingServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final ProductViewStatsRepository productViewStatsRepository = mock(ProductViewStatsRepository.class);
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+    private final ProductCacheService productCacheService = mock(ProductCacheService.class);
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+    private final RLock lock = mock(RLock.class);
+
+    private final UUID viewed = UUID.randomUUID();
+    private final UUID bought = UUID.randomUUID();
+    private final UUID both = UUID.randomUUID();
+
+    private CacheWarmingService service;
+
+    @BeforeEach
+    void setUp() {
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        service = new CacheWarmingService(productRepository, orderItemRepository, productViewStatsRepository,
+                productMapper, productCacheService, redissonClient, executor, executor);
+        ReflectionTestUtils.setField(service, "topN", 200);
+        ReflectionTestUtils.setField(service, "lookbackDays", 7);
+        ReflectionTestUtils.setField(service, "purchaseWeight", 5);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        when(redissonClient.getLock("lock:cache-warming")).thenReturn(lock);
+    }
+
+    @Test
+    void selectCandidates_RanksViewsPlusWeightedPurchases() {
+        when(productViewStatsRepository.findTopViewedSince(any(Instant.class), anyInt())).thenReturn(List.of(
+                views(viewed.toString(), 30),
+                views(both.toString(), 10),
+                views("not-a-uuid", 99)));
+        when(orderItemRepository.findTopSellingSince(any(Instant.class), any(Pageable.class))).thenReturn(List.of(
+                sold(both, 5),
+                sold(bought, 1)));
+
+        // both: 10 views + 5 units × 5 = 35; viewed: 30; bought: 1 unit × 5 = 5
+        assertThat(service.selectCandidates()).containsExactly(both, viewed, bought);
+        verify(productRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void selectCandidates_NoActivityFallsBackToNewestProducts() {
+        Product newest = Product.builder().id(UUID.randomUUID()).build();
+        when(productRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(newest)));
+
+        assertThat(service.selectCandidates()).containsExactly(newest.getId());
+
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(productRepository).findAll(page.capture());
+        assertThat(page.getValue().getPageSize()).isEqualTo(200);
+        assertThat(page.getValue().getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    @Test
+    void startWarming_LockHeldElsewhereSkipsWithoutQueries() throws Exception {
+        when(lock.tryLock(0, 10, TimeUnit.MINUTES)).thenReturn(false);
+
+        CacheWarmingStatusResponse status = service.startWarming();
+
+        assertThat(status.state()).isEqualTo("SKIPPED");
+        verifyNoInteractions(productViewStatsRepository, orderItemRepository, productRepository,
+                productCacheService);
+        verify(lock, never()).unlock();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void startWarming_CachesCandidatesInBatchesAndReleasesTheLock() throws Exception {
+        when(lock.tryLock(0, 10, TimeUnit.MINUTES)).thenReturn(true);
+        when(lock.isHeldByCurrentThread()).thenReturn(true);
+        when(productViewStatsRepository.findTopViewedSince(any(Instant.class), anyInt())).thenReturn(List.of(
+                views(viewed.toString(), 3),
+                views(both.toString(), 2),
+                views(bought.toString(), 1)));
+        // bought was deactivated since it was viewed
+        when(productRepository.findByIdInAndActiveTrue(anyList())).thenAnswer(invocation ->
+                ((Collection<UUID>) invocation.getArgument(0)).stream()
+                        .filter(id -> !id.equals(bought))
+                        .map(id -> Product.builder().id(id).build())
+                        .toList());
+        when(productMapper.toResponse(any(Product.class))).thenAnswer(invocation ->
+                ProductResponse.builder().id(invocation.getArgument(0, Product.class).getId()).build());
+
+        CacheWarmingStatusResponse status = service.startWarming();
+
+        assertThat(status.state()).isEqualTo("COMPLETED");
+        assertThat(status.candidates()).isEqualTo(3);
+        assertThat(status.warmed()).isEqualTo(2);
+        assertThat(status.missing()).isEqualTo(1);
+        verify(productRepository).findByIdInAndActiveTrue(List.of(viewed, both));
+        verify(productRepository).findByIdInAndActiveTrue(List.of(bought));
+        verify(lock).unlock();
+    }
+
+    private static EntityCountResult views(String productId, long count) {
+        EntityCountResult result = new EntityCountResult();
+        result.setEntityId(productId);
+        result.setCount(count);
+        return result;
+    }
+
+    private static OrderItemRepository.ProductUnits sold(UUID productId, long units) {
+        return new OrderItemRepository.ProductUnits() {
+            @Override
+            public UUID getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getUnits() {
+                return units;
+            }
+        };
+    }
+}
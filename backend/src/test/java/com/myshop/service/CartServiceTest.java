@@ -0,0 +1,74 @@
+package com.myshop.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Parameter binding of the batched guest cart merge. The SQL itself runs
+ * against Postgres in CartMergeSqlIntegrationTest.
+ */
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private CartService cartService;
+
+    @Test
+    void mergeItems_BindsProductIdsAndQuantitiesAsParallelArrays() throws Exception {
+        UUID mug = UUID.randomUUID();
+        UUID spoon = UUID.randomUUID();
+        Map<UUID, Integer> items = new LinkedHashMap<>();
+        items.put(mug, 2);
+        items.put(spoon, 5);
+
+        cartService.mergeItems("shopper@example.com", items);
+
+        verify(jdbcTemplate).update(contains("INSERT INTO carts"), eq("shopper@example.com"));
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).update(contains("unnest"), setter.capture());
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        Connection connection = mock(Connection.class);
+        when(ps.getConnection()).thenReturn(connection);
+        ArgumentCaptor<Object[]> ids = ArgumentCaptor.forClass(Object[].class);
+        ArgumentCaptor<Object[]> quantities = ArgumentCaptor.forClass(Object[].class);
+        when(connection.createArrayOf(eq("uuid"), ids.capture())).thenReturn(mock(Array.class));
+        when(connection.createArrayOf(eq("integer"), quantities.capture())).thenReturn(mock(Array.class));
+        setter.getValue().setValues(ps);
+
+        assertThat(ids.getValue()).containsExactly(mug, spoon);
+        assertThat(quantities.getValue()).containsExactly(2, 5);
+        verify(ps).setString(3, "shopper@example.com");
+    }
+
+    @Test
+    void mergeItems_EmptyGuestCartIsANoOp() {
+        cartService.mergeItems("shopper@example.com", Map.of());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
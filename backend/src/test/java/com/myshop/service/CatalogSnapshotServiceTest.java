@@ -0,0 +1,120 @@
+package com.myshop.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogSnapshotServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UUID lamp = UUID.randomUUID();
+    private final UUID desk = UUID.randomUUID();
+    private final List<UUID> catalog = new ArrayList<>();
+
+    private CatalogSnapshotService service;
+    private Runnable duringBuild = () -> { };
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        service = new CatalogSnapshotService(jdbcTemplate, mock(PlatformTransactionManager.class),
+                mock(RedissonClient.class), mock(ThreadPoolTaskExecutor.class));
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", tempDir);
+        ReflectionTestUtils.setField(service, "headroom", 0.25);
+
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenAnswer(count -> (long) catalog.size());
+        doAnswer(build -> {
+            RowCallbackHandler handler = build.getArgument(1);
+            for (UUID id : List.copyOf(catalog)) {
+                handler.processRow(resultSet(id));
+            }
+            duringBuild.run();
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenAnswer(patch -> {
+                    RowMapper<Object> mapper = patch.getArgument(2);
+                    List<Object> rows = new ArrayList<>();
+                    for (UUID id : catalog) {
+                        rows.add(mapper.mapRow(resultSet(id), rows.size()));
+                    }
+                    return rows;
+                });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.close();
+    }
+
+    @Test
+    void applyChange_PatchesTheCurrentSnapshot() {
+        catalog.add(lamp);
+        service.rebuild();
+
+        catalog.add(desk);
+        service.applyChange(desk.toString());
+
+        assertThat(listedIds()).containsExactlyInAnyOrder(lamp, desk);
+    }
+
+    @Test
+    void applyChange_DuringRebuild_IsReplayedOntoTheNewSnapshot() {
+        catalog.add(lamp);
+        service.rebuild();
+
+        // Committed after the build read the table, announced before the swap
+        duringBuild = () -> {
+            catalog.add(desk);
+            service.applyChange(desk.toString());
+        };
+        service.rebuild();
+
+        assertThat(listedIds()).containsExactlyInAnyOrder(lamp, desk);
+    }
+
+    private List<UUID> listedIds() {
+        return service.query(0, 10, null, null, null, "price", "asc").map(Page::getContent).orElseThrow();
+    }
+
+    private static ResultSet resultSet(UUID id) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("id", UUID.class)).thenReturn(id);
+        when(rs.getBigDecimal("price")).thenReturn(new BigDecimal("19.99"));
+        when(rs.getTimestamp("created_at")).thenReturn(new Timestamp(0));
+        when(rs.getBoolean("is_active")).thenReturn(true);
+        return rs;
+    }
+}
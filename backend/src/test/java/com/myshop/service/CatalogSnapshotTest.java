@@ -0,0 +1,128 @@
+package com.myshop.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final UUID books = UUID.randomUUID();
+    private final UUID toys = UUID.randomUUID();
+    private final UUID cheapBook = UUID.randomUUID();
+    private final UUID dearBook = UUID.randomUUID();
+    private final UUID toy = UUID.randomUUID();
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        snapshot = new CatalogSnapshot(tempDir, 4);
+        snapshot.patch(List.of(
+                new CatalogSnapshot.Row(cheapBook, books, 999, 450, 100, true),
+                new CatalogSnapshot.Row(dearBook, books, 4_999, 300, 300, true),
+                new CatalogSnapshot.Row(toy, toys, 1_999, 500, 200, true)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        snapshot.close();
+    }
+
+    @Test
+    void query_FiltersByCategoryAndPriceAndSorts() {
+        CatalogSnapshot.Result byPriceDesc = snapshot.query(null, Long.MIN_VALUE, Long.MAX_VALUE,
+                CatalogSnapshot.SortKey.PRICE, false, 0, 10);
+        assertThat(byPriceDesc.ids()).containsExactly(dearBook, toy, cheapBook);
+
+        CatalogSnapshot.Result cheapBooks = snapshot.query(Set.of(books), 0, 2_000,
+                CatalogSnapshot.SortKey.CREATED, true, 0, 10);
+        assertThat(cheapBooks.ids()).containsExactly(cheapBook);
+        assertThat(cheapBooks.total()).isEqualTo(1);
+
+        assertThat(snapshot.query(Set.of(UUID.randomUUID()), Long.MIN_VALUE, Long.MAX_VALUE,
+                CatalogSnapshot.SortKey.PRICE, true, 0, 10).total()).isZero();
+
+        CatalogSnapshot.Result subtree = snapshot.query(Set.of(books, toys, UUID.randomUUID()), Long.MIN_VALUE,
+                Long.MAX_VALUE, CatalogSnapshot.SortKey.PRICE, true, 0, 10);
+        assertThat(subtree.ids()).containsExactly(cheapBook, toy, dearBook);
+    }
+
+    @Test
+    void query_PagesThroughMatches() {
+        CatalogSnapshot.Result secondPage = snapshot.query(null, Long.MIN_VALUE, Long.MAX_VALUE,
+                CatalogSnapshot.SortKey.RATING, false, 2, 2);
+
+        assertThat(secondPage.ids()).containsExactly(dearBook);
+        assertThat(secondPage.total()).isEqualTo(3);
+    }
+
+    @Test
+    void patch_UpdatesHidesAndAppendsUntilFull() {
+        snapshot.patch(List.of(
+                new CatalogSnapshot.Row(toy, toys, 100, 500, 200, true),
+                new CatalogSnapshot.Row(dearBook, books, 4_999, 300, 300, false)));
+
+        assertThat(snapshot.query(null, Long.MIN_VALUE, Long.MAX_VALUE,
+                CatalogSnapshot.SortKey.PRICE, true, 0, 10).ids()).containsExactly(toy, cheapBook);
+
+        assertThat(snapshot.patch(List.of(new CatalogSnapshot.Row(UUID.randomUUID(), toys, 1, 0, 0, true)))).isTrue();
+        assertThat(snapshot.patch(List.of(new CatalogSnapshot.Row(UUID.randomUUID(), toys, 1, 0, 0, true)))).isFalse();
+    }
+
+    @Test
+    void patch_SmallDeltasKeepEveryOrderingSorted() throws IOException {
+        Random random = new Random(42);
+        List<CatalogSnapshot.Row> rows = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            rows.add(randomRow(random, UUID.randomUUID(), true));
+        }
+        try (CatalogSnapshot large = new CatalogSnapshot(tempDir, 2_100)) {
+            large.patch(rows);
+            for (int round = 0; round < 500; round++) {
+                // Re-price an existing product, or list a new one
+                int index = random.nextInt(rows.size() + 1);
+                CatalogSnapshot.Row row = randomRow(random,
+                        index < rows.size() ? rows.get(index).id() : UUID.randomUUID(), random.nextInt(10) > 0);
+                if (index < rows.size()) {
+                    rows.set(index, row);
+                } else if (row.active() && large.size() < 2_100) {
+                    rows.add(row);
+                }
+                large.patch(List.of(row));
+            }
+
+            for (CatalogSnapshot.SortKey key : CatalogSnapshot.SortKey.values()) {
+                List<Long> values = large.query(null, Long.MIN_VALUE, Long.MAX_VALUE, key, true, 0, 3_000).ids()
+                        .stream()
+                        .map(id -> rows.stream().filter(row -> row.id().equals(id)).findFirst().orElseThrow())
+                        .map(row -> switch (key) {
+                            case PRICE -> row.priceCents();
+                            case RATING -> (long) row.ratingHundredths();
+                            case CREATED -> row.createdEpochSeconds();
+                        })
+                        .toList();
+                assertThat(values).hasSize((int) rows.stream().filter(CatalogSnapshot.Row::active).count());
+                assertThat(values).isSorted();
+            }
+        }
+    }
+
+    private static CatalogSnapshot.Row randomRow(Random random, UUID id, boolean active) {
+        return new CatalogSnapshot.Row(id, null, random.nextInt(10_000), random.nextInt(500),
+                random.nextInt(1_000_000), active);
+    }
+}
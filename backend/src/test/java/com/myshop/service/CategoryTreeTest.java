@@ -0,0 +1,61 @@
+package com.myshop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryTreeTest {
+
+    private final UUID electronics = UUID.randomUUID();
+    private final UUID phones = UUID.randomUUID();
+    private final UUID android = UUID.randomUUID();
+    private final UUID laptops = UUID.randomUUID();
+    private final UUID books = UUID.randomUUID();
+
+    private final CategoryTree tree = CategoryTree.build(List.of(
+            new CategoryTree.Row(android, "Android", "android", phones),
+            new CategoryTree.Row(books, "Books", "books", null),
+            new CategoryTree.Row(laptops, "Laptops", "laptops", electronics),
+            new CategoryTree.Row(phones, "Phones", "phones", electronics),
+            new CategoryTree.Row(electronics, "Electronics", "electronics", null)));
+
+    @Test
+    void subtreeIds_IncludesAllDescendants() {
+        assertThat(tree.subtreeIds(electronics)).containsExactlyInAnyOrder(electronics, phones, android, laptops);
+        assertThat(tree.subtreeIds(phones)).containsExactlyInAnyOrder(phones, android);
+        assertThat(tree.subtreeIds(books)).containsExactly(books);
+        assertThat(tree.subtreeIds(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    void path_RunsFromRootToCategory() {
+        assertThat(tree.path(android)).extracting(CategoryTree.Node::slug)
+                .containsExactly("electronics", "phones", "android");
+        assertThat(tree.getBySlug("android")).map(CategoryTree.Node::parentId).contains(phones);
+        assertThat(tree.isInSubtree(android, electronics)).isTrue();
+        assertThat(tree.isInSubtree(books, electronics)).isFalse();
+    }
+
+    @Test
+    void all_ListsParentsBeforeChildrenAndSiblingsByName() {
+        assertThat(tree.all()).extracting(CategoryTree.Node::slug)
+                .containsExactly("books", "electronics", "laptops", "phones", "android");
+    }
+
+    @Test
+    void build_BreaksParentCycles() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        CategoryTree cyclic = CategoryTree.build(List.of(
+                new CategoryTree.Row(a, "A", "a", b),
+                new CategoryTree.Row(b, "B", "b", a)));
+
+        assertThat(cyclic.size()).isEqualTo(2);
+        assertThat(cyclic.path(b)).extracting(CategoryTree.Node::id).containsExactly(a, b);
+        assertThat(cyclic.subtreeIds(a)).containsExactly(a, b);
+        assertThat(cyclic.subtreeIds(b)).containsExactly(b);
+    }
+}
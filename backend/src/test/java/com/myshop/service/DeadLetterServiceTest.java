@@ -0,0 +1,201 @@
+package com.myshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.dto.request.DeadLetterFilter;
+import com.myshop.dto.request.DeadLetterReplayRequest;
+import com.myshop.dto.response.DeadLetterReplayStatusResponse;
+import com.myshop.exception.ServiceOverloadedException;
+import com.myshop.kafka.event.OrderEvent;
+import com.myshop.model.document.DeadLetter;
+import com.myshop.repository.mongo.DeadLetterRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadLetterServiceTest {
+
+    private final DeadLetterRepository deadLetterRepository = mock(DeadLetterRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+
+    private DeadLetterService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        service = new DeadLetterService(deadLetterRepository, mongoTemplate, kafkaTemplate, new ObjectMapper(),
+                executor);
+        ReflectionTestUtils.setField(service, "defaultRatePerSecond", 1_000_000);
+        ReflectionTestUtils.setField(service, "maxRatePerSecond", 1_000_000);
+        ReflectionTestUtils.setField(service, "defaultConcurrency", 10);
+        ReflectionTestUtils.setField(service, "maxConcurrency", 10);
+        ReflectionTestUtils.setField(service, "markBatchSize", 2);
+        // Replays run on the calling thread, every send acknowledged at once
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+    }
+
+    @Test
+    void record_OriginComesFromTheFirstHeadersAndTheFailureFromTheLast() {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("order.placed.DLT", 0, 12L, "order-1",
+                OrderEvent.builder().eventId("e1").build());
+        record.headers()
+                .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, bytes("order.placed"))
+                .add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(4).putInt(2).array())
+                .add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(8).putLong(41L).array())
+                // A long where an int belongs: not guessed at
+                .add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, ByteBuffer.allocate(4).putInt(7).array())
+                .add(KafkaHeaders.DLT_EXCEPTION_FQCN, bytes("java.lang.IllegalStateException"))
+                // The retry tier re-published it; later attempts add their own copies
+                .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, bytes("order.placed.trending.retry-1s"))
+                .add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(4).putInt(0).array())
+                .add(KafkaHeaders.DLT_EXCEPTION_FQCN, bytes("java.util.concurrent.TimeoutException"))
+                .add("trace-id", bytes("abc"))
+                .add("retry_attempts", new byte[] { 0, 0, 0, 3 });
+
+        service.record(record);
+
+        ArgumentCaptor<DeadLetter> saved = ArgumentCaptor.forClass(DeadLetter.class);
+        verify(deadLetterRepository).save(saved.capture());
+        DeadLetter deadLetter = saved.getValue();
+        assertThat(deadLetter.getId()).isEqualTo("order.placed.DLT-0@12");
+        assertThat(deadLetter.getOriginalTopic()).isEqualTo("order.placed");
+        assertThat(deadLetter.getOriginalPartition()).isEqualTo(2);
+        assertThat(deadLetter.getOriginalOffset()).isEqualTo(41L);
+        assertThat(deadLetter.getOriginalTimestamp()).isNull();
+        assertThat(deadLetter.getExceptionClass()).isEqualTo("java.util.concurrent.TimeoutException");
+        assertThat(deadLetter.getPayloadType()).isEqualTo(OrderEvent.class.getName());
+        assertThat(deadLetter.getPayload()).contains("\"eventId\":\"e1\"");
+        assertThat(deadLetter.getHeaders()).containsExactly(
+                new DeadLetter.Header("trace-id", "abc"),
+                new DeadLetter.Header("retry_attempts", "base64:AAAAAw=="));
+    }
+
+    @Test
+    void search_AndsTheSetFiltersAndSkipsReplayedByDefault() {
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        Instant to = Instant.parse("2026-01-02T00:00:00Z");
+
+        service.search(new DeadLetterFilter("order.placed", null, null, "order-1", from, to, null), 0, 20);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).count(query.capture(), eq(DeadLetter.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("$and", List.of(
+                new Document("original_topic", "order.placed"),
+                new Document("key", "order-1"),
+                new Document("received_at", new Document("$gte", from).append("$lt", to)),
+                new Document("last_replayed_at", null))));
+    }
+
+    @Test
+    void search_IncludingReplayedWithNoOtherFilterMatchesEverything() {
+        service.search(new DeadLetterFilter(null, null, null, null, null, null, true), 0, 20);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).count(query.capture(), eq(DeadLetter.class));
+        assertThat(query.getValue().getQueryObject()).isEmpty();
+    }
+
+    @Test
+    void replay_MarksAcknowledgedRecordsInBatches() {
+        when(mongoTemplate.stream(any(Query.class), eq(DeadLetter.class))).thenReturn(Stream.of(
+                replayable("a"), replayable("b"), replayable("c"), replayable("d"), replayable("e")));
+
+        DeadLetterReplayStatusResponse started = service.startReplay(request());
+
+        ArgumentCaptor<Query> marked = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).updateMulti(marked.capture(), any(Update.class), eq(DeadLetter.class));
+        assertThat(marked.getAllValues()).extracting(query -> query.getQueryObject().get("_id", Document.class)
+                .get("$in")).containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e"));
+        assertThat(service.getReplay(started.jobId()).replayed()).isEqualTo(5);
+    }
+
+    @Test
+    void replay_SkipsPayloadsThatAreNotOurEvents() {
+        DeadLetter foreign = replayable("foreign");
+        foreign.setPayloadType("java.lang.ProcessBuilder");
+        foreign.setPayload("[\"sh\"]");
+        DeadLetter untyped = replayable("untyped");
+        untyped.setPayloadType(null);
+        when(mongoTemplate.stream(any(Query.class), eq(DeadLetter.class)))
+                .thenReturn(Stream.of(foreign, untyped, replayable("ok")));
+
+        DeadLetterReplayStatusResponse started = service.startReplay(request());
+
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = sentCaptor();
+        verify(kafkaTemplate).send(sent.capture());
+        assertThat(sent.getValue().value()).isInstanceOf(OrderEvent.class);
+        DeadLetterReplayStatusResponse status = service.getReplay(started.jobId());
+        assertThat(status.skipped()).isEqualTo(2);
+        assertThat(status.replayed()).isEqualTo(1);
+    }
+
+    @Test
+    void startReplay_FullExecutorIsAnOverloadNotABadRequest() {
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+        assertThatThrownBy(() -> service.startReplay(request()))
+                .isInstanceOfSatisfying(ServiceOverloadedException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isPositive());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<ProducerRecord<String, Object>> sentCaptor() {
+        return ArgumentCaptor.forClass(ProducerRecord.class);
+    }
+
+    private static DeadLetterReplayRequest request() {
+        return new DeadLetterReplayRequest(new DeadLetterFilter(null, null, null, null, null, null, null),
+                null, null, null);
+    }
+
+    private static DeadLetter replayable(String id) {
+        return DeadLetter.builder()
+                .id(id)
+                .originalTopic("order.placed")
+                .key("order-" + id)
+                .payloadType(OrderEvent.class.getName())
+                .payload("{\"eventId\":\"" + id + "\"}")
+                .build();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
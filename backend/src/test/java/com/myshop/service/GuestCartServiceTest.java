@@ -0,0 +1,83 @@
+package com.myshop.service;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.security.GuestCartTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class GuestCartServiceTest {
+
+    private static final String EMAIL = "shopper@example.com";
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+    private final GuestCartTokenService tokenService = new GuestCartTokenService("test-secret-test-secret-test-secret");
+    private final CartStore cartStore = mock(CartStore.class);
+
+    private final UUID cartId = UUID.randomUUID();
+    private final String key = CacheKeys.format(CacheKeys.CART_GUEST, cartId);
+    private final UUID mug = UUID.randomUUID();
+    private final UUID spoon = UUID.randomUUID();
+    private final Map<String, String> guestCart = Map.of(mug.toString(), "2", spoon.toString(), "1");
+
+    private GuestCartService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOps);
+        service = new GuestCartService(redisTemplate, tokenService, mock(ProductService.class), cartStore, 7, 50);
+        // MULTI → HGETALL, DEL → EXEC
+        when(redisTemplate.execute(any(SessionCallback.class))).thenReturn(List.of(guestCart, 1L));
+    }
+
+    @Test
+    void mergeInto_HandsTheWholeGuestCartToTheUsersCartInOneCall() {
+        service.mergeInto(EMAIL, tokenService.issue(cartId));
+
+        verify(cartStore).mergeItems(EMAIL, Map.of(mug, 2, spoon, 1));
+        verify(hashOps, never()).putAll(anyString(), anyMap());
+    }
+
+    @Test
+    void mergeInto_FailedMergePutsTheGuestCartBack() {
+        doThrow(new QueryTimeoutException("db down")).when(cartStore).mergeItems(anyString(), anyMap());
+
+        service.mergeInto(EMAIL, tokenService.issue(cartId));
+
+        verify(hashOps).putAll(key, guestCart);
+        verify(redisTemplate).expire(key, Duration.ofDays(7));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mergeInto_IgnoresForgedAndMissingTokens() {
+        String forged = new GuestCartTokenService("someone-elses-secret-someone-elses").issue(cartId);
+
+        service.mergeInto(EMAIL, forged);
+        service.mergeInto(EMAIL, null);
+
+        verifyNoInteractions(cartStore);
+        verify(redisTemplate, never()).execute(any(SessionCallback.class));
+    }
+}
@@ -37,6 +37,9 @@ class OrderServiceTest {
     @Mock
     private CartRepository cartRepository;
 
+    @Mock
+    private CartStore cartStore;
+
     @Mock
     private ProductRepository productRepository;
 
@@ -90,7 +93,7 @@ class OrderServiceTest {
         testCart.addItem(cartItem);
 
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
+        when(cartRepository.findWithItemsByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
 
         OrderRequest request = new OrderRequest(Map.of("street", "123 Main St"), "COD");
 
@@ -110,7 +113,7 @@ class OrderServiceTest {
         testCart.getItems().clear(); // Empty cart
 
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
+        when(cartRepository.findWithItemsByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
 
         OrderRequest request = new OrderRequest(Collections.singletonMap("street", "123 Main St"), "COD");
 
@@ -0,0 +1,136 @@
+package com.myshop.service;
+
+import com.myshop.dto.request.BulkProductUpdateRequest;
+import com.myshop.dto.response.BulkProductUpdateResponse;
+import com.myshop.exception.BusinessException;
+import com.myshop.kafka.producer.InventoryEventProducer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductBulkUpdateServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private InventoryEventProducer inventoryEventProducer;
+
+    @Mock
+    private ProductCacheService productCacheService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProductBulkUpdateService service;
+
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void applyUpdates_CompactsDuplicatesToOneRowPerProduct() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class), anyInt(), any()))
+                .thenReturn(new int[][] { { 1, 1 } });
+
+        service.applyUpdates(new BulkProductUpdateRequest(List.of(
+                new BulkProductUpdateRequest.Item(first, new BigDecimal("10.00"), 5),
+                new BulkProductUpdateRequest.Item(second, null, -1),
+                new BulkProductUpdateRequest.Item(first, new BigDecimal("12.50"), 3))));
+
+        ArgumentCaptor<List<Object>> rows = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), anyInt(), setter.capture());
+        assertThat(rows.getValue()).hasSize(2);
+        verify(jdbcTemplate).batchUpdate(contains("stock_quantity::bigint + ?"), any(List.class), anyInt(), any());
+
+        // Last price wins, deltas are summed
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, rows.getValue().get(0));
+        verify(ps).setBigDecimal(1, new BigDecimal("12.50"));
+        verify(ps).setInt(2, 8);
+        verify(ps).setObject(3, first);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void applyUpdates_ReportsRowsTheUpdateDidNotTouchAsSkipped() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class), anyInt(), any()))
+                .thenReturn(new int[][] { { 1, 0 } });
+
+        BulkProductUpdateResponse response = service.applyUpdates(new BulkProductUpdateRequest(List.of(
+                new BulkProductUpdateRequest.Item(first, new BigDecimal("10.00"), null),
+                new BulkProductUpdateRequest.Item(second, null, -50))));
+
+        assertThat(response.requested()).isEqualTo(2);
+        assertThat(response.updated()).isEqualTo(1);
+        assertThat(response.skippedProductIds()).containsExactly(second);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCommit());
+        ArgumentCaptor<List<UUID>> evicted = ArgumentCaptor.forClass(List.class);
+        verify(productCacheService).evictProducts(evicted.capture());
+        assertThat(evicted.getValue()).containsExactly(first);
+    }
+
+    @Test
+    void applyUpdates_RejectsASingleHugeStockDeltaBeforeWriting() {
+        List<BulkProductUpdateRequest.Item> items = List.of(
+                new BulkProductUpdateRequest.Item(first, null, Integer.MAX_VALUE));
+
+        assertThatThrownBy(() -> service.applyUpdates(new BulkProductUpdateRequest(items)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining(first.toString());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void applyUpdates_RejectsStockDeltasThatOverflowBeforeWriting() {
+        List<BulkProductUpdateRequest.Item> items = new ArrayList<>();
+        items.add(new BulkProductUpdateRequest.Item(first, null, Integer.MAX_VALUE));
+        items.add(new BulkProductUpdateRequest.Item(first, null, 1));
+
+        assertThatThrownBy(() -> service.applyUpdates(new BulkProductUpdateRequest(items)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining(first.toString());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,74 @@
+package com.myshop.service;
+
+import com.myshop.dto.response.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductCacheServiceTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final RedisSerializer<Object> serializer = mock(RedisSerializer.class);
+    private final RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+    private final ProductCacheService service =
+            new ProductCacheService(mock(CacheManager.class), redisTemplate, serializer);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAll_OneMgetReturnsOnlyReadableHitsKeyedById() {
+        UUID hit = UUID.randomUUID();
+        UUID miss = UUID.randomUUID();
+        UUID stale = UUID.randomUUID();
+        UUID foreign = UUID.randomUUID();
+        byte[] hitBytes = { 1 };
+        byte[] staleBytes = { 2 };
+        byte[] foreignBytes = { 3 };
+        ProductResponse product = ProductResponse.builder().id(hit).build();
+
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, RedisCallback.class).doInRedis(connection));
+        when(stringCommands.mGet(any(byte[][].class))).thenReturn(
+                Arrays.asList(hitBytes, null, staleBytes, foreignBytes));
+        when(serializer.deserialize(hitBytes)).thenReturn(product);
+        when(serializer.deserialize(staleBytes)).thenThrow(new SerializationException("old class version"));
+        when(serializer.deserialize(foreignBytes)).thenReturn("not a product");
+
+        Map<UUID, ProductResponse> hits = service.getAll(List.of(hit, miss, stale, foreign));
+
+        assertThat(hits).containsExactly(Map.entry(hit, product));
+        // MGET answers positionally, so the keys must be sent in the ids' order
+        ArgumentCaptor<byte[][]> keys = ArgumentCaptor.forClass(byte[][].class);
+        verify(stringCommands).mGet(keys.capture());
+        assertThat(Arrays.stream(keys.getValue()).map(key -> new String(key, StandardCharsets.UTF_8)))
+                .containsExactly("products::" + hit, "products::" + miss, "products::" + stale,
+                        "products::" + foreign);
+    }
+
+    @Test
+    void getAll_NoIdsSkipsRedis() {
+        assertThat(service.getAll(List.of())).isEmpty();
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -0,0 +1,176 @@
+package com.myshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.dto.response.ProductImportResponse;
+import com.myshop.event.internal.ProductsChangedEvent;
+import com.myshop.exception.ServiceOverloadedException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The parse → COPY → merge pipeline against a mocked JDBC stack: what gets
+ * staged, what gets rejected, and how the merge counts are reported. The
+ * merge SQL itself needs Postgres.
+ */
+class ProductImportServiceTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ThreadPoolTaskExecutor importTaskExecutor = mock(ThreadPoolTaskExecutor.class);
+    private final ProductCacheService productCacheService = mock(ProductCacheService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final ExecutorService copyThread = Executors.newSingleThreadExecutor();
+    private final ByteArrayOutputStream staged = new ByteArrayOutputStream();
+
+    private ProductImportService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        service = new ProductImportService(dataSource, jdbcTemplate, mock(PlatformTransactionManager.class),
+                new ObjectMapper(), validator, importTaskExecutor, productCacheService, eventPublisher);
+        // The COPY stage runs on its own thread, as on importTaskExecutor
+        when(importTaskExecutor.submit(any(Callable.class)))
+                .thenAnswer(invocation -> copyThread.submit(invocation.getArgument(0, Callable.class)));
+
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyIn copyIn = mock(CopyIn.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        doAnswer(invocation -> {
+            staged.write(invocation.getArgument(0, byte[].class), invocation.getArgument(1, Integer.class),
+                    invocation.getArgument(2, Integer.class));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+
+        when(jdbcTemplate.queryForObject(contains("NOT EXISTS"), eq(Long.class))).thenReturn(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        copyThread.shutdownNow();
+    }
+
+    @Test
+    void importProducts_ReportsMergeCountsAndInvalidatesCachesOnce() {
+        mergeReturns(2, 1);
+
+        ProductImportResponse response = service.importProducts(body("""
+                {"sku":"MUG-1","name":"Mug","price":9.99,"stockQuantity":5}
+                {"sku":"SPOON-1","name":"Spoon \\"steel\\"","price":2.50,"stockQuantity":0}
+                {"sku":"MUG-1","name":"Mug v2","price":10.99,"stockQuantity":3}
+                """), ProductImportService.MEDIA_TYPE_NDJSON);
+
+        assertThat(response.received()).isEqualTo(3);
+        assertThat(response.rejected()).isZero();
+        assertThat(response.unknownCategory()).isEqualTo(1);
+        assertThat(response.inserted()).isEqualTo(2);
+        assertThat(response.updated()).isEqualTo(1);
+        // Every row goes to staging: the merge keeps the last MUG-1
+        assertThat(staged.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "1,\"MUG-1\",\"Mug\",,9.99,5,,\n"
+                        + "2,\"SPOON-1\",\"Spoon \"\"steel\"\"\",,2.50,0,,\n"
+                        + "3,\"MUG-1\",\"Mug v2\",,10.99,3,,\n");
+        verify(productCacheService).evictAll();
+        verify(eventPublisher).publishEvent(any(ProductsChangedEvent.class));
+    }
+
+    @Test
+    void importProducts_SkipsMalformedAndInvalidRowsAndStagesTheRest() {
+        mergeReturns(1, 0);
+
+        ProductImportResponse response = service.importProducts(body("""
+                sku,name,price,stock_quantity
+                MUG-1,Mug,9.99,5
+                SPOON-1,Spoon,cheap,1
+                FORK-1,Fork,1.00,-2
+                """), ProductImportService.MEDIA_TYPE_CSV);
+
+        assertThat(response.received()).isEqualTo(3);
+        assertThat(response.rejected()).isEqualTo(2);
+        assertThat(response.errors()).hasSize(2);
+        assertThat(response.errors().get(0)).startsWith("record 3: unparseable value");
+        assertThat(response.errors().get(1)).startsWith("record 4: stockQuantity");
+        assertThat(staged.toString(StandardCharsets.UTF_8)).isEqualTo("2,\"MUG-1\",\"Mug\",,9.99,5,,\n");
+    }
+
+    @Test
+    void importProducts_NothingMergedLeavesCachesAlone() {
+        mergeReturns(0, 0);
+
+        service.importProducts(body("not json\n"), ProductImportService.MEDIA_TYPE_NDJSON);
+
+        verify(productCacheService, never()).evictAll();
+        verify(eventPublisher, never()).publishEvent(any(ProductsChangedEvent.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importProducts_FullExecutorIsAServiceOverloadWithRetryAfter() {
+        when(importTaskExecutor.submit(any(Callable.class))).thenThrow(new TaskRejectedException("full"));
+        InputStream upload = body("{\"sku\":\"MUG-1\"}\n");
+
+        assertThatThrownBy(() -> service.importProducts(upload, ProductImportService.MEDIA_TYPE_NDJSON))
+                .isInstanceOf(ServiceOverloadedException.class)
+                .extracting("retryAfterSeconds").isEqualTo(60);
+        assertThat(upload).hasContent("{\"sku\":\"MUG-1\"}\n");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mergeReturns(long inserted, long updated) {
+        when(jdbcTemplate.queryForObject(contains("ON CONFLICT"), any(RowMapper.class))).thenAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("inserted")).thenReturn(inserted);
+            when(rs.getLong("updated")).thenReturn(updated);
+            return invocation.getArgument(1, RowMapper.class).mapRow(rs, 0);
+        });
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
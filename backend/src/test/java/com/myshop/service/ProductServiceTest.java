@@ -0,0 +1,101 @@
+package com.myshop.service;
+
+import com.myshop.dto.response.ProductResponse;
+import com.myshop.mapper.ProductMapper;
+import com.myshop.model.entity.Product;
+import com.myshop.repository.jpa.CategoryRepository;
+import com.myshop.repository.jpa.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private CategoryTreeService categoryTreeService;
+
+    @Mock
+    private ProductCacheService productCacheService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProductService productService;
+
+    private final UUID cached = UUID.randomUUID();
+    private final UUID uncached = UUID.randomUUID();
+    private final UUID alsoUncached = UUID.randomUUID();
+    private final UUID inactiveOrMissing = UUID.randomUUID();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getByIds_FillsCacheMissesFromDbAndKeepsRequestOrder() {
+        when(productCacheService.getAll(any())).thenReturn(Map.of(cached, response(cached)));
+        // The repository returns rows in its own order and leaves out inactive or deleted ids
+        when(productRepository.findByIdInAndActiveTrue(any())).thenReturn(List.of(
+                product(alsoUncached), product(uncached)));
+        when(productMapper.toResponse(any(Product.class)))
+                .thenAnswer(invocation -> response(invocation.getArgument(0, Product.class).getId()));
+
+        List<ProductResponse> products = productService.getByIds(
+                List.of(uncached, cached, inactiveOrMissing, alsoUncached, cached));
+
+        assertThat(products).extracting(ProductResponse::getId).containsExactly(uncached, cached, alsoUncached);
+
+        ArgumentCaptor<Collection<UUID>> queried = ArgumentCaptor.forClass(Collection.class);
+        verify(productRepository).findByIdInAndActiveTrue(queried.capture());
+        assertThat(queried.getValue()).containsExactly(uncached, inactiveOrMissing, alsoUncached);
+
+        ArgumentCaptor<Collection<ProductResponse>> backfilled = ArgumentCaptor.forClass(Collection.class);
+        verify(productCacheService).putAll(backfilled.capture());
+        assertThat(backfilled.getValue()).extracting(ProductResponse::getId)
+                .containsExactlyInAnyOrder(uncached, alsoUncached);
+    }
+
+    @Test
+    void getByIds_AllCachedTouchesNoDb() {
+        when(productCacheService.getAll(any())).thenReturn(Map.of(cached, response(cached)));
+
+        assertThat(productService.getByIds(List.of(cached))).extracting(ProductResponse::getId)
+                .containsExactly(cached);
+        verify(productRepository, never()).findByIdInAndActiveTrue(any());
+        verify(productCacheService, never()).putAll(any());
+    }
+
+    private static Product product(UUID id) {
+        return Product.builder().id(id).name("Product " + id).build();
+    }
+
+    private static ProductResponse response(UUID id) {
+        return ProductResponse.builder().id(id).name("Product " + id).build();
+    }
+}
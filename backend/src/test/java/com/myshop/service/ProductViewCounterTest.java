@@ -0,0 +1,141 @@
+package com.myshop.service;
+
+import com.myshop.repository.mongo.ProductViewStatsRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHyperLogLogCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Both flush paths run while recorder threads keep writing: nothing recorded
+ * before the final flush may be missing from what was written out.
+ */
+class ProductViewCounterTest {
+
+    private static final int RECORDERS = 4;
+    private static final int VIEWS_PER_RECORDER = 20_000;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final AtomicLong flushedViews = new AtomicLong();
+    private final Set<String> flushedViewers = ConcurrentHashMap.newKeySet();
+
+    private ProductViewCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new ProductViewCounter(mongoTemplate, redisTemplate, mock(ProductViewStatsRepository.class));
+
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class))).thenAnswer(invocation -> {
+            List<Long> pending = new ArrayList<>();
+            BulkOperations ops = mock(BulkOperations.class);
+            when(ops.upsert(any(Query.class), any(Update.class))).thenAnswer(upsert -> {
+                Document inc = (Document) upsert.getArgument(1, Update.class).getUpdateObject().get("$inc");
+                pending.add(((Number) inc.get("views")).longValue());
+                return ops;
+            });
+            when(ops.execute()).thenAnswer(execute -> {
+                pending.forEach(flushedViews::addAndGet);
+                return null;
+            });
+            return ops;
+        });
+
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisHyperLogLogCommands hll = mock(RedisHyperLogLogCommands.class);
+        when(connection.hyperLogLogCommands()).thenReturn(hll);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        when(hll.pfAdd(any(byte[].class), any(byte[][].class))).thenAnswer(pfAdd -> {
+            for (byte[] value : (byte[][]) pfAdd.getRawArguments()[1]) {
+                flushedViewers.add(new String(value, StandardCharsets.UTF_8));
+            }
+            return 1L;
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    @Test
+    void flush_LosesNoViewsOrViewersRecordedConcurrently() throws Exception {
+        List<UUID> products = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+
+        List<Thread> recorders = new ArrayList<>();
+        for (int r = 0; r < RECORDERS; r++) {
+            int recorder = r;
+            Thread thread = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < VIEWS_PER_RECORDER; i++) {
+                    counter.recordView(products.get(i % products.size()), recorder + "-" + i);
+                }
+            });
+            thread.start();
+            recorders.add(thread);
+        }
+        Thread flusher = new Thread(() -> {
+            awaitQuietly(start);
+            while (recording.get()) {
+                counter.flush();
+            }
+        });
+        flusher.start();
+
+        start.countDown();
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+        recording.set(false);
+        flusher.join();
+        counter.flush();
+
+        assertThat(flushedViews.get()).isEqualTo((long) RECORDERS * VIEWS_PER_RECORDER);
+        assertThat(flushedViewers).hasSize(RECORDERS * VIEWS_PER_RECORDER);
+    }
+
+    @Test
+    void flush_KeepsCountsOfIdleProductsCountingAfterwards() {
+        UUID product = UUID.randomUUID();
+        counter.recordView(product, null);
+        counter.flush();
+        // An idle interval must not detach the product's counter
+        counter.flush();
+        counter.recordView(product, null);
+        counter.flush();
+
+        assertThat(flushedViews.get()).isEqualTo(2);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
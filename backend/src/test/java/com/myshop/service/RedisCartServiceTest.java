@@ -0,0 +1,224 @@
+package com.myshop.service;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.response.ProductResponse;
+import com.myshop.model.entity.Cart;
+import com.myshop.model.entity.CartItem;
+import com.myshop.model.entity.Product;
+import com.myshop.model.entity.User;
+import com.myshop.repository.jpa.CartRepository;
+import com.myshop.repository.jpa.ProductRepository;
+import com.myshop.repository.jpa.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The write-behind, checkout and hydration paths against mocked Redis and
+ * repositories. What the Lua scripts themselves do is covered by
+ * CartScriptsIntegrationTest.
+ */
+class RedisCartServiceTest {
+
+    private static final String EMAIL = "shopper@example.com";
+    private static final String KEY = CacheKeys.format(CacheKeys.CART_USER, EMAIL);
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+    @SuppressWarnings("unchecked")
+    private final SetOperations<String, String> setOps = mock(SetOperations.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductService productService = mock(ProductService.class);
+
+    private final User user = User.builder().id(UUID.randomUUID()).email(EMAIL).build();
+    private final Product kept = product();
+    private final Product dropped = product();
+    private final Product added = product();
+    private final Cart cart = Cart.builder().id(UUID.randomUUID()).user(user).build();
+
+    private RedisCartService service;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOps);
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        service = new RedisCartService(redisTemplate, productService, userRepository, cartRepository,
+                productRepository, mock(PlatformTransactionManager.class), 30, 2, 3);
+
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(cartRepository.findByUserId(user.getId())).thenReturn(Optional.of(cart));
+        cart.addItem(CartItem.builder().product(kept).quantity(1).build());
+        cart.addItem(CartItem.builder().product(dropped).quantity(4).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void flushDirty_WritesTheRedisCartOverTheDatabaseCart() {
+        when(setOps.pop(CacheKeys.CART_DIRTY, 2)).thenReturn(List.of(EMAIL));
+        when(hashOps.entries(KEY)).thenReturn(redisCart(Map.of(kept.getId(), 3, added.getId(), 2)));
+        when(productRepository.findAllById(List.of(added.getId()))).thenReturn(List.of(added));
+
+        service.flushDirty();
+
+        assertThat(cart.getItems()).extracting(item -> item.getProduct().getId(), CartItem::getQuantity)
+                .containsExactlyInAnyOrder(
+                        tuple(kept.getId(), 3),
+                        tuple(added.getId(), 2));
+        verify(cartRepository).save(cart);
+        verify(setOps, never()).add(anyString(), any(String[].class));
+    }
+
+    @Test
+    void flushDirty_DropsProductsDeletedSinceTheyWereAdded() {
+        when(setOps.pop(CacheKeys.CART_DIRTY, 2)).thenReturn(List.of(EMAIL));
+        when(hashOps.entries(KEY)).thenReturn(redisCart(Map.of(kept.getId(), 1, added.getId(), 2)));
+        when(productRepository.findAllById(anyList())).thenReturn(List.of());
+
+        service.flushDirty();
+
+        assertThat(cart.getItems()).extracting(item -> item.getProduct().getId()).containsExactly(kept.getId());
+        verify(hashOps).delete(KEY, added.getId().toString());
+        verify(setOps, never()).add(anyString(), any(String[].class));
+    }
+
+    @Test
+    void flushDirty_RequeuesAFailedCartUntilMaxAttempts() {
+        when(setOps.pop(CacheKeys.CART_DIRTY, 2)).thenReturn(List.of(EMAIL));
+        when(hashOps.entries(KEY)).thenReturn(redisCart(Map.of(kept.getId(), 1)));
+        when(cartRepository.save(any(Cart.class))).thenThrow(new DataIntegrityViolationException("boom"));
+        when(hashOps.increment(KEY, "_failures", 1)).thenReturn(1L, 2L, 3L);
+
+        service.flushDirty();
+        service.flushDirty();
+        service.flushDirty();
+
+        // Attempts 1 and 2 go back into the set; the third gives up and resets the count
+        verify(setOps, times(2)).add(CacheKeys.CART_DIRTY, EMAIL);
+        verify(hashOps).delete(KEY, "_failures");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushDirty_CartWrittenAfterItExpiredIsRehydratedBeforeFlushing() {
+        when(setOps.pop(CacheKeys.CART_DIRTY, 2)).thenReturn(List.of(EMAIL));
+        // An HINCRBY landed on the expired key: one delta, no _loaded
+        Map<Object, Object> expiredThenIncremented = new HashMap<>(Map.of(added.getId().toString(), "1"));
+        Map<Object, Object> merged = redisCart(Map.of(kept.getId(), 1, dropped.getId(), 4, added.getId(), 1));
+        when(hashOps.entries(KEY)).thenReturn(expiredThenIncremented, merged);
+        when(productRepository.findAllById(anyList())).thenReturn(List.of(added));
+
+        service.flushDirty();
+
+        var order = inOrder(redisTemplate, cartRepository);
+        order.verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)), any(Object[].class));
+        order.verify(cartRepository).save(cart);
+        assertThat(cart.getItems()).hasSize(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkedOut_RemovesOnlyTheOrderedItemsAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.checkedOut(EMAIL, Map.of(kept.getId(), 2));
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY, CacheKeys.CART_DIRTY)),
+                eq(EMAIL), eq(kept.getId().toString()), eq("2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkedOut_RolledBackOrderLeavesTheCart() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.checkedOut(EMAIL, Map.of(kept.getId(), 2));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mergeItems_IncrementsKnownProductsInOnePipelineAndCapsAtStock() {
+        when(hashOps.hasKey(KEY, "_loaded")).thenReturn(true);
+        UUID unknown = UUID.randomUUID();
+        when(productService.getByIds(anyList())).thenReturn(List.of(
+                ProductResponse.builder().id(kept.getId()).stockQuantity(5).build(),
+                ProductResponse.builder().id(added.getId()).stockQuantity(10).build()));
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        // kept was already in the cart 3 times: 3 + 4 goes over its stock of 5
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of(7L, 2L);
+        });
+
+        service.mergeItems(EMAIL, Map.of(kept.getId(), 4, added.getId(), 2, unknown, 1));
+
+        verify(hashCommands).hIncrBy(KEY.getBytes(StandardCharsets.UTF_8),
+                kept.getId().toString().getBytes(StandardCharsets.UTF_8), 4);
+        verify(hashCommands).hIncrBy(KEY.getBytes(StandardCharsets.UTF_8),
+                added.getId().toString().getBytes(StandardCharsets.UTF_8), 2);
+        verify(hashCommands, never()).hIncrBy(any(), eq(unknown.toString().getBytes(StandardCharsets.UTF_8)),
+                anyLong());
+        verify(hashOps).put(KEY, kept.getId().toString(), "5");
+        verify(hashOps, never()).put(KEY, added.getId().toString(), "2");
+        verify(setOps).add(CacheKeys.CART_DIRTY, EMAIL);
+    }
+
+    private static Map<Object, Object> redisCart(Map<UUID, Integer> quantities) {
+        Map<Object, Object> fields = new HashMap<>();
+        fields.put("_loaded", "1");
+        quantities.forEach((id, quantity) -> fields.put(id.toString(), quantity.toString()));
+        return fields;
+    }
+
+    private static Product product() {
+        return Product.builder().id(UUID.randomUUID()).name("Product").build();
+    }
+}
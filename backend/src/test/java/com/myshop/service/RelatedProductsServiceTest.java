@@ -0,0 +1,72 @@
+package com.myshop.service;
+
+import com.myshop.dto.response.RelatedProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RelatedProductsServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final UUID mug = UUID.randomUUID();
+    private final UUID coffee = UUID.randomUUID();
+    private final UUID spoon = UUID.randomUUID();
+
+    private RelatedProductsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = newService();
+    }
+
+    @Test
+    void getRelated_RanksByNumberOfSharedOrders() {
+        service.recordOrder(UUID.randomUUID(), List.of(mug, coffee), 0, 0);
+        service.recordOrder(UUID.randomUUID(), List.of(mug, coffee, spoon), 0, 1);
+
+        assertThat(service.getRelated(mug, 10)).containsExactly(
+                new RelatedProductResponse(coffee, 2),
+                new RelatedProductResponse(spoon, 1));
+        assertThat(service.getRelated(UUID.randomUUID(), 10)).isEmpty();
+    }
+
+    @Test
+    void recordOrder_SameOrderPublishedTwice_CountsOnce() {
+        UUID orderId = UUID.randomUUID();
+        service.recordOrder(orderId, List.of(mug, coffee), 0, 0);
+        service.recordOrder(orderId, List.of(mug, coffee), 0, 1);
+
+        assertThat(service.getRelated(mug, 10)).containsExactly(new RelatedProductResponse(coffee, 1));
+    }
+
+    @Test
+    void snapshot_RestoresMatrixAndSkipsAlreadyCountedOffsets() {
+        service.recordOrder(UUID.randomUUID(), List.of(mug, coffee), 0, 41);
+        service.snapshot();
+
+        RelatedProductsService restarted = newService();
+        ReflectionTestUtils.invokeMethod(restarted, "loadSnapshot");
+        // Redelivered after restart — already in the snapshot
+        restarted.recordOrder(UUID.randomUUID(), List.of(mug, coffee), 0, 41);
+
+        assertThat(restarted.getResumeOffsets()).containsEntry(0, 42L);
+        assertThat(restarted.getRelated(coffee, 10)).containsExactly(new RelatedProductResponse(mug, 1));
+    }
+
+    private RelatedProductsService newService() {
+        RelatedProductsService instance = new RelatedProductsService();
+        ReflectionTestUtils.setField(instance, "maxNeighbours", 50);
+        ReflectionTestUtils.setField(instance, "maxItemsPerOrder", 50);
+        ReflectionTestUtils.setField(instance, "snapshotPath", tempDir.resolve("related.snapshot"));
+        return instance;
+    }
+}
@@ -0,0 +1,81 @@
+package com.myshop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayThrottleTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private ReplayThrottle throttle(int ratePerSecond, int concurrency) {
+        return new ReplayThrottle(ratePerSecond, concurrency, clock::get, nanos -> {
+            sleeps.add(nanos);
+            clock.addAndGet(nanos);
+        });
+    }
+
+    @Test
+    void spacesAcquisitionsEvenlyAtTheRequestedRate() throws InterruptedException {
+        ReplayThrottle throttle = throttle(100, 10);
+
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire();
+            throttle.release();
+        }
+
+        // First send goes immediately, each later one 10ms after the previous
+        assertThat(sleeps).containsExactly(10 * MS, 10 * MS, 10 * MS, 10 * MS);
+        assertThat(clock.get()).isEqualTo(40 * MS);
+    }
+
+    @Test
+    void doesNotBurstAfterAnIdleStretch() throws InterruptedException {
+        ReplayThrottle throttle = throttle(100, 10);
+        throttle.acquire();
+        throttle.release();
+
+        clock.addAndGet(1_000 * MS);
+        throttle.acquire();
+        throttle.release();
+        throttle.acquire();
+        throttle.release();
+
+        // A second of idleness buys one immediate send, not a hundred
+        assertThat(sleeps).containsExactly(10 * MS);
+    }
+
+    @Test
+    void limitsPermitsHeldAtOnce() throws InterruptedException {
+        ReplayThrottle throttle = throttle(1_000_000, 2);
+        throttle.acquire();
+        throttle.acquire();
+
+        Thread third = new Thread(() -> {
+            try {
+                throttle.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        third.start();
+        third.join(100);
+        assertThat(third.isAlive()).isTrue();
+
+        throttle.release();
+        third.join(1_000);
+        assertThat(third.isAlive()).isFalse();
+
+        throttle.release();
+        throttle.release();
+        throttle.awaitIdle();
+    }
+}
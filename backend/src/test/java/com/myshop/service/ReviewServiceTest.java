@@ -18,6 +18,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -44,6 +45,9 @@ class ReviewServiceTest {
         @Mock
         private OrderItemRepository orderItemRepository;
 
+        @Mock
+        private ApplicationEventPublisher eventPublisher;
+
         @InjectMocks
         private ReviewService reviewService;
 
@@ -0,0 +1,189 @@
+package com.myshop.service;
+
+import com.myshop.constants.CacheKeys;
+import com.myshop.dto.response.TrendingProductResponse;
+import com.myshop.util.CountMinSketch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Decay, publish, merge and stale-node cleanup against a mocked Redis
+ * connection. The sketch and heap themselves are covered by CountMinSketchTest
+ * and TopKHeapTest.
+ */
+class TrendingProductsServiceTest {
+
+    private static final String NODE = "node-a";
+    private static final byte[] NODES_KEY = bytes(CacheKeys.TRENDING_NODES);
+    private static final byte[] SKETCH_KEY = bytes(CacheKeys.format(CacheKeys.TRENDING_SKETCH, "all"));
+    private static final byte[] CANDIDATES_KEY = bytes(CacheKeys.format(CacheKeys.TRENDING_CANDIDATES, "all"));
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+
+    private final UUID mug = UUID.randomUUID();
+    private final UUID spoon = UUID.randomUUID();
+    private final UUID fork = UUID.randomUUID();
+
+    private TrendingProductsService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        service = new TrendingProductsService(redisTemplate);
+        ReflectionTestUtils.setField(service, "nodeId", NODE);
+        ReflectionTestUtils.setField(service, "topK", 50);
+        ReflectionTestUtils.setField(service, "halfLifeMinutes", 60L);
+        ReflectionTestUtils.setField(service, "depth", 4);
+        ReflectionTestUtils.setField(service, "width", 1024);
+        ReflectionTestUtils.setField(service, "viewWeight", 1.0);
+        ReflectionTestUtils.setField(service, "purchaseWeight", 5.0);
+        ReflectionTestUtils.setField(service, "syncIntervalMs", 15_000L);
+
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        RedisSetCommands setCommands = mock(RedisSetCommands.class);
+        when(connection.setCommands()).thenReturn(setCommands);
+        when(setCommands.sMembers(bytes(CacheKeys.TRENDING_SCOPES))).thenReturn(Set.of(bytes("all")));
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, RedisCallback.class).doInRedis(connection));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sync_HalvesScoresEveryHalfLifeAndFallsBackToLocalWithoutRedis() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+        service.recordPurchase(mug, null, 2);
+        ReflectionTestUtils.setField(service, "lastDecayAt",
+                System.currentTimeMillis() - Duration.ofMinutes(60).toMillis());
+
+        service.sync();
+
+        List<TrendingProductResponse> trending = service.getTrending(null, 10);
+        assertThat(trending).extracting(TrendingProductResponse::productId).containsExactly(mug);
+        assertThat(trending.get(0).score()).isCloseTo(5.0, within(0.01));
+    }
+
+    @Test
+    void sync_PublishesOwnFieldsAndMergesEveryLiveNode() {
+        service.recordView(mug, null);
+        CountMinSketch other = new CountMinSketch(4, 1024);
+        other.add(mug, 2);
+        other.add(spoon, 10);
+        long now = System.currentTimeMillis();
+        when(hashCommands.hGetAll(NODES_KEY)).thenReturn(fields(Map.of(
+                NODE, bytes(Long.toString(now)),
+                "node-b", bytes(Long.toString(now)))));
+        when(hashCommands.hGetAll(SKETCH_KEY)).thenReturn(fields(Map.of(
+                NODE, localSketch(Map.of(mug, 1.0)),
+                "node-b", other.toBytes())));
+        when(hashCommands.hGetAll(CANDIDATES_KEY)).thenReturn(fields(Map.of(
+                NODE, ids(mug),
+                "node-b", ids(spoon, mug))));
+
+        service.sync();
+
+        verify(hashCommands).hSet(aryEq(NODES_KEY), aryEq(bytes(NODE)), any(byte[].class));
+        verify(hashCommands).hSet(aryEq(SKETCH_KEY), aryEq(bytes(NODE)), any(byte[].class));
+        assertThat(service.getTrending(null, 10))
+                .extracting(TrendingProductResponse::productId)
+                .containsExactly(spoon, mug);
+        assertThat(service.getTrending(null, 10).get(1).score()).isCloseTo(3.0, within(0.01));
+        assertThat(deletedFields()).isEmpty();
+    }
+
+    @Test
+    void sync_DropsStaleAndUnregisteredNodesFromEveryScopeHash() {
+        long now = System.currentTimeMillis();
+        CountMinSketch dead = new CountMinSketch(4, 1024);
+        dead.add(fork, 100);
+        when(hashCommands.hGetAll(NODES_KEY)).thenReturn(fields(Map.of(
+                NODE, bytes(Long.toString(now)),
+                "node-stale", bytes(Long.toString(now - Duration.ofMinutes(10).toMillis())))));
+        when(hashCommands.hGetAll(SKETCH_KEY)).thenReturn(fields(Map.of(
+                NODE, localSketch(Map.of(mug, 1.0)),
+                "node-stale", dead.toBytes())));
+        when(hashCommands.hGetAll(CANDIDATES_KEY)).thenReturn(fields(Map.of(
+                NODE, ids(mug),
+                "node-stale", ids(fork),
+                "node-restarted", ids(fork))));
+
+        service.sync();
+
+        assertThat(deletedFields()).containsOnly(
+                Map.entry(CacheKeys.TRENDING_NODES, Set.of("node-stale")),
+                Map.entry(CacheKeys.format(CacheKeys.TRENDING_SKETCH, "all"), Set.of("node-stale")),
+                Map.entry(CacheKeys.format(CacheKeys.TRENDING_CANDIDATES, "all"),
+                        Set.of("node-stale", "node-restarted")));
+        assertThat(service.getTrending(null, 10)).extracting(TrendingProductResponse::productId)
+                .containsExactly(mug);
+    }
+
+    /** key → fields removed by every HDEL issued during the test */
+    private Map<String, Set<String>> deletedFields() {
+        Map<String, Set<String>> deleted = new HashMap<>();
+        mockingDetails(hashCommands).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("hDel"))
+                .forEach(invocation -> {
+                    Set<String> fields = deleted.computeIfAbsent(
+                            new String(invocation.getArgument(0, byte[].class), StandardCharsets.UTF_8),
+                            key -> new HashSet<>());
+                    for (byte[] field : (byte[][]) invocation.getRawArguments()[1]) {
+                        fields.add(new String(field, StandardCharsets.UTF_8));
+                    }
+                });
+        return deleted;
+    }
+
+    private static byte[] localSketch(Map<UUID, Double> counts) {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        counts.forEach(sketch::add);
+        return sketch.toBytes();
+    }
+
+    private static byte[] ids(UUID... ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(ids.length * 16);
+        for (UUID id : ids) {
+            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        }
+        return buffer.array();
+    }
+
+    private static Map<byte[], byte[]> fields(Map<String, byte[]> byNode) {
+        Map<byte[], byte[]> fields = new HashMap<>();
+        byNode.forEach((node, value) -> fields.put(bytes(node), value));
+        return fields;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.myshop.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+        @Test
+        void mightContain_NeverMissesAnItemThatWasPut() {
+                BloomFilter filter = new BloomFilter(10_000, 0.01);
+                String[] ids = new String[10_000];
+                for (int i = 0; i < ids.length; i++) {
+                        ids[i] = UUID.randomUUID().toString();
+                        filter.put(ids[i]);
+                }
+
+                for (String id : ids) {
+                        assertThat(filter.mightContain(id)).isTrue();
+                }
+        }
+
+        @Test
+        void mightContain_FalsePositiveRateStaysNearTargetAtCapacity() {
+                BloomFilter filter = new BloomFilter(10_000, 0.01);
+                for (int i = 0; i < 10_000; i++) {
+                        filter.put(UUID.randomUUID().toString());
+                }
+
+                int falsePositives = 0;
+                for (int i = 0; i < 100_000; i++) {
+                        if (filter.mightContain(UUID.randomUUID().toString())) {
+                                falsePositives++;
+                        }
+                }
+
+                // 1% target; allow for variance
+                assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        }
+
+        @Test
+        void constructor_SizesFromExpectedInsertionsAndRate() {
+                BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+                assertThat(filter.getBitCount()).isBetween(9_585_000L, 9_585_100L);
+                assertThat(filter.getHashCount()).isEqualTo(7);
+                assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> new BloomFilter(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+        }
+}
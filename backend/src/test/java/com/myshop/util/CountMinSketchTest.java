@@ -0,0 +1,62 @@
+package com.myshop.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CountMinSketchTest {
+
+        @Test
+        void estimate_NeverUndercountsAndIsExactWithoutCollisions() {
+                CountMinSketch sketch = new CountMinSketch(4, 1024);
+                UUID hot = UUID.randomUUID();
+                UUID cold = UUID.randomUUID();
+
+                for (int i = 0; i < 100; i++) {
+                        sketch.add(hot, 1);
+                }
+                sketch.add(cold, 3);
+
+                assertThat(sketch.estimate(hot)).isGreaterThanOrEqualTo(100);
+                assertThat(sketch.estimate(cold)).isGreaterThanOrEqualTo(3).isLessThan(100);
+                assertThat(sketch.estimate(UUID.randomUUID())).isLessThan(100);
+        }
+
+        @Test
+        void scale_DecaysAllCounters() {
+                CountMinSketch sketch = new CountMinSketch(4, 256);
+                UUID id = UUID.randomUUID();
+                sketch.add(id, 8);
+
+                sketch.scale(0.5);
+
+                assertThat(sketch.estimate(id)).isCloseTo(4, within(1e-9));
+        }
+
+        @Test
+        void merge_AfterRoundTripThroughBytes_SumsBothNodes() {
+                UUID id = UUID.randomUUID();
+                CountMinSketch nodeA = new CountMinSketch(4, 512);
+                CountMinSketch nodeB = new CountMinSketch(4, 512);
+                nodeA.add(id, 5);
+                nodeB.add(id, 7);
+
+                CountMinSketch merged = new CountMinSketch(4, 512);
+                merged.merge(CountMinSketch.fromBytes(nodeA.toBytes()));
+                merged.merge(CountMinSketch.fromBytes(nodeB.toBytes()));
+
+                assertThat(merged.estimate(id)).isGreaterThanOrEqualTo(12);
+        }
+
+        @Test
+        void merge_RejectsDifferentDimensions() {
+                CountMinSketch sketch = new CountMinSketch(4, 512);
+
+                assertThatThrownBy(() -> sketch.merge(new CountMinSketch(4, 256)))
+                                .isInstanceOf(IllegalArgumentException.class);
+        }
+}
@@ -0,0 +1,44 @@
+package com.myshop.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTest {
+
+        @Test
+        void next_ParsesQuotedFieldsEscapesAndEmbeddedNewlines() throws IOException {
+                CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                                "sku,name,description\r\n"
+                                                + "A-1,\"Mug, large\",\"Says \"\"hi\"\"\"\n"
+                                                + "A-2,Plate,\"line one\nline two\"\n"));
+
+                assertThat(reader.next()).containsExactly("sku", "name", "description");
+                assertThat(reader.next()).containsExactly("A-1", "Mug, large", "Says \"hi\"");
+                assertThat(reader.next()).containsExactly("A-2", "Plate", "line one\nline two");
+                assertThat(reader.next()).isNull();
+                assertThat(reader.getRecordNumber()).isEqualTo(3);
+        }
+
+        @Test
+        void next_KeepsTrailingEmptyFieldsAndSkipsBlankLines() throws IOException {
+                CsvRecordReader reader = new CsvRecordReader(new StringReader("a,,\n\n\nb,c,d"));
+
+                assertThat(reader.next()).containsExactly("a", "", "");
+                assertThat(reader.next()).containsExactly("b", "c", "d");
+                assertThat(reader.next()).isNull();
+        }
+
+        @Test
+        void next_UnterminatedQuote_Throws() throws IOException {
+                CsvRecordReader reader = new CsvRecordReader(new StringReader("a,\"broken\n"));
+
+                assertThatThrownBy(reader::next)
+                                .isInstanceOf(IOException.class)
+                                .hasMessageContaining("Unterminated");
+        }
+}
@@ -0,0 +1,43 @@
+package com.myshop.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntIntHashMapTest {
+
+        @Test
+        void addTo_AccumulatesAcrossResizes() {
+                IntIntHashMap map = new IntIntHashMap();
+
+                for (int round = 0; round < 3; round++) {
+                        for (int key = 0; key < 1_000; key++) {
+                                map.addTo(key, key);
+                        }
+                }
+
+                assertThat(map.size()).isEqualTo(1_000);
+                assertThat(map.get(0)).isZero();
+                assertThat(map.get(7)).isEqualTo(21);
+                assertThat(map.get(999)).isEqualTo(2_997);
+                assertThat(map.get(5_000)).isZero();
+        }
+
+        @Test
+        void retainTop_KeepsHighestValuesOnly() {
+                IntIntHashMap map = new IntIntHashMap();
+                for (int key = 0; key < 100; key++) {
+                        map.addTo(key, key + 1);
+                }
+
+                map.retainTop(3);
+
+                Map<Integer, Integer> entries = new HashMap<>();
+                map.forEach(entries::put);
+                assertThat(entries).containsOnly(Map.entry(97, 98), Map.entry(98, 99), Map.entry(99, 100));
+                assertThat(map.get(10)).isZero();
+        }
+}
@@ -0,0 +1,58 @@
+package com.myshop.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.myshop.dto.response.ApiResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonEnvelopeTest {
+
+        private final ObjectMapper objectMapper = new ObjectMapper()
+                        .registerModule(new JavaTimeModule())
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        @AfterEach
+        void clearMdc() {
+                MDC.clear();
+        }
+
+        @Test
+        void writeSuccess_MatchesJacksonRenderingOfApiResponse() throws Exception {
+                MDC.put("requestId", "req-\"42\"");
+                Object data = Map.of("name", "Mug ☕", "tags", List.of("a", "b"));
+                MockHttpServletResponse response = new MockHttpServletResponse();
+
+                JsonEnvelope.writeSuccess(response, objectMapper.writeValueAsBytes(data));
+
+                ObjectNode written = (ObjectNode) objectMapper.readTree(response.getContentAsByteArray());
+                ObjectNode expected = (ObjectNode) objectMapper.readTree(
+                                objectMapper.writeValueAsBytes(ApiResponse.success(data)));
+                assertThat(Instant.parse(written.remove("timestamp").asText())).isNotNull();
+                expected.remove("timestamp");
+                assertThat(written).isEqualTo(expected);
+                assertThat(response.getContentType()).startsWith("application/json");
+        }
+
+        @Test
+        void writeSuccess_OmitsMissingRequestIdLikeNonNullInclusion() throws Exception {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+
+                JsonEnvelope.writeSuccess(response, "[]".getBytes());
+
+                JsonNode written = objectMapper.readTree(response.getContentAsByteArray());
+                assertThat(written.has("requestId")).isFalse();
+                assertThat(written.get("data").isArray()).isTrue();
+        }
+}
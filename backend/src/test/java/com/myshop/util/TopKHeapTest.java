@@ -0,0 +1,43 @@
+package com.myshop.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKHeapTest {
+
+        @Test
+        void offer_KeepsOnlyTheHighestScores() {
+                TopKHeap<String> heap = new TopKHeap<>(2);
+
+                heap.offer("a", 1);
+                heap.offer("b", 5);
+                heap.offer("c", 3);
+                heap.offer("d", 0.5);
+
+                assertThat(heap.top()).extracting(TopKHeap.Entry::item).containsExactly("b", "c");
+        }
+
+        @Test
+        void offer_ExistingItem_UpdatesScoreInsteadOfDuplicating() {
+                TopKHeap<String> heap = new TopKHeap<>(3);
+                heap.offer("a", 1);
+                heap.offer("b", 2);
+
+                heap.offer("a", 10);
+
+                assertThat(heap.size()).isEqualTo(2);
+                assertThat(heap.top()).extracting(TopKHeap.Entry::item).containsExactly("a", "b");
+        }
+
+        @Test
+        void scale_PreservesOrder() {
+                TopKHeap<String> heap = new TopKHeap<>(3);
+                heap.offer("a", 4);
+                heap.offer("b", 8);
+
+                heap.scale(0.25);
+
+                assertThat(heap.top()).extracting(TopKHeap.Entry::score).containsExactly(2.0, 1.0);
+        }
+}